@@ -0,0 +1,80 @@
+// Prueba de carga de k6 para comparar hilos de plataforma y hilos virtuales.
+//
+// Escenarios (tasa de llegada constante, para medir latencia sin omisión coordinada):
+//   - login:    POST /auth/iniciar con credenciales válidas (MongoDB + hash de la contraseña).
+//   - consulta: GET /notificacion/contador con token Bearer (ruta protegida: filtro JWT,
+//               revocación, principal en caché y lectura del contador en MongoDB).
+//
+// Variables de entorno:
+//   BASE_URL   URL del servicio (por defecto http://localhost:8082)
+//   MODO       etiqueta del modo medido, se agrega a las métricas
+//   TASA_LOGIN, TASA_CONSULTA  solicitudes por segundo de cada escenario
+//   DURACION   duración de cada escenario (por defecto 60s)
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8082';
+const DURACION = __ENV.DURACION || '60s';
+const USUARIO = 'benchmark';
+const CONTRASENA = 'Benchmark123*';
+
+export const options = {
+    tags: { modo: __ENV.MODO || 'desconocido' },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    scenarios: {
+        login: {
+            executor: 'constant-arrival-rate',
+            exec: 'login',
+            rate: Number(__ENV.TASA_LOGIN || 50),
+            timeUnit: '1s',
+            duration: DURACION,
+            preAllocatedVUs: 100,
+            maxVUs: 1000,
+        },
+        consulta: {
+            executor: 'constant-arrival-rate',
+            exec: 'consulta',
+            rate: Number(__ENV.TASA_CONSULTA || 1000),
+            timeUnit: '1s',
+            duration: DURACION,
+            preAllocatedVUs: 200,
+            maxVUs: 2000,
+        },
+    },
+    thresholds: {
+        'http_req_duration{scenario:login}': ['p(99)>=0'],
+        'http_req_duration{scenario:consulta}': ['p(99)>=0'],
+        'http_reqs{scenario:login}': ['count>=0'],
+        'http_reqs{scenario:consulta}': ['count>=0'],
+    },
+};
+
+const JSON_HEADERS = { headers: { 'Content-Type': 'application/json' } };
+
+export function setup() {
+    // El registro falla si el usuario ya existe; en ambos casos se inicia sesión después.
+    http.post(`${BASE_URL}/auth/registrar`, JSON.stringify({
+        nombre: 'Benchmark',
+        correo: 'benchmark@gaaf.local',
+        usuario: USUARIO,
+        telefono: '3000000000',
+        contraseña: CONTRASENA,
+        rol: 'ADMIN',
+    }), JSON_HEADERS);
+    const sesion = http.post(`${BASE_URL}/auth/iniciar`,
+        JSON.stringify({ usuario: USUARIO, contraseña: CONTRASENA }), JSON_HEADERS);
+    check(sesion, { 'sesión inicial': (r) => r.status === 200 });
+    return { token: sesion.json('token') };
+}
+
+export function login() {
+    const r = http.post(`${BASE_URL}/auth/iniciar`,
+        JSON.stringify({ usuario: USUARIO, contraseña: CONTRASENA }), JSON_HEADERS);
+    check(r, { 'login 200': (res) => res.status === 200 });
+}
+
+export function consulta(datos) {
+    const r = http.get(`${BASE_URL}/notificacion/contador`,
+        { headers: { Authorization: `Bearer ${datos.token}` } });
+    check(r, { 'consulta 200': (res) => res.status === 200 });
+}
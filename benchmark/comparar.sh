@@ -0,0 +1,68 @@
+#!/usr/bin/env bash
+# Compara el rendimiento del servicio con hilos de plataforma y con hilos virtuales.
+#
+# Requisitos: Java 21, Maven, k6 y jq; MongoDB como replica set (docker compose up -d auth-db).
+# El servicio se arranca dos veces con el mismo jar, cambiando solo HILOS_VIRTUALES,
+# y se ejecuta benchmark/carga.js contra cada arranque. Al final se imprime una tabla con
+# el rendimiento (solicitudes/s) y la latencia p99 de cada escenario.
+#
+# Uso: benchmark/comparar.sh [duracion en segundos, p. ej. 60s]   (por defecto 60s)
+#
+# En modo virtual se habilita -Djdk.tracePinnedThreads=short; cualquier hilo virtual fijado
+# a su portador queda en benchmark/resultados/virtual.log.
+set -euo pipefail
+
+DIRECTORIO="$(cd "$(dirname "$0")" && pwd)"
+RAIZ="$(dirname "$DIRECTORIO")"
+RESULTADOS="$DIRECTORIO/resultados"
+DURACION="${1:-60s}"
+PUERTO="${PUERTO:-8082}"
+
+export SERVICE_AUTH="${SERVICE_AUTH:-autentificacion}"
+export DB_HOST_AUTENTIFICACION="${DB_HOST_AUTENTIFICACION:-localhost}"
+export DB_AUTENTIFICACION="${DB_AUTENTIFICACION:-benchmark}"
+export EUREKA_URL="${EUREKA_URL:-http://localhost:8761/eureka}"
+export JWT_SECRET="${JWT_SECRET:-secreto-benchmark}"
+# El registro en Eureka no forma parte de lo que se mide.
+export EUREKA_CLIENT_ENABLED=false
+
+mkdir -p "$RESULTADOS"
+(cd "$RAIZ" && ./mvnw -q -B package -DskipTests)
+JAR="$(ls "$RAIZ"/target/*.jar | grep -v plain | head -n 1)"
+
+medir() {
+    local modo="$1" virtual="$2" opciones="$3"
+    echo "==> Modo $modo"
+    HILOS_VIRTUALES="$virtual" java $opciones -jar "$JAR" > "$RESULTADOS/$modo.log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2>/dev/null || true" EXIT
+
+    # Cualquier respuesta HTTP indica que el servidor ya acepta conexiones
+    until [ "$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PUERTO/auth/.well-known/jwks.json")" != "000" ]; do
+        kill -0 "$pid" 2>/dev/null || { echo "El servicio no inició, ver $RESULTADOS/$modo.log"; exit 1; }
+        sleep 1
+    done
+
+    k6 run --quiet -e BASE_URL="http://localhost:$PUERTO" -e MODO="$modo" -e DURACION="$DURACION" \
+        --summary-export "$RESULTADOS/$modo.json" "$DIRECTORIO/carga.js"
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    trap - EXIT
+}
+
+medir plataforma false ""
+medir virtual true "-Djdk.tracePinnedThreads=short"
+
+segundos="${DURACION%s}"
+printf '\n%-12s %-10s %12s %12s\n' modo escenario "req/s" "p99 (ms)"
+for modo in plataforma virtual; do
+    for escenario in login consulta; do
+        jq -r --arg m "$modo" --arg e "$escenario" --argjson s "$segundos" '
+            [ $m, $e,
+              (.metrics["http_reqs{scenario:\($e)}"].count / $s),
+              .metrics["http_req_duration{scenario:\($e)}"]["p(99)"] ]
+            | @tsv' "$RESULTADOS/$modo.json" \
+        | awk -F '\t' '{ printf "%-12s %-10s %12.1f %12.1f\n", $1, $2, $3, $4 }'
+    done
+done
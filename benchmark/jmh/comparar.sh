@@ -0,0 +1,40 @@
+#!/usr/bin/env bash
+# Compara una ejecución de JMH con la línea base versionada en benchmark/jmh/linea-base.json.
+#
+# Requisitos: jq. Genere antes los resultados con:
+#   mvn -Pjmh test-compile exec:exec
+# que los deja en target/jmh-resultados.json (con el perfilador gc habilitado).
+#
+# Uso: benchmark/jmh/comparar.sh [resultados.json] [umbral en %]   (por defecto 10)
+#
+# Imprime, por benchmark y parámetros, el puntaje base, el actual, la diferencia y la memoria
+# reservada por operación. Termina con código 1 si algún benchmark es más lento que la base en
+# más del umbral. Para actualizar la línea base, copie los resultados sobre linea-base.json.
+set -euo pipefail
+
+DIRECTORIO="$(cd "$(dirname "$0")" && pwd)"
+RAIZ="$(dirname "$(dirname "$DIRECTORIO")")"
+BASE="$DIRECTORIO/linea-base.json"
+ACTUAL="${1:-$RAIZ/target/jmh-resultados.json}"
+UMBRAL="${2:-10}"
+
+jq -r -n --slurpfile base "$BASE" --slurpfile actual "$ACTUAL" --argjson umbral "$UMBRAL" '
+  def clave: .benchmark + (if .params then " " + (.params | to_entries | map("\(.key)=\(.value)") | join(",")) else "" end);
+  def asignacion: .secondaryMetrics["gc.alloc.rate.norm"].score // null;
+  ($base[0] | map({key: clave, value: .}) | from_entries) as $b
+  | ["benchmark", "unidad", "base", "actual", "dif%", "B/op", ""],
+    ($actual[0][] | clave as $k | ($b[$k] // null) as $anterior
+      | .primaryMetric as $m
+      | (if $anterior then (($m.score - $anterior.primaryMetric.score) / $anterior.primaryMetric.score * 100) else null end) as $dif
+      | [ ($k | sub("^com\\.udi\\.gaaf\\.autentificacion\\."; "")),
+          $m.scoreUnit,
+          (if $anterior then ($anterior.primaryMetric.score * 1000 | round / 1000) else "-" end),
+          ($m.score * 1000 | round / 1000),
+          (if $dif then ($dif * 10 | round / 10) else "-" end),
+          ((asignacion // 0) | round),
+          (if $dif and $dif > $umbral then "REGRESION" else "" end) ])
+  | @tsv' > "${TMPDIR:-/tmp}/jmh-comparacion.tsv"
+
+awk -F'\t' '{ printf "%-62s %-6s %12s %12s %8s %10s %s\n", $1, $2, $3, $4, $5, $6, $7 }' \
+  "${TMPDIR:-/tmp}/jmh-comparacion.tsv"
+! grep -q REGRESION "${TMPDIR:-/tmp}/jmh-comparacion.tsv"
@@ -0,0 +1,54 @@
+package com.udi.gaaf.autentificacion.common;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.udi.gaaf.autentificacion.auth.DatosDetalleSesion;
+import com.udi.gaaf.autentificacion.usuario.DatosDetalleUsuario;
+import com.udi.gaaf.autentificacion.usuario.Roles;
+
+/**
+ * Serialización con Jackson de las respuestas más frecuentes: la sesión del inicio de sesión y
+ * el detalle de usuario.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SerializacionBenchmark {
+
+    private ObjectMapper objectMapper;
+
+    private DatosDetalleSesion sesion;
+
+    private DatosDetalleUsuario usuario;
+
+    @Setup
+    public void preparar() {
+        objectMapper = JsonMapper.builder().findAndAddModules().build();
+        sesion = new DatosDetalleSesion("Juan Pérez",
+                "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9.eyJpc3MiOiJHQUFGIiwic3ViIjoiSnVhbiBQw6lyZXoiLCJpZCI6IjY1ZjFjMmE5ZTRiMGExYjJjM2Q0ZTVmNiIsInJvbCI6IkFETUlOIn0.firma",
+                Roles.ADMIN, "65f1c2a9e4b0a1b2c3d4e5f6", "Yk9x3m8qZ1R0c2VzaW9uLXJlZnJlc2NvLWJlbmNobWFyaw");
+        usuario = new DatosDetalleUsuario("65f1c2a9e4b0a1b2c3d4e5f6", "jperez", "Juan Pérez",
+                "jperez@example.com", "3001234567", true, Roles.ADMIN);
+    }
+
+    @Benchmark
+    public byte[] serializarSesion() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(sesion);
+    }
+
+    @Benchmark
+    public byte[] serializarUsuario() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(usuario);
+    }
+}
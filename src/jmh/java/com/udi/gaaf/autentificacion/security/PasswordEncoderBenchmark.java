@@ -0,0 +1,53 @@
+package com.udi.gaaf.autentificacion.security;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Costo de BCrypt por factor de trabajo, para elegir {@code api.hash.bcrypt.costo} y dimensionar
+ * {@code api.hash.hilos}. Cada incremento del costo duplica el tiempo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class PasswordEncoderBenchmark {
+
+    /** Factor de trabajo de BCrypt. */
+    @Param({ "10", "11", "12" })
+    public int costo;
+
+    private BCryptPasswordEncoder encoder;
+
+    private String hash;
+
+    @Setup
+    public void preparar() {
+        encoder = new BCryptPasswordEncoder(costo);
+        hash = encoder.encode("Contrasena#2024");
+    }
+
+    @Benchmark
+    public String codificar() {
+        return encoder.encode("Contrasena#2024");
+    }
+
+    @Benchmark
+    public boolean verificar() {
+        return encoder.matches("Contrasena#2024", hash);
+    }
+}
@@ -0,0 +1,51 @@
+package com.udi.gaaf.autentificacion.security;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Comparación de rutas públicas con {@link RutasPublicas} frente a la lista de expresiones
+ * regulares que usaba {@link SecurityFilter}, conservada aquí como referencia.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RutasPublicasBenchmark {
+
+    /** Expresiones regulares anteriores, evaluadas en orden. */
+    private static final List<Pattern> RUTAS_EXCLUIDAS = List.of(
+            Pattern.compile("^/auth/.+$"),
+            Pattern.compile("^/usuario(?:/.*)?$"),
+            Pattern.compile("^/v3/api-docs(/.*)?$"),
+            Pattern.compile("^/docs(/.*)?$"),
+            Pattern.compile("^/swagger-ui\\.html$"),
+            Pattern.compile("^/swagger-ui(/.*)?$"));
+
+    /** Ruta consultada: pública al inicio y al final de la lista, y protegida. */
+    @Param({ "/auth/iniciar", "/swagger-ui/index.html", "/actuator/metrics" })
+    public String ruta;
+
+    @Benchmark
+    public boolean expresionesRegulares() {
+        for (Pattern pattern : RUTAS_EXCLUIDAS) {
+            if (pattern.matcher(ruta).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean arbolSegmentos() {
+        return RutasPublicas.esPublica(ruta);
+    }
+}
@@ -0,0 +1,70 @@
+package com.udi.gaaf.autentificacion.security;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import jakarta.servlet.FilterChain;
+
+/**
+ * Recorrido de una solicitud por {@link SecurityFilter}, con el repositorio de usuarios
+ * reemplazado por un doble en memoria.
+ * <p>
+ * {@code rutaPublica} mide la ruta rápida; {@code rutaProtegida} incluye la lectura del
+ * encabezado, la verificación del token desde la caché, la consulta de revocación y la carga del
+ * principal según el modo.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SecurityFilterBenchmark {
+
+    /** Modo de autenticación del filtro. */
+    @Param({ "BASE_DATOS", "CLAIMS" })
+    public ModoAutenticacion modo;
+
+    private SecurityFilter filtro;
+
+    private MockHttpServletRequest solicitudPublica;
+
+    private MockHttpServletRequest solicitudProtegida;
+
+    private MockHttpServletResponse respuesta;
+
+    private final FilterChain cadena = (request, response) -> { };
+
+    @Setup
+    public void preparar() {
+        var tokenService = ServiciosBenchmark.tokenService(ServiciosBenchmark.claves(AlgoritmoFirma.HS256), 10_000);
+        var token = tokenService.generarToken(ServiciosBenchmark.usuario()).token();
+        filtro = ServiciosBenchmark.securityFilter(tokenService, modo);
+
+        solicitudPublica = new MockHttpServletRequest("POST", "/auth/iniciar");
+        solicitudProtegida = new MockHttpServletRequest("GET", "/actuator/metrics");
+        solicitudProtegida.addHeader("Authorization", "Bearer " + token);
+        respuesta = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public void rutaPublica() throws Exception {
+        filtro.doFilterInternal(solicitudPublica, respuesta, cadena);
+    }
+
+    @Benchmark
+    public void rutaProtegida() throws Exception {
+        filtro.doFilterInternal(solicitudProtegida, respuesta, cadena);
+        // Lo mismo que hace SecurityContextHolderFilter al terminar cada solicitud
+        SecurityContextHolder.clearContext();
+    }
+}
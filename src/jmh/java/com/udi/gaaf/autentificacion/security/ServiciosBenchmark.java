@@ -0,0 +1,129 @@
+package com.udi.gaaf.autentificacion.security;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.udi.gaaf.autentificacion.revocacion.RevocacionService;
+import com.udi.gaaf.autentificacion.usuario.CachePrincipales;
+import com.udi.gaaf.autentificacion.usuario.Roles;
+import com.udi.gaaf.autentificacion.usuario.Usuario;
+import com.udi.gaaf.autentificacion.usuario.UsuarioRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Construcción de los servicios de seguridad fuera del contexto de Spring para los benchmarks.
+ * <p>
+ * Se inyectan los mismos campos que llenaría Spring, sin MongoDB: el repositorio de usuarios es
+ * un doble que siempre retorna {@link #usuario()} y el filtro de revocación se marca como cargado
+ * y vacío, que es el caso habitual en producción.
+ * </p>
+ */
+final class ServiciosBenchmark {
+
+    /** Secreto HMAC de los benchmarks. */
+    private static final String SECRETO = "secreto-de-benchmark";
+
+    private ServiciosBenchmark() {
+    }
+
+    /**
+     * Crea un usuario activo de ejemplo.
+     *
+     * @return usuario con rol {@link Roles#ADMIN}.
+     */
+    static Usuario usuario() {
+        var usuario = new Usuario();
+        usuario.setId("65f1c2a9e4b0a1b2c3d4e5f6");
+        usuario.setUsuario("jperez");
+        usuario.setNombre("Juan Pérez");
+        usuario.setCorreo("jperez@example.com");
+        usuario.setTelefono("3001234567");
+        usuario.setContrasena("{bcrypt}$2a$10$abcdefghijklmnopqrstuv");
+        usuario.setActivo(true);
+        usuario.setRol(Roles.ADMIN);
+        return usuario;
+    }
+
+    /**
+     * Crea las claves de firma; las claves asimétricas se generan en memoria.
+     *
+     * @param algoritmo algoritmo de firma.
+     * @return claves de firma.
+     */
+    static ClavesFirmaJwt claves(AlgoritmoFirma algoritmo) {
+        return new ClavesFirmaJwt(algoritmo, SECRETO, "", "");
+    }
+
+    /**
+     * Crea el servicio de tokens.
+     *
+     * @param claves claves de firma.
+     * @param tamanoCache tamaño de la caché de tokens verificados; {@code 0} la desactiva.
+     * @return servicio inicializado.
+     */
+    static TokenService tokenService(ClavesFirmaJwt claves, long tamanoCache) {
+        var tokenService = new TokenService();
+        ReflectionTestUtils.setField(tokenService, "clavesFirma", claves);
+        ReflectionTestUtils.setField(tokenService, "registry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(tokenService, "cacheTokens",
+                new CacheTokensVerificados(tamanoCache, Duration.ofMinutes(5), new SimpleMeterRegistry()));
+        tokenService.inicializar();
+        return tokenService;
+    }
+
+    /**
+     * Crea el servicio de revocación con el filtro cargado y vacío.
+     *
+     * @return servicio de revocación.
+     */
+    static RevocacionService revocacionService() {
+        var revocacion = new RevocacionService(Runnable::run, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(revocacion, "capacidad", 100_000L);
+        ReflectionTestUtils.setField(revocacion, "falsosPositivos", 0.01);
+        ReflectionTestUtils.invokeMethod(revocacion, "inicializar");
+        ReflectionTestUtils.setField(revocacion, "cargado", true);
+        return revocacion;
+    }
+
+    /**
+     * Crea la caché de principales sobre un repositorio que siempre retorna {@link #usuario()}.
+     *
+     * @return caché de principales.
+     */
+    static CachePrincipales cachePrincipales() {
+        var usuario = usuario();
+        var repository = (UsuarioRepository) Proxy.newProxyInstance(
+                UsuarioRepository.class.getClassLoader(),
+                new Class<?>[] { UsuarioRepository.class },
+                (proxy, metodo, argumentos) -> switch (metodo.getName()) {
+                    case "findDetailById" -> (UserDetails) usuario;
+                    case "toString" -> "UsuarioRepository de benchmark";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == argumentos[0];
+                    default -> throw new UnsupportedOperationException(metodo.getName());
+                });
+        return new CachePrincipales(repository, Runnable::run, 10_000, Duration.ofMinutes(10),
+                new SimpleMeterRegistry());
+    }
+
+    /**
+     * Crea el filtro de seguridad.
+     *
+     * @param tokenService servicio de tokens.
+     * @param modo modo de autenticación.
+     * @return filtro con sus dependencias inyectadas.
+     */
+    static SecurityFilter securityFilter(TokenService tokenService, ModoAutenticacion modo) {
+        var filtro = new SecurityFilter();
+        ReflectionTestUtils.setField(filtro, "tokenService", tokenService);
+        ReflectionTestUtils.setField(filtro, "revocacionService", revocacionService());
+        ReflectionTestUtils.setField(filtro, "cachePrincipales", cachePrincipales());
+        ReflectionTestUtils.setField(filtro, "modo", modo);
+        ReflectionTestUtils.setField(filtro, "metricas", new MetricasAutenticacion(new SimpleMeterRegistry()));
+        return filtro;
+    }
+}
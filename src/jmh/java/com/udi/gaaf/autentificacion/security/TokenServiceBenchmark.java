@@ -0,0 +1,70 @@
+package com.udi.gaaf.autentificacion.security;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.udi.gaaf.autentificacion.auth.DatosDetalleSesion;
+import com.udi.gaaf.autentificacion.usuario.Usuario;
+
+/**
+ * Emisión y verificación de tokens con {@link TokenService}.
+ * <p>
+ * {@code getUsuarioId} y {@code getSubject} miden el caso habitual, con el token ya en la caché
+ * de tokens verificados; {@code getClaimsSinCache} mide la verificación completa de la firma.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TokenServiceBenchmark {
+
+    /** Algoritmo de firma. */
+    @Param({ "HS256", "RS256", "ES256" })
+    public AlgoritmoFirma algoritmo;
+
+    private TokenService tokenService;
+
+    private TokenService tokenServiceSinCache;
+
+    private Usuario usuario;
+
+    private String token;
+
+    @Setup
+    public void preparar() {
+        var claves = ServiciosBenchmark.claves(algoritmo);
+        tokenService = ServiciosBenchmark.tokenService(claves, 10_000);
+        tokenServiceSinCache = ServiciosBenchmark.tokenService(claves, 0);
+        usuario = ServiciosBenchmark.usuario();
+        token = tokenService.generarToken(usuario).token();
+        tokenService.getClaims(token);
+    }
+
+    @Benchmark
+    public DatosDetalleSesion generarToken() {
+        return tokenService.generarToken(usuario);
+    }
+
+    @Benchmark
+    public String getUsuarioId() {
+        return tokenService.getUsuarioId(token);
+    }
+
+    @Benchmark
+    public String getSubject() {
+        return tokenService.getSubject(token);
+    }
+
+    @Benchmark
+    public DatosClaimsToken getClaimsSinCache() {
+        return tokenServiceSinCache.getClaims(token);
+    }
+}
@@ -0,0 +1,36 @@
+package com.udi.gaaf.autentificacion.usuario;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * {@link Usuario#getAuthorities()}, consultado por Spring Security en cada solicitud autenticada.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UsuarioBenchmark {
+
+    private Usuario usuario;
+
+    @Setup
+    public void preparar() {
+        usuario = new Usuario();
+        usuario.setActivo(true);
+        usuario.setRol(Roles.COORDINADOR_COMPRAS);
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return usuario.getAuthorities();
+    }
+}
@@ -3,8 +3,10 @@ package com.udi.gaaf.autentificacion;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @EnableDiscoveryClient
+@EnableScheduling
 @SpringBootApplication
 public class MicroservicioAutentificacionApplication {
 
@@ -1,14 +1,29 @@
 package com.udi.gaaf.autentificacion.auth;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import com.udi.gaaf.autentificacion.common.DatosDetalleResponse;
 import com.udi.gaaf.autentificacion.errors.AuthenticationException;
+import com.udi.gaaf.autentificacion.errors.DemasiadosIntentosException;
+import com.udi.gaaf.autentificacion.errors.NotTokenValidException;
+import com.udi.gaaf.autentificacion.errors.ServicioSaturadoException;
+import com.udi.gaaf.autentificacion.revocacion.RevocacionService;
+import com.udi.gaaf.autentificacion.security.MetricasAutenticacion;
 import com.udi.gaaf.autentificacion.security.TokenService;
+import com.udi.gaaf.autentificacion.usuario.CachePrincipales;
 import com.udi.gaaf.autentificacion.usuario.DatosRegistrarUsuario;
 import com.udi.gaaf.autentificacion.usuario.Usuario;
 import com.udi.gaaf.autentificacion.usuario.UsuarioService;
@@ -22,6 +37,11 @@ import com.udi.gaaf.autentificacion.usuario.UsuarioService;
 @Service
 public class AuthService {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthService.class);
+
+    /** Tiempo sugerido antes de reintentar cuando no se pudo cargar el usuario. */
+    private static final Duration REINTENTAR_EN = Duration.ofSeconds(5);
+
     /** Servicio de gestión de usuarios. */
     @Autowired
     private UsuarioService usuarioService;
@@ -34,6 +54,30 @@ public class AuthService {
     @Autowired
     private TokenService tokenService;
 
+    /** Servicio de emisión y rotación de tokens de refresco. */
+    @Autowired
+    private TokenRefrescoService tokenRefrescoService;
+
+    /** Servicio de revocación de tokens. */
+    @Autowired
+    private RevocacionService revocacionService;
+
+    /** Codificador de contraseñas, usado para actualizar hashes con una política anterior. */
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    /** Protección contra intentos de inicio de sesión por fuerza bruta. */
+    @Autowired
+    private LimitadorIntentos limitadorIntentos;
+
+    /** Caché de principales utilizada para obtener el usuario al renovar la sesión. */
+    @Autowired
+    private CachePrincipales cachePrincipales;
+
+    /** Métricas de duración del inicio de sesión. */
+    @Autowired
+    private MetricasAutenticacion metricas;
+
     /**
      * Registra un nuevo usuario en el sistema.
      *
@@ -58,28 +102,169 @@ public class AuthService {
      * Inicia sesión con las credenciales del usuario.
      *
      * <p>Autentica las credenciales mediante el {@link AuthenticationManager} y, 
-     * si son válidas, genera un token JWT asociado al usuario autenticado.</p>
+     * si son válidas, genera un token JWT asociado al usuario autenticado junto con
+     * un token de refresco que inicia una nueva familia de rotación. Si el hash almacenado
+     * no cumple la política vigente, se reemplaza por uno nuevo. La duración se registra en
+     * {@code auth.inicio.duracion} según el resultado.</p>
      *
      * @param datos Record que contiene las credenciales de acceso (usuario y contraseña)
+     * @param ip dirección IP del cliente, usada para limitar los intentos fallidos
      * @return un objeto {@link DatosDetalleSesion} que contiene el token JWT y los datos del usuario autenticado
      * @throws AuthenticationException si las credenciales son incorrectas
+     * @throws ServicioSaturadoException si se alcanzó el límite de verificaciones de contraseña simultáneas
+     *         o no se pudo cargar el usuario (por ejemplo, con MongoDB no disponible)
+     * @throws DemasiadosIntentosException si el usuario o la IP superaron el límite de intentos fallidos
      * @throws RuntimeException si ocurre un error inesperado durante el proceso de autenticación
      */
-    public DatosDetalleSesion inicio(DatosIniciarSesion datos) {
+    public DatosDetalleSesion inicio(DatosIniciarSesion datos, String ip) {
+        long inicio = System.nanoTime();
+        var resultado = "error";
         try {
+            // Se rechaza antes de consultar la base de datos o calcular el hash
+            limitadorIntentos.verificar(datos.usuario(), ip);
+
             Authentication authenticationRequest =
                 new UsernamePasswordAuthenticationToken(datos.usuario(), datos.contraseña());
             
             Authentication usuarioAutenticado = authenticationManager.authenticate(authenticationRequest);
             
             // Generación del token JWT a partir del usuario autenticado
-            var jwtToken = tokenService.generarToken((Usuario) usuarioAutenticado.getPrincipal());
-            return jwtToken;
+            var usuario = (Usuario) usuarioAutenticado.getPrincipal();
+            actualizarHashSiCorresponde(usuario, datos.contraseña());
+            var jwtToken = tokenService.generarToken(usuario);
+            limitadorIntentos.registrarExito(datos.usuario());
+            resultado = "exito";
+            return jwtToken.conTokenRefresco(tokenRefrescoService.emitir(usuario.getId()));
 
+        } catch (DemasiadosIntentosException e) {
+            resultado = "bloqueado";
+            throw e;
         } catch (BadCredentialsException e) {
-            throw new AuthenticationException("Usuario o contraseña incorrectos");
+            resultado = "credenciales";
+            limitadorIntentos.registrarFallo(datos.usuario(), ip);
+            throw new AuthenticationException("Usuario o contraseña incorrectos", e);
+        } catch (InternalAuthenticationServiceException e) {
+            // Falla al cargar el usuario, no de sus credenciales: no cuenta como intento fallido
+            log.error("No se pudo cargar el usuario al iniciar sesión: {}", e.getMessage());
+            throw new ServicioSaturadoException("El servicio no está disponible, intente de nuevo más tarde.", REINTENTAR_EN);
+        } catch (org.springframework.security.core.AuthenticationException e) {
+            // Usuario deshabilitado: se rechaza antes de verificar la contraseña, no cuenta como intento fallido
+            resultado = "credenciales";
+            throw new RuntimeException("Error en el proceso de autenticación", e);
+        } catch (ServicioSaturadoException e) {
+            resultado = "saturado";
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Error en el proceso de autenticación", e);
+        } finally {
+            metricas.registrarInicioSesion(resultado, inicio);
+        }
+    }
+
+    /**
+     * Reemplaza el hash de la contraseña si quedó por debajo de la política vigente.
+     *
+     * <p>Se aprovecha que la contraseña en claro solo está disponible en el inicio de sesión.
+     * Si el servicio está saturado o la actualización falla, se reintenta en el siguiente
+     * inicio de sesión sin afectar al actual.</p>
+     *
+     * @param usuario usuario autenticado, con el hash almacenado
+     * @param contrasena contraseña en claro ya verificada
+     */
+    private void actualizarHashSiCorresponde(Usuario usuario, String contrasena) {
+        if (!passwordEncoder.upgradeEncoding(usuario.getContrasena())) {
+            return;
+        }
+        try {
+            usuarioService.reemplazarHashContrasena(usuario.getId(), usuario.getContrasena(),
+                    passwordEncoder.encode(contrasena));
+        } catch (RuntimeException e) {
+            log.warn("No se pudo actualizar el hash de la contraseña del usuario {}: {}", usuario.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Renueva la sesión a partir de un token de refresco.
+     *
+     * <p>Rota el token de refresco y emite un nuevo token JWT sin volver a verificar
+     * la contraseña. Si el usuario ya no existe o está inactivo, se revocan sus tokens
+     * de refresco.</p>
+     *
+     * @param datos Record con el token de refresco vigente
+     * @return un objeto {@link DatosDetalleSesion} con el nuevo token JWT y el nuevo token de refresco
+     * @throws AuthenticationException si el token de refresco no es válido o el usuario no puede iniciar sesión
+     */
+    public DatosDetalleSesion refrescar(DatosRefrescarSesion datos) {
+        var rotacion = tokenRefrescoService.rotar(datos.tokenRefresco());
+        var usuario = cachePrincipales.obtener(rotacion.usuarioId());
+        if (usuario == null || !usuario.isEnabled()) {
+            tokenRefrescoService.revocarUsuario(rotacion.usuarioId());
+            throw new AuthenticationException("El usuario no puede iniciar sesión");
+        }
+        var jwtToken = tokenService.generarToken((Usuario) usuario);
+        return jwtToken.conTokenRefresco(rotacion.tokenRefresco());
+    }
+
+    /**
+     * Cierra la sesión revocando el token JWT y los tokens de refresco del usuario.
+     *
+     * @param token token JWT, con o sin el prefijo {@code Bearer}
+     * @return record {@link DatosDetalleResponse} con el mensaje de confirmación
+     * @throws NotTokenValidException si el token no es válido
+     */
+    public DatosDetalleResponse cerrarSesion(String token) {
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        var claims = tokenService.getClaims(token);
+        revocacionService.revocarToken(claims);
+        if (claims.id() != null) {
+            tokenRefrescoService.revocarUsuario(claims.id());
+        }
+        return new DatosDetalleResponse(200, "Sesión cerrada correctamente.");
+    }
+
+    /**
+     * Valida un lote de tokens JWT.
+     *
+     * <p>Cada token se verifica con {@link TokenService}, reutilizando la caché de tokens
+     * verificados. Las confirmaciones de revocación contra MongoDB se lanzan todas con
+     * {@link RevocacionService#estaRevocadoAsync(com.udi.gaaf.autentificacion.security.DatosClaimsToken)}
+     * y se esperan al final, de modo que el lote no espera una consulta tras otra ni ocupa
+     * hilos compartidos. El resultado conserva el orden de los tokens recibidos.</p>
+     *
+     * @param datos Record con los tokens a validar
+     * @return lista de {@link DatosDetalleIntrospeccion}, uno por token
+     */
+    public List<DatosDetalleIntrospeccion> introspeccionar(DatosIntrospeccion datos) {
+        var pendientes = datos.tokens().stream().map(this::introspeccionar).toList();
+        return pendientes.stream().map(CompletableFuture::join).toList();
+    }
+
+    /**
+     * Valida un token y extrae sus claims sin lanzar excepciones.
+     *
+     * @param token token JWT, con o sin el prefijo {@code Bearer}
+     * @return futuro con el detalle del token, o con {@link DatosDetalleIntrospeccion#INVALIDO}
+     */
+    private CompletableFuture<DatosDetalleIntrospeccion> introspeccionar(String token) {
+        if (token == null || token.isBlank()) {
+            return CompletableFuture.completedFuture(DatosDetalleIntrospeccion.INVALIDO);
+        }
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        try {
+            var claims = tokenService.getClaims(token);
+            if (Boolean.FALSE.equals(claims.activo())) {
+                return CompletableFuture.completedFuture(DatosDetalleIntrospeccion.INVALIDO);
+            }
+            return revocacionService.estaRevocadoAsync(claims).thenApply(revocado -> revocado
+                    ? DatosDetalleIntrospeccion.INVALIDO
+                    : new DatosDetalleIntrospeccion(
+                            true, claims.id(), claims.rol(), claims.sujeto(), claims.expiracion()));
+        } catch (NotTokenValidException e) {
+            return CompletableFuture.completedFuture(DatosDetalleIntrospeccion.INVALIDO);
         }
     }
 }
@@ -0,0 +1,80 @@
+package com.udi.gaaf.autentificacion.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.udi.gaaf.autentificacion.errors.AuthenticationException;
+
+/**
+ * Clientes autorizados a usar la introspección de tokens ({@code POST /auth/introspect}).
+ * <p>
+ * El gateway y los demás servicios se autentican con HTTP Basic ({@code cliente:secreto}). Los
+ * clientes se configuran en {@code api.jwt.introspeccion.clientes} como una lista de pares
+ * {@code cliente:secreto} separados por comas. Sin clientes configurados, la introspección
+ * rechaza todas las solicitudes: no puede usarse para averiguar si un token robado sigue vigente.
+ * </p>
+ */
+@Component
+public class ClientesIntrospeccion {
+
+    /** Prefijo del encabezado {@code Authorization} con HTTP Basic. */
+    private static final String PREFIJO_BASIC = "Basic ";
+
+    /** Secreto de cada cliente, en bytes para compararlo en tiempo constante. */
+    private final Map<String, byte[]> secretos = new HashMap<>();
+
+    /**
+     * Crea el registro de clientes.
+     *
+     * @param clientes pares {@code cliente:secreto} configurados.
+     * @throws IllegalArgumentException si un par no tiene cliente o secreto.
+     */
+    public ClientesIntrospeccion(@Value("${api.jwt.introspeccion.clientes:}") List<String> clientes) {
+        for (var par : clientes) {
+            if (par.isBlank()) {
+                continue;
+            }
+            int separador = par.indexOf(':');
+            if (separador <= 0 || separador == par.length() - 1) {
+                throw new IllegalArgumentException("Cliente de introspección no válido; se espera cliente:secreto");
+            }
+            secretos.put(par.substring(0, separador).trim(),
+                    par.substring(separador + 1).trim().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Verifica las credenciales del cliente.
+     *
+     * @param autorizacion encabezado {@code Authorization} de la solicitud.
+     * @return identificador del cliente autenticado.
+     * @throws AuthenticationException si faltan las credenciales o no son válidas.
+     */
+    public String autenticar(String autorizacion) {
+        if (autorizacion == null || !autorizacion.regionMatches(true, 0, PREFIJO_BASIC, 0, PREFIJO_BASIC.length())) {
+            throw new AuthenticationException("La introspección requiere las credenciales del cliente");
+        }
+        String credenciales;
+        try {
+            credenciales = new String(Base64.getDecoder().decode(autorizacion.substring(PREFIJO_BASIC.length()).trim()),
+                    StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            throw new AuthenticationException("Credenciales del cliente no válidas");
+        }
+        int separador = credenciales.indexOf(':');
+        var cliente = separador > 0 ? credenciales.substring(0, separador) : "";
+        var esperado = secretos.get(cliente);
+        var recibido = credenciales.substring(separador + 1).getBytes(StandardCharsets.UTF_8);
+        if (esperado == null || !MessageDigest.isEqual(esperado, recibido)) {
+            throw new AuthenticationException("Credenciales del cliente no válidas");
+        }
+        return cliente;
+    }
+}
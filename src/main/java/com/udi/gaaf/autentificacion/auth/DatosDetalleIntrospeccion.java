@@ -0,0 +1,30 @@
+package com.udi.gaaf.autentificacion.auth;
+
+import java.time.Instant;
+
+import com.udi.gaaf.autentificacion.usuario.Roles;
+
+/**
+ * Representa el resultado de la introspección de un token.
+ *
+ * <p>Este {@code record} se devuelve en el mismo orden en que se enviaron los tokens.
+ * Si el token no es válido, solo {@code valido} tiene valor.</p>
+ *
+ * @param valido indica si el token es válido, no ha expirado y pertenece a un usuario activo
+ * @param id identificador del usuario
+ * @param rol rol del usuario
+ * @param sub nombre del usuario (claim {@code sub})
+ * @param exp instante de expiración del token
+ */
+public record DatosDetalleIntrospeccion(
+    Boolean valido,
+    String id,
+    Roles rol,
+    String sub,
+    Instant exp
+) {
+
+    /** Resultado para un token inválido. */
+    public static final DatosDetalleIntrospeccion INVALIDO =
+            new DatosDetalleIntrospeccion(false, null, null, null, null);
+}
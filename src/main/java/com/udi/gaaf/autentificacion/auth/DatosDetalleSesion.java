@@ -12,10 +12,23 @@ import com.udi.gaaf.autentificacion.usuario.Roles;
  * @param token token JWT generado para la sesión del usuario
  * @param rol rol asignado al usuario dentro del sistema
  * @param id identificación del usario
+ * @param tokenRefresco token de refresco para obtener un nuevo token JWT sin credenciales
  */
 public record DatosDetalleSesion(
     String usuario,
     String token,
     Roles rol,
-    String id
-) {}
+    String id,
+    String tokenRefresco
+) {
+
+    /**
+     * Crea una copia de la sesión con el token de refresco indicado.
+     *
+     * @param tokenRefresco token de refresco emitido
+     * @return nueva sesión con el token de refresco
+     */
+    public DatosDetalleSesion conTokenRefresco(String tokenRefresco) {
+        return new DatosDetalleSesion(usuario, token, rol, id, tokenRefresco);
+    }
+}
@@ -0,0 +1,21 @@
+package com.udi.gaaf.autentificacion.auth;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Representa una solicitud de introspección de varios tokens.
+ *
+ * <p>Este {@code record} se utiliza como DTO para que el gateway y los demás servicios
+ * validen un lote de tokens JWT en una sola llamada.</p>
+ *
+ * @param tokens tokens JWT a validar, con o sin el prefijo {@code Bearer}
+ */
+public record DatosIntrospeccion(
+
+    @NotEmpty(message = "Debe enviar al menos un token")
+    @Size(max = 100, message = "No se pueden validar más de 100 tokens por solicitud")
+    List<String> tokens
+) {}
@@ -0,0 +1,17 @@
+package com.udi.gaaf.autentificacion.auth;
+
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * Representa los datos de entrada para renovar una sesión.
+ *
+ * <p>Este {@code record} se utiliza como DTO para recibir el token de refresco
+ * obtenido al iniciar sesión o en la renovación anterior.</p>
+ *
+ * @param tokenRefresco token de refresco vigente
+ */
+public record DatosRefrescarSesion(
+
+    @NotBlank(message = "El token de refresco no puede estar vacío")
+    String tokenRefresco
+) {}
@@ -0,0 +1,12 @@
+package com.udi.gaaf.autentificacion.auth;
+
+/**
+ * Resultado de rotar un token de refresco.
+ *
+ * @param usuarioId identificador del usuario dueño del token
+ * @param tokenRefresco nuevo token de refresco de la misma familia
+ */
+public record DatosRotacionRefresco(
+    String usuarioId,
+    String tokenRefresco
+) {}
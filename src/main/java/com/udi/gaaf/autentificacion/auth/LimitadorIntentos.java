@@ -0,0 +1,187 @@
+package com.udi.gaaf.autentificacion.auth;
+
+import java.time.Duration;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.udi.gaaf.autentificacion.errors.DemasiadosIntentosException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Protección en memoria contra ataques de fuerza bruta al inicio de sesión.
+ * <p>
+ * Cuenta los intentos fallidos por nombre de usuario y por IP del cliente en ventanas deslizantes
+ * sin bloqueos ({@link VentanaDeslizante}). Al superar el umbral de una clave, esta se bloquea
+ * con una espera que se duplica en cada bloqueo consecutivo. La verificación se hace antes de
+ * consultar MongoDB o calcular el hash de la contraseña, de modo que un intento rechazado no
+ * cuesta más que una búsqueda en memoria.
+ * </p>
+ *
+ * <p>
+ * Las ventanas se guardan en cachés Caffeine con tamaño máximo y expiración por inactividad,
+ * por lo que la memoria permanece acotada aunque se reciban millones de claves distintas.
+ * </p>
+ *
+ * <h3>Métricas</h3>
+ * <ul>
+ *   <li>{@code login.intentos.rechazos}: intentos rechazados, por {@code clave} ({@code usuario}, {@code ip}).</li>
+ *   <li>{@code login.intentos.claves}: claves con intentos fallidos recientes, por {@code clave}.</li>
+ * </ul>
+ */
+@Component
+public class LimitadorIntentos {
+
+    /** Cantidad de franjas en que se divide cada ventana. */
+    private static final int FRANJAS = 6;
+
+    /** Ventanas por nombre de usuario. */
+    private final Cache<String, VentanaDeslizante> porUsuario;
+
+    /** Ventanas por IP del cliente. */
+    private final Cache<String, VentanaDeslizante> porIp;
+
+    /** Duración de la ventana en milisegundos. */
+    private final long ventana;
+
+    /** Intentos fallidos permitidos por usuario dentro de la ventana. */
+    private final int maximoUsuario;
+
+    /** Intentos fallidos permitidos por IP dentro de la ventana. */
+    private final int maximoIp;
+
+    /** Espera del primer bloqueo en milisegundos. */
+    private final long esperaBase;
+
+    /** Espera máxima de un bloqueo en milisegundos. */
+    private final long esperaMaxima;
+
+    /** Intentos rechazados por usuario. */
+    private final Counter rechazosUsuario;
+
+    /** Intentos rechazados por IP. */
+    private final Counter rechazosIp;
+
+    /**
+     * Crea el limitador y registra sus métricas.
+     *
+     * @param ventana duración de la ventana deslizante.
+     * @param maximoUsuario intentos fallidos permitidos por usuario dentro de la ventana.
+     * @param maximoIp intentos fallidos permitidos por IP dentro de la ventana.
+     * @param esperaBase espera del primer bloqueo.
+     * @param esperaMaxima espera máxima de un bloqueo.
+     * @param tamanoMaximo cantidad máxima de claves retenidas por cada tipo.
+     * @param registry registro de métricas de Micrometer.
+     */
+    public LimitadorIntentos(
+            @Value("${api.intentos.ventana:PT15M}") Duration ventana,
+            @Value("${api.intentos.maximo-usuario:5}") int maximoUsuario,
+            @Value("${api.intentos.maximo-ip:50}") int maximoIp,
+            @Value("${api.intentos.espera-base:PT30S}") Duration esperaBase,
+            @Value("${api.intentos.espera-maxima:PT1H}") Duration esperaMaxima,
+            @Value("${api.intentos.tamano-maximo:1000000}") long tamanoMaximo,
+            MeterRegistry registry) {
+        this.ventana = ventana.toMillis();
+        this.maximoUsuario = maximoUsuario;
+        this.maximoIp = maximoIp;
+        this.esperaBase = esperaBase.toMillis();
+        this.esperaMaxima = esperaMaxima.toMillis();
+        // La inactividad se mide hasta la espera máxima para no olvidar un bloqueo vigente.
+        var inactividad = Duration.ofMillis(Math.max(this.ventana, this.esperaMaxima));
+        this.porUsuario = Caffeine.newBuilder().maximumSize(tamanoMaximo).expireAfterAccess(inactividad).build();
+        this.porIp = Caffeine.newBuilder().maximumSize(tamanoMaximo).expireAfterAccess(inactividad).build();
+
+        this.rechazosUsuario = Counter.builder("login.intentos.rechazos").tag("clave", "usuario")
+                .description("Inicios de sesión rechazados por exceso de intentos").register(registry);
+        this.rechazosIp = Counter.builder("login.intentos.rechazos").tag("clave", "ip")
+                .description("Inicios de sesión rechazados por exceso de intentos").register(registry);
+        Gauge.builder("login.intentos.claves", porUsuario, Cache::estimatedSize).tag("clave", "usuario")
+                .description("Claves con intentos fallidos recientes").register(registry);
+        Gauge.builder("login.intentos.claves", porIp, Cache::estimatedSize).tag("clave", "ip")
+                .description("Claves con intentos fallidos recientes").register(registry);
+    }
+
+    /**
+     * Verifica que el usuario y la IP puedan intentar iniciar sesión.
+     *
+     * @param usuario nombre de usuario enviado.
+     * @param ip dirección IP del cliente.
+     * @throws DemasiadosIntentosException si alguna de las dos claves está bloqueada.
+     */
+    public void verificar(String usuario, String ip) {
+        long ahora = System.currentTimeMillis();
+        var ventanaIp = ip != null ? porIp.getIfPresent(ip) : null;
+        if (ventanaIp != null && ventanaIp.restanteBloqueo(ahora) > 0) {
+            rechazosIp.increment();
+            throw rechazo(ventanaIp.restanteBloqueo(ahora));
+        }
+        var ventanaUsuario = usuario != null ? porUsuario.getIfPresent(normalizar(usuario)) : null;
+        if (ventanaUsuario != null && ventanaUsuario.restanteBloqueo(ahora) > 0) {
+            rechazosUsuario.increment();
+            throw rechazo(ventanaUsuario.restanteBloqueo(ahora));
+        }
+    }
+
+    /**
+     * Registra un intento fallido y bloquea las claves que superen su umbral.
+     *
+     * @param usuario nombre de usuario enviado.
+     * @param ip dirección IP del cliente.
+     */
+    public void registrarFallo(String usuario, String ip) {
+        long ahora = System.currentTimeMillis();
+        if (ip != null) {
+            var ventanaIp = porIp.get(ip, k -> new VentanaDeslizante(ventana, FRANJAS));
+            if (ventanaIp.registrar(ahora) > maximoIp) {
+                ventanaIp.bloquear(ahora, esperaBase, esperaMaxima);
+            }
+        }
+        if (usuario != null) {
+            var ventanaUsuario = porUsuario.get(normalizar(usuario), k -> new VentanaDeslizante(ventana, FRANJAS));
+            if (ventanaUsuario.registrar(ahora) > maximoUsuario) {
+                ventanaUsuario.bloquear(ahora, esperaBase, esperaMaxima);
+            }
+        }
+    }
+
+    /**
+     * Reinicia el conteo del usuario tras un inicio de sesión exitoso.
+     * <p>El conteo por IP se conserva: una IP que prueba muchas cuentas no se rehabilita
+     * por acertar en una de ellas.</p>
+     *
+     * @param usuario nombre de usuario autenticado.
+     */
+    public void registrarExito(String usuario) {
+        var ventanaUsuario = porUsuario.getIfPresent(normalizar(usuario));
+        if (ventanaUsuario != null) {
+            ventanaUsuario.reiniciar();
+        }
+    }
+
+    /**
+     * Normaliza el nombre de usuario para que variaciones de mayúsculas compartan el conteo.
+     *
+     * @param usuario nombre de usuario.
+     * @return nombre de usuario normalizado.
+     */
+    private static String normalizar(String usuario) {
+        return usuario.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Crea la excepción de rechazo.
+     *
+     * @param restante milisegundos restantes del bloqueo.
+     * @return excepción con el tiempo sugerido antes de reintentar.
+     */
+    private static DemasiadosIntentosException rechazo(long restante) {
+        return new DemasiadosIntentosException("Demasiados intentos fallidos, intente de nuevo más tarde.",
+                Duration.ofMillis(restante));
+    }
+}
@@ -0,0 +1,65 @@
+package com.udi.gaaf.autentificacion.auth;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Entidad que representa un token de refresco emitido.
+ *
+ * <p>Solo se almacena el resumen SHA-256 del token. Todos los tokens obtenidos por rotación
+ * a partir del mismo inicio de sesión comparten la misma {@code familia}. El índice TTL sobre
+ * {@code expiracion} hace que MongoDB elimine los documentos vencidos.</p>
+ */
+@Document(collection = "token_refresco")
+@Getter
+@Setter
+@NoArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class TokenRefresco {
+
+	/** Identificador del token de refresco. */
+	@Id
+	private String id;
+	/** Resumen SHA-256 del token entregado al cliente. */
+	@Indexed(unique = true)
+	private String hash;
+	/** Identificador del usuario dueño del token. */
+	@Indexed
+	private String usuarioId;
+	/** Identificador de la familia de rotación. */
+	@Indexed
+	private String familia;
+	/** Indica si el token ya fue rotado. */
+	private Boolean usado;
+	/** Fecha de emisión. */
+	private Instant creado;
+	/** Fecha de expiración; MongoDB elimina el documento al alcanzarla. */
+	@Indexed(expireAfter = "0s")
+	private Instant expiracion;
+
+	/**
+	 * Constructor para asignar valores.
+	 *
+	 * @param hash resumen del token
+	 * @param usuarioId identificador del usuario
+	 * @param familia familia de rotación
+	 * @param creado fecha de emisión
+	 * @param expiracion fecha de expiración
+	 */
+	public TokenRefresco(String hash, String usuarioId, String familia, Instant creado, Instant expiracion) {
+		this.hash = hash;
+		this.usuarioId = usuarioId;
+		this.familia = familia;
+		this.usado = false;
+		this.creado = creado;
+		this.expiracion = expiracion;
+	}
+}
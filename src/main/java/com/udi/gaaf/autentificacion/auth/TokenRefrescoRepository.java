@@ -0,0 +1,46 @@
+package com.udi.gaaf.autentificacion.auth;
+
+import java.util.Collection;
+import java.util.Optional;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio de acceso a datos para la entidad {@link TokenRefresco}.
+ */
+@Repository
+public interface TokenRefrescoRepository extends MongoRepository<TokenRefresco, String> {
+
+    /**
+     * Busca un token de refresco por su resumen.
+     *
+     * @param hash resumen SHA-256 del token.
+     * @return un {@link Optional} con el token si existe.
+     */
+    Optional<TokenRefresco> findByHash(String hash);
+
+    /**
+     * Elimina todos los tokens de una familia de rotación.
+     *
+     * @param familia identificador de la familia.
+     * @return cantidad de tokens eliminados.
+     */
+    long deleteByFamilia(String familia);
+
+    /**
+     * Elimina todos los tokens de refresco de un usuario.
+     *
+     * @param usuarioId identificador del usuario.
+     * @return cantidad de tokens eliminados.
+     */
+    long deleteByUsuarioId(String usuarioId);
+
+    /**
+     * Elimina todos los tokens de refresco de varios usuarios.
+     *
+     * @param usuarioIds identificadores de los usuarios.
+     * @return cantidad de tokens eliminados.
+     */
+    long deleteByUsuarioIdIn(Collection<String> usuarioIds);
+}
@@ -0,0 +1,147 @@
+package com.udi.gaaf.autentificacion.auth;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.udi.gaaf.autentificacion.errors.AuthenticationException;
+
+/**
+ * Servicio encargado de emitir y rotar los tokens de refresco.
+ *
+ * <p>Cada token de refresco es de un solo uso: al renovarse se marca como usado de forma atómica
+ * y se emite uno nuevo de la misma familia. Si un token ya rotado se presenta de nuevo, se asume
+ * que fue robado y se revoca toda la familia.</p>
+ */
+@Service
+public class TokenRefrescoService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRefrescoService.class);
+
+    /** Cantidad de bytes aleatorios de cada token de refresco. */
+    private static final int BYTES_TOKEN = 32;
+
+    /** Generador de números aleatorios criptográficamente seguro. */
+    private final SecureRandom random = new SecureRandom();
+
+    /** Repositorio de tokens de refresco. */
+    @Autowired
+    private TokenRefrescoRepository repository;
+
+    /** Plantilla de MongoDB para las actualizaciones atómicas. */
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /** Vigencia de cada token de refresco desde su emisión. */
+    @Value("${api.jwt.refresco.duracion:P7D}")
+    private Duration duracion;
+
+    /**
+     * Emite un token de refresco que inicia una nueva familia de rotación.
+     *
+     * @param usuarioId identificador del usuario.
+     * @return token de refresco en claro, que solo se entrega al cliente.
+     */
+    public String emitir(String usuarioId) {
+        return emitir(usuarioId, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Rota un token de refresco: lo marca como usado y emite uno nuevo de la misma familia.
+     *
+     * @param token token de refresco presentado por el cliente.
+     * @return record {@link DatosRotacionRefresco} con el usuario y el nuevo token.
+     * @throws AuthenticationException si el token no existe, expiró o ya había sido usado.
+     */
+    public DatosRotacionRefresco rotar(String token) {
+        var hash = resumen(token);
+        var ahora = Instant.now();
+        var actual = mongoTemplate.findAndModify(
+                query(where("hash").is(hash).and("usado").is(false)),
+                Update.update("usado", true),
+                TokenRefresco.class);
+
+        if (actual == null) {
+            var reutilizado = repository.findByHash(hash);
+            if (reutilizado.isPresent()) {
+                long revocados = repository.deleteByFamilia(reutilizado.get().getFamilia());
+                log.warn("Reutilización del token de refresco del usuario {}: {} tokens de la familia revocados",
+                        reutilizado.get().getUsuarioId(), revocados);
+            }
+            throw new AuthenticationException("Token de refresco inválido o expirado");
+        }
+        if (actual.getExpiracion().isBefore(ahora)) {
+            throw new AuthenticationException("Token de refresco inválido o expirado");
+        }
+
+        var nuevo = emitir(actual.getUsuarioId(), actual.getFamilia());
+        return new DatosRotacionRefresco(actual.getUsuarioId(), nuevo);
+    }
+
+    /**
+     * Revoca todos los tokens de refresco de un usuario.
+     *
+     * @param usuarioId identificador del usuario.
+     */
+    public void revocarUsuario(String usuarioId) {
+        repository.deleteByUsuarioId(usuarioId);
+    }
+
+    /**
+     * Revoca todos los tokens de refresco de varios usuarios con una sola eliminación.
+     *
+     * @param usuarioIds identificadores de los usuarios.
+     */
+    public void revocarUsuarios(Collection<String> usuarioIds) {
+        repository.deleteByUsuarioIdIn(usuarioIds);
+    }
+
+    /**
+     * Genera, almacena y retorna un token de refresco.
+     *
+     * @param usuarioId identificador del usuario.
+     * @param familia familia de rotación a la que pertenece.
+     * @return token de refresco en claro.
+     */
+    private String emitir(String usuarioId, String familia) {
+        byte[] bytes = new byte[BYTES_TOKEN];
+        random.nextBytes(bytes);
+        var token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        var ahora = Instant.now();
+        repository.insert(new TokenRefresco(resumen(token), usuarioId, familia, ahora, ahora.plus(duracion)));
+        return token;
+    }
+
+    /**
+     * Calcula el resumen SHA-256 en hexadecimal de un token de refresco.
+     *
+     * @param token token en claro.
+     * @return resumen almacenado en la base de datos.
+     */
+    private static String resumen(String token) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 no disponible en la JVM.", ex);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.udi.gaaf.autentificacion.auth;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contador de eventos en una ventana deslizante, sin bloqueos.
+ * <p>
+ * La ventana se divide en {@code franjas} intervalos. Cada franja guarda en un solo {@code long}
+ * el número de intervalo al que pertenece (bits altos) y su conteo (bits bajos), de modo que
+ * registrar un evento es un CAS sobre una posición del arreglo: cuando la franja pertenece a un
+ * intervalo antiguo se reemplaza en el mismo CAS. El conteo de la ventana suma las franjas cuyo
+ * intervalo sigue dentro de ella.
+ * </p>
+ *
+ * <p>Además guarda el instante hasta el cual la clave permanece bloqueada y el número de
+ * bloqueos consecutivos, usado para la espera progresiva.</p>
+ */
+class VentanaDeslizante {
+
+    /** Bits reservados para el conteo de cada franja. */
+    private static final int BITS_CONTEO = 20;
+
+    /** Máscara del conteo de cada franja. */
+    private static final long MASCARA_CONTEO = (1L << BITS_CONTEO) - 1;
+
+    /** Franjas de la ventana, cada una con su intervalo y su conteo. */
+    private final AtomicLongArray franjas;
+
+    /** Duración de cada franja en milisegundos. */
+    private final long duracionFranja;
+
+    /** Instante, en milisegundos, hasta el cual la clave está bloqueada. */
+    private final AtomicLong bloqueadaHasta = new AtomicLong();
+
+    /** Bloqueos aplicados desde el último inicio de sesión exitoso. */
+    private final AtomicLong bloqueos = new AtomicLong();
+
+    /**
+     * Crea la ventana.
+     *
+     * @param duracionVentana duración total de la ventana en milisegundos.
+     * @param franjas cantidad de franjas en que se divide la ventana.
+     */
+    VentanaDeslizante(long duracionVentana, int franjas) {
+        this.franjas = new AtomicLongArray(franjas);
+        this.duracionFranja = Math.max(1, duracionVentana / franjas);
+    }
+
+    /**
+     * Registra un evento y retorna el conteo actualizado de la ventana.
+     *
+     * @param ahora instante actual en milisegundos.
+     * @return eventos registrados en la ventana, incluido este.
+     */
+    long registrar(long ahora) {
+        long intervalo = ahora / duracionFranja;
+        int posicion = (int) (intervalo % franjas.length());
+        long actual;
+        long nuevo;
+        do {
+            actual = franjas.get(posicion);
+            nuevo = (actual >>> BITS_CONTEO) == intervalo
+                    ? (actual & MASCARA_CONTEO) == MASCARA_CONTEO ? actual : actual + 1
+                    : (intervalo << BITS_CONTEO) | 1;
+        } while (!franjas.compareAndSet(posicion, actual, nuevo));
+        return contar(ahora);
+    }
+
+    /**
+     * Cuenta los eventos registrados en la ventana.
+     *
+     * @param ahora instante actual en milisegundos.
+     * @return eventos dentro de la ventana.
+     */
+    long contar(long ahora) {
+        long intervalo = ahora / duracionFranja;
+        long total = 0;
+        for (int i = 0; i < franjas.length(); i++) {
+            long franja = franjas.get(i);
+            if (intervalo - (franja >>> BITS_CONTEO) < franjas.length()) {
+                total += franja & MASCARA_CONTEO;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Bloquea la clave con una espera que se duplica en cada bloqueo consecutivo.
+     *
+     * @param ahora instante actual en milisegundos.
+     * @param esperaBase espera del primer bloqueo en milisegundos.
+     * @param esperaMaxima espera máxima en milisegundos.
+     * @return milisegundos que la clave permanecerá bloqueada.
+     */
+    long bloquear(long ahora, long esperaBase, long esperaMaxima) {
+        long n = Math.min(bloqueos.getAndIncrement(), 30);
+        long espera = Math.min(esperaMaxima, esperaBase << n);
+        bloqueadaHasta.accumulateAndGet(ahora + espera, Math::max);
+        return espera;
+    }
+
+    /**
+     * Obtiene los milisegundos que faltan para que termine el bloqueo.
+     *
+     * @param ahora instante actual en milisegundos.
+     * @return milisegundos restantes, o {@code 0} si la clave no está bloqueada.
+     */
+    long restanteBloqueo(long ahora) {
+        return Math.max(0, bloqueadaHasta.get() - ahora);
+    }
+
+    /**
+     * Reinicia el conteo y la espera progresiva tras un inicio de sesión exitoso.
+     */
+    void reiniciar() {
+        for (int i = 0; i < franjas.length(); i++) {
+            franjas.set(i, 0);
+        }
+        bloqueos.set(0);
+        bloqueadaHasta.set(0);
+    }
+}
@@ -0,0 +1,90 @@
+package com.udi.gaaf.autentificacion.common;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Ejecutor dedicado a las cargas de las cachés que se consultan en cada solicitud autenticada:
+ * los principales ({@code CachePrincipales}) y las confirmaciones de revocación
+ * ({@code RevocacionService}).
+ * <p>
+ * Estas cargas no comparten el ejecutor de tareas de la aplicación, que también atiende las
+ * respuestas asíncronas de Spring MVC: unas pocas transmisiones lentas no deben dejar en cola la
+ * carga de un principal. Con {@code spring.threads.virtual.enabled} cada carga usa su propio
+ * hilo virtual. Con hilos de plataforma el grupo y su cola están acotados; cuando se llenan, la
+ * carga se ejecuta en el hilo de la solicitud en lugar de esperar.
+ * </p>
+ *
+ * <p>
+ * No se declara como {@link java.util.concurrent.Executor} de Spring para no reemplazar el
+ * {@code applicationTaskExecutor} que Spring Boot crea solo si no hay otro ejecutor.
+ * </p>
+ *
+ * <h3>Métricas</h3>
+ * <ul>
+ *   <li>{@code consultas.ejecutor.activos}: cargas en ejecución (solo con hilos de plataforma).</li>
+ *   <li>{@code consultas.ejecutor.cola}: cargas en espera (solo con hilos de plataforma).</li>
+ * </ul>
+ */
+@Component
+public class EjecutorConsultas {
+
+    /** Ejecutor de las cargas. */
+    private final ExecutorService ejecutor;
+
+    /**
+     * Crea el ejecutor y registra sus métricas.
+     *
+     * @param hilos cantidad máxima de hilos de plataforma.
+     * @param capacidadCola cantidad máxima de cargas en espera con hilos de plataforma.
+     * @param hilosVirtuales indica si la aplicación usa hilos virtuales.
+     * @param registry registro de métricas de Micrometer.
+     */
+    public EjecutorConsultas(
+            @Value("${api.consultas.hilos:32}") int hilos,
+            @Value("${api.consultas.cola:256}") int capacidadCola,
+            @Value("${spring.threads.virtual.enabled:false}") boolean hilosVirtuales,
+            MeterRegistry registry) {
+        if (hilosVirtuales) {
+            this.ejecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("consultas-", 0).factory());
+            return;
+        }
+        var grupo = new ThreadPoolExecutor(hilos, hilos, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, capacidadCola)),
+                Thread.ofPlatform().name("consultas-", 0).daemon().factory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        grupo.allowCoreThreadTimeOut(true);
+        this.ejecutor = grupo;
+        Gauge.builder("consultas.ejecutor.activos", grupo, ThreadPoolExecutor::getActiveCount)
+                .description("Cargas de caché en ejecución").register(registry);
+        Gauge.builder("consultas.ejecutor.cola", grupo, g -> g.getQueue().size())
+                .description("Cargas de caché en espera").register(registry);
+    }
+
+    /**
+     * Obtiene el ejecutor de las cargas.
+     *
+     * @return ejecutor dedicado.
+     */
+    public ExecutorService getEjecutor() {
+        return ejecutor;
+    }
+
+    /**
+     * Detiene el ejecutor.
+     */
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdown();
+    }
+}
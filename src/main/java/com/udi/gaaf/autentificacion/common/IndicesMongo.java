@@ -0,0 +1,185 @@
+package com.udi.gaaf.autentificacion.common;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import com.udi.gaaf.autentificacion.auth.TokenRefresco;
+import com.udi.gaaf.autentificacion.errors.ServicioSaturadoException;
+import com.udi.gaaf.autentificacion.notificacion.Notificacion;
+import com.udi.gaaf.autentificacion.revocacion.TokenRevocado;
+import com.udi.gaaf.autentificacion.usuario.Usuario;
+
+/**
+ * Crea los índices de MongoDB declarados en las entidades al iniciar la aplicación.
+ * <p>
+ * Los índices se resuelven a partir de las anotaciones {@code @Indexed} y {@code @CompoundIndex}
+ * de cada entidad registrada en {@link #ENTIDADES}. La creación se ejecuta en segundo plano
+ * cuando la aplicación está lista, de modo que un MongoDB no disponible no impide el arranque;
+ * los errores se registran en el log. Crear un índice existente no tiene efecto.
+ * </p>
+ *
+ * <p>
+ * Cada índice se crea por separado, de modo que uno que falla (por ejemplo, un índice único
+ * sobre datos que ya tienen duplicados) no impide crear los demás. Si después faltan los índices
+ * únicos de usuario y correo, se registran en el log los valores duplicados que impiden crearlos.
+ * </p>
+ *
+ * <p>
+ * La unicidad de usuario y correo, sin distinguir mayúsculas, depende solo de esos índices. Por
+ * eso el registro, la edición y la importación de usuarios llaman a
+ * {@link #exigirIndicesUnicos()} y se rechazan con 503 mientras no existan con su colación, en
+ * lugar de aceptar duplicados que después harían fallar el inicio de sesión.
+ * </p>
+ *
+ * <p>Se desactiva con {@code api.mongo.crear-indices=false}.</p>
+ */
+@Component
+public class IndicesMongo {
+
+    private static final Logger log = LoggerFactory.getLogger(IndicesMongo.class);
+
+    /** Entidades cuyos índices se crean al iniciar. */
+    private static final List<Class<?>> ENTIDADES = List.of(
+            TokenRefresco.class,
+            TokenRevocado.class,
+            Usuario.class,
+            Notificacion.class
+    );
+
+    /** Índices únicos de los que depende la unicidad de usuario y correo. */
+    private static final List<String> INDICES_UNICOS = List.of("usuario_unico", "correo_unico");
+
+    /** Campos de los índices únicos, en el mismo orden que {@link #INDICES_UNICOS}. */
+    private static final List<String> CAMPOS_UNICOS = List.of("usuario", "correo");
+
+    /** Valores duplicados máximos que se registran por campo. */
+    private static final int MAXIMO_DUPLICADOS = 20;
+
+    /** Tiempo sugerido antes de reintentar una operación rechazada por falta de índices. */
+    private static final Duration REINTENTAR_EN = Duration.ofSeconds(30);
+
+    /** Plantilla de MongoDB. */
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /** Indica si se deben crear los índices al iniciar. */
+    @Value("${api.mongo.crear-indices:true}")
+    private boolean crearIndices;
+
+    /** Indica si ya se comprobó que existen los índices únicos de usuarios. */
+    private volatile boolean unicosVerificados;
+
+    /**
+     * Lanza la creación de índices en un hilo aparte cuando la aplicación está lista.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        if (crearIndices) {
+            Thread.ofVirtual().name("indices-mongo").start(this::crear);
+        }
+    }
+
+    /**
+     * Crea los índices de todas las entidades registradas.
+     */
+    void crear() {
+        var resolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> entidad : ENTIDADES) {
+            var indexOps = mongoTemplate.indexOps(entidad);
+            for (var indice : resolver.resolveIndexFor(entidad)) {
+                try {
+                    indexOps.createIndex(indice);
+                } catch (Exception ex) {
+                    log.error("No se pudo crear el índice {} de {}: {}", indice.getIndexOptions().get("name"),
+                            entidad.getSimpleName(), ex.getMessage());
+                }
+            }
+            log.info("Índices verificados para {}", entidad.getSimpleName());
+        }
+        try {
+            if (!unicosDisponibles()) {
+                log.error("Faltan los índices únicos {}; el registro de usuarios se rechaza hasta crearlos", INDICES_UNICOS);
+                for (var campo : CAMPOS_UNICOS) {
+                    for (var duplicado : duplicados(campo)) {
+                        log.error("Valor duplicado de {} sin distinguir mayúsculas: {} ({} usuarios)",
+                                campo, duplicado.get("_id"), duplicado.get("cantidad"));
+                    }
+                }
+            }
+        } catch (Exception ex) {
+            log.error("No se pudieron verificar los índices únicos de usuarios: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Comprueba que existen los índices únicos de usuario y correo con su colación. Una vez
+     * comprobados, no se vuelven a consultar.
+     *
+     * @throws ServicioSaturadoException si falta alguno de los índices.
+     */
+    public void exigirIndicesUnicos() {
+        if (!unicosDisponibles()) {
+            throw new ServicioSaturadoException(
+                    "El registro de usuarios no está disponible, intente de nuevo más tarde.", REINTENTAR_EN);
+        }
+    }
+
+    /**
+     * Indica si existen los índices únicos de usuario y correo con la colación de
+     * {@link Usuario#COLACION}.
+     *
+     * @return {@code true} si existen ambos.
+     */
+    private boolean unicosDisponibles() {
+        if (unicosVerificados) {
+            return true;
+        }
+        var colacion = Collation.parse(Usuario.COLACION).toDocument();
+        var existentes = mongoTemplate.indexOps(Usuario.class).getIndexInfo().stream()
+                .filter(IndexInfo::isUnique)
+                .filter(indice -> indice.getCollation()
+                        .map(c -> colacion.getString("locale").equals(c.getString("locale"))
+                                && colacion.get("strength").equals(c.get("strength")))
+                        .orElse(false))
+                .map(IndexInfo::getName)
+                .toList();
+        unicosVerificados = existentes.containsAll(INDICES_UNICOS);
+        return unicosVerificados;
+    }
+
+    /**
+     * Busca los valores de un campo que se repiten sin distinguir mayúsculas, como los compara
+     * el índice único.
+     *
+     * @param campo campo del usuario.
+     * @return hasta {@value #MAXIMO_DUPLICADOS} valores repetidos, con su cantidad en {@code cantidad}.
+     */
+    List<Document> duplicados(String campo) {
+        var agregacion = Aggregation.newAggregation(
+                        Aggregation.match(Criteria.where(campo).ne(null)),
+                        Aggregation.group(campo).count().as("cantidad"),
+                        Aggregation.match(Criteria.where("cantidad").gt(1)),
+                        Aggregation.limit(MAXIMO_DUPLICADOS))
+                .withOptions(AggregationOptions.builder()
+                        .collation(Collation.parse(Usuario.COLACION))
+                        .allowDiskUse(true)
+                        .build());
+        return mongoTemplate.aggregate(agregacion, Usuario.class, Document.class).getMappedResults();
+    }
+}
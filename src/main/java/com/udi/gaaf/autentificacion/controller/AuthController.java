@@ -1,19 +1,38 @@
 package com.udi.gaaf.autentificacion.controller;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.udi.gaaf.autentificacion.auth.AuthService;
+import com.udi.gaaf.autentificacion.auth.ClientesIntrospeccion;
+import com.udi.gaaf.autentificacion.auth.DatosDetalleIntrospeccion;
 import com.udi.gaaf.autentificacion.auth.DatosDetalleRegistro;
 import com.udi.gaaf.autentificacion.auth.DatosDetalleSesion;
 import com.udi.gaaf.autentificacion.auth.DatosIniciarSesion;
+import com.udi.gaaf.autentificacion.auth.DatosIntrospeccion;
+import com.udi.gaaf.autentificacion.auth.DatosRefrescarSesion;
+import com.udi.gaaf.autentificacion.common.DatosDetalleResponse;
+import com.udi.gaaf.autentificacion.errors.AuthenticationException;
 import com.udi.gaaf.autentificacion.errors.NotRequestBodyException;
+import com.udi.gaaf.autentificacion.errors.NotTokenValidException;
+import com.udi.gaaf.autentificacion.security.ClavesFirmaJwt;
+import com.udi.gaaf.autentificacion.security.DatosJwks;
 import com.udi.gaaf.autentificacion.usuario.DatosRegistrarUsuario;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 /**
@@ -24,6 +43,7 @@ import jakarta.validation.Valid;
  * para manejar la lógica de autenticación y generación de tokens.</p>
  */
 @RestController
+@Profile("!reactivo")
 @RequestMapping("/auth")
 public class AuthController {
 
@@ -31,6 +51,26 @@ public class AuthController {
     @Autowired
     private AuthService service;
 
+    /** Claves de firma cuyas claves públicas se publican en el JWKS. */
+    @Autowired
+    private ClavesFirmaJwt clavesFirma;
+
+    /** Clientes autorizados a usar la introspección. */
+    @Autowired
+    private ClientesIntrospeccion clientesIntrospeccion;
+
+    /** Tiempo durante el cual los clientes pueden almacenar en caché el JWKS. */
+    @Value("${api.jwt.jwks.cache:PT5M}")
+    private Duration cacheJwks;
+
+    /** Tiempo máximo durante el cual los clientes pueden almacenar en caché una introspección. */
+    @Value("${api.jwt.introspeccion.cache:PT30S}")
+    private Duration cacheIntrospeccion;
+
+    /** Indica si la IP del cliente se toma del encabezado {@code X-Forwarded-For} puesto por el gateway. */
+    @Value("${api.intentos.usar-x-forwarded-for:false}")
+    private boolean usarXForwardedFor;
+
     /**
      * Registra un nuevo usuario en el sistema.
      *
@@ -60,18 +100,147 @@ public class AuthController {
      * si son correctas, retorna los datos del usuario junto con su token JWT.</p>
      *
      * @param datos objeto {@link DatosIniciarSesion} con las credenciales del usuario
+     * @param request solicitud HTTP, de la que se obtiene la IP del cliente
      * @return una respuesta {@link ResponseEntity} con los datos de sesión y token generado
      * @throws NotRequestBodyException si la solicitud no contiene un cuerpo válido
      */
     @PostMapping("/iniciar")
     public ResponseEntity<DatosDetalleSesion> iniciar(
-            @RequestBody(required = false) @Valid DatosIniciarSesion datos) {
+            @RequestBody(required = false) @Valid DatosIniciarSesion datos, HttpServletRequest request) {
 
         if (datos == null) {
             throw new NotRequestBodyException("Necesito la Request Body");
         }
 
-        var detalle = service.inicio(datos);
+        var detalle = service.inicio(datos, ipCliente(request));
         return ResponseEntity.ok(detalle);
     }
+
+    /**
+     * Renueva la sesión usando un token de refresco.
+     *
+     * <p>Retorna un nuevo token JWT y un nuevo token de refresco sin verificar la contraseña.
+     * El token de refresco enviado queda inutilizado; si se vuelve a presentar, se revoca
+     * toda la familia de tokens derivada del mismo inicio de sesión.</p>
+     *
+     * @param datos objeto {@link DatosRefrescarSesion} con el token de refresco
+     * @return una respuesta {@link ResponseEntity} con los datos de sesión renovados
+     * @throws NotRequestBodyException si la solicitud no contiene un cuerpo válido
+     */
+    @PostMapping("/refrescar")
+    public ResponseEntity<DatosDetalleSesion> refrescar(
+            @RequestBody(required = false) @Valid DatosRefrescarSesion datos) {
+
+        if (datos == null) {
+            throw new NotRequestBodyException("Necesito la Request Body");
+        }
+
+        var detalle = service.refrescar(datos);
+        return ResponseEntity.ok(detalle);
+    }
+
+    /**
+     * Cierra la sesión del usuario.
+     *
+     * <p>Revoca el token JWT enviado en el encabezado {@code Authorization}, que deja de ser
+     * aceptado en todas las instancias, y los tokens de refresco del usuario.</p>
+     *
+     * @param token encabezado {@code Authorization} con el token JWT
+     * @return una respuesta {@link ResponseEntity} con el estado de la operación
+     * @throws NotTokenValidException si no se envía un token válido
+     */
+    @PostMapping("/cerrar-sesion")
+    public ResponseEntity<DatosDetalleResponse> cerrarSesion(
+            @RequestHeader(name = "Authorization", required = false) String token) {
+
+        if (token == null) {
+            throw new NotTokenValidException("No hay token");
+        }
+
+        var detalle = service.cerrarSesion(token);
+        return ResponseEntity.ok(detalle);
+    }
+
+    /**
+     * Valida un lote de tokens en una sola llamada.
+     *
+     * <p>Pensado para el gateway y los demás servicios: retorna, para cada token y en el mismo
+     * orden, si es válido junto con sus claims {@code id}, {@code rol}, {@code sub} y {@code exp}.
+     * La respuesta incluye {@code Cache-Control: private} con una vigencia que no supera la
+     * expiración más cercana de los tokens válidos. El cliente se autentica con HTTP Basic
+     * según {@link ClientesIntrospeccion}.</p>
+     *
+     * @param autorizacion encabezado {@code Authorization} con las credenciales del cliente
+     * @param datos objeto {@link DatosIntrospeccion} con los tokens a validar
+     * @return una respuesta {@link ResponseEntity} con el detalle de cada token
+     * @throws AuthenticationException si el cliente no se autentica
+     * @throws NotRequestBodyException si la solicitud no contiene un cuerpo válido
+     */
+    @PostMapping("/introspect")
+    public ResponseEntity<List<DatosDetalleIntrospeccion>> introspeccionar(
+            @RequestHeader(name = "Authorization", required = false) String autorizacion,
+            @RequestBody(required = false) @Valid DatosIntrospeccion datos) {
+
+        clientesIntrospeccion.autenticar(autorizacion);
+        if (datos == null) {
+            throw new NotRequestBodyException("Necesito la Request Body");
+        }
+
+        var detalle = service.introspeccionar(datos);
+        var vigencia = cacheIntrospeccion;
+        var ahora = Instant.now();
+        for (var token : detalle) {
+            if (Boolean.TRUE.equals(token.valido()) && token.exp() != null) {
+                var restante = Duration.between(ahora, token.exp());
+                if (restante.compareTo(vigencia) < 0) {
+                    vigencia = restante.isNegative() ? Duration.ZERO : restante;
+                }
+            }
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(vigencia).cachePrivate())
+                .body(detalle);
+    }
+
+    /**
+     * Publica las claves públicas con las que se verifican los tokens.
+     *
+     * <p>Permite que el gateway y los demás servicios verifiquen los tokens localmente,
+     * seleccionando la clave por el encabezado {@code kid}. La respuesta incluye
+     * {@code Cache-Control: public} para que pueda almacenarse en caché. En modo HS256
+     * la lista de claves está vacía.</p>
+     *
+     * @return una respuesta {@link ResponseEntity} con el conjunto de claves {@link DatosJwks}
+     */
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<DatosJwks> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(cacheJwks).cachePublic())
+                .body(clavesFirma.getJwks());
+    }
+
+    /**
+     * Obtiene la IP del cliente.
+     *
+     * <p>Detrás del gateway la IP de la conexión es la del propio gateway. Con
+     * {@code api.intentos.usar-x-forwarded-for} habilitado se usa la última dirección de
+     * {@code X-Forwarded-For}, la que agrega el gateway de confianza. Las anteriores las envía el
+     * cliente y no sirven para limitar intentos: bastaría con cambiarlas en cada solicitud. Solo
+     * debe habilitarse si el servicio es accesible únicamente a través del gateway.</p>
+     *
+     * @param request solicitud HTTP
+     * @return dirección IP del cliente
+     */
+    private String ipCliente(HttpServletRequest request) {
+        if (usarXForwardedFor) {
+            String reenviado = null;
+            for (var valores = request.getHeaders("X-Forwarded-For"); valores.hasMoreElements();) {
+                reenviado = valores.nextElement();
+            }
+            if (reenviado != null && !reenviado.isBlank()) {
+                return reenviado.substring(reenviado.lastIndexOf(',') + 1).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
 }
@@ -0,0 +1,206 @@
+package com.udi.gaaf.autentificacion.controller;
+
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.udi.gaaf.autentificacion.common.DatosDetalleResponse;
+import com.udi.gaaf.autentificacion.errors.NotRequestBodyException;
+import com.udi.gaaf.autentificacion.errors.NotTokenValidException;
+import com.udi.gaaf.autentificacion.notificacion.BrokerNotificaciones;
+import com.udi.gaaf.autentificacion.notificacion.DatosCambiarEstadoNotificaciones;
+import com.udi.gaaf.autentificacion.notificacion.DatosConsultaNotificaciones;
+import com.udi.gaaf.autentificacion.notificacion.DatosContadorNotificaciones;
+import com.udi.gaaf.autentificacion.notificacion.DatosDetalleNotificacion;
+import com.udi.gaaf.autentificacion.notificacion.DatosRegistrarNotificacion;
+import com.udi.gaaf.autentificacion.notificacion.NotificacionService;
+import com.udi.gaaf.autentificacion.security.UsuarioAutenticado;
+import com.udi.gaaf.autentificacion.usuario.Roles;
+import com.udi.gaaf.autentificacion.usuario.Usuario;
+
+import jakarta.validation.Valid;
+
+/**
+ * Controlador de la bandeja de entrada de notificaciones.
+ *
+ * <p>Las consultas y los cambios de estado se aplican sobre las notificaciones del usuario
+ * autenticado por el token.</p>
+ */
+@RestController
+@Profile("!reactivo")
+@RequestMapping("/notificacion")
+public class NotificacionController {
+
+    /** Servicio de la bandeja de entrada. */
+    @Autowired
+    private NotificacionService service;
+
+    /** Broker de las conexiones Server-Sent Events. */
+    @Autowired
+    private BrokerNotificaciones broker;
+
+    /** Roles que pueden enviar notificaciones a otros usuarios; los demás solo a sí mismos. */
+    @Value("${api.notificaciones.roles-remitentes:ADMIN}")
+    private Set<Roles> rolesRemitentes;
+
+    /**
+     * Obtiene una página de la bandeja de entrada del usuario autenticado.
+     *
+     * <p>Parámetros: {@code despues} (cursor), {@code tamano} y {@code estado}. Si hay más
+     * notificaciones, el cursor de la siguiente página se devuelve en el encabezado
+     * {@value UsuarioController#CURSOR_SIGUIENTE}.</p>
+     *
+     * @param consulta cursor, tamaño de página y filtro por estado
+     * @param autenticacion autenticación de la solicitud
+     * @return notificaciones de la página, de la más reciente a la más antigua
+     */
+    @GetMapping
+    public ResponseEntity<List<DatosDetalleNotificacion>> obtenerPagina(
+            DatosConsultaNotificaciones consulta, Authentication autenticacion) {
+        var pagina = service.obtenerPagina(usuarioId(autenticacion), consulta);
+        var respuesta = ResponseEntity.ok();
+        if (pagina.siguiente() != null) {
+            respuesta.header(UsuarioController.CURSOR_SIGUIENTE, pagina.siguiente());
+        }
+        return respuesta.body(pagina.notificaciones());
+    }
+
+    /**
+     * Abre un flujo Server-Sent Events con las notificaciones nuevas del usuario autenticado.
+     *
+     * <p>Cada evento {@code notificacion} lleva como identificador el de la notificación. Al
+     * reconectarse, el cliente envía el último recibido en {@code Last-Event-ID} y recibe primero
+     * las notificaciones que se perdió; las de los segundos previos a la última recibida pueden
+     * repetirse, y el cliente descarta las que ya tiene por su identificador. La conexión se cierra si el cliente no lee los eventos al
+     * ritmo en que llegan.</p>
+     *
+     * @param ultimoId identificador del último evento recibido, si es una reconexión
+     * @param autenticacion autenticación de la solicitud
+     * @return emisor de la conexión
+     */
+    @GetMapping(path = "/flujo", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter flujo(@RequestHeader(name = "Last-Event-ID", required = false) String ultimoId,
+            Authentication autenticacion) {
+        return broker.suscribir(usuarioId(autenticacion), ultimoId);
+    }
+
+    /**
+     * Obtiene la cantidad de notificaciones por estado del usuario autenticado, por ejemplo para
+     * mostrar las no vistas. Es una lectura por identificador que no recorre las notificaciones.
+     *
+     * @param autenticacion autenticación de la solicitud
+     * @return contadores por estado
+     */
+    @GetMapping("/contador")
+    public ResponseEntity<DatosContadorNotificaciones> obtenerContador(Authentication autenticacion) {
+        return ResponseEntity.ok(service.obtenerContador(usuarioId(autenticacion)));
+    }
+
+    /**
+     * Envía una notificación a un usuario.
+     *
+     * <p>El remitente es el nombre del usuario autenticado. Solo los roles de
+     * {@code api.notificaciones.roles-remitentes} pueden notificar a otros usuarios; los demás
+     * solo pueden notificarse a sí mismos.</p>
+     *
+     * @param datos destinatario y mensaje
+     * @param autenticacion autenticación de la solicitud
+     * @return notificación creada
+     * @throws NotRequestBodyException si el cuerpo de la solicitud está vacío
+     * @throws AccessDeniedException si el usuario no puede notificar al destinatario
+     */
+    @PostMapping
+    public ResponseEntity<DatosDetalleNotificacion> registrar(
+            @RequestBody(required = false) @Valid DatosRegistrarNotificacion datos, Authentication autenticacion) {
+        if (datos == null) {
+            throw new NotRequestBodyException("Se requiere el body");
+        }
+        if (!usuarioId(autenticacion).equals(datos.usuarioId()) && !puedeNotificarAOtros(autenticacion)) {
+            throw new AccessDeniedException("No puede enviar notificaciones a otros usuarios");
+        }
+        var detalle = service.registrar(datos, remitente(autenticacion));
+        return ResponseEntity.status(HttpStatus.CREATED).body(detalle);
+    }
+
+    /**
+     * Cambia en lote el estado de las notificaciones del usuario autenticado a
+     * {@code VISTA} o {@code RESUELTA}.
+     *
+     * @param datos identificadores (opcionales) y estado destino
+     * @param autenticacion autenticación de la solicitud
+     * @return respuesta con la cantidad de notificaciones modificadas
+     * @throws NotRequestBodyException si el cuerpo de la solicitud está vacío
+     */
+    @PutMapping("/estado")
+    public ResponseEntity<DatosDetalleResponse> cambiarEstado(
+            @RequestBody(required = false) @Valid DatosCambiarEstadoNotificaciones datos,
+            Authentication autenticacion) {
+        if (datos == null) {
+            throw new NotRequestBodyException("Se requiere el body");
+        }
+        var detalle = service.cambiarEstado(usuarioId(autenticacion), datos);
+        return ResponseEntity.ok(detalle);
+    }
+
+    /**
+     * Indica si el usuario autenticado tiene alguno de los roles que pueden notificar a otros
+     * usuarios.
+     *
+     * @param autenticacion autenticación de la solicitud.
+     * @return {@code true} si puede notificar a otros usuarios.
+     */
+    private boolean puedeNotificarAOtros(Authentication autenticacion) {
+        return rolesRemitentes.stream()
+                .flatMap(rol -> rol.getAutoridades().stream())
+                .anyMatch(autenticacion.getAuthorities()::contains);
+    }
+
+    /**
+     * Obtiene el nombre del usuario autenticado, en cualquiera de los modos de autenticación.
+     *
+     * @param autenticacion autenticación de la solicitud.
+     * @return nombre del usuario, el mismo del claim {@code sub} de su token.
+     * @throws NotTokenValidException si la solicitud no identifica a un usuario.
+     */
+    private static String remitente(Authentication autenticacion) {
+        var principal = autenticacion != null ? autenticacion.getPrincipal() : null;
+        return switch (principal) {
+            case Usuario usuario -> usuario.getNombre();
+            case UsuarioAutenticado usuario -> usuario.nombre();
+            case null, default -> throw new NotTokenValidException("El token no identifica a un usuario.");
+        };
+    }
+
+    /**
+     * Obtiene el identificador del usuario autenticado, en cualquiera de los modos de
+     * autenticación.
+     *
+     * @param autenticacion autenticación de la solicitud.
+     * @return identificador del usuario.
+     * @throws NotTokenValidException si la solicitud no identifica a un usuario.
+     */
+    static String usuarioId(Authentication autenticacion) {
+        var principal = autenticacion != null ? autenticacion.getPrincipal() : null;
+        return switch (principal) {
+            case Usuario usuario -> usuario.getId();
+            case UsuarioAutenticado usuario -> usuario.id();
+            case null, default -> throw new NotTokenValidException("El token no identifica a un usuario.");
+        };
+    }
+}
@@ -0,0 +1,97 @@
+package com.udi.gaaf.autentificacion.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Ejecutor de las respuestas asíncronas de Spring MVC, como la transmisión NDJSON de
+ * {@link UsuarioController#transmitirTodos}.
+ * <p>
+ * Cada transmisión ocupa un hilo mientras escribe, y un cliente lento lo retiene. Por eso no usan
+ * el {@code applicationTaskExecutor}, que tiene cola sin límite, sino un ejecutor propio y
+ * acotado: con hilos de plataforma, {@code api.transmisiones.hilos} hilos y una cola de
+ * {@code api.transmisiones.cola}; con {@code spring.threads.virtual.enabled}, un hilo virtual por
+ * transmisión hasta la suma de ambos valores. Una transmisión que no cabe se rechaza con 503 en
+ * lugar de esperar sin límite.
+ * </p>
+ *
+ * <p>
+ * El ejecutor no se declara como bean para no reemplazar el {@code applicationTaskExecutor} que
+ * Spring Boot crea solo si no hay otro ejecutor.
+ * </p>
+ *
+ * <h3>Métricas</h3>
+ * <ul>
+ *   <li>{@code transmisiones.ejecutor.activos}: transmisiones en curso (solo con hilos de plataforma).</li>
+ *   <li>{@code transmisiones.ejecutor.cola}: transmisiones en espera (solo con hilos de plataforma).</li>
+ * </ul>
+ */
+@Configuration
+@Profile("!reactivo")
+public class RespuestasAsincronasConfig implements WebMvcConfigurer {
+
+    /** Ejecutor de las respuestas asíncronas. */
+    private final AsyncTaskExecutor ejecutor;
+
+    /**
+     * Crea el ejecutor y registra sus métricas.
+     *
+     * @param hilos cantidad máxima de hilos de plataforma.
+     * @param capacidadCola cantidad máxima de transmisiones en espera con hilos de plataforma.
+     * @param hilosVirtuales indica si la aplicación usa hilos virtuales.
+     * @param registry registro de métricas de Micrometer.
+     */
+    public RespuestasAsincronasConfig(
+            @Value("${api.transmisiones.hilos:16}") int hilos,
+            @Value("${api.transmisiones.cola:64}") int capacidadCola,
+            @Value("${spring.threads.virtual.enabled:false}") boolean hilosVirtuales,
+            MeterRegistry registry) {
+        if (hilosVirtuales) {
+            var virtual = new SimpleAsyncTaskExecutor("transmisiones-");
+            virtual.setVirtualThreads(true);
+            virtual.setConcurrencyLimit(hilos + capacidadCola);
+            virtual.setRejectTasksWhenLimitReached(true);
+            this.ejecutor = virtual;
+            return;
+        }
+        var grupo = new ThreadPoolTaskExecutor();
+        grupo.setCorePoolSize(hilos);
+        grupo.setMaxPoolSize(hilos);
+        grupo.setQueueCapacity(capacidadCola);
+        grupo.setAllowCoreThreadTimeOut(true);
+        grupo.setThreadNamePrefix("transmisiones-");
+        grupo.initialize();
+        this.ejecutor = grupo;
+        Gauge.builder("transmisiones.ejecutor.activos", grupo, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Transmisiones asíncronas en curso").register(registry);
+        Gauge.builder("transmisiones.ejecutor.cola", grupo, g -> g.getThreadPoolExecutor().getQueue().size())
+                .description("Transmisiones asíncronas en espera").register(registry);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(ejecutor);
+    }
+
+    /**
+     * Detiene el ejecutor.
+     */
+    @PreDestroy
+    public void detener() {
+        if (ejecutor instanceof ThreadPoolTaskExecutor grupo) {
+            grupo.shutdown();
+        } else if (ejecutor instanceof SimpleAsyncTaskExecutor virtual) {
+            virtual.close();
+        }
+    }
+}
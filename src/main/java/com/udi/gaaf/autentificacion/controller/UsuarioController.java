@@ -1,24 +1,46 @@
 package com.udi.gaaf.autentificacion.controller;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.udi.gaaf.autentificacion.common.DatosDetalleResponse;
 import com.udi.gaaf.autentificacion.errors.NotRequestBodyException;
 import com.udi.gaaf.autentificacion.usuario.DatosCambiarCredenciales;
+import com.udi.gaaf.autentificacion.usuario.DatosCambiarEstadoUsuarios;
+import com.udi.gaaf.autentificacion.usuario.DatosCambiarRolUsuarios;
+import com.udi.gaaf.autentificacion.usuario.DatosConsultaUsuarios;
 import com.udi.gaaf.autentificacion.usuario.DatosDetalleUsuario;
 import com.udi.gaaf.autentificacion.usuario.DatosEditarUsuario;
+import com.udi.gaaf.autentificacion.usuario.DatosRegistrarUsuario;
+import com.udi.gaaf.autentificacion.usuario.DatosResultadoImportacion;
+import com.udi.gaaf.autentificacion.usuario.DatosResultadoOperacionMasiva;
+import com.udi.gaaf.autentificacion.usuario.DatosSeleccionUsuarios;
+import com.udi.gaaf.autentificacion.usuario.ImportacionUsuarios;
+import com.udi.gaaf.autentificacion.usuario.LectorImportacion;
 import com.udi.gaaf.autentificacion.usuario.UsuarioService;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 /**
@@ -29,6 +51,7 @@ import jakarta.validation.Valid;
  * 
  */
 @RestController
+@Profile("!reactivo")
 @RequestMapping("/usuario")
 public class UsuarioController {
 
@@ -36,6 +59,20 @@ public class UsuarioController {
     @Autowired
     private UsuarioService service;
 
+    /** Servicio de importación masiva de usuarios. */
+    @Autowired
+    private ImportacionUsuarios importacion;
+
+    /** Serializador de cada línea de la respuesta NDJSON. */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /** Encabezado con el cursor de la siguiente página. */
+    public static final String CURSOR_SIGUIENTE = "X-Cursor-Siguiente";
+
+    /** Tipo de contenido de la importación en CSV. */
+    public static final String TEXTO_CSV = "text/csv";
+
     /**
      * Obtiene un usuario por su identificador único.
      *
@@ -49,14 +86,92 @@ public class UsuarioController {
     }
 
     /**
-     * Obtiene todos los usuarios registrados en el sistema.
+     * Importa usuarios desde un archivo CSV ({@code text/csv}) o NDJSON
+     * ({@code application/x-ndjson}) con los campos de {@link DatosRegistrarUsuario}.
+     *
+     * <p>El archivo se lee a medida que llega y se procesa por lotes. La respuesta es NDJSON con
+     * un {@link DatosResultadoImportacion} por fila, en el orden del archivo, y se envía al
+     * terminar cada lote. Una fila inválida o duplicada no detiene la importación. Se responde
+     * desde el hilo de la solicitud para que una importación larga no dependa del tiempo máximo
+     * de las solicitudes asíncronas.</p>
      *
-     * @return lista con los detalles de todos los usuarios
+     * <p>Solo un usuario con rol {@code ADMIN} puede importar usuarios.</p>
+     *
+     * @param request solicitud con el archivo en el cuerpo
+     * @param response respuesta en la que se escriben los resultados
+     * @throws IOException si falla la lectura del archivo o la escritura de la respuesta
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(path = "/importar", consumes = { TEXTO_CSV, MediaType.APPLICATION_NDJSON_VALUE },
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void importar(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        var tipo = MediaType.parseMediaType(request.getContentType());
+        var codificacion = tipo.getCharset() != null ? tipo.getCharset() : StandardCharsets.UTF_8;
+        var lector = new BufferedReader(new InputStreamReader(request.getInputStream(), codificacion));
+        var filas = tipo.isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? LectorImportacion.ndjson(lector, objectMapper.readerFor(DatosRegistrarUsuario.class))
+                : LectorImportacion.csv(lector);
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        var salida = response.getOutputStream();
+        var escritor = objectMapper.writerFor(DatosResultadoImportacion.class);
+        importacion.importar(filas, resultados -> {
+            try {
+                for (var resultado : resultados) {
+                    salida.write(escritor.writeValueAsBytes(resultado));
+                    salida.write('\n');
+                }
+                salida.flush();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    /**
+     * Obtiene una página de usuarios, opcionalmente filtrada por rol y estado.
+     *
+     * <p>Parámetros: {@code despues} (cursor), {@code tamano}, {@code rol} y {@code activo}.
+     * Si hay más usuarios, el cursor de la siguiente página se devuelve en el encabezado
+     * {@value #CURSOR_SIGUIENTE}.</p>
+     *
+     * @param consulta cursor, tamaño de página y filtros
+     * @return lista con los detalles de los usuarios de la página
      */
     @GetMapping
-    public ResponseEntity<List<DatosDetalleUsuario>> obtenerTodos() {
-        var detalle = service.obtenerTodos();
-        return ResponseEntity.ok(detalle);
+    public ResponseEntity<List<DatosDetalleUsuario>> obtenerTodos(DatosConsultaUsuarios consulta) {
+        var pagina = service.obtenerPagina(consulta);
+        var respuesta = ResponseEntity.ok();
+        if (pagina.siguiente() != null) {
+            respuesta.header(CURSOR_SIGUIENTE, pagina.siguiente());
+        }
+        return respuesta.body(pagina.usuarios());
+    }
+
+    /**
+     * Transmite todos los usuarios que cumplen los filtros como NDJSON (un objeto por línea).
+     *
+     * <p>Se atiende cuando la solicitud envía {@code Accept: application/x-ndjson}. Los usuarios
+     * se leen de un cursor de MongoDB y se escriben a medida que llegan, por lo que la respuesta
+     * nunca tiene la lista completa en memoria. Admite {@code despues} para reanudar.</p>
+     *
+     * @param consulta cursor inicial y filtros
+     * @return cuerpo que escribe los usuarios en la respuesta
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> transmitirTodos(DatosConsultaUsuarios consulta) {
+        var usuarios = service.transmitir(consulta);
+        var escritor = objectMapper.writerFor(DatosDetalleUsuario.class);
+        StreamingResponseBody cuerpo = salida -> {
+            try (usuarios) {
+                var iterador = usuarios.iterator();
+                while (iterador.hasNext()) {
+                    salida.write(escritor.writeValueAsBytes(iterador.next()));
+                    salida.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(cuerpo);
     }
 
     /**
@@ -114,6 +229,60 @@ public class UsuarioController {
         return ResponseEntity.ok(detalle);
     }
 
+    /**
+     * Activa o desactiva en una sola operación los usuarios seleccionados por identificadores
+     * o por filtros. Al desactivarlos se revocan sus tokens. Requiere el rol {@code ADMIN}.
+     *
+     * @param datos selección y estado que se asigna
+     * @return usuarios seleccionados y modificados
+     * @throws NotRequestBodyException si el cuerpo de la solicitud está vacío
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PutMapping("/estado")
+    public ResponseEntity<DatosResultadoOperacionMasiva> cambiarEstados(
+            @RequestBody(required = false) @Valid DatosCambiarEstadoUsuarios datos) {
+        if (datos == null) {
+            throw new NotRequestBodyException("Se requiere el body");
+        }
+        return ResponseEntity.ok(service.cambiarEstados(datos));
+    }
+
+    /**
+     * Cambia en una sola operación el rol de los usuarios seleccionados por identificadores o
+     * por filtros, y revoca sus tokens. Requiere el rol {@code ADMIN}.
+     *
+     * @param datos selección y rol que se asigna
+     * @return usuarios seleccionados y modificados
+     * @throws NotRequestBodyException si el cuerpo de la solicitud está vacío
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PutMapping("/rol")
+    public ResponseEntity<DatosResultadoOperacionMasiva> cambiarRoles(
+            @RequestBody(required = false) @Valid DatosCambiarRolUsuarios datos) {
+        if (datos == null) {
+            throw new NotRequestBodyException("Se requiere el body");
+        }
+        return ResponseEntity.ok(service.cambiarRoles(datos));
+    }
+
+    /**
+     * Elimina en una sola operación los usuarios seleccionados por identificadores o por
+     * filtros, junto con sus notificaciones, y revoca sus tokens. Requiere el rol {@code ADMIN}.
+     *
+     * @param seleccion usuarios a eliminar
+     * @return usuarios seleccionados y eliminados
+     * @throws NotRequestBodyException si el cuerpo de la solicitud está vacío
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/eliminar")
+    public ResponseEntity<DatosResultadoOperacionMasiva> eliminar(
+            @RequestBody(required = false) @Valid DatosSeleccionUsuarios seleccion) {
+        if (seleccion == null) {
+            throw new NotRequestBodyException("Se requiere el body");
+        }
+        return ResponseEntity.ok(service.eliminar(seleccion));
+    }
+
     /**
      * Elimina un usuario del sistema por su identificador.
      *
@@ -20,4 +20,14 @@ public class AuthenticationException extends RuntimeException {
     public AuthenticationException(String message) {
         super(message);
     }
+
+    /**
+     * Crea una nueva excepción de autenticación con un mensaje descriptivo y su causa.
+     *
+     * @param message mensaje que describe el error de autenticación.
+     * @param cause excepción que originó el error.
+     */
+    public AuthenticationException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
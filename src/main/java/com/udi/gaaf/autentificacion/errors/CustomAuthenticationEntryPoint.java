@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.stereotype.Component;
@@ -33,6 +34,7 @@ import jakarta.servlet.http.HttpServletResponse;
  * @see AuthenticationEntryPoint
  */
 @Component
+@Profile("!reactivo")
 public class CustomAuthenticationEntryPoint implements AuthenticationEntryPoint {
 
     /**
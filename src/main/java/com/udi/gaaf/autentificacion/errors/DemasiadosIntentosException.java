@@ -0,0 +1,39 @@
+package com.udi.gaaf.autentificacion.errors;
+
+import java.time.Duration;
+
+/**
+ * Excepción personalizada para indicar que se superó el límite de intentos (HTTP 429).
+ * <p>
+ * Se lanza cuando un usuario o una IP acumulan demasiados inicios de sesión fallidos.
+ * El cliente debe reintentar después de {@link #getReintentarEn()}.
+ * </p>
+ *
+ * @see RuntimeException
+ */
+@SuppressWarnings("serial")
+public class DemasiadosIntentosException extends RuntimeException {
+
+    /** Tiempo sugerido antes de reintentar. */
+    private final Duration reintentarEn;
+
+    /**
+     * Crea una nueva excepción de demasiados intentos con un mensaje descriptivo.
+     *
+     * @param message mensaje que describe la causa del error.
+     * @param reintentarEn tiempo sugerido antes de reintentar.
+     */
+    public DemasiadosIntentosException(String message, Duration reintentarEn) {
+        super(message);
+        this.reintentarEn = reintentarEn;
+    }
+
+    /**
+     * Obtiene el tiempo sugerido antes de reintentar.
+     *
+     * @return tiempo sugerido antes de reintentar.
+     */
+    public Duration getReintentarEn() {
+        return reintentarEn;
+    }
+}
@@ -2,14 +2,23 @@ package com.udi.gaaf.autentificacion.errors;
 
 import java.util.HashMap;
 import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.HandlerMapping;
 
+import com.udi.gaaf.autentificacion.security.MetricasAutenticacion;
+
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ValidationException;
 
 /**
@@ -41,6 +50,10 @@ import jakarta.validation.ValidationException;
 @RestControllerAdvice
 public class ManejoExcepciones {
 
+    /** Métricas donde se cuentan los fallos de autenticación. */
+    @Autowired
+    private MetricasAutenticacion metricas;
+
     /**
      * Record interno para representar errores de validación de campos.
      * <p>
@@ -105,19 +118,85 @@ public class ManejoExcepciones {
 
     /**
      * Maneja errores de autenticación (por ejemplo, token inválido o sesión expirada).
+     * <p>
+     * El fallo se cuenta en {@code auth.fallos} con el patrón de la ruta y el rol del usuario.
+     * </p>
      *
      * @param e excepción {@link AuthenticationException}.
+     * @param request solicitud que produjo el error.
      * @return respuesta JSON con estado 401 (Unauthorized).
      */
     @SuppressWarnings("rawtypes")
     @ExceptionHandler(AuthenticationException.class)
-    public ResponseEntity TratarAuthenticationException(AuthenticationException e) {
+    public ResponseEntity TratarAuthenticationException(AuthenticationException e, HttpServletRequest request) {
+        var patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        metricas.registrarFallo(e,
+                patron != null ? patron.toString() : MetricasAutenticacion.endpoint(request.getRequestURI()),
+                MetricasAutenticacion.rol(SecurityContextHolder.getContext().getAuthentication()));
         Map<String, Object> json = new HashMap<>();
         json.put("status", HttpStatus.UNAUTHORIZED.value());
         json.put("message", e.getMessage());
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(json);
     }
 
+    /**
+     * Maneja la saturación del servicio (por ejemplo, demasiadas operaciones de cifrado simultáneas)
+     * o la falta de los índices únicos de usuarios. El tipo de contenido se fija a JSON porque la
+     * importación ya fijó el de NDJSON.
+     *
+     * @param e excepción {@link ServicioSaturadoException}.
+     * @return respuesta JSON con estado 503 (Service Unavailable) y encabezado {@code Retry-After}.
+     */
+    @SuppressWarnings("rawtypes")
+    @ExceptionHandler(ServicioSaturadoException.class)
+    public ResponseEntity TratarServicioSaturado(ServicioSaturadoException e) {
+        Map<String, Object> json = new HashMap<>();
+        json.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        json.put("message", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getReintentarEn().toSeconds())))
+                .body(json);
+    }
+
+    /**
+     * Maneja el rechazo de una respuesta asíncrona (por ejemplo, una transmisión NDJSON) porque
+     * su ejecutor y su cola están llenos. El tipo de contenido se fija a JSON porque la respuesta
+     * ya tiene el tipo de la transmisión.
+     *
+     * @param e excepción {@link TaskRejectedException}.
+     * @return respuesta JSON con estado 503 (Service Unavailable) y encabezado {@code Retry-After}.
+     */
+    @SuppressWarnings("rawtypes")
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity TratarTareaRechazada(TaskRejectedException e) {
+        Map<String, Object> json = new HashMap<>();
+        json.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        json.put("message", "Demasiadas transmisiones simultáneas, intente más tarde");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(json);
+    }
+
+    /**
+     * Maneja el exceso de intentos fallidos de inicio de sesión.
+     *
+     * @param e excepción {@link DemasiadosIntentosException}.
+     * @return respuesta JSON con estado 429 (Too Many Requests) y encabezado {@code Retry-After}.
+     */
+    @SuppressWarnings("rawtypes")
+    @ExceptionHandler(DemasiadosIntentosException.class)
+    public ResponseEntity TratarDemasiadosIntentos(DemasiadosIntentosException e) {
+        Map<String, Object> json = new HashMap<>();
+        json.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        json.put("message", e.getMessage());
+        long segundos = (e.getReintentarEn().toMillis() + 999) / 1000;
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, segundos)))
+                .body(json);
+    }
+
     /**
      * Maneja errores de validación de datos recibidos en el cuerpo de la solicitud.
      * <p>
@@ -0,0 +1,39 @@
+package com.udi.gaaf.autentificacion.errors;
+
+import java.time.Duration;
+
+/**
+ * Excepción personalizada para indicar que el servicio está saturado (HTTP 503).
+ * <p>
+ * Se lanza cuando una operación costosa, como el cifrado o la verificación de contraseñas,
+ * supera el límite de concurrencia. El cliente debe reintentar después de {@link #getReintentarEn()}.
+ * </p>
+ *
+ * @see RuntimeException
+ */
+@SuppressWarnings("serial")
+public class ServicioSaturadoException extends RuntimeException {
+
+    /** Tiempo sugerido antes de reintentar. */
+    private final Duration reintentarEn;
+
+    /**
+     * Crea una nueva excepción de servicio saturado con un mensaje descriptivo.
+     *
+     * @param message mensaje que describe la causa del error.
+     * @param reintentarEn tiempo sugerido antes de reintentar.
+     */
+    public ServicioSaturadoException(String message, Duration reintentarEn) {
+        super(message);
+        this.reintentarEn = reintentarEn;
+    }
+
+    /**
+     * Obtiene el tiempo sugerido antes de reintentar.
+     *
+     * @return duración enviada en el encabezado {@code Retry-After}.
+     */
+    public Duration getReintentarEn() {
+        return reintentarEn;
+    }
+}
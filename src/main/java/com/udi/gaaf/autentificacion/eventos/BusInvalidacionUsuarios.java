@@ -0,0 +1,236 @@
+package com.udi.gaaf.autentificacion.eventos;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bus de invalidación de cachés basado en el change stream de la colección {@code usuario}.
+ * <p>
+ * Cada instancia observa la colección y publica un {@link EventoUsuario} local por cada cambio,
+ * sin importar qué instancia lo hizo. Los componentes con estado en memoria (por ejemplo,
+ * {@code CachePrincipales}) se suscriben con {@code @EventListener}.
+ * </p>
+ *
+ * <h3>Clasificación de cambios</h3>
+ * <ul>
+ *   <li>{@code delete}: {@link EventoUsuario.Eliminado}.</li>
+ *   <li>{@code activo = false}: {@link EventoUsuario.Desactivado}.</li>
+ *   <li>{@code contrasena} modificada: {@link EventoUsuario.ContrasenaCambiada}.</li>
+ *   <li>Cualquier otra actualización o reemplazo: {@link EventoUsuario.Actualizado}.</li>
+ * </ul>
+ *
+ * <p>
+ * La posición del change stream se guarda en la colección {@code flujo_cambios} con el identificador
+ * {@code api.cambios.id-instancia}, de modo que tras un reinicio se reanuda desde el último cambio
+ * procesado. El identificador debe ser estable entre reinicios: por defecto es el nombre del
+ * servicio, una sola posición que comparten todas sus instancias, ya que una instancia que
+ * arranca tiene las cachés vacías y no pierde nada si reanuda desde la posición de otra. Con
+ * identidades estables por instancia (por ejemplo, los pods de un StatefulSet) se puede dar una
+ * posición a cada una con {@code CAMBIOS_ID_INSTANCIA}; no debe usarse el nombre del host de un
+ * contenedor, que cambia en cada reinicio y deja posiciones que nadie reutiliza. El retraso entre la escritura en MongoDB y la publicación del evento se mide en
+ * {@code usuario.cambios.retraso}.
+ * </p>
+ *
+ * @see ObservadorColeccion
+ */
+@Component
+public class BusInvalidacionUsuarios {
+
+    private static final Logger log = LoggerFactory.getLogger(BusInvalidacionUsuarios.class);
+
+    /** Colección observada. */
+    private static final String COLECCION = "usuario";
+
+    /** Colección donde se guarda la posición de cada instancia. */
+    private static final String COLECCION_POSICIONES = "flujo_cambios";
+
+    /** Publicador de eventos de Spring. */
+    @Autowired
+    private ApplicationEventPublisher publicador;
+
+    /** Plantilla de MongoDB. */
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /** Indica si se observa la colección mediante change streams. */
+    @Value("${api.cambios.habilitado:true}")
+    private boolean habilitado;
+
+    /** Identificador con el que la instancia guarda su posición en el change stream. */
+    @Value("${api.cambios.id-instancia:${spring.application.name}}")
+    private String idInstancia;
+
+    /** Retraso entre el cambio en MongoDB y la publicación del evento local. */
+    private final Timer retraso;
+
+    /** Registro de métricas para los contadores por tipo de evento. */
+    private final MeterRegistry registry;
+
+    /** Observador del change stream de usuarios. */
+    private ObservadorColeccion observador;
+
+    /** Última posición guardada en MongoDB. */
+    private BsonDocument posicionGuardada;
+
+    /**
+     * Crea el bus y registra sus métricas.
+     *
+     * @param registry registro de métricas de Micrometer.
+     */
+    public BusInvalidacionUsuarios(MeterRegistry registry) {
+        this.registry = registry;
+        this.retraso = Timer.builder("usuario.cambios.retraso")
+                .description("Retraso entre la escritura en MongoDB y la publicación del evento local")
+                .register(registry);
+    }
+
+    /**
+     * Inicia el change stream desde la última posición guardada cuando la aplicación está lista.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        if (!habilitado) {
+            return;
+        }
+        // Las actualizaciones se clasifican por updateDescription; no hace falta leer el documento
+        observador = new ObservadorColeccion(mongoTemplate, COLECCION,
+                List.of(Aggregates.match(Filters.in("operationType", "update", "replace", "delete"))),
+                FullDocument.DEFAULT, this::alCambiar, this::alPerderContinuidad);
+        Thread.ofVirtual().name("usuario-cambios-inicio").start(() -> {
+            BsonDocument posicion = null;
+            try {
+                var guardada = mongoTemplate.getCollection(COLECCION_POSICIONES)
+                        .find(Filters.eq("_id", idInstancia)).first();
+                if (guardada != null && guardada.get("resumeToken") instanceof Document token) {
+                    posicion = token.toBsonDocument();
+                    log.info("Reanudando el change stream de usuarios para {}", idInstancia);
+                }
+            } catch (RuntimeException ex) {
+                log.warn("No se pudo leer la posición del change stream de usuarios: {}", ex.getMessage());
+            }
+            posicionGuardada = posicion;
+            observador.iniciar(posicion);
+        });
+    }
+
+    /**
+     * Guarda la posición y detiene el change stream.
+     */
+    @PreDestroy
+    public void alDetener() {
+        if (observador != null) {
+            guardarPosicion();
+            observador.detener();
+        }
+    }
+
+    /**
+     * Guarda periódicamente la última posición procesada si cambió.
+     */
+    @Scheduled(fixedDelayString = "${api.cambios.guardar-posicion:PT5S}")
+    public void guardarPosicion() {
+        if (observador == null) {
+            return;
+        }
+        var posicion = observador.getResumeToken();
+        if (posicion == null || posicion.equals(posicionGuardada)) {
+            return;
+        }
+        try {
+            mongoTemplate.getCollection(COLECCION_POSICIONES).replaceOne(
+                    Filters.eq("_id", idInstancia),
+                    new Document("_id", idInstancia)
+                            .append("resumeToken", posicion)
+                            .append("actualizado", new Date()),
+                    new ReplaceOptions().upsert(true));
+            posicionGuardada = posicion;
+        } catch (RuntimeException ex) {
+            log.warn("No se pudo guardar la posición del change stream de usuarios: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Convierte un cambio en un evento y lo publica localmente.
+     *
+     * @param cambio cambio de la colección de usuarios.
+     */
+    private void alCambiar(ChangeStreamDocument<Document> cambio) {
+        if (cambio.getDocumentKey() == null || cambio.getDocumentKey().get("_id") == null) {
+            return;
+        }
+        var valorId = cambio.getDocumentKey().get("_id");
+        var id = valorId.isObjectId() ? valorId.asObjectId().getValue().toHexString() : valorId.asString().getValue();
+        var evento = clasificar(cambio, id);
+
+        if (cambio.getClusterTime() != null) {
+            var instante = Instant.ofEpochSecond(cambio.getClusterTime().getTime());
+            var demora = Duration.between(instante, Instant.now());
+            retraso.record(demora.isNegative() ? Duration.ZERO : demora);
+        }
+        registry.counter("usuario.cambios.eventos", "tipo", evento.getClass().getSimpleName()).increment();
+        publicador.publishEvent(evento);
+    }
+
+    /**
+     * Determina el tipo de evento a partir del cambio.
+     *
+     * @param cambio cambio de la colección de usuarios.
+     * @param id identificador del usuario afectado.
+     * @return evento correspondiente.
+     */
+    private EventoUsuario clasificar(ChangeStreamDocument<Document> cambio, String id) {
+        if (cambio.getOperationType() == OperationType.DELETE) {
+            return new EventoUsuario.Eliminado(id);
+        }
+        if (cambio.getOperationType() == OperationType.UPDATE && cambio.getUpdateDescription() != null) {
+            var campos = cambio.getUpdateDescription().getUpdatedFields();
+            if (campos != null) {
+                if (campos.isBoolean("activo") && !campos.getBoolean("activo").getValue()) {
+                    return new EventoUsuario.Desactivado(id);
+                }
+                if (campos.containsKey("contrasena")) {
+                    return new EventoUsuario.ContrasenaCambiada(id);
+                }
+            }
+            return new EventoUsuario.Actualizado(id);
+        }
+        var documento = cambio.getFullDocument();
+        if (documento != null && Boolean.FALSE.equals(documento.getBoolean("activo"))) {
+            return new EventoUsuario.Desactivado(id);
+        }
+        return new EventoUsuario.Actualizado(id);
+    }
+
+    /**
+     * Publica {@link EventoUsuario.ContinuidadPerdida} cuando no es posible reanudar el change stream.
+     */
+    private void alPerderContinuidad() {
+        publicador.publishEvent(new EventoUsuario.ContinuidadPerdida());
+    }
+}
@@ -0,0 +1,59 @@
+package com.udi.gaaf.autentificacion.eventos;
+
+/**
+ * Eventos publicados cuando cambia un documento de la colección {@code usuario} en cualquier instancia.
+ *
+ * <p>Los publica {@link BusInvalidacionUsuarios} a partir del change stream y se reciben
+ * localmente con {@code @EventListener}. Sirven para invalidar cachés en memoria de usuarios,
+ * roles o tokens.</p>
+ */
+public sealed interface EventoUsuario {
+
+    /**
+     * Identificador del usuario afectado.
+     *
+     * @return identificador del usuario, o {@code null} si el evento afecta a todos.
+     */
+    String id();
+
+    /**
+     * Los datos del usuario cambiaron (nombre, correo, rol, etc.).
+     *
+     * @param id identificador del usuario
+     */
+    record Actualizado(String id) implements EventoUsuario {}
+
+    /**
+     * El usuario quedó inactivo.
+     *
+     * @param id identificador del usuario
+     */
+    record Desactivado(String id) implements EventoUsuario {}
+
+    /**
+     * El usuario fue eliminado.
+     *
+     * @param id identificador del usuario
+     */
+    record Eliminado(String id) implements EventoUsuario {}
+
+    /**
+     * La contraseña del usuario cambió.
+     *
+     * @param id identificador del usuario
+     */
+    record ContrasenaCambiada(String id) implements EventoUsuario {}
+
+    /**
+     * No fue posible reanudar el change stream y pudieron perderse cambios;
+     * los consumidores deben descartar todo su estado.
+     */
+    record ContinuidadPerdida() implements EventoUsuario {
+
+        /** Afecta a todos los usuarios. */
+        @Override
+        public String id() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.udi.gaaf.autentificacion.eventos;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+
+/**
+ * Observa una colección de MongoDB mediante un change stream y entrega cada cambio a un consumidor.
+ * <p>
+ * El change stream se lee en un hilo virtual propio. Si la conexión se pierde, el observador
+ * se reconecta con espera exponencial y continúa desde el último resume token recibido, sin perder
+ * cambios. Si MongoDB ya no conserva ese punto del oplog, se invoca {@code alPerderContinuidad}
+ * para que el consumidor recargue su estado completo y se continúa desde el presente.
+ * </p>
+ *
+ * <p>
+ * Un cambio cuyo consumidor falla se registra en el log y se deja atrás: el resume token avanza
+ * igual, de modo que un cambio que no se puede procesar no se vuelve a entregar en cada
+ * reconexión ni detiene los siguientes.
+ * </p>
+ *
+ * <p>Requiere que MongoDB se ejecute como replica set (ver {@code docker-compose.yml}).</p>
+ */
+public class ObservadorColeccion {
+
+    private static final Logger log = LoggerFactory.getLogger(ObservadorColeccion.class);
+
+    /** Códigos de error de MongoDB que indican que el resume token ya no es utilizable. */
+    private static final List<Integer> ERRORES_SIN_CONTINUIDAD = List.of(260, 280, 286);
+
+    /** Espera máxima entre reintentos de conexión. */
+    private static final Duration ESPERA_MAXIMA = Duration.ofSeconds(30);
+
+    /** Plantilla de MongoDB. */
+    private final MongoTemplate mongoTemplate;
+
+    /** Colección observada. */
+    private final String coleccion;
+
+    /** Etapas de agregación que filtran los cambios en el servidor. */
+    private final List<Bson> pipeline;
+
+    /** Documento completo que acompaña a cada cambio. */
+    private final FullDocument documentoCompleto;
+
+    /** Consumidor de cada cambio recibido. */
+    private final Consumer<ChangeStreamDocument<Document>> consumidor;
+
+    /** Acción a ejecutar cuando no es posible reanudar desde el último resume token. */
+    private final Runnable alPerderContinuidad;
+
+    /** Último resume token procesado. */
+    private volatile BsonDocument resumeToken;
+
+    /** Indica si el observador debe seguir leyendo cambios. */
+    private volatile boolean activo;
+
+    /** Hilo que lee el change stream. */
+    private Thread hilo;
+
+    /**
+     * Crea un observador de la colección indicada.
+     *
+     * @param mongoTemplate plantilla de MongoDB.
+     * @param coleccion nombre de la colección a observar.
+     * @param pipeline etapas de agregación aplicadas al change stream.
+     * @param documentoCompleto documento completo de cada cambio; con {@link FullDocument#DEFAULT}
+     *        solo lo traen las inserciones y los reemplazos, y con
+     *        {@link FullDocument#UPDATE_LOOKUP} cada actualización cuesta una lectura adicional.
+     * @param consumidor consumidor de cada cambio.
+     * @param alPerderContinuidad acción cuando no es posible reanudar el change stream.
+     */
+    public ObservadorColeccion(MongoTemplate mongoTemplate, String coleccion, List<Bson> pipeline,
+            FullDocument documentoCompleto, Consumer<ChangeStreamDocument<Document>> consumidor,
+            Runnable alPerderContinuidad) {
+        this.mongoTemplate = mongoTemplate;
+        this.coleccion = coleccion;
+        this.pipeline = pipeline;
+        this.documentoCompleto = documentoCompleto;
+        this.consumidor = consumidor;
+        this.alPerderContinuidad = alPerderContinuidad;
+    }
+
+    /**
+     * Inicia la lectura del change stream en un hilo virtual.
+     *
+     * @param resumeTokenInicial resume token desde el cual continuar, o {@code null} para iniciar en el presente.
+     */
+    public synchronized void iniciar(BsonDocument resumeTokenInicial) {
+        if (activo) {
+            return;
+        }
+        resumeToken = resumeTokenInicial;
+        activo = true;
+        hilo = Thread.ofVirtual().name("cambios-" + coleccion).start(this::ejecutar);
+    }
+
+    /**
+     * Detiene la lectura del change stream.
+     */
+    public synchronized void detener() {
+        activo = false;
+        if (hilo != null) {
+            hilo.interrupt();
+        }
+    }
+
+    /**
+     * Obtiene el último resume token procesado.
+     *
+     * @return resume token, o {@code null} si aún no se ha recibido ningún cambio.
+     */
+    public BsonDocument getResumeToken() {
+        return resumeToken;
+    }
+
+    /**
+     * Bucle de lectura con reconexión y espera exponencial.
+     */
+    private void ejecutar() {
+        long esperaMs = 1000;
+        while (activo) {
+            try {
+                var iterable = mongoTemplate.getCollection(coleccion)
+                        .watch(pipeline)
+                        .fullDocument(documentoCompleto)
+                        .maxAwaitTime(1, TimeUnit.SECONDS);
+                if (resumeToken != null) {
+                    iterable = iterable.resumeAfter(resumeToken);
+                }
+                try (var cursor = iterable.cursor()) {
+                    log.info("Change stream de '{}' iniciado", coleccion);
+                    esperaMs = 1000;
+                    while (activo) {
+                        var cambio = cursor.tryNext();
+                        if (cambio != null) {
+                            entregar(cambio);
+                        }
+                        if (cursor.getResumeToken() != null) {
+                            resumeToken = cursor.getResumeToken();
+                        }
+                    }
+                }
+            } catch (MongoCommandException ex) {
+                if (ERRORES_SIN_CONTINUIDAD.contains(ex.getErrorCode())) {
+                    log.warn("No es posible reanudar el change stream de '{}': {}", coleccion, ex.getErrorMessage());
+                    resumeToken = null;
+                    alPerderContinuidad.run();
+                } else {
+                    esperaMs = esperar(ex, esperaMs);
+                }
+            } catch (RuntimeException ex) {
+                if (!activo) {
+                    break;
+                }
+                esperaMs = esperar(ex, esperaMs);
+            }
+        }
+        log.info("Change stream de '{}' detenido", coleccion);
+    }
+
+    /**
+     * Entrega un cambio al consumidor. Si falla, el error se registra y el cambio se descarta.
+     *
+     * @param cambio cambio recibido.
+     */
+    private void entregar(ChangeStreamDocument<Document> cambio) {
+        try {
+            consumidor.accept(cambio);
+        } catch (RuntimeException ex) {
+            log.error("No se pudo procesar un cambio de '{}' ({} de {}); se omite", coleccion,
+                    cambio.getOperationTypeString(), cambio.getDocumentKey(), ex);
+        }
+    }
+
+    /**
+     * Registra el error y espera antes de reintentar.
+     *
+     * @param ex error recibido.
+     * @param esperaMs espera actual en milisegundos.
+     * @return siguiente espera en milisegundos.
+     */
+    private long esperar(Exception ex, long esperaMs) {
+        log.warn("Change stream de '{}' interrumpido, reintento en {} ms: {}", coleccion, esperaMs, ex.getMessage());
+        try {
+            Thread.sleep(esperaMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            activo = false;
+        }
+        return Math.min(esperaMs * 2, ESPERA_MAXIMA.toMillis());
+    }
+}
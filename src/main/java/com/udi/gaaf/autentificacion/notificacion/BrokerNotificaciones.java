@@ -0,0 +1,444 @@
+package com.udi.gaaf.autentificacion.notificacion;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.udi.gaaf.autentificacion.eventos.ObservadorColeccion;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Distribuye las notificaciones nuevas a las conexiones Server-Sent Events de sus destinatarios.
+ *
+ * <h3>Origen de las notificaciones</h3>
+ * <p>
+ * Con {@code api.cambios.habilitado=true} el broker observa las inserciones de la colección
+ * {@code notificacion} mediante un change stream, de modo que cada instancia entrega las
+ * notificaciones creadas por cualquier instancia o por otro servicio. Sin change streams, solo
+ * entrega las creadas por {@link NotificacionService} en esta instancia.
+ * </p>
+ *
+ * <h3>Conexiones</h3>
+ * <p>
+ * Cada conexión es un {@link SseEmitter} sobre una solicitud asíncrona del servlet, que no ocupa
+ * un hilo mientras espera. Los eventos se encolan en una cola acotada por conexión
+ * ({@code api.notificaciones.sse.cola}) y se escriben desde un hilo virtual que solo existe
+ * mientras la cola tiene eventos; una conexión inactiva cuesta su cola y su emisor. Si un cliente
+ * lento llena la cola, la conexión se cierra y el cliente se reconecta con {@code Last-Event-ID}.
+ * </p>
+ *
+ * <p>
+ * El identificador de cada evento es el de la notificación. Al reconectarse con
+ * {@code Last-Event-ID}, se envían primero las notificaciones perdidas (hasta
+ * {@code api.notificaciones.sse.reanudacion}) y después las recibidas mientras tanto, sin
+ * duplicados. Las perdidas se buscan por {@code fecha} y {@code _id}, como la bandeja, y no solo
+ * por {@code _id}: un {@link ObjectId} tiene precisión de segundos y lo genera cada instancia, así
+ * que otra instancia puede insertar en el mismo segundo una notificación con un identificador
+ * menor. Como los relojes de las instancias pueden diferir, la búsqueda empieza
+ * {@code api.notificaciones.sse.solapamiento} antes de la fecha de la última notificación
+ * recibida; las de ese margen pueden llegar repetidas y el cliente las descarta por su
+ * identificador. Cada {@code api.notificaciones.sse.latido} se envía un comentario para mantener la
+ * conexión abierta a través de proxies.
+ * </p>
+ *
+ * <h3>Métricas</h3>
+ * <ul>
+ *   <li>{@code notificacion.sse.conexiones}: conexiones abiertas.</li>
+ *   <li>{@code notificacion.sse.entregas}: notificaciones encoladas para alguna conexión.</li>
+ *   <li>{@code notificacion.sse.desbordes}: conexiones cerradas por llenar su cola.</li>
+ * </ul>
+ */
+@Component
+public class BrokerNotificaciones {
+
+    private static final Logger log = LoggerFactory.getLogger(BrokerNotificaciones.class);
+
+    /** Colección observada. */
+    private static final String COLECCION = "notificacion";
+
+    /** Plantilla de MongoDB. */
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /** Indica si las notificaciones se reciben mediante el change stream. */
+    @Value("${api.cambios.habilitado:true}")
+    private boolean cambiosHabilitados;
+
+    /** Eventos pendientes máximos por conexión. */
+    @Value("${api.notificaciones.sse.cola:64}")
+    private int capacidadCola;
+
+    /** Notificaciones máximas reenviadas al reanudar con {@code Last-Event-ID}. */
+    @Value("${api.notificaciones.sse.reanudacion:100}")
+    private int maximoReanudacion;
+
+    /** Margen anterior a la última notificación recibida en el que se vuelve a buscar al reanudar. */
+    @Value("${api.notificaciones.sse.solapamiento:PT5S}")
+    private Duration solapamiento;
+
+    /** Duración máxima de una conexión antes de que el cliente deba reconectarse. */
+    @Value("${api.notificaciones.sse.duracion:PT30M}")
+    private Duration duracion;
+
+    /** Conexiones abiertas por identificador de usuario. */
+    private final Map<String, Set<Suscripcion>> suscripciones = new ConcurrentHashMap<>();
+
+    /** Hilos virtuales que escriben los eventos encolados. */
+    private final ExecutorService envios = Executors.newVirtualThreadPerTaskExecutor();
+
+    /** Notificaciones encoladas. */
+    private final Counter entregas;
+
+    /** Conexiones cerradas por desbordar su cola. */
+    private final Counter desbordes;
+
+    /** Observador del change stream de notificaciones. */
+    private ObservadorColeccion observador;
+
+    /**
+     * Crea el broker y registra sus métricas.
+     *
+     * @param registry registro de métricas de Micrometer.
+     */
+    public BrokerNotificaciones(MeterRegistry registry) {
+        this.entregas = Counter.builder("notificacion.sse.entregas")
+                .description("Notificaciones encoladas para una conexión SSE")
+                .register(registry);
+        this.desbordes = Counter.builder("notificacion.sse.desbordes")
+                .description("Conexiones SSE cerradas por llenar su cola")
+                .register(registry);
+        Gauge.builder("notificacion.sse.conexiones", suscripciones,
+                        s -> s.values().stream().mapToInt(Set::size).sum())
+                .description("Conexiones SSE abiertas")
+                .register(registry);
+    }
+
+    /**
+     * Inicia el change stream de notificaciones cuando la aplicación está lista.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        if (!cambiosHabilitados) {
+            return;
+        }
+        // Sin continuidad no hay estado que recargar: los clientes recuperan con Last-Event-ID
+        observador = new ObservadorColeccion(mongoTemplate, COLECCION,
+                List.of(Aggregates.match(Filters.eq("operationType", "insert"))),
+                FullDocument.DEFAULT, this::alInsertar, () -> { });
+        observador.iniciar(null);
+    }
+
+    /**
+     * Detiene el change stream y cierra las conexiones.
+     */
+    @PreDestroy
+    public void alDetener() {
+        if (observador != null) {
+            observador.detener();
+        }
+        suscripciones.values().forEach(conexiones -> conexiones.forEach(Suscripcion::cerrar));
+        envios.shutdown();
+    }
+
+    /**
+     * Abre una conexión SSE para el usuario.
+     *
+     * @param usuarioId identificador del usuario autenticado.
+     * @param ultimoId valor de {@code Last-Event-ID}, o {@code null} en la primera conexión.
+     * @return emisor de la conexión.
+     */
+    public SseEmitter suscribir(String usuarioId, String ultimoId) {
+        boolean reanudar = ultimoId != null && ObjectId.isValid(ultimoId);
+        var suscripcion = new Suscripcion(usuarioId, new SseEmitter(duracion.toMillis()), reanudar);
+        suscripcion.emitter.onCompletion(() -> quitar(suscripcion));
+        suscripcion.emitter.onTimeout(suscripcion::cerrar);
+        suscripcion.emitter.onError(ex -> suscripcion.cerrar());
+        // Se registra antes de consultar las perdidas para no omitir las que lleguen mientras tanto
+        suscripciones.computeIfAbsent(usuarioId, u -> ConcurrentHashMap.newKeySet()).add(suscripcion);
+        if (reanudar) {
+            try {
+                var ultima = new ObjectId(ultimoId);
+                var perdidas = mongoTemplate.find(
+                        query(where("usuarioId").is(usuarioId)
+                                .and("fecha").gte(fecha(usuarioId, ultima).minus(solapamiento))
+                                .and("_id").ne(ultima))
+                                .with(Sort.by(Sort.Direction.ASC, "fecha", "_id"))
+                                .limit(maximoReanudacion),
+                        Notificacion.class);
+                suscripcion.reanudar(perdidas.stream().map(DatosDetalleNotificacion::new).toList());
+            } catch (RuntimeException ex) {
+                // El emisor no llega a Spring MVC, así que nadie más quitaría la suscripción
+                suscripcion.cerrar();
+                throw ex;
+            }
+        }
+        suscripcion.latido();
+        return suscripcion.emitter;
+    }
+
+    /**
+     * Obtiene la fecha de la última notificación recibida por el cliente. Si ya no existe, se usa
+     * el instante de su identificador, truncado a segundos.
+     *
+     * @param usuarioId identificador del usuario.
+     * @param ultima identificador de la última notificación recibida.
+     * @return fecha desde la que se buscan las perdidas, antes de restar el solapamiento.
+     */
+    private LocalDateTime fecha(String usuarioId, ObjectId ultima) {
+        var consulta = query(where("_id").is(ultima).and("usuarioId").is(usuarioId));
+        consulta.fields().include("fecha");
+        var notificacion = mongoTemplate.findOne(consulta, Notificacion.class);
+        if (notificacion != null && notificacion.getFecha() != null) {
+            return notificacion.getFecha();
+        }
+        return LocalDateTime.ofInstant(ultima.getDate().toInstant(), ZoneId.systemDefault());
+    }
+
+    /**
+     * Entrega una notificación creada en esta instancia cuando no hay change stream que la reciba.
+     *
+     * @param notificacion notificación guardada.
+     */
+    public void alRegistrar(Notificacion notificacion) {
+        if (!cambiosHabilitados) {
+            publicar(notificacion);
+        }
+    }
+
+    /**
+     * Envía un latido a todas las conexiones abiertas.
+     */
+    @Scheduled(fixedDelayString = "${api.notificaciones.sse.latido:PT20S}")
+    public void latidos() {
+        suscripciones.values().forEach(conexiones -> conexiones.forEach(Suscripcion::latido));
+    }
+
+    /**
+     * Convierte una inserción del change stream en una notificación y la publica.
+     *
+     * @param cambio inserción en la colección de notificaciones.
+     */
+    private void alInsertar(ChangeStreamDocument<Document> cambio) {
+        var documento = cambio.getFullDocument();
+        if (documento == null) {
+            return;
+        }
+        try {
+            publicar(mongoTemplate.getConverter().read(Notificacion.class, documento));
+        } catch (RuntimeException ex) {
+            log.warn("No se pudo publicar la notificación {}: {}", documento.get("_id"), ex.getMessage());
+        }
+    }
+
+    /**
+     * Encola la notificación en las conexiones de su destinatario.
+     *
+     * @param notificacion notificación a publicar.
+     */
+    private void publicar(Notificacion notificacion) {
+        var conexiones = suscripciones.get(notificacion.getUsuarioId());
+        if (conexiones == null) {
+            return;
+        }
+        var detalle = new DatosDetalleNotificacion(notificacion);
+        for (var suscripcion : conexiones) {
+            suscripcion.ofrecer(detalle);
+        }
+    }
+
+    /**
+     * Quita una conexión del registro.
+     *
+     * @param suscripcion conexión a quitar.
+     */
+    private void quitar(Suscripcion suscripcion) {
+        suscripciones.computeIfPresent(suscripcion.usuarioId, (u, conexiones) -> {
+            conexiones.remove(suscripcion);
+            return conexiones.isEmpty() ? null : conexiones;
+        });
+    }
+
+    /**
+     * Crea el evento SSE de una notificación.
+     *
+     * @param notificacion notificación a enviar.
+     * @return evento con el identificador de la notificación.
+     */
+    private static SseEmitter.SseEventBuilder evento(DatosDetalleNotificacion notificacion) {
+        return SseEmitter.event()
+                .id(notificacion.id())
+                .name("notificacion")
+                .data(notificacion, MediaType.APPLICATION_JSON);
+    }
+
+    /**
+     * Conexión SSE de un usuario con su cola acotada de eventos.
+     */
+    private final class Suscripcion {
+
+        /** Identificador del usuario. */
+        private final String usuarioId;
+
+        /** Emisor de la conexión. */
+        private final SseEmitter emitter;
+
+        /** Eventos pendientes de escribir. */
+        private final ArrayBlockingQueue<SseEmitter.SseEventBuilder> cola;
+
+        /** Indica si hay un hilo escribiendo la cola. */
+        private final AtomicBoolean escribiendo = new AtomicBoolean();
+
+        /** Notificaciones recibidas mientras se consultan las perdidas, o {@code null}. */
+        private List<DatosDetalleNotificacion> pendientes;
+
+        /** Indica si la conexión se cerró. */
+        private volatile boolean cerrada;
+
+        /**
+         * Crea la conexión.
+         *
+         * @param usuarioId identificador del usuario.
+         * @param emitter emisor de la conexión.
+         * @param reanudando {@code true} si aún se deben enviar las notificaciones perdidas.
+         */
+        Suscripcion(String usuarioId, SseEmitter emitter, boolean reanudando) {
+            this.usuarioId = usuarioId;
+            this.emitter = emitter;
+            this.cola = new ArrayBlockingQueue<>(capacidadCola);
+            this.pendientes = reanudando ? new ArrayList<>() : null;
+        }
+
+        /**
+         * Encola una notificación, o la retiene si aún se envían las perdidas.
+         *
+         * @param notificacion notificación nueva.
+         */
+        synchronized void ofrecer(DatosDetalleNotificacion notificacion) {
+            if (pendientes != null) {
+                pendientes.add(notificacion);
+                return;
+            }
+            entregas.increment();
+            encolar(evento(notificacion));
+        }
+
+        /**
+         * Encola las notificaciones perdidas y después las retenidas que no estaban entre ellas.
+         *
+         * @param perdidas notificaciones posteriores a {@code Last-Event-ID}.
+         */
+        synchronized void reanudar(List<DatosDetalleNotificacion> perdidas) {
+            var enviadas = new HashSet<String>();
+            for (var notificacion : perdidas) {
+                enviadas.add(notificacion.id());
+                encolar(evento(notificacion));
+            }
+            for (var notificacion : pendientes) {
+                if (!enviadas.contains(notificacion.id())) {
+                    encolar(evento(notificacion));
+                }
+            }
+            pendientes = null;
+        }
+
+        /**
+         * Encola un comentario que mantiene la conexión abierta.
+         */
+        void latido() {
+            encolar(SseEmitter.event().comment("latido"));
+        }
+
+        /**
+         * Encola un evento y lanza la escritura si no hay una en curso. Si la cola está llena,
+         * el cliente no está leyendo y se cierra la conexión.
+         *
+         * @param evento evento a enviar.
+         */
+        private void encolar(SseEmitter.SseEventBuilder evento) {
+            if (cerrada) {
+                return;
+            }
+            if (!cola.offer(evento)) {
+                desbordes.increment();
+                cerrar();
+                return;
+            }
+            if (escribiendo.compareAndSet(false, true)) {
+                envios.execute(this::escribir);
+            }
+        }
+
+        /**
+         * Escribe los eventos encolados hasta vaciar la cola.
+         */
+        private void escribir() {
+            try {
+                do {
+                    SseEmitter.SseEventBuilder evento;
+                    while ((evento = cola.poll()) != null) {
+                        emitter.send(evento);
+                    }
+                    escribiendo.set(false);
+                    // Un evento pudo encolarse entre el último poll y la liberación
+                } while (!cola.isEmpty() && escribiendo.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException ex) {
+                escribiendo.set(false);
+                cerrar();
+            }
+        }
+
+        /**
+         * Cierra la conexión y la quita del registro.
+         */
+        void cerrar() {
+            if (cerrada) {
+                return;
+            }
+            cerrada = true;
+            cola.clear();
+            quitar(this);
+            try {
+                emitter.complete();
+            } catch (RuntimeException ex) {
+                // La conexión ya estaba cerrada
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.udi.gaaf.autentificacion.notificacion;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Contadores de notificaciones por estado de un usuario.
+ * <p>El identificador es el del usuario, de modo que la consulta es una lectura por
+ * {@code _id}. Los campos se llaman como cada {@link EstadoNotificacion} para actualizarlos con
+ * {@code $inc} a partir del estado.</p>
+ */
+@Document(collection = "contador_notificacion")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ContadorNotificaciones {
+
+	/** Identificador del usuario. */
+	@Id
+	private String id;
+	/** Notificaciones sin ver. */
+	@Field("NO_VISTA")
+	private long noVista;
+	/** Notificaciones vistas. */
+	@Field("VISTA")
+	private long vista;
+	/** Notificaciones resueltas. */
+	@Field("RESUELTA")
+	private long resuelta;
+}
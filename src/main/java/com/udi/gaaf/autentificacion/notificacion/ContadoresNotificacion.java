@@ -0,0 +1,275 @@
+package com.udi.gaaf.autentificacion.notificacion;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Contadores de notificaciones por usuario y estado, mantenidos de forma incremental.
+ * <p>
+ * Cada creación o cambio de estado de una notificación aplica un {@code $inc} atómico sobre el
+ * documento {@link ContadorNotificaciones} del usuario, de modo que consultar los contadores es
+ * una lectura por {@code _id} que no recorre las notificaciones.
+ * </p>
+ *
+ * <p>
+ * La notificación y su contador se escriben por separado, sin transacción. Si el proceso falla
+ * entre ambas escrituras, o en las notificaciones migradas, el contador puede desviarse; la
+ * reconciliación periódica ({@code api.notificaciones.reconciliacion}) recalcula los contadores
+ * con una agregación y corrige solo los que difieren, contándolos en
+ * {@code notificacion.contador.reparaciones}. Cada corrección se condiciona a los valores que se
+ * leyeron del contador, de modo que nunca pisa un {@code $inc} concurrente.
+ * </p>
+ */
+@Service
+public class ContadoresNotificacion {
+
+    private static final Logger log = LoggerFactory.getLogger(ContadoresNotificacion.class);
+
+    /** Plantilla de MongoDB. */
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /** Contadores corregidos por la reconciliación. */
+    private final Counter reparaciones;
+
+    /**
+     * Crea el servicio y registra sus métricas.
+     *
+     * @param registry registro de métricas de Micrometer.
+     */
+    public ContadoresNotificacion(MeterRegistry registry) {
+        this.reparaciones = Counter.builder("notificacion.contador.reparaciones")
+                .description("Contadores de notificaciones corregidos por la reconciliación")
+                .register(registry);
+    }
+
+    /**
+     * Suma una notificación nueva al contador del estado indicado.
+     *
+     * @param usuarioId identificador del usuario.
+     * @param estado estado de la notificación creada.
+     */
+    public void registrar(String usuarioId, EstadoNotificacion estado) {
+        mongoTemplate.upsert(query(where("_id").is(usuarioId)), new Update().inc(estado.name(), 1),
+                ContadorNotificaciones.class);
+    }
+
+    /**
+     * Mueve notificaciones de un estado a otro en el contador del usuario.
+     *
+     * @param usuarioId identificador del usuario.
+     * @param origen estado anterior.
+     * @param destino estado nuevo.
+     * @param cantidad cantidad de notificaciones que cambiaron.
+     */
+    public void transicion(String usuarioId, EstadoNotificacion origen, EstadoNotificacion destino, long cantidad) {
+        if (cantidad == 0) {
+            return;
+        }
+        mongoTemplate.upsert(query(where("_id").is(usuarioId)),
+                new Update().inc(origen.name(), -cantidad).inc(destino.name(), cantidad),
+                ContadorNotificaciones.class);
+    }
+
+    /**
+     * Obtiene los contadores del usuario con una lectura por {@code _id}.
+     *
+     * @param usuarioId identificador del usuario.
+     * @return contadores por estado; cero si el usuario no tiene notificaciones.
+     */
+    public DatosContadorNotificaciones obtener(String usuarioId) {
+        var contador = mongoTemplate.findById(usuarioId, ContadorNotificaciones.class);
+        if (contador == null) {
+            return new DatosContadorNotificaciones(0, 0, 0);
+        }
+        return new DatosContadorNotificaciones(contador.getNoVista(), contador.getVista(), contador.getResuelta());
+    }
+
+    /**
+     * Elimina los contadores del usuario.
+     *
+     * @param usuarioId identificador del usuario.
+     */
+    public void eliminar(String usuarioId) {
+        mongoTemplate.remove(query(where("_id").is(usuarioId)), ContadorNotificaciones.class);
+    }
+
+    /**
+     * Elimina los contadores de varios usuarios.
+     *
+     * @param usuarioIds identificadores de los usuarios.
+     */
+    public void eliminar(Collection<String> usuarioIds) {
+        mongoTemplate.remove(query(where("_id").in(usuarioIds)), ContadorNotificaciones.class);
+    }
+
+    /**
+     * Recalcula los contadores a partir de las notificaciones y corrige los que difieren.
+     * <p>La agregación sobre todas las notificaciones solo señala a los usuarios sospechosos:
+     * mientras se recorre, los {@code $inc} concurrentes siguen llegando. Cada sospechoso se
+     * revisa con {@link #corregir(String)}.</p>
+     */
+    @Scheduled(initialDelayString = "${api.notificaciones.reconciliacion:PT1H}",
+            fixedDelayString = "${api.notificaciones.reconciliacion:PT1H}")
+    public void reconciliar() {
+        try {
+            var reales = contar(null);
+            var sospechosos = new ArrayList<String>();
+            var revisados = new HashSet<String>();
+            try (var contadores = mongoTemplate.stream(new Query(), ContadorNotificaciones.class)) {
+                for (var iterador = contadores.iterator(); iterador.hasNext();) {
+                    var contador = iterador.next();
+                    revisados.add(contador.getId());
+                    if (difiere(contador, reales.getOrDefault(contador.getId(), Map.of()))) {
+                        sospechosos.add(contador.getId());
+                    }
+                }
+            }
+            for (var usuarioId : reales.keySet()) {
+                if (!revisados.contains(usuarioId)) {
+                    sospechosos.add(usuarioId);
+                }
+            }
+            int corregidos = 0;
+            for (var usuarioId : sospechosos) {
+                if (corregir(usuarioId)) {
+                    corregidos++;
+                }
+            }
+            if (corregidos > 0) {
+                reparaciones.increment(corregidos);
+                log.warn("Contadores de notificaciones corregidos: {}", corregidos);
+            }
+        } catch (Exception ex) {
+            log.error("No se pudieron reconciliar los contadores de notificaciones: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Recalcula el contador de un usuario y lo corrige si difiere.
+     * <p>Primero se lee el contador y después se cuentan las notificaciones del usuario. La
+     * corrección solo se aplica si el contador conserva los valores leídos; si un {@code $inc}
+     * lo cambió entretanto, se deja para la siguiente ejecución. Un contador que no existe se
+     * inserta, y si otra escritura lo creó antes, tampoco se toca.</p>
+     *
+     * @param usuarioId identificador del usuario.
+     * @return {@code true} si el contador se corrigió.
+     */
+    private boolean corregir(String usuarioId) {
+        var observado = mongoTemplate.findById(usuarioId, ContadorNotificaciones.class);
+        var real = contar(usuarioId).getOrDefault(usuarioId, Map.of());
+        if (observado == null) {
+            if (real.isEmpty()) {
+                return false;
+            }
+            var nuevo = new ContadorNotificaciones();
+            nuevo.setId(usuarioId);
+            nuevo.setNoVista(real.getOrDefault(EstadoNotificacion.NO_VISTA, 0L));
+            nuevo.setVista(real.getOrDefault(EstadoNotificacion.VISTA, 0L));
+            nuevo.setResuelta(real.getOrDefault(EstadoNotificacion.RESUELTA, 0L));
+            try {
+                mongoTemplate.insert(nuevo);
+                return true;
+            } catch (DuplicateKeyException ex) {
+                return false;
+            }
+        }
+        if (!difiere(observado, real)) {
+            return false;
+        }
+        var filtro = where("_id").is(usuarioId);
+        filtro = igual(filtro, EstadoNotificacion.NO_VISTA, observado.getNoVista());
+        filtro = igual(filtro, EstadoNotificacion.VISTA, observado.getVista());
+        filtro = igual(filtro, EstadoNotificacion.RESUELTA, observado.getResuelta());
+        return mongoTemplate.updateFirst(query(filtro), valores(real), ContadorNotificaciones.class)
+                .getMatchedCount() > 0;
+    }
+
+    /**
+     * Cuenta las notificaciones por usuario y estado.
+     *
+     * @param usuarioId usuario cuyas notificaciones se cuentan, o {@code null} para todos.
+     * @return cantidad por estado de cada usuario con notificaciones.
+     */
+    private Map<String, Map<EstadoNotificacion, Long>> contar(String usuarioId) {
+        var reales = new HashMap<String, Map<EstadoNotificacion, Long>>();
+        var agrupar = Aggregation.group("usuarioId", "estado").count().as("cantidad");
+        var agregacion = usuarioId == null
+                ? Aggregation.newAggregation(agrupar)
+                : Aggregation.newAggregation(Aggregation.match(where("usuarioId").is(usuarioId)), agrupar);
+        try (var grupos = mongoTemplate.aggregateStream(agregacion, Notificacion.class, Document.class)) {
+            grupos.forEach(grupo -> {
+                var clave = grupo.get("_id", Document.class);
+                var estado = clave.getString("estado");
+                if (estado != null) {
+                    reales.computeIfAbsent(clave.getString("usuarioId"), u -> new EnumMap<>(EstadoNotificacion.class))
+                            .put(EstadoNotificacion.valueOf(estado), ((Number) grupo.get("cantidad")).longValue());
+                }
+            });
+        }
+        return reales;
+    }
+
+    /**
+     * Agrega al filtro la condición de que un contador conserve el valor leído. Un valor cero
+     * también coincide con el campo ausente, que se lee como cero.
+     *
+     * @param filtro filtro sobre el contador.
+     * @param estado estado del contador.
+     * @param valor valor leído.
+     * @return filtro con la condición agregada.
+     */
+    private static Criteria igual(Criteria filtro, EstadoNotificacion estado, long valor) {
+        return valor == 0 ? filtro.and(estado.name()).in(0L, null) : filtro.and(estado.name()).is(valor);
+    }
+
+    /**
+     * Indica si el contador almacenado difiere de los valores reales.
+     *
+     * @param contador contador almacenado.
+     * @param real cantidad real por estado.
+     * @return {@code true} si algún estado difiere.
+     */
+    private static boolean difiere(ContadorNotificaciones contador, Map<EstadoNotificacion, Long> real) {
+        return contador.getNoVista() != real.getOrDefault(EstadoNotificacion.NO_VISTA, 0L)
+                || contador.getVista() != real.getOrDefault(EstadoNotificacion.VISTA, 0L)
+                || contador.getResuelta() != real.getOrDefault(EstadoNotificacion.RESUELTA, 0L);
+    }
+
+    /**
+     * Construye la actualización que fija todos los contadores.
+     *
+     * @param real cantidad real por estado.
+     * @return actualización con un {@code $set} por estado.
+     */
+    private static Update valores(Map<EstadoNotificacion, Long> real) {
+        var update = new Update();
+        for (var estado : EstadoNotificacion.values()) {
+            update.set(estado.name(), real.getOrDefault(estado, 0L));
+        }
+        return update;
+    }
+}
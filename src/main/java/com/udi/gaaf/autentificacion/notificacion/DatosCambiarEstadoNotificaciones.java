@@ -0,0 +1,22 @@
+package com.udi.gaaf.autentificacion.notificacion;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Representa un cambio de estado en lote sobre las notificaciones del usuario autenticado.
+ *
+ * @param ids identificadores de las notificaciones; si se omite, se cambian todas las del usuario
+ *        que admiten la transición
+ * @param estado estado destino: {@link EstadoNotificacion#VISTA} o {@link EstadoNotificacion#RESUELTA}
+ */
+public record DatosCambiarEstadoNotificaciones(
+
+    @Size(max = 1000)
+    List<String> ids,
+
+    @NotNull(message = "El estado es obligatorio. [VISTA | RESUELTA]")
+    EstadoNotificacion estado
+) {}
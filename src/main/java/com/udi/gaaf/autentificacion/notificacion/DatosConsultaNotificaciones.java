@@ -0,0 +1,93 @@
+package com.udi.gaaf.autentificacion.notificacion;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.udi.gaaf.autentificacion.errors.BadRequestException;
+
+/**
+ * Parámetros de la consulta paginada de la bandeja de entrada ({@code GET /notificacion}).
+ *
+ * <p>Las notificaciones se ordenan de la más reciente a la más antigua por {@code fecha} y
+ * {@code _id}. El cursor de la siguiente página combina ambos valores de la última notificación
+ * ({@code fecha_id}), de modo que cada página es una búsqueda sobre el índice sin {@code skip}.</p>
+ *
+ * @param despues cursor de la página anterior, o {@code null} para la primera
+ * @param tamano cantidad de notificaciones por página; por defecto {@value #TAMANO_POR_DEFECTO}, máximo {@value #TAMANO_MAXIMO}
+ * @param estado filtro opcional por estado
+ */
+public record DatosConsultaNotificaciones(
+    String despues,
+    Integer tamano,
+    EstadoNotificacion estado
+) {
+
+    /** Tamaño de página cuando no se indica. */
+    public static final int TAMANO_POR_DEFECTO = 20;
+
+    /** Tamaño de página máximo admitido. */
+    public static final int TAMANO_MAXIMO = 200;
+
+    /**
+     * Obtiene el tamaño de página, acotado entre 1 y {@value #TAMANO_MAXIMO}.
+     *
+     * @return tamaño de página.
+     */
+    public int tamanoPagina() {
+        if (tamano == null) {
+            return TAMANO_POR_DEFECTO;
+        }
+        return Math.clamp(tamano, 1, TAMANO_MAXIMO);
+    }
+
+    /**
+     * Construye la consulta de una página de la bandeja del usuario. Se pide una notificación
+     * más que el tamaño de la página para saber si existe una siguiente.
+     *
+     * @param usuarioId identificador del usuario destinatario.
+     * @return consulta ordenada por fecha descendente y limitada a {@code tamanoPagina() + 1}.
+     * @throws BadRequestException si el cursor no es válido.
+     */
+    public Query consultaPagina(String usuarioId) {
+        var criterio = where("usuarioId").is(usuarioId);
+        if (estado != null) {
+            criterio.and("estado").is(estado);
+        }
+        if (despues != null && !despues.isBlank()) {
+            int separador = despues.lastIndexOf('_');
+            if (separador < 0 || !ObjectId.isValid(despues.substring(separador + 1))) {
+                throw new BadRequestException("El cursor de paginación no es válido.");
+            }
+            LocalDateTime fecha;
+            try {
+                fecha = LocalDateTime.parse(despues.substring(0, separador));
+            } catch (DateTimeParseException e) {
+                throw new BadRequestException("El cursor de paginación no es válido.");
+            }
+            var id = new ObjectId(despues.substring(separador + 1));
+            criterio.orOperator(
+                    where("fecha").lt(fecha),
+                    where("fecha").is(fecha).and("_id").lt(id));
+        }
+        return new Query(criterio)
+                .with(Sort.by(Sort.Direction.DESC, "fecha", "_id"))
+                .limit(tamanoPagina() + 1);
+    }
+
+    /**
+     * Construye el cursor que apunta después de la notificación indicada.
+     *
+     * @param notificacion última notificación de la página.
+     * @return cursor {@code fecha_id}.
+     */
+    public static String cursor(DatosDetalleNotificacion notificacion) {
+        return notificacion.fecha() + "_" + notificacion.id();
+    }
+}
@@ -0,0 +1,14 @@
+package com.udi.gaaf.autentificacion.notificacion;
+
+/**
+ * Cantidad de notificaciones por estado del usuario autenticado.
+ *
+ * @param noVista notificaciones sin ver
+ * @param vista notificaciones vistas
+ * @param resuelta notificaciones resueltas
+ */
+public record DatosContadorNotificaciones(
+    long noVista,
+    long vista,
+    long resuelta
+) {}
@@ -0,0 +1,31 @@
+package com.udi.gaaf.autentificacion.notificacion;
+
+import java.time.LocalDateTime;
+
+/**
+ * Representa una notificación de la bandeja de entrada de un usuario.
+ *
+ * @param id identificador de la notificación
+ * @param mensaje mensaje de la notificación
+ * @param fecha fecha en que se creó la notificación
+ * @param remitente persona que realizó el mensaje
+ * @param estado estado de la notificación
+ */
+public record DatosDetalleNotificacion(
+    String id,
+    String mensaje,
+    LocalDateTime fecha,
+    String remitente,
+    EstadoNotificacion estado
+) {
+
+    /**
+     * Crea el detalle a partir de la entidad.
+     *
+     * @param notificacion entidad {@link Notificacion}.
+     */
+    public DatosDetalleNotificacion(Notificacion notificacion) {
+        this(notificacion.getId(), notificacion.getMensaje(), notificacion.getFecha(),
+                notificacion.getRemitente(), notificacion.getEstado());
+    }
+}
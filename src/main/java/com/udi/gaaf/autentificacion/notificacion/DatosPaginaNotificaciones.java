@@ -0,0 +1,33 @@
+package com.udi.gaaf.autentificacion.notificacion;
+
+import java.util.List;
+
+/**
+ * Página de la bandeja de entrada obtenida con {@link DatosConsultaNotificaciones}.
+ *
+ * @param notificaciones notificaciones de la página, de la más reciente a la más antigua
+ * @param siguiente cursor de la siguiente página, o {@code null} si es la última
+ */
+public record DatosPaginaNotificaciones(
+    List<DatosDetalleNotificacion> notificaciones,
+    String siguiente
+) {
+
+    /**
+     * Construye la página a partir de las notificaciones consultadas con
+     * {@link DatosConsultaNotificaciones#consultaPagina(String)}, que trae una más que el tamaño
+     * de la página.
+     *
+     * @param consultadas notificaciones consultadas.
+     * @param tamano tamaño de la página.
+     * @return página con el cursor de la siguiente, si existe.
+     */
+    public static DatosPaginaNotificaciones de(List<DatosDetalleNotificacion> consultadas, int tamano) {
+        if (consultadas.size() <= tamano) {
+            return new DatosPaginaNotificaciones(consultadas, null);
+        }
+        var notificaciones = consultadas.subList(0, tamano);
+        return new DatosPaginaNotificaciones(notificaciones,
+                DatosConsultaNotificaciones.cursor(notificaciones.get(tamano - 1)));
+    }
+}
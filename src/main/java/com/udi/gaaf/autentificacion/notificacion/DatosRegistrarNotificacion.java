@@ -0,0 +1,21 @@
+package com.udi.gaaf.autentificacion.notificacion;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Representa los datos necesarios para enviar una notificación a un usuario. El remitente no se
+ * recibe: es el usuario autenticado.
+ *
+ * @param usuarioId identificador del usuario destinatario
+ * @param mensaje mensaje de la notificación
+ */
+public record DatosRegistrarNotificacion(
+
+    @NotBlank
+    String usuarioId,
+
+    @NotBlank
+    @Size(max = 2000)
+    String mensaje
+) {}
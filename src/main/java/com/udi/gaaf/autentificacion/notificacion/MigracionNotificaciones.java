@@ -0,0 +1,148 @@
+package com.udi.gaaf.autentificacion.notificacion;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Migración única de las notificaciones embebidas en los documentos {@code usuario} a la
+ * colección {@code notificacion}.
+ * <p>
+ * Por cada usuario que aún tiene el arreglo {@code notificacion}, las notificaciones se insertan
+ * con un {@code upsert} por destinatario, fecha, remitente y mensaje, y después se elimina el
+ * arreglo del usuario. Si la migración se interrumpe, volver a ejecutarla no duplica
+ * notificaciones. Al terminar se registra en la colección {@code migracion} y no vuelve a
+ * ejecutarse. Los contadores de las notificaciones migradas se calculan con
+ * {@link ContadoresNotificacion#reconciliar()}.
+ * </p>
+ *
+ * <p>Se ejecuta en segundo plano cuando la aplicación está lista, como {@code IndicesMongo},
+ * y se desactiva con {@code api.notificaciones.migrar=false}.</p>
+ */
+@Component
+public class MigracionNotificaciones {
+
+    private static final Logger log = LoggerFactory.getLogger(MigracionNotificaciones.class);
+
+    /** Identificador de la migración en la colección {@code migracion}. */
+    static final String ID_MIGRACION = "notificaciones-embebidas";
+
+    /** Colección donde se registran las migraciones aplicadas. */
+    private static final String COLECCION_MIGRACION = "migracion";
+
+    /** Usuarios procesados por lote de lectura. */
+    private static final int LOTE = 100;
+
+    /** Contadores de notificaciones, que se reconcilian al terminar. */
+    @Autowired
+    private ContadoresNotificacion contadores;
+
+    /** Plantilla de MongoDB. */
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /** Indica si se debe migrar al iniciar. */
+    @Value("${api.notificaciones.migrar:true}")
+    private boolean migrar;
+
+    /**
+     * Lanza la migración en un hilo aparte cuando la aplicación está lista.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        if (migrar) {
+            Thread.ofVirtual().name("migracion-notificaciones").start(() -> {
+                try {
+                    migrar();
+                } catch (Exception ex) {
+                    log.error("No se pudieron migrar las notificaciones: {}", ex.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Migra las notificaciones de todos los usuarios que aún las tienen embebidas.
+     *
+     * @return cantidad de usuarios migrados.
+     */
+    int migrar() {
+        if (mongoTemplate.exists(query(where("_id").is(ID_MIGRACION)), COLECCION_MIGRACION)) {
+            return 0;
+        }
+        var pendientes = query(where("notificacion").exists(true)).limit(LOTE);
+        pendientes.fields().include("notificacion");
+        int usuarios = 0;
+        long notificaciones = 0;
+        List<Document> lote;
+        while (!(lote = mongoTemplate.find(pendientes, Document.class, "usuario")).isEmpty()) {
+            for (var usuario : lote) {
+                notificaciones += migrarUsuario(usuario);
+                usuarios++;
+            }
+        }
+        if (usuarios > 0) {
+            contadores.reconciliar();
+        }
+        mongoTemplate.save(new Document("_id", ID_MIGRACION).append("fecha", new Date()), COLECCION_MIGRACION);
+        log.info("Notificaciones migradas: {} de {} usuarios", notificaciones, usuarios);
+        return usuarios;
+    }
+
+    /**
+     * Copia las notificaciones embebidas de un usuario a la colección {@code notificacion} y
+     * elimina el arreglo del documento del usuario.
+     *
+     * @param usuario documento del usuario con el arreglo {@code notificacion}.
+     * @return cantidad de notificaciones copiadas.
+     */
+    private int migrarUsuario(Document usuario) {
+        var usuarioId = usuario.get("_id").toString();
+        var embebidas = usuario.getList("notificacion", Document.class, List.of());
+        if (!embebidas.isEmpty()) {
+            var operaciones = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Notificacion.class);
+            for (var embebida : embebidas) {
+                var fecha = fecha(embebida.get("fecha"));
+                var estado = embebida.getString("estado");
+                operaciones.upsert(
+                        query(where("usuarioId").is(usuarioId)
+                                .and("fecha").is(fecha)
+                                .and("remitente").is(embebida.getString("remitente"))
+                                .and("mensaje").is(embebida.getString("mensaje"))),
+                        new Update().setOnInsert("estado",
+                                estado != null ? EstadoNotificacion.valueOf(estado) : EstadoNotificacion.NO_VISTA));
+            }
+            operaciones.execute();
+        }
+        mongoTemplate.updateFirst(new Query(where("_id").is(usuario.get("_id"))),
+                new Update().unset("notificacion"), "usuario");
+        return embebidas.size();
+    }
+
+    /**
+     * Convierte la fecha almacenada en el documento embebido.
+     *
+     * @param valor fecha como {@link Date}, o {@code null}.
+     * @return fecha local, o {@code null}.
+     */
+    private static LocalDateTime fecha(Object valor) {
+        return valor instanceof Date fecha ? LocalDateTime.ofInstant(fecha.toInstant(), ZoneId.systemDefault()) : null;
+    }
+}
@@ -2,28 +2,36 @@ package com.udi.gaaf.autentificacion.notificacion;
 
 import java.time.LocalDateTime;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-import com.udi.gaaf.autentificacion.usuario.Usuario;
-
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 
 /**
  * Entidad que representa la notificación. 
+ * <p>Cada notificación es un documento de la colección {@code notificacion} que referencia a su
+ * destinatario por identificador. Los índices atienden la bandeja de entrada paginada por
+ * fecha descendente, con y sin filtro por estado.</p>
  */
 
 @Document(collection = "notificacion")
+@CompoundIndex(name = "usuario_estado_fecha", def = "{'usuarioId': 1, 'estado': 1, 'fecha': -1, '_id': -1}")
+@CompoundIndex(name = "usuario_fecha", def = "{'usuarioId': 1, 'fecha': -1, '_id': -1}")
 @Getter
 @Setter
+@NoArgsConstructor
 @EqualsAndHashCode(of = "id")
 public class Notificacion {
 	
 	/** Identificador de la notificación. */
 	@Id
 	private String id;
+	/** Identificador del usuario destinatario. */
+	private String usuarioId;
 	/** Mensaje. */
 	private String mensaje; 
 	/** Fecha que se realizo el mensaje. */
@@ -32,8 +40,18 @@ public class Notificacion {
 	private String remitente;
 	/** Estado de la notificación. */
 	private EstadoNotificacion estado;
-	/** Relacion con usuarios **/
-	private  Usuario usuario;
-	
 
+	/** Contructor para asignar valores de una notificación nueva, sin ver.
+	 * 
+	 * @param usuarioId identificador del usuario destinatario
+	 * @param mensaje mensaje de la notificación
+	 * @param remitente persona que realizo el mensaje
+	 * */
+	public Notificacion(String usuarioId, String mensaje, String remitente) {
+		this.usuarioId = usuarioId;
+		this.mensaje = mensaje;
+		this.remitente = remitente;
+		this.fecha = LocalDateTime.now();
+		this.estado = EstadoNotificacion.NO_VISTA;
+	}
 }
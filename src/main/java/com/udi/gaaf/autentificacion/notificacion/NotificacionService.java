@@ -0,0 +1,147 @@
+package com.udi.gaaf.autentificacion.notificacion;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.udi.gaaf.autentificacion.common.DatosDetalleResponse;
+import com.udi.gaaf.autentificacion.errors.BadRequestException;
+import com.udi.gaaf.autentificacion.errors.NotFoundException;
+import com.udi.gaaf.autentificacion.usuario.UsuarioRepository;
+
+/**
+ * Servicio de la bandeja de entrada de notificaciones.
+ *
+ * <p>Las notificaciones viven en su propia colección, referenciadas por el identificador del
+ * usuario, de modo que su cantidad no afecta la lectura ni la escritura del documento del
+ * usuario. Los listados se paginan por cursor y los cambios de estado se aplican en lote con
+ * una actualización por estado de origen. Cada creación y cambio de estado se refleja en
+ * {@link ContadoresNotificacion}.</p>
+ */
+@Service
+public class NotificacionService {
+
+    /** Repositorio de notificaciones. */
+    @Autowired
+    private NotificacionRepository repository;
+
+    /** Repositorio de usuarios, para validar el destinatario. */
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    /** Contadores de notificaciones por estado. */
+    @Autowired
+    private ContadoresNotificacion contadores;
+
+    /** Broker que entrega las notificaciones nuevas a las conexiones SSE. */
+    @Autowired
+    private BrokerNotificaciones broker;
+
+    /** Plantilla de MongoDB para las consultas paginadas y las actualizaciones en lote. */
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Envía una notificación a un usuario.
+     *
+     * @param datos destinatario y mensaje.
+     * @param remitente nombre de usuario de quien envía la notificación.
+     * @return record {@link DatosDetalleNotificacion} con la notificación creada.
+     * @throws NotFoundException si el usuario destinatario no existe.
+     */
+    public DatosDetalleNotificacion registrar(DatosRegistrarNotificacion datos, String remitente) {
+        if (!usuarioRepository.existsById(datos.usuarioId())) {
+            throw new NotFoundException("Usuario no encontrado por el ID: " + datos.usuarioId());
+        }
+        var notificacion = repository.save(new Notificacion(datos.usuarioId(), datos.mensaje(), remitente));
+        contadores.registrar(notificacion.getUsuarioId(), notificacion.getEstado());
+        broker.alRegistrar(notificacion);
+        return new DatosDetalleNotificacion(notificacion);
+    }
+
+    /**
+     * Obtiene una página de la bandeja de entrada del usuario.
+     *
+     * @param usuarioId identificador del usuario.
+     * @param consulta cursor, tamaño de página y filtro por estado.
+     * @return página de notificaciones con el cursor de la siguiente.
+     * @throws BadRequestException si el cursor no es válido.
+     */
+    public DatosPaginaNotificaciones obtenerPagina(String usuarioId, DatosConsultaNotificaciones consulta) {
+        var notificaciones = mongoTemplate.find(consulta.consultaPagina(usuarioId), Notificacion.class)
+                .stream()
+                .map(DatosDetalleNotificacion::new)
+                .toList();
+        return DatosPaginaNotificaciones.de(notificaciones, consulta.tamanoPagina());
+    }
+
+    /**
+     * Cambia en lote el estado de las notificaciones del usuario.
+     *
+     * <p>Solo se admiten las transiciones {@code NO_VISTA → VISTA} y
+     * {@code NO_VISTA | VISTA → RESUELTA}; las notificaciones que ya están en el estado destino,
+     * o que pertenecen a otro usuario, no se modifican.</p>
+     *
+     * @param usuarioId identificador del usuario autenticado.
+     * @param datos identificadores y estado destino.
+     * @return record {@link DatosDetalleResponse} con la cantidad de notificaciones modificadas.
+     * @throws BadRequestException si el estado destino es {@link EstadoNotificacion#NO_VISTA}.
+     */
+    public DatosDetalleResponse cambiarEstado(String usuarioId, DatosCambiarEstadoNotificaciones datos) {
+        var origen = switch (datos.estado()) {
+            case VISTA -> List.of(EstadoNotificacion.NO_VISTA);
+            case RESUELTA -> List.of(EstadoNotificacion.NO_VISTA, EstadoNotificacion.VISTA);
+            case NO_VISTA -> throw new BadRequestException("Solo se puede cambiar el estado a VISTA o RESUELTA.");
+        };
+        long modificadas = 0;
+        // Una actualización por estado de origen para saber cuántas salieron de cada contador
+        for (var estado : origen) {
+            var criterio = where("usuarioId").is(usuarioId).and("estado").is(estado);
+            if (datos.ids() != null && !datos.ids().isEmpty()) {
+                criterio.and("_id").in(datos.ids());
+            }
+            var resultado = mongoTemplate.updateMulti(query(criterio), Update.update("estado", datos.estado()),
+                    Notificacion.class);
+            contadores.transicion(usuarioId, estado, datos.estado(), resultado.getModifiedCount());
+            modificadas += resultado.getModifiedCount();
+        }
+        return new DatosDetalleResponse(200, "Notificaciones actualizadas: " + modificadas);
+    }
+
+    /**
+     * Obtiene la cantidad de notificaciones por estado del usuario sin recorrerlas.
+     *
+     * @param usuarioId identificador del usuario.
+     * @return contadores por estado.
+     */
+    public DatosContadorNotificaciones obtenerContador(String usuarioId) {
+        return contadores.obtener(usuarioId);
+    }
+
+    /**
+     * Elimina todas las notificaciones de un usuario y sus contadores.
+     *
+     * @param usuarioId identificador del usuario.
+     */
+    public void eliminarDeUsuario(String usuarioId) {
+        mongoTemplate.remove(query(where("usuarioId").is(usuarioId)), Notificacion.class);
+        contadores.eliminar(usuarioId);
+    }
+
+    /**
+     * Elimina todas las notificaciones de varios usuarios y sus contadores.
+     *
+     * @param usuarioIds identificadores de los usuarios.
+     */
+    public void eliminarDeUsuarios(Collection<String> usuarioIds) {
+        mongoTemplate.remove(query(where("usuarioId").in(usuarioIds)), Notificacion.class);
+        contadores.eliminar(usuarioIds);
+    }
+}
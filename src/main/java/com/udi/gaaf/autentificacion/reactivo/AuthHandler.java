@@ -0,0 +1,326 @@
+package com.udi.gaaf.autentificacion.reactivo;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.udi.gaaf.autentificacion.auth.AuthService;
+import com.udi.gaaf.autentificacion.auth.DatosDetalleRegistro;
+import com.udi.gaaf.autentificacion.auth.DatosDetalleSesion;
+import com.udi.gaaf.autentificacion.auth.DatosIniciarSesion;
+import com.udi.gaaf.autentificacion.auth.ClientesIntrospeccion;
+import com.udi.gaaf.autentificacion.auth.DatosIntrospeccion;
+import com.udi.gaaf.autentificacion.auth.DatosRefrescarSesion;
+import com.udi.gaaf.autentificacion.auth.LimitadorIntentos;
+import com.udi.gaaf.autentificacion.auth.TokenRefrescoService;
+import com.udi.gaaf.autentificacion.common.IndicesMongo;
+import com.udi.gaaf.autentificacion.errors.AuthenticationException;
+import com.udi.gaaf.autentificacion.errors.BadRequestException;
+import com.udi.gaaf.autentificacion.errors.NotTokenValidException;
+import com.udi.gaaf.autentificacion.security.ClavesFirmaJwt;
+import com.udi.gaaf.autentificacion.security.TokenService;
+import com.udi.gaaf.autentificacion.usuario.DatosRegistrarUsuario;
+import com.udi.gaaf.autentificacion.usuario.Usuario;
+
+import jakarta.annotation.PostConstruct;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Funciones de manejo de {@code /auth} para el perfil {@code reactivo}.
+ *
+ * <p>Equivalente de {@link com.udi.gaaf.autentificacion.controller.AuthController}. El registro
+ * y el inicio de sesión usan {@link UsuarioReactivoRepository} y {@link HashReactivo}, por lo
+ * que no ocupan un hilo mientras esperan a MongoDB o al cálculo del hash. Las operaciones de
+ * tokens de refresco y revocación reutilizan {@link AuthService}, cuyos repositorios son
+ * bloqueantes, y se ejecutan en {@link Schedulers#boundedElastic()}.</p>
+ */
+@Component
+@Profile("reactivo")
+public class AuthHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthHandler.class);
+
+    /** Repositorio reactivo de usuarios. */
+    @Autowired
+    private UsuarioReactivoRepository repository;
+
+    /** Plantilla reactiva de MongoDB para las actualizaciones parciales. */
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    /** Cifrado y verificación de contraseñas fuera del event loop. */
+    @Autowired
+    private HashReactivo hashReactivo;
+
+    /** Servicio de autenticación compartido con el perfil servlet. */
+    @Autowired
+    private AuthService authService;
+
+    /** Servicio encargado de la generación de tokens JWT. */
+    @Autowired
+    private TokenService tokenService;
+
+    /** Servicio de emisión de tokens de refresco. */
+    @Autowired
+    private TokenRefrescoService tokenRefrescoService;
+
+    /** Protección contra intentos de inicio de sesión por fuerza bruta. */
+    @Autowired
+    private LimitadorIntentos limitadorIntentos;
+
+    /** Claves de firma cuyas claves públicas se publican en el JWKS. */
+    @Autowired
+    private ClavesFirmaJwt clavesFirma;
+
+    /** Lectura y validación de los cuerpos de las solicitudes. */
+    @Autowired
+    private ValidadorCuerpo validador;
+
+    /** Clientes autorizados a usar la introspección. */
+    @Autowired
+    private ClientesIntrospeccion clientesIntrospeccion;
+
+    /** Índices de MongoDB, cuya existencia se exige antes de registrar. */
+    @Autowired
+    private IndicesMongo indicesMongo;
+
+    /** Tiempo durante el cual los clientes pueden almacenar en caché el JWKS. */
+    @Value("${api.jwt.jwks.cache:PT5M}")
+    private Duration cacheJwks;
+
+    /** Tiempo máximo durante el cual los clientes pueden almacenar en caché una introspección. */
+    @Value("${api.jwt.introspeccion.cache:PT30S}")
+    private Duration cacheIntrospeccion;
+
+    /** Indica si la IP del cliente se toma del encabezado {@code X-Forwarded-For} puesto por el gateway. */
+    @Value("${api.intentos.usar-x-forwarded-for:false}")
+    private boolean usarXForwardedFor;
+
+    /**
+     * Hash contra el que se verifica la contraseña cuando el usuario no existe, para que la
+     * respuesta tarde lo mismo que con un usuario existente.
+     */
+    private Mono<String> hashFicticio;
+
+    /**
+     * Registra un nuevo usuario en el sistema. Como en el perfil servlet, se rechaza mientras
+     * falten los índices únicos de usuario y correo.
+     *
+     * @param request solicitud con un {@link DatosRegistrarUsuario}.
+     * @return respuesta con los datos del registro exitoso.
+     */
+    public Mono<ServerResponse> registrar(ServerRequest request) {
+        return validador.leer(request, DatosRegistrarUsuario.class, "Necesito la Request Body")
+                .flatMap(datos -> Mono.fromRunnable(indicesMongo::exigirIndicesUnicos)
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .then(Mono.defer(() -> hashReactivo.codificar(datos.contraseña())))
+                        .flatMap(hash -> repository.insert(new Usuario(datos, hash)))
+                        .onErrorMap(DuplicateKeyException.class,
+                                e -> new BadRequestException("El usuario ya existe.")))
+                .map(usuario -> new DatosDetalleRegistro(
+                        usuario.getUsuario(),
+                        usuario.getCorreo(),
+                        usuario.getNombre(),
+                        usuario.getTelefono(),
+                        usuario.getRol()))
+                .flatMap(detalle -> ServerResponse.ok().bodyValue(detalle));
+    }
+
+    /**
+     * Inicia sesión con las credenciales del usuario.
+     *
+     * <p>Aplica el mismo límite de intentos que el perfil servlet y, si el hash almacenado no
+     * cumple la política vigente, lo reemplaza sin demorar la respuesta.</p>
+     *
+     * @param request solicitud con un {@link DatosIniciarSesion}.
+     * @return respuesta con los datos de sesión y los tokens generados.
+     */
+    public Mono<ServerResponse> iniciar(ServerRequest request) {
+        var ip = ipCliente(request);
+        return validador.leer(request, DatosIniciarSesion.class, "Necesito la Request Body")
+                .doOnNext(datos -> limitadorIntentos.verificar(datos.usuario(), ip))
+                .flatMap(datos -> repository.findByUsuario(datos.usuario())
+                        .flatMap(usuario -> hashReactivo.verificar(datos.contraseña(), usuario.getContrasena())
+                                .map(valida -> valida && usuario.isEnabled()
+                                        ? Optional.of(usuario)
+                                        : Optional.<Usuario>empty()))
+                        .switchIfEmpty(Mono.defer(() -> verificarFicticio(datos.contraseña())))
+                        .flatMap(autenticado -> {
+                            if (autenticado.isEmpty()) {
+                                limitadorIntentos.registrarFallo(datos.usuario(), ip);
+                                return Mono.error(new AuthenticationException("Usuario o contraseña incorrectos"));
+                            }
+                            var usuario = autenticado.get();
+                            limitadorIntentos.registrarExito(datos.usuario());
+                            actualizarHashSiCorresponde(usuario, datos.contraseña());
+                            return sesion(usuario);
+                        }))
+                .flatMap(detalle -> ServerResponse.ok().bodyValue(detalle));
+    }
+
+    /**
+     * Renueva la sesión usando un token de refresco.
+     *
+     * @param request solicitud con un {@link DatosRefrescarSesion}.
+     * @return respuesta con los datos de sesión renovados.
+     */
+    public Mono<ServerResponse> refrescar(ServerRequest request) {
+        return validador.leer(request, DatosRefrescarSesion.class, "Necesito la Request Body")
+                .flatMap(datos -> Mono.fromCallable(() -> authService.refrescar(datos))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .flatMap(detalle -> ServerResponse.ok().bodyValue(detalle));
+    }
+
+    /**
+     * Cierra la sesión revocando el token del encabezado {@code Authorization}.
+     *
+     * @param request solicitud con el token JWT.
+     * @return respuesta con el estado de la operación.
+     */
+    public Mono<ServerResponse> cerrarSesion(ServerRequest request) {
+        var token = request.headers().firstHeader("Authorization");
+        if (token == null) {
+            return Mono.error(new NotTokenValidException("No hay token"));
+        }
+        return Mono.fromCallable(() -> authService.cerrarSesion(token))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(detalle -> ServerResponse.ok().bodyValue(detalle));
+    }
+
+    /**
+     * Valida un lote de tokens en una sola llamada.
+     * <p>El cliente se autentica con HTTP Basic según {@link ClientesIntrospeccion}.</p>
+     *
+     * @param request solicitud con un {@link DatosIntrospeccion}.
+     * @return respuesta con el detalle de cada token y {@code Cache-Control: private}.
+     */
+    public Mono<ServerResponse> introspeccionar(ServerRequest request) {
+        return Mono.fromRunnable(() -> clientesIntrospeccion.autenticar(request.headers().firstHeader("Authorization")))
+                .then(validador.leer(request, DatosIntrospeccion.class, "Necesito la Request Body"))
+                .flatMap(datos -> Mono.fromCallable(() -> authService.introspeccionar(datos))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .flatMap(detalle -> {
+                    var vigencia = cacheIntrospeccion;
+                    var ahora = Instant.now();
+                    for (var token : detalle) {
+                        if (Boolean.TRUE.equals(token.valido()) && token.exp() != null) {
+                            var restante = Duration.between(ahora, token.exp());
+                            if (restante.compareTo(vigencia) < 0) {
+                                vigencia = restante.isNegative() ? Duration.ZERO : restante;
+                            }
+                        }
+                    }
+                    return ServerResponse.ok()
+                            .cacheControl(CacheControl.maxAge(vigencia).cachePrivate())
+                            .bodyValue(detalle);
+                });
+    }
+
+    /**
+     * Publica las claves públicas con las que se verifican los tokens.
+     *
+     * @param request solicitud.
+     * @return respuesta con el JWKS y {@code Cache-Control: public}.
+     */
+    public Mono<ServerResponse> jwks(ServerRequest request) {
+        return ServerResponse.ok()
+                .cacheControl(CacheControl.maxAge(cacheJwks).cachePublic())
+                .bodyValue(clavesFirma.getJwks());
+    }
+
+    /**
+     * Genera el token JWT y emite el token de refresco, cuyo repositorio es bloqueante.
+     *
+     * @param usuario usuario autenticado.
+     * @return datos de la sesión.
+     */
+    private Mono<DatosDetalleSesion> sesion(Usuario usuario) {
+        return Mono.fromCallable(() -> tokenService.generarToken(usuario)
+                        .conTokenRefresco(tokenRefrescoService.emitir(usuario.getId())))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Prepara el hash ficticio; se calcula en la primera suscripción y se conserva.
+     */
+    @PostConstruct
+    public void prepararHashFicticio() {
+        hashFicticio = hashReactivo.codificar("usuario-inexistente").cache();
+    }
+
+    /**
+     * Verifica la contraseña contra el hash ficticio y descarta el resultado.
+     *
+     * @param contrasena contraseña enviada.
+     * @return siempre {@code Optional.empty()}, una vez terminada la verificación.
+     */
+    private Mono<Optional<Usuario>> verificarFicticio(String contrasena) {
+        return hashFicticio.flatMap(hash -> hashReactivo.verificar(contrasena, hash))
+                .thenReturn(Optional.empty());
+    }
+
+    /**
+     * Reemplaza el hash de la contraseña si quedó por debajo de la política vigente.
+     *
+     * <p>Se ejecuta en segundo plano: si el servicio está saturado o la actualización falla,
+     * se reintenta en el siguiente inicio de sesión.</p>
+     *
+     * @param usuario usuario autenticado, con el hash almacenado.
+     * @param contrasena contraseña en claro ya verificada.
+     */
+    private void actualizarHashSiCorresponde(Usuario usuario, String contrasena) {
+        if (!hashReactivo.requiereActualizacion(usuario.getContrasena())) {
+            return;
+        }
+        hashReactivo.codificar(contrasena)
+                .flatMap(hash -> mongoTemplate.updateFirst(
+                        query(where("_id").is(usuario.getId()).and("contrasena").is(usuario.getContrasena())),
+                        Update.update("contrasena", hash),
+                        Usuario.class))
+                .subscribe(null, e -> log.warn("No se pudo actualizar el hash de la contraseña del usuario {}: {}",
+                        usuario.getId(), e.getMessage()));
+    }
+
+    /**
+     * Obtiene la IP del cliente.
+     *
+     * <p>Detrás del gateway la IP de la conexión es la del propio gateway. Con
+     * {@code api.intentos.usar-x-forwarded-for} habilitado se usa la última dirección de
+     * {@code X-Forwarded-For}, la que agrega el gateway de confianza. Las anteriores las envía el
+     * cliente y no sirven para limitar intentos: bastaría con cambiarlas en cada solicitud. Solo
+     * debe habilitarse si el servicio es accesible únicamente a través del gateway.</p>
+     *
+     * @param request solicitud.
+     * @return dirección IP del cliente, o {@code null} si no se conoce.
+     */
+    private String ipCliente(ServerRequest request) {
+        var valores = usarXForwardedFor ? request.headers().header("X-Forwarded-For") : List.<String>of();
+        var reenviado = valores.isEmpty() ? null : valores.get(valores.size() - 1);
+        if (reenviado != null && !reenviado.isBlank()) {
+            return reenviado.substring(reenviado.lastIndexOf(',') + 1).trim();
+        }
+        return request.remoteAddress()
+                .map(direccion -> direccion.getAddress() != null
+                        ? direccion.getAddress().getHostAddress()
+                        : direccion.getHostString())
+                .orElse(null);
+    }
+}
@@ -0,0 +1,44 @@
+package com.udi.gaaf.autentificacion.reactivo;
+
+import java.util.List;
+
+/**
+ * Excepción lanzada cuando el cuerpo de una solicitud reactiva no supera la validación.
+ * <p>
+ * Equivale a {@code MethodArgumentNotValidException} en el perfil servlet: se responde con
+ * estado 400 y la lista de campos inválidos.
+ * </p>
+ */
+@SuppressWarnings("serial")
+public class DatosInvalidosException extends RuntimeException {
+
+    /** Errores de validación por campo. */
+    private final List<DatosErrorValidacion> errores;
+
+    /**
+     * Crea la excepción.
+     *
+     * @param errores errores de validación por campo.
+     */
+    public DatosInvalidosException(List<DatosErrorValidacion> errores) {
+        super("Datos inválidos");
+        this.errores = errores;
+    }
+
+    /**
+     * Obtiene los errores de validación.
+     *
+     * @return errores de validación por campo.
+     */
+    public List<DatosErrorValidacion> getErrores() {
+        return errores;
+    }
+
+    /**
+     * Error de validación de un campo.
+     *
+     * @param campo nombre del campo con error.
+     * @param error mensaje descriptivo del error.
+     */
+    public record DatosErrorValidacion(String campo, String error) {}
+}
@@ -0,0 +1,134 @@
+package com.udi.gaaf.autentificacion.reactivo;
+
+import java.util.Optional;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.udi.gaaf.autentificacion.errors.NotTokenValidException;
+import com.udi.gaaf.autentificacion.revocacion.RevocacionService;
+import com.udi.gaaf.autentificacion.security.DatosClaimsToken;
+import com.udi.gaaf.autentificacion.security.ModoAutenticacion;
+import com.udi.gaaf.autentificacion.security.TokenService;
+import com.udi.gaaf.autentificacion.security.UsuarioAutenticado;
+import com.udi.gaaf.autentificacion.usuario.CachePrincipales;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Equivalente reactivo de {@link com.udi.gaaf.autentificacion.security.SecurityFilter}.
+ * <p>
+ * Valida el token JWT del encabezado {@code Authorization} y publica la autenticación en el
+ * contexto de Reactor. La verificación de la firma es solo CPU; la consulta de revocación y la
+ * carga del principal se encadenan como futuros, sin bloquear el event loop.
+ * </p>
+ *
+ * <p>No se registra como bean: se agrega únicamente a la cadena de Spring Security, porque
+ * WebFlux aplicaría cualquier {@link WebFilter} publicado como bean a todas las solicitudes.</p>
+ */
+public class FiltroJwtReactivo implements WebFilter {
+
+    /** Longitud del prefijo {@code Bearer }. */
+    private static final int LONGITUD_PREFIJO = "Bearer ".length();
+
+    /** Servicio encargado de la validación y decodificación de tokens JWT. */
+    private final TokenService tokenService;
+
+    /** Servicio que indica si un token fue revocado antes de su expiración. */
+    private final RevocacionService revocacionService;
+
+    /** Caché de principales respaldada por el repositorio de usuarios. */
+    private final CachePrincipales cachePrincipales;
+
+    /** Modo en que se construye el principal autenticado. */
+    private final ModoAutenticacion modo;
+
+    /** Rutas que no requieren token. */
+    private final ServerWebExchangeMatcher rutasPublicas;
+
+    /**
+     * Crea el filtro.
+     *
+     * @param tokenService servicio de tokens JWT.
+     * @param revocacionService servicio de revocación.
+     * @param cachePrincipales caché de principales.
+     * @param modo modo en que se construye el principal.
+     * @param rutasPublicas rutas que no requieren token.
+     */
+    public FiltroJwtReactivo(TokenService tokenService, RevocacionService revocacionService,
+            CachePrincipales cachePrincipales, ModoAutenticacion modo, ServerWebExchangeMatcher rutasPublicas) {
+        this.tokenService = tokenService;
+        this.revocacionService = revocacionService;
+        this.cachePrincipales = cachePrincipales;
+        this.modo = modo;
+        this.rutasPublicas = rutasPublicas;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return rutasPublicas.matches(exchange).flatMap(coincidencia -> {
+            if (coincidencia.isMatch()) {
+                return chain.filter(exchange);
+            }
+            var encabezado = exchange.getRequest().getHeaders().getFirst("Authorization");
+            if (encabezado == null) {
+                return Mono.error(new NotTokenValidException("No hay token"));
+            }
+            var token = encabezado.startsWith("Bearer ") ? encabezado.substring(LONGITUD_PREFIJO) : encabezado;
+
+            return Mono.fromCallable(() -> tokenService.getClaims(token))
+                    .flatMap(claims -> Mono.fromFuture(revocacionService.estaRevocadoAsync(claims))
+                            .flatMap(revocado -> revocado
+                                    ? Mono.error(new NotTokenValidException("El token fue revocado."))
+                                    : autenticar(claims).map(Optional::of).defaultIfEmpty(Optional.empty())))
+                    // En modo BASE_DATOS un token sin id continúa sin autenticación, como en el filtro servlet
+                    .flatMap(autenticacion -> autenticacion
+                            .map(a -> chain.filter(exchange)
+                                    .contextWrite(ReactiveSecurityContextHolder.withAuthentication(a)))
+                            .orElseGet(() -> chain.filter(exchange)));
+        });
+    }
+
+    /**
+     * Construye la autenticación según el modo configurado.
+     *
+     * @param claims claims del token verificado.
+     * @return autenticación del usuario, o vacío si el token no identifica a un usuario en modo
+     *         {@code BASE_DATOS}.
+     */
+    private Mono<UsernamePasswordAuthenticationToken> autenticar(DatosClaimsToken claims) {
+        if (modo == ModoAutenticacion.CLAIMS) {
+            if (claims.id() == null) {
+                return Mono.error(new NotTokenValidException("El token no identifica a un usuario."));
+            }
+            if (Boolean.FALSE.equals(claims.activo())) {
+                return Mono.error(new NotTokenValidException("El usuario se encuentra inactivo."));
+            }
+            var principal = new UsuarioAutenticado(claims);
+            return Mono.just(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        }
+        if (claims.id() == null) {
+            return Mono.empty();
+        }
+        return Mono.fromFuture(cachePrincipales.obtenerAsync(claims.id()))
+                .switchIfEmpty(Mono.error(() -> new NotTokenValidException("El usuario del token no existe.")))
+                .flatMap(usuario -> usuario.isEnabled()
+                        ? Mono.just(autenticacion(usuario))
+                        : Mono.error(new NotTokenValidException("El usuario se encuentra inactivo.")));
+    }
+
+    /**
+     * Crea la autenticación a partir del principal cargado.
+     *
+     * @param usuario detalles del usuario.
+     * @return autenticación del usuario.
+     */
+    private static UsernamePasswordAuthenticationToken autenticacion(UserDetails usuario) {
+        return new UsernamePasswordAuthenticationToken(usuario, null, usuario.getAuthorities());
+    }
+}
@@ -0,0 +1,143 @@
+package com.udi.gaaf.autentificacion.reactivo;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import com.udi.gaaf.autentificacion.errors.ServicioSaturadoException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Cifrado y verificación de contraseñas para el perfil {@code reactivo}.
+ * <p>
+ * Las operaciones se ejecutan en un {@code boundedElastic} propio, con tantos hilos como núcleos
+ * y una cola limitada, de modo que nunca ocupan los hilos del event loop de Netty. Cuando la cola
+ * está llena se responde de inmediato con {@link ServicioSaturadoException} (HTTP 503).
+ * </p>
+ *
+ * <p>Registra {@code password.hash.duracion} y {@code password.hash.calculo} igual que
+ * {@link com.udi.gaaf.autentificacion.security.EjecutorHash EjecutorHash}.</p>
+ */
+@Component
+@Profile("reactivo")
+public class HashReactivo {
+
+    /** Codificador de contraseñas definido por la política vigente. */
+    private final PasswordEncoder passwordEncoder;
+
+    /** Planificador acotado para las operaciones de hash. */
+    private final Scheduler planificador;
+
+    /** Tiempo sugerido al cliente antes de reintentar. */
+    private final Duration reintentarEn;
+
+    /** Registro de métricas. */
+    private final MeterRegistry registry;
+
+    /**
+     * Crea el planificador de hash.
+     *
+     * @param passwordEncoder codificador de contraseñas.
+     * @param hilos cantidad de hilos; por defecto, la cantidad de núcleos.
+     * @param capacidadCola cantidad máxima de operaciones en espera.
+     * @param reintentarEn tiempo sugerido antes de reintentar cuando el servicio está saturado.
+     * @param registry registro de métricas de Micrometer.
+     */
+    public HashReactivo(
+            PasswordEncoder passwordEncoder,
+            @Value("${api.hash.hilos:0}") int hilos,
+            @Value("${api.hash.cola:64}") int capacidadCola,
+            @Value("${api.hash.reintentar-en:PT1S}") Duration reintentarEn,
+            MeterRegistry registry) {
+        this.passwordEncoder = passwordEncoder;
+        this.reintentarEn = reintentarEn;
+        this.registry = registry;
+        int nucleos = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        this.planificador = Schedulers.newBoundedElastic(nucleos, Math.max(1, capacidadCola), "hash");
+    }
+
+    /**
+     * Cifra una contraseña.
+     *
+     * @param contrasena contraseña en claro.
+     * @return hash de la contraseña.
+     */
+    public Mono<String> codificar(String contrasena) {
+        return ejecutar("codificar", () -> passwordEncoder.encode(contrasena));
+    }
+
+    /**
+     * Verifica una contraseña contra su hash.
+     *
+     * @param contrasena contraseña en claro.
+     * @param hash hash almacenado.
+     * @return {@code true} si la contraseña corresponde al hash.
+     */
+    public Mono<Boolean> verificar(String contrasena, String hash) {
+        return ejecutar("verificar", () -> passwordEncoder.matches(contrasena, hash));
+    }
+
+    /**
+     * Indica si el hash debe reemplazarse por uno con la política vigente.
+     *
+     * @param hash hash almacenado.
+     * @return {@code true} si el hash está por debajo de la política vigente.
+     */
+    public boolean requiereActualizacion(String hash) {
+        return passwordEncoder.upgradeEncoding(hash);
+    }
+
+    /**
+     * Ejecuta la operación en el planificador acotado.
+     *
+     * @param <T> tipo del resultado.
+     * @param operacion nombre de la operación para las métricas.
+     * @param tarea operación de hash.
+     * @return resultado, o {@link ServicioSaturadoException} si la cola está llena.
+     */
+    private <T> Mono<T> ejecutar(String operacion, Callable<T> tarea) {
+        return Mono.defer(() -> {
+            long inicio = System.nanoTime();
+            return Mono.fromCallable(() -> temporizador("password.hash.calculo",
+                            "Tiempo de cálculo del hash en el hilo dedicado, sin la espera en cola", operacion)
+                            .recordCallable(tarea))
+                    .subscribeOn(planificador)
+                    .doOnSuccess(v -> temporizador("password.hash.duracion",
+                            "Latencia del cifrado y la verificación de contraseñas, incluida la espera en cola", operacion)
+                            .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS));
+        }).onErrorMap(RejectedExecutionException.class, ex -> new ServicioSaturadoException(
+                "El servicio está saturado, intente de nuevo más tarde.", reintentarEn));
+    }
+
+    /**
+     * Obtiene un temporizador de hash para la operación.
+     *
+     * @param nombre nombre de la métrica.
+     * @param descripcion descripción de la métrica.
+     * @param operacion nombre de la operación.
+     * @return temporizador registrado.
+     */
+    private Timer temporizador(String nombre, String descripcion, String operacion) {
+        return Timer.builder(nombre).description(descripcion).tag("operacion", operacion).register(registry);
+    }
+
+    /**
+     * Libera los hilos del planificador.
+     */
+    @PreDestroy
+    public void detener() {
+        planificador.dispose();
+    }
+}
@@ -0,0 +1,139 @@
+package com.udi.gaaf.autentificacion.reactivo;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebExceptionHandler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udi.gaaf.autentificacion.errors.AuthenticationException;
+import com.udi.gaaf.autentificacion.errors.BadRequestException;
+import com.udi.gaaf.autentificacion.errors.DemasiadosIntentosException;
+import com.udi.gaaf.autentificacion.errors.NotFoundException;
+import com.udi.gaaf.autentificacion.errors.NotRequestBodyException;
+import com.udi.gaaf.autentificacion.errors.ServicioSaturadoException;
+import com.udi.gaaf.autentificacion.security.MetricasAutenticacion;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Manejo centralizado de excepciones del perfil {@code reactivo}.
+ * <p>
+ * Las funciones de enrutamiento no pasan por {@code @RestControllerAdvice}, por lo que este
+ * manejador traduce las mismas excepciones que
+ * {@link com.udi.gaaf.autentificacion.errors.ManejoExcepciones} al mismo formato JSON
+ * ({@code status}, {@code message}). Las excepciones que no reconoce siguen al manejador
+ * por defecto de Spring Boot.
+ * </p>
+ *
+ * <p>Los errores del filtro JWT también llegan aquí, por lo que todos los fallos de
+ * autenticación se cuentan en {@code auth.fallos}. El rol se registra como
+ * {@link MetricasAutenticacion#ANONIMO}: los fallos ocurren antes de identificar al usuario o en
+ * rutas públicas.</p>
+ */
+@Component
+@Profile("reactivo")
+@Order(-2)
+public class ManejadorErroresReactivo implements WebExceptionHandler {
+
+    /** Serializador de las respuestas de error. */
+    private final ObjectMapper objectMapper;
+
+    /** Métricas donde se cuentan los fallos de autenticación. */
+    private final MetricasAutenticacion metricas;
+
+    /**
+     * Crea el manejador.
+     *
+     * @param objectMapper serializador configurado por Spring Boot.
+     * @param metricas métricas de autenticación.
+     */
+    public ManejadorErroresReactivo(ObjectMapper objectMapper, MetricasAutenticacion metricas) {
+        this.objectMapper = objectMapper;
+        this.metricas = metricas;
+    }
+
+    @Override
+    public Mono<Void> handle(ServerWebExchange exchange, Throwable ex) {
+        var response = exchange.getResponse();
+        if (response.isCommitted()) {
+            return Mono.error(ex);
+        }
+        Object cuerpo;
+        HttpStatus estado;
+        Duration reintentarEn = null;
+        switch (ex) {
+            case DatosInvalidosException e -> {
+                estado = HttpStatus.BAD_REQUEST;
+                cuerpo = e.getErrores();
+            }
+            case NotRequestBodyException e -> {
+                estado = HttpStatus.BAD_REQUEST;
+                cuerpo = json(estado, e.getMessage());
+            }
+            case BadRequestException e -> {
+                estado = HttpStatus.BAD_REQUEST;
+                cuerpo = json(estado, e.getMessage());
+            }
+            case NotFoundException e -> {
+                estado = HttpStatus.NOT_FOUND;
+                cuerpo = json(estado, e.getMessage());
+            }
+            // Incluye NotTokenValidException
+            case AuthenticationException e -> {
+                var patron = exchange.getAttribute(RouterFunctions.MATCHING_PATTERN_ATTRIBUTE);
+                metricas.registrarFallo(e, patron != null ? patron.toString()
+                        : MetricasAutenticacion.endpoint(exchange.getRequest().getPath().value()),
+                        MetricasAutenticacion.ANONIMO);
+                estado = HttpStatus.UNAUTHORIZED;
+                cuerpo = json(estado, e.getMessage());
+            }
+            case DemasiadosIntentosException e -> {
+                estado = HttpStatus.TOO_MANY_REQUESTS;
+                cuerpo = json(estado, e.getMessage());
+                reintentarEn = e.getReintentarEn();
+            }
+            case ServicioSaturadoException e -> {
+                estado = HttpStatus.SERVICE_UNAVAILABLE;
+                cuerpo = json(estado, e.getMessage());
+                reintentarEn = e.getReintentarEn();
+            }
+            default -> {
+                return Mono.error(ex);
+            }
+        }
+
+        response.setStatusCode(estado);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        if (reintentarEn != null) {
+            long segundos = (reintentarEn.toMillis() + 999) / 1000;
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, segundos)));
+        }
+        try {
+            var bytes = objectMapper.writeValueAsBytes(cuerpo);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+    }
+
+    /**
+     * Crea el cuerpo de error estándar.
+     *
+     * @param estado estado HTTP.
+     * @param mensaje mensaje del error.
+     * @return mapa con {@code status} y {@code message}.
+     */
+    private static Map<String, Object> json(HttpStatus estado, String mensaje) {
+        return Map.of("status", estado.value(), "message", mensaje != null ? mensaje : estado.getReasonPhrase());
+    }
+}
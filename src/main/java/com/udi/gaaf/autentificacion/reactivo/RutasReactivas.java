@@ -0,0 +1,60 @@
+package com.udi.gaaf.autentificacion.reactivo;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.DELETE;
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+import static org.springframework.web.reactive.function.server.RequestPredicates.PUT;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * Rutas del perfil {@code reactivo}.
+ * <p>
+ * Publican los mismos endpoints que {@code AuthController} y {@code UsuarioController}, con
+ * las mismas rutas y métodos HTTP, sobre {@link AuthHandler} y {@link UsuarioHandler}.
+ * </p>
+ */
+@Configuration
+@Profile("reactivo")
+public class RutasReactivas {
+
+    /**
+     * Rutas de autenticación bajo {@code /auth}.
+     *
+     * @param handler funciones de manejo de autenticación.
+     * @return función de enrutamiento.
+     */
+    @Bean
+    public RouterFunction<ServerResponse> rutasAuth(AuthHandler handler) {
+        return route(POST("/auth/registrar"), handler::registrar)
+                .andRoute(POST("/auth/iniciar"), handler::iniciar)
+                .andRoute(POST("/auth/refrescar"), handler::refrescar)
+                .andRoute(POST("/auth/cerrar-sesion"), handler::cerrarSesion)
+                .andRoute(POST("/auth/introspect"), handler::introspeccionar)
+                .andRoute(GET("/auth/.well-known/jwks.json"), handler::jwks);
+    }
+
+    /**
+     * Rutas de gestión de usuarios bajo {@code /usuario}.
+     *
+     * @param handler funciones de manejo de usuarios.
+     * @return función de enrutamiento.
+     */
+    @Bean
+    public RouterFunction<ServerResponse> rutasUsuario(UsuarioHandler handler) {
+        return route(GET("/usuario/{id}"), handler::obtenerPorId)
+                .andRoute(GET("/usuario"), handler::obtenerTodos)
+                .andRoute(PUT("/usuario/editar/{id}"), handler::editar)
+                .andRoute(PUT("/usuario/credenciales/{id}"), handler::cambiarContrasenaPorId)
+                .andRoute(PUT("/usuario/estado/{id}"), handler::cambiarEstado)
+                .andRoute(PUT("/usuario/estado"), handler::cambiarEstados)
+                .andRoute(PUT("/usuario/rol"), handler::cambiarRoles)
+                .andRoute(POST("/usuario/eliminar"), handler::eliminar)
+                .andRoute(DELETE("/usuario/{id}"), handler::eliminarPorId);
+    }
+}
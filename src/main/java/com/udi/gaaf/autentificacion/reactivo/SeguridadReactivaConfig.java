@@ -0,0 +1,179 @@
+package com.udi.gaaf.autentificacion.reactivo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udi.gaaf.autentificacion.revocacion.RevocacionService;
+import com.udi.gaaf.autentificacion.security.AuthenticationService;
+import com.udi.gaaf.autentificacion.security.ModoAutenticacion;
+import com.udi.gaaf.autentificacion.security.PoliticaHash;
+import com.udi.gaaf.autentificacion.security.RutasPublicas;
+import com.udi.gaaf.autentificacion.security.TokenService;
+import com.udi.gaaf.autentificacion.usuario.CachePrincipales;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Configuración de seguridad del perfil {@code reactivo}.
+ * <p>
+ * Equivalente de {@link com.udi.gaaf.autentificacion.security.SecurityConfig} sobre WebFlux:
+ * sesiones sin estado, las mismas rutas públicas y el {@link FiltroJwtReactivo} en la posición
+ * de autenticación de la cadena. Las rutas administrativas de {@link RutasPublicas} exigen el rol
+ * {@code ADMIN} en la cadena, porque las funciones de manejo no admiten {@code @PreAuthorize}.
+ * </p>
+ *
+ * <p>
+ * El codificador de contraseñas no pasa por el {@code EjecutorHash}: en este perfil el límite lo
+ * impone el planificador de {@link HashReactivo}. El {@link AuthenticationManager} se define aquí
+ * porque {@code AuthenticationConfiguration} solo existe en la configuración servlet.
+ * </p>
+ */
+@Configuration
+@Profile("reactivo")
+@EnableWebFluxSecurity
+public class SeguridadReactivaConfig {
+
+    /** Ruta del endpoint que consulta el recolector de métricas. */
+    private static final String RUTA_PROMETHEUS = "/actuator/prometheus";
+
+    /** Serializador de las respuestas de error. */
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Configura la cadena del endpoint de Prometheus en el puerto de administración, como en la
+     * configuración servlet: sin token, pero solo en {@code management.server.port}.
+     *
+     * @param http constructor de la cadena proporcionado por Spring Security.
+     * @param puertoServidor puerto de la API.
+     * @param puertoAdministracion puerto de Actuator.
+     * @return cadena del endpoint de métricas.
+     */
+    @Bean
+    @Order(1)
+    public SecurityWebFilterChain cadenaMetricasReactiva(ServerHttpSecurity http,
+            @Value("${server.port:8080}") int puertoServidor,
+            @Value("${management.server.port:-1}") int puertoAdministracion) {
+        boolean puertoPropio = puertoAdministracion > 0 && puertoAdministracion != puertoServidor;
+        ServerWebExchangeMatcher metricas = exchange -> {
+            var request = exchange.getRequest();
+            var direccion = request.getLocalAddress();
+            return puertoPropio && direccion != null && direccion.getPort() == puertoAdministracion
+                    && RUTA_PROMETHEUS.equals(request.getPath().value())
+                            ? ServerWebExchangeMatcher.MatchResult.match()
+                            : ServerWebExchangeMatcher.MatchResult.notMatch();
+        };
+        return http.securityMatcher(metricas)
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .logout(ServerHttpSecurity.LogoutSpec::disable)
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .authorizeExchange(req -> req.anyExchange().permitAll())
+                .build();
+    }
+
+    /**
+     * Configura la cadena de filtros de seguridad reactiva.
+     *
+     * @param http constructor de la cadena proporcionado por Spring Security.
+     * @param tokenService servicio de tokens JWT.
+     * @param revocacionService servicio de revocación.
+     * @param cachePrincipales caché de principales.
+     * @param modo modo en que se construye el principal.
+     * @return cadena de filtros de seguridad.
+     */
+    @Bean
+    public SecurityWebFilterChain cadenaSeguridadReactiva(ServerHttpSecurity http, TokenService tokenService,
+            RevocacionService revocacionService, CachePrincipales cachePrincipales,
+            @Value("${api.seguridad.modo:BASE_DATOS}") ModoAutenticacion modo) {
+        // Misma tabla de rutas públicas que la configuración servlet
+        ServerWebExchangeMatcher rutasPublicas = exchange ->
+                RutasPublicas.esPublica(exchange.getRequest().getPath().value())
+                        ? ServerWebExchangeMatcher.MatchResult.match()
+                        : ServerWebExchangeMatcher.MatchResult.notMatch();
+        var filtro = new FiltroJwtReactivo(tokenService, revocacionService, cachePrincipales, modo, rutasPublicas);
+        return http.csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .logout(ServerHttpSecurity.LogoutSpec::disable)
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .authorizeExchange(req -> req
+                        .pathMatchers(RutasPublicas.ADMINISTRATIVAS.toArray(String[]::new)).hasRole("ADMIN")
+                        .matchers(rutasPublicas).permitAll()
+                        .anyExchange().authenticated())
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint((exchange, ex) ->
+                                escribirError(exchange.getResponse(), "No autenticado"))
+                        .accessDeniedHandler((exchange, ex) ->
+                                escribirError(exchange.getResponse(), "No tienes permisos suficientes")))
+                .addFilterAt(filtro, SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+
+    /**
+     * Define el codificador de contraseñas según la política vigente.
+     *
+     * @param politicaHash política de cifrado calibrada al iniciar.
+     * @return codificador delegante.
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder(PoliticaHash politicaHash) {
+        return politicaHash.crearCodificador();
+    }
+
+    /**
+     * Gestor de autenticación utilizado por los servicios compartidos con el perfil servlet.
+     *
+     * @param authenticationService servicio que carga los usuarios por nombre.
+     * @param passwordEncoder codificador de contraseñas.
+     * @return gestor de autenticación basado en usuario y contraseña.
+     */
+    @Bean
+    public AuthenticationManager authenticationManager(AuthenticationService authenticationService,
+            PasswordEncoder passwordEncoder) {
+        var proveedor = new DaoAuthenticationProvider(authenticationService);
+        proveedor.setPasswordEncoder(passwordEncoder);
+        return new ProviderManager(proveedor);
+    }
+
+    /**
+     * Escribe una respuesta JSON con estado 401 (No autorizado).
+     *
+     * @param response respuesta HTTP.
+     * @param mensaje mensaje del error.
+     * @return señal de finalización de la escritura.
+     */
+    private Mono<Void> escribirError(ServerHttpResponse response, String mensaje) {
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        try {
+            byte[] cuerpo = objectMapper.writeValueAsString(
+                    Map.of("status", HttpStatus.UNAUTHORIZED.value(), "message", mensaje))
+                    .getBytes(StandardCharsets.UTF_8);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(cuerpo)));
+        } catch (JsonProcessingException ex) {
+            return Mono.error(ex);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.udi.gaaf.autentificacion.reactivo;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.udi.gaaf.autentificacion.common.DatosDetalleResponse;
+import com.udi.gaaf.autentificacion.common.IndicesMongo;
+import com.udi.gaaf.autentificacion.controller.UsuarioController;
+import com.udi.gaaf.autentificacion.errors.BadRequestException;
+import com.udi.gaaf.autentificacion.errors.NotFoundException;
+import com.udi.gaaf.autentificacion.errors.ServicioSaturadoException;
+import com.udi.gaaf.autentificacion.notificacion.NotificacionService;
+import com.udi.gaaf.autentificacion.revocacion.RevocacionService;
+import com.udi.gaaf.autentificacion.usuario.CachePrincipales;
+import com.udi.gaaf.autentificacion.usuario.DatosCambiarCredenciales;
+import com.udi.gaaf.autentificacion.usuario.DatosCambiarEstadoUsuarios;
+import com.udi.gaaf.autentificacion.usuario.DatosCambiarRolUsuarios;
+import com.udi.gaaf.autentificacion.usuario.DatosConsultaUsuarios;
+import com.udi.gaaf.autentificacion.usuario.DatosDetalleUsuario;
+import com.udi.gaaf.autentificacion.usuario.DatosEditarUsuario;
+import com.udi.gaaf.autentificacion.usuario.DatosPaginaUsuarios;
+import com.udi.gaaf.autentificacion.usuario.DatosSeleccionUsuarios;
+import com.udi.gaaf.autentificacion.usuario.Roles;
+import com.udi.gaaf.autentificacion.usuario.Usuario;
+import com.udi.gaaf.autentificacion.usuario.UsuarioService;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Funciones de manejo de {@code /usuario} para el perfil {@code reactivo}.
+ *
+ * <p>Equivalente de {@link com.udi.gaaf.autentificacion.controller.UsuarioController} y
+ * {@link com.udi.gaaf.autentificacion.usuario.UsuarioService} sobre
+ * {@link UsuarioReactivoRepository}, con los mismos mensajes y códigos de respuesta. La caché
+ * de principales se invalida igual que en el perfil servlet; la revocación de tokens usa un
+ * repositorio bloqueante y se ejecuta en {@link Schedulers#boundedElastic()}.</p>
+ */
+@Component
+@Profile("reactivo")
+public class UsuarioHandler {
+
+    /** Repositorio reactivo de usuarios. */
+    @Autowired
+    private UsuarioReactivoRepository repository;
+
+    /** Plantilla reactiva para las consultas paginadas con proyección y las actualizaciones parciales. */
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    /** Cifrado y verificación de contraseñas fuera del event loop. */
+    @Autowired
+    private HashReactivo hashReactivo;
+
+    /** Caché de principales autenticados que se invalida en cada modificación del usuario. */
+    @Autowired
+    private CachePrincipales cachePrincipales;
+
+    /** Servicio de notificaciones, que se eliminan junto con el usuario. */
+    @Autowired
+    private NotificacionService notificacionService;
+
+    /** Servicio de revocación de los tokens emitidos para el usuario. */
+    @Autowired
+    private RevocacionService revocacionService;
+
+    /** Servicio bloqueante de usuarios, usado para las operaciones masivas. */
+    @Autowired
+    private UsuarioService usuarioService;
+
+    /** Lectura y validación de los cuerpos de las solicitudes. */
+    @Autowired
+    private ValidadorCuerpo validador;
+
+    /** Índices de MongoDB, cuya existencia se exige antes de editar usuario o correo. */
+    @Autowired
+    private IndicesMongo indicesMongo;
+
+    /**
+     * Obtiene un usuario por su identificador único.
+     *
+     * @param request solicitud con la variable {@code id}.
+     * @return respuesta con los detalles del usuario.
+     */
+    public Mono<ServerResponse> obtenerPorId(ServerRequest request) {
+        return obtenerUsuarioPorId(request.pathVariable("id"))
+                .map(UsuarioHandler::detalleUsuario)
+                .flatMap(detalle -> ServerResponse.ok().bodyValue(detalle));
+    }
+
+    /**
+     * Obtiene una página de usuarios, o todos como NDJSON si la solicitud acepta
+     * {@code application/x-ndjson}. Admite los mismos parámetros que
+     * {@link UsuarioController#obtenerTodos(DatosConsultaUsuarios)}.
+     *
+     * @param request solicitud con los parámetros {@code despues}, {@code tamano}, {@code rol} y {@code activo}.
+     * @return respuesta con la página de usuarios, o el flujo NDJSON.
+     */
+    public Mono<ServerResponse> obtenerTodos(ServerRequest request) {
+        return Mono.fromCallable(() -> consulta(request)).flatMap(consulta -> {
+            var usuarios = mongoTemplate.query(Usuario.class).as(DatosDetalleUsuario.class);
+            if (request.headers().accept().contains(MediaType.APPLICATION_NDJSON)) {
+                return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON)
+                        .body(usuarios.matching(consulta.consultaTransmision()).all(), DatosDetalleUsuario.class);
+            }
+            return usuarios.matching(consulta.consultaPagina()).all()
+                    .collectList()
+                    .map(consultados -> DatosPaginaUsuarios.de(consultados, consulta.tamanoPagina()))
+                    .flatMap(pagina -> {
+                        var respuesta = ServerResponse.ok();
+                        if (pagina.siguiente() != null) {
+                            respuesta.header(UsuarioController.CURSOR_SIGUIENTE, pagina.siguiente());
+                        }
+                        return respuesta.bodyValue(pagina.usuarios());
+                    });
+        });
+    }
+
+    /**
+     * Modifica la información de un usuario existente con un {@code $set} de los campos editables,
+     * como {@link UsuarioService#editar(DatosEditarUsuario, String)}, y también se rechaza
+     * mientras falten los índices únicos de usuario y correo.
+     *
+     * @param request solicitud con un {@link DatosEditarUsuario} y la variable {@code id}.
+     * @return respuesta de éxito.
+     */
+    public Mono<ServerResponse> editar(ServerRequest request) {
+        var id = request.pathVariable("id");
+        return validador.leer(request, DatosEditarUsuario.class, "Se requiere el body")
+                .flatMap(datos -> Mono.fromRunnable(indicesMongo::exigirIndicesUnicos)
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .thenReturn(datos))
+                .flatMap(datos -> mongoTemplate.updateFirst(query(where("_id").is(id)), datos.actualizacion(), Usuario.class)
+                        .onErrorMap(e -> new BadRequestException("Error al actualizar el usuario")))
+                .flatMap(resultado -> resultado.getMatchedCount() == 0
+                        ? Mono.error(new NotFoundException("Usuario no encontrado por el ID: " + id))
+                        : Mono.fromRunnable(() -> cachePrincipales.invalidar(id))
+                                .then(ok("Usuario actualizado correctamente")));
+    }
+
+    /**
+     * Cambia la contraseña de un usuario por su identificador.
+     * <p>Como en el perfil servlet, la escritura se condiciona a la versión leída.</p>
+     *
+     * @param request solicitud con un {@link DatosCambiarCredenciales} y la variable {@code id}.
+     * @return respuesta con el estado del proceso.
+     */
+    public Mono<ServerResponse> cambiarContrasenaPorId(ServerRequest request) {
+        var id = request.pathVariable("id");
+        return validador.leer(request, DatosCambiarCredenciales.class, "Se requiere el body")
+                .flatMap(datos -> obtenerUsuarioPorId(id)
+                        .flatMap(usuario -> hashReactivo.verificar(datos.contraseña(), usuario.getContrasena())
+                                .flatMap(igual -> igual
+                                        ? Mono.just(usuario)
+                                        : hashReactivo.codificar(datos.contraseña())
+                                                .flatMap(hash -> mongoTemplate.updateFirst(
+                                                        query(where("_id").is(id).and("version").is(usuario.getVersion())),
+                                                        Update.update("contrasena", hash),
+                                                        Usuario.class))
+                                                .flatMap(resultado -> resultado.getModifiedCount() == 0
+                                                        ? Mono.error(new BadRequestException(
+                                                                "El usuario se modificó durante el cambio de contraseña. Intente de nuevo."))
+                                                        : Mono.just(usuario))
+                                                .flatMap(guardado -> {
+                                                    cachePrincipales.invalidar(id);
+                                                    return revocar(id).thenReturn(guardado);
+                                                })))
+                        .onErrorMap(e -> !(e instanceof ServicioSaturadoException || e instanceof BadRequestException),
+                                e -> new BadRequestException("Error al cambiar la contraseña.")))
+                .flatMap(usuario -> ok("Contraseña cambiada correctamente."));
+    }
+
+    /**
+     * Cambia el estado de un usuario (activo/inactivo) por su identificador.
+     * <p>El estado se invierte en el servidor con {@link UsuarioService#alternarEstado()}.</p>
+     *
+     * @param request solicitud con la variable {@code id}.
+     * @return respuesta con el estado del proceso.
+     */
+    public Mono<ServerResponse> cambiarEstado(ServerRequest request) {
+        var id = request.pathVariable("id");
+        var consulta = query(where("_id").is(id));
+        consulta.fields().include("activo");
+        return mongoTemplate.findAndModify(consulta, UsuarioService.alternarEstado(),
+                        FindAndModifyOptions.options().returnNew(true), Usuario.class)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("Usuario no encontrado por el ID: " + id)))
+                .flatMap(usuario -> {
+                    cachePrincipales.invalidar(id);
+                    return usuario.getActivo() ? Mono.just(usuario) : revocar(id).thenReturn(usuario);
+                })
+                .flatMap(usuario -> ok("Estado del usuario cambiado correctamente."));
+    }
+
+    /**
+     * Activa o desactiva en una sola operación los usuarios seleccionados.
+     * <p>La operación es la de {@link UsuarioService#cambiarEstados(DatosCambiarEstadoUsuarios)}
+     * y se ejecuta en {@link Schedulers#boundedElastic()}.</p>
+     *
+     * @param request solicitud con un {@link DatosCambiarEstadoUsuarios}.
+     * @return respuesta con los usuarios seleccionados y modificados.
+     */
+    public Mono<ServerResponse> cambiarEstados(ServerRequest request) {
+        return validador.leer(request, DatosCambiarEstadoUsuarios.class, "Se requiere el body")
+                .flatMap(datos -> bloqueante(() -> usuarioService.cambiarEstados(datos)));
+    }
+
+    /**
+     * Cambia en una sola operación el rol de los usuarios seleccionados.
+     *
+     * @param request solicitud con un {@link DatosCambiarRolUsuarios}.
+     * @return respuesta con los usuarios seleccionados y modificados.
+     */
+    public Mono<ServerResponse> cambiarRoles(ServerRequest request) {
+        return validador.leer(request, DatosCambiarRolUsuarios.class, "Se requiere el body")
+                .flatMap(datos -> bloqueante(() -> usuarioService.cambiarRoles(datos)));
+    }
+
+    /**
+     * Elimina en una sola operación los usuarios seleccionados.
+     *
+     * @param request solicitud con un {@link DatosSeleccionUsuarios}.
+     * @return respuesta con los usuarios seleccionados y eliminados.
+     */
+    public Mono<ServerResponse> eliminar(ServerRequest request) {
+        return validador.leer(request, DatosSeleccionUsuarios.class, "Se requiere el body")
+                .flatMap(seleccion -> bloqueante(() -> usuarioService.eliminar(seleccion)));
+    }
+
+    /**
+     * Elimina un usuario del sistema por su identificador.
+     *
+     * @param request solicitud con la variable {@code id}.
+     * @return respuesta con el estado de la operación.
+     */
+    public Mono<ServerResponse> eliminarPorId(ServerRequest request) {
+        var id = request.pathVariable("id");
+        return obtenerUsuarioPorId(id)
+                .flatMap(usuario -> repository.delete(usuario))
+                .then(Mono.<Void>fromRunnable(() -> notificacionService.eliminarDeUsuario(id))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .then(Mono.fromRunnable(() -> cachePrincipales.invalidar(id)))
+                .then(revocar(id))
+                .then(ok("Usuario eliminado correctamente."));
+    }
+
+    /**
+     * Obtiene un usuario por su identificador único.
+     *
+     * @param id identificador del usuario.
+     * @return usuario encontrado, o {@link NotFoundException} si no existe.
+     */
+    private Mono<Usuario> obtenerUsuarioPorId(String id) {
+        return repository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("Usuario no encontrado por el ID: " + id)));
+    }
+
+    /**
+     * Lee los parámetros de la consulta paginada.
+     *
+     * @param request solicitud.
+     * @return parámetros de la consulta.
+     * @throws BadRequestException si {@code tamano}, {@code rol} o {@code activo} no son válidos.
+     */
+    private static DatosConsultaUsuarios consulta(ServerRequest request) {
+        try {
+            return new DatosConsultaUsuarios(
+                    request.queryParam("despues").orElse(null),
+                    request.queryParam("tamano").map(Integer::valueOf).orElse(null),
+                    request.queryParam("rol").map(Roles::valueOf).orElse(null),
+                    request.queryParam("activo").map(Boolean::valueOf).orElse(null));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Los parámetros de la consulta no son válidos.");
+        }
+    }
+
+    /**
+     * Revoca los tokens del usuario; el repositorio de revocaciones es bloqueante.
+     *
+     * @param id identificador del usuario.
+     * @return señal de finalización.
+     */
+    private Mono<Void> revocar(String id) {
+        return Mono.<Void>fromRunnable(() -> revocacionService.revocarUsuario(id))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Ejecuta una operación bloqueante en {@link Schedulers#boundedElastic()} y responde su resultado.
+     *
+     * @param operacion operación a ejecutar.
+     * @return respuesta 200 con el resultado.
+     */
+    private Mono<ServerResponse> bloqueante(Callable<?> operacion) {
+        return Mono.fromCallable(operacion)
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(resultado -> ServerResponse.ok().bodyValue(resultado));
+    }
+
+    /**
+     * Crea una respuesta 200 con el mensaje indicado.
+     *
+     * @param mensaje mensaje de confirmación.
+     * @return respuesta con un {@link DatosDetalleResponse}.
+     */
+    private static Mono<ServerResponse> ok(String mensaje) {
+        return ServerResponse.ok().bodyValue(new DatosDetalleResponse(200, mensaje));
+    }
+
+    /**
+     * Convierte una entidad {@link Usuario} en un record {@link DatosDetalleUsuario}.
+     *
+     * @param usuario entidad de tipo {@link Usuario}.
+     * @return record con los detalles del usuario.
+     */
+    private static DatosDetalleUsuario detalleUsuario(Usuario usuario) {
+        return new DatosDetalleUsuario(
+                usuario.getId(),
+                usuario.getUsuario(),
+                usuario.getNombre(),
+                usuario.getCorreo(),
+                usuario.getTelefono(),
+                usuario.getActivo(),
+                usuario.getRol()
+        );
+    }
+}
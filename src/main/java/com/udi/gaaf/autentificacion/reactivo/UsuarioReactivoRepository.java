@@ -0,0 +1,31 @@
+package com.udi.gaaf.autentificacion.reactivo;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.udi.gaaf.autentificacion.usuario.Usuario;
+import com.udi.gaaf.autentificacion.usuario.UsuarioRepository;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Repositorio reactivo de usuarios, equivalente no bloqueante de
+ * {@link UsuarioRepository} para el perfil {@code reactivo}.
+ */
+@Profile("reactivo")
+@Repository
+public interface UsuarioReactivoRepository extends ReactiveMongoRepository<Usuario, String> {
+
+    /**
+     * Busca un usuario por su nombre de usuario, sin distinguir mayúsculas, con los campos de
+     * {@link UsuarioRepository#CAMPOS_AUTENTICACION}. El usuario obtenido no debe guardarse.
+     *
+     * @param usuario nombre de usuario.
+     * @return usuario encontrado, o vacío si no existe.
+     */
+    @Query(value = "{ 'usuario': ?0 }", fields = UsuarioRepository.CAMPOS_AUTENTICACION,
+            collation = Usuario.COLACION)
+    Mono<Usuario> findByUsuario(String usuario);
+}
@@ -0,0 +1,60 @@
+package com.udi.gaaf.autentificacion.reactivo;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+
+import com.udi.gaaf.autentificacion.errors.NotRequestBodyException;
+import com.udi.gaaf.autentificacion.reactivo.DatosInvalidosException.DatosErrorValidacion;
+
+import jakarta.validation.Validator;
+import reactor.core.publisher.Mono;
+
+/**
+ * Lectura y validación del cuerpo de las solicitudes del perfil {@code reactivo}.
+ * <p>
+ * Reemplaza a {@code @RequestBody(required = false) @Valid} de los controladores servlet: un
+ * cuerpo ausente produce {@link NotRequestBodyException} y uno inválido
+ * {@link DatosInvalidosException}, que se responden igual que en el perfil servlet.
+ * </p>
+ */
+@Component
+@Profile("reactivo")
+public class ValidadorCuerpo {
+
+    /** Validador de Bean Validation configurado por Spring Boot. */
+    private final Validator validator;
+
+    /**
+     * Crea el validador.
+     *
+     * @param validator validador de Bean Validation.
+     */
+    public ValidadorCuerpo(Validator validator) {
+        this.validator = validator;
+    }
+
+    /**
+     * Lee y valida el cuerpo de la solicitud.
+     *
+     * @param <T> tipo del cuerpo.
+     * @param request solicitud.
+     * @param tipo clase del cuerpo.
+     * @param mensajeSinCuerpo mensaje cuando la solicitud no trae cuerpo.
+     * @return cuerpo validado.
+     */
+    public <T> Mono<T> leer(ServerRequest request, Class<T> tipo, String mensajeSinCuerpo) {
+        return request.bodyToMono(tipo)
+                .switchIfEmpty(Mono.error(() -> new NotRequestBodyException(mensajeSinCuerpo)))
+                .handle((cuerpo, sink) -> {
+                    var violaciones = validator.validate(cuerpo);
+                    if (violaciones.isEmpty()) {
+                        sink.next(cuerpo);
+                        return;
+                    }
+                    sink.error(new DatosInvalidosException(violaciones.stream()
+                            .map(v -> new DatosErrorValidacion(v.getPropertyPath().toString(), v.getMessage()))
+                            .toList()));
+                });
+    }
+}
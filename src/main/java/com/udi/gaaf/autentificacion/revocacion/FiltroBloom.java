@@ -0,0 +1,112 @@
+package com.udi.gaaf.autentificacion.revocacion;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom concurrente y sin bloqueos para cadenas.
+ * <p>
+ * Responde si un elemento <em>podría</em> estar en el conjunto: un resultado negativo es
+ * definitivo y uno positivo debe confirmarse contra el almacenamiento real. Los bits se guardan
+ * en un {@link AtomicLongArray}, de modo que las inserciones concurrentes no requieren bloqueos.
+ * Los elementos no se pueden eliminar; el filtro se reconstruye periódicamente.
+ * </p>
+ */
+public class FiltroBloom {
+
+    /** Bits del filtro agrupados en palabras de 64 bits. */
+    private final AtomicLongArray bits;
+
+    /** Cantidad total de bits. */
+    private final long totalBits;
+
+    /** Cantidad de funciones hash aplicadas por elemento. */
+    private final int funcionesHash;
+
+    /**
+     * Crea un filtro dimensionado para la capacidad y la tasa de falsos positivos indicadas.
+     *
+     * @param capacidad cantidad esperada de elementos.
+     * @param probabilidadFalsoPositivo tasa de falsos positivos deseada, entre 0 y 1.
+     */
+    public FiltroBloom(long capacidad, double probabilidadFalsoPositivo) {
+        long n = Math.max(1, capacidad);
+        long m = (long) Math.ceil(-n * Math.log(probabilidadFalsoPositivo) / (Math.log(2) * Math.log(2)));
+        int palabras = (int) Math.max(1, (m + 63) / 64);
+        this.bits = new AtomicLongArray(palabras);
+        this.totalBits = (long) palabras * 64;
+        this.funcionesHash = (int) Math.max(1, Math.round((double) totalBits / n * Math.log(2)));
+    }
+
+    /**
+     * Agrega un elemento al filtro.
+     *
+     * @param elemento elemento a agregar.
+     */
+    public void agregar(String elemento) {
+        long hash = hash64(elemento);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= funcionesHash; i++) {
+            long bit = indice(h1 + i * h2);
+            int palabra = (int) (bit >>> 6);
+            long mascara = 1L << bit;
+            long actual = bits.get(palabra);
+            while ((actual & mascara) == 0) {
+                long previo = bits.compareAndExchange(palabra, actual, actual | mascara);
+                if (previo == actual) {
+                    break;
+                }
+                actual = previo;
+            }
+        }
+    }
+
+    /**
+     * Indica si el elemento podría estar en el filtro.
+     *
+     * @param elemento elemento a consultar.
+     * @return {@code false} si el elemento con certeza no fue agregado; {@code true} si podría haberlo sido.
+     */
+    public boolean podriaContener(String elemento) {
+        long hash = hash64(elemento);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= funcionesHash; i++) {
+            long bit = indice(h1 + i * h2);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Convierte un hash combinado en un índice de bit.
+     *
+     * @param hash hash combinado.
+     * @return índice de bit dentro del filtro.
+     */
+    private long indice(int hash) {
+        return (hash & 0x7fffffffL) % totalBits;
+    }
+
+    /**
+     * Calcula un hash de 64 bits (FNV-1a con mezcla final de SplitMix64).
+     *
+     * @param valor cadena a resumir.
+     * @return hash de 64 bits.
+     */
+    private static long hash64(String valor) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < valor.length(); i++) {
+            h ^= valor.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 30;
+        h *= 0xbf58476d1ce4e5b9L;
+        h ^= h >>> 27;
+        h *= 0x94d049bb133111ebL;
+        h ^= h >>> 31;
+        return h;
+    }
+}
@@ -0,0 +1,347 @@
+package com.udi.gaaf.autentificacion.revocacion;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.udi.gaaf.autentificacion.common.EjecutorConsultas;
+import com.udi.gaaf.autentificacion.auth.TokenRefrescoService;
+import com.udi.gaaf.autentificacion.eventos.ObservadorColeccion;
+import com.udi.gaaf.autentificacion.security.DatosClaimsToken;
+import com.udi.gaaf.autentificacion.security.TokenService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Servicio encargado de revocar tokens JWT antes de su expiración.
+ *
+ * <p>Las revocaciones se guardan en la colección {@code token_revocado}. Delante de ella se
+ * mantiene un {@link FiltroBloom} en memoria, de modo que la respuesta habitual ("no revocado")
+ * se resuelve sin salir de la JVM; solo los positivos del filtro se confirman contra MongoDB.
+ * Las revocaciones hechas por cualquier instancia llegan a las demás mediante un change stream
+ * sobre la colección, y el filtro se reconstruye periódicamente para descartar las revocaciones
+ * ya expiradas. Hasta que el filtro se carga por primera vez, todas las consultas se confirman
+ * contra MongoDB.</p>
+ */
+@Service
+public class RevocacionService {
+
+    private static final Logger log = LoggerFactory.getLogger(RevocacionService.class);
+
+    /** Colección de revocaciones. */
+    private static final String COLECCION = "token_revocado";
+
+    /** Prefijo de las revocaciones de un token concreto. */
+    private static final String PREFIJO_JTI = "jti:";
+
+    /** Prefijo de las revocaciones de todos los tokens de un usuario. */
+    private static final String PREFIJO_USUARIO = "usr:";
+
+    /** Resultado de las consultas resueltas por el filtro. */
+    private static final CompletableFuture<Boolean> NO_REVOCADO = CompletableFuture.completedFuture(false);
+
+    /** Confirmación omitida porque el filtro descartó la clave. */
+    private static final CompletableFuture<Optional<Instant>> SIN_REVOCACION =
+            CompletableFuture.completedFuture(Optional.empty());
+
+    /** Repositorio de revocaciones. */
+    @Autowired
+    private TokenRevocadoRepository repository;
+
+    /** Plantilla de MongoDB. */
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /** Servicio de tokens JWT, usado para conocer la vigencia máxima de un token. */
+    @Autowired
+    private TokenService tokenService;
+
+    /** Servicio de tokens de refresco, que también se revocan al revocar un usuario. */
+    @Autowired
+    private TokenRefrescoService tokenRefrescoService;
+
+    /** Capacidad mínima del filtro de Bloom. */
+    @Value("${api.revocacion.bloom.capacidad:100000}")
+    private long capacidad;
+
+    /** Tasa de falsos positivos del filtro de Bloom. */
+    @Value("${api.revocacion.bloom.falsos-positivos:0.01}")
+    private double falsosPositivos;
+
+    /** Indica si se sincroniza el filtro mediante change streams. */
+    @Value("${api.cambios.habilitado:true}")
+    private boolean cambiosHabilitados;
+
+    /** Filtro de Bloom vigente. */
+    private volatile FiltroBloom filtro;
+
+    /** Filtro en reconstrucción que también recibe las revocaciones nuevas. */
+    private volatile FiltroBloom enConstruccion;
+
+    /** Indica si el filtro ya se cargó desde MongoDB; mientras tanto, toda consulta se confirma. */
+    private volatile boolean cargado;
+
+    /**
+     * Resultados de las confirmaciones contra MongoDB, invalidados al recibir una revocación.
+     * La consulta se ejecuta fuera del cómputo de la caché para no fijar hilos virtuales.
+     */
+    private final AsyncCache<String, Optional<Instant>> confirmaciones;
+
+    /** Observador del change stream de la colección de revocaciones. */
+    private ObservadorColeccion observador;
+
+    /** Consultas resueltas solo con el filtro de Bloom. */
+    private final Counter consultasFiltro;
+
+    /** Consultas que requirieron confirmación. */
+    private final Counter consultasConfirmadas;
+
+    /**
+     * Crea el servicio sobre el {@link EjecutorConsultas} y registra sus métricas.
+     *
+     * @param ejecutorConsultas ejecutor dedicado en el que se confirman las revocaciones contra MongoDB.
+     * @param registry registro de métricas de Micrometer.
+     */
+    @Autowired
+    public RevocacionService(EjecutorConsultas ejecutorConsultas, MeterRegistry registry) {
+        this(ejecutorConsultas.getEjecutor(), registry);
+    }
+
+    /**
+     * Crea el servicio sobre un ejecutor cualquiera y registra sus métricas.
+     *
+     * @param ejecutor ejecutor en el que se confirman las revocaciones contra MongoDB.
+     * @param registry registro de métricas de Micrometer.
+     */
+    public RevocacionService(Executor ejecutor, MeterRegistry registry) {
+        this.confirmaciones = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMinutes(1))
+                .executor(ejecutor)
+                .buildAsync();
+        this.consultasFiltro = Counter.builder("revocacion.consultas").tag("resultado", "filtro")
+                .description("Consultas de revocación resueltas en memoria").register(registry);
+        this.consultasConfirmadas = Counter.builder("revocacion.consultas").tag("resultado", "confirmada")
+                .description("Consultas de revocación que requirieron confirmación").register(registry);
+    }
+
+    /**
+     * Crea el filtro vacío.
+     */
+    @PostConstruct
+    void inicializar() {
+        filtro = new FiltroBloom(capacidad, falsosPositivos);
+    }
+
+    /**
+     * Inicia el change stream y carga el filtro cuando la aplicación está lista.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        observador = new ObservadorColeccion(mongoTemplate, COLECCION,
+                List.of(Aggregates.match(Filters.in("operationType", "insert", "update", "replace"))),
+                FullDocument.DEFAULT, this::alCambiar, this::reconstruir);
+        Thread.ofVirtual().name("revocacion-carga").start(() -> {
+            if (cambiosHabilitados) {
+                observador.iniciar(null);
+            }
+            reconstruir();
+        });
+    }
+
+    /**
+     * Detiene el change stream.
+     */
+    @PreDestroy
+    public void alDetener() {
+        if (observador != null) {
+            observador.detener();
+        }
+    }
+
+    /**
+     * Indica si el token está revocado.
+     *
+     * @param claims claims del token verificado.
+     * @return {@code true} si el token o todos los tokens de su usuario fueron revocados.
+     */
+    public boolean estaRevocado(DatosClaimsToken claims) {
+        return estaRevocadoAsync(claims).join();
+    }
+
+    /**
+     * Indica si el token está revocado sin bloquear el hilo que llama.
+     * <p>El caso habitual se resuelve con el filtro de Bloom y retorna un futuro ya completado;
+     * solo los positivos esperan la confirmación contra MongoDB.</p>
+     * <p>Una revocación por usuario alcanza a los tokens emitidos hasta su instante, inclusive.
+     * La emisión se compara en milisegundos ({@link DatosClaimsToken#emision()}), de modo que un
+     * token emitido después en el mismo segundo, por ejemplo al iniciar sesión justo después de
+     * cambiar la contraseña, sigue siendo válido. Los tokens sin {@code iat_ms} solo tienen
+     * segundos: si se emitieron en el mismo segundo que la revocación, se rechazan.</p>
+     *
+     * @param claims claims del token verificado.
+     * @return futuro con {@code true} si el token o todos los tokens de su usuario fueron revocados.
+     */
+    public CompletableFuture<Boolean> estaRevocadoAsync(DatosClaimsToken claims) {
+        var actual = filtro;
+        var claveJti = claims.jti() != null ? PREFIJO_JTI + claims.jti() : null;
+        var claveUsuario = claims.id() != null ? PREFIJO_USUARIO + claims.id() : null;
+        boolean posibleJti = claveJti != null && (!cargado || actual.podriaContener(claveJti));
+        boolean posibleUsuario = claveUsuario != null && (!cargado || actual.podriaContener(claveUsuario));
+        if (!posibleJti && !posibleUsuario) {
+            consultasFiltro.increment();
+            return NO_REVOCADO;
+        }
+
+        consultasConfirmadas.increment();
+        var porJti = posibleJti ? confirmar(claveJti) : SIN_REVOCACION;
+        var porUsuario = posibleUsuario ? confirmar(claveUsuario) : SIN_REVOCACION;
+        return porJti.thenCombine(porUsuario, (jti, usuario) -> jti.isPresent()
+                || usuario.isPresent()
+                        && (claims.emision() == null || !claims.emision().isAfter(usuario.get())));
+    }
+
+    /**
+     * Revoca un token concreto hasta su expiración.
+     *
+     * @param claims claims del token a revocar.
+     */
+    public void revocarToken(DatosClaimsToken claims) {
+        if (claims.jti() == null) {
+            return;
+        }
+        var expiracion = claims.expiracion() != null ? claims.expiracion() : tokenService.generarFechaExpiracion();
+        guardar(new TokenRevocado(PREFIJO_JTI + claims.jti(), Instant.now(), expiracion));
+    }
+
+    /**
+     * Revoca todos los tokens emitidos hasta ahora para un usuario, incluidos sus tokens de refresco.
+     *
+     * @param usuarioId identificador del usuario.
+     */
+    public void revocarUsuario(String usuarioId) {
+        guardar(new TokenRevocado(PREFIJO_USUARIO + usuarioId, Instant.now(), tokenService.generarFechaExpiracion()));
+        tokenRefrescoService.revocarUsuario(usuarioId);
+    }
+
+    /**
+     * Revoca todos los tokens emitidos hasta ahora para varios usuarios, con una sola escritura
+     * masiva de las revocaciones y una sola eliminación de sus tokens de refresco.
+     *
+     * @param usuarioIds identificadores de los usuarios.
+     */
+    public void revocarUsuarios(Collection<String> usuarioIds) {
+        if (usuarioIds.isEmpty()) {
+            return;
+        }
+        var ahora = Instant.now();
+        var expiracion = tokenService.generarFechaExpiracion();
+        var operaciones = mongoTemplate.bulkOps(BulkMode.UNORDERED, TokenRevocado.class);
+        for (var usuarioId : usuarioIds) {
+            operaciones.upsert(query(where("_id").is(PREFIJO_USUARIO + usuarioId)),
+                    Update.update("revocadoDesde", ahora).set("expiracion", expiracion));
+        }
+        operaciones.execute();
+        usuarioIds.forEach(usuarioId -> agregar(PREFIJO_USUARIO + usuarioId));
+        tokenRefrescoService.revocarUsuarios(usuarioIds);
+    }
+
+    /**
+     * Reconstruye el filtro a partir de las revocaciones vigentes en MongoDB.
+     */
+    @Scheduled(initialDelayString = "${api.revocacion.reconstruccion:PT10M}",
+            fixedDelayString = "${api.revocacion.reconstruccion:PT10M}")
+    public void reconstruir() {
+        try {
+            long vigentes = mongoTemplate.count(new Query(), COLECCION);
+            var nuevo = new FiltroBloom(Math.max(capacidad, vigentes * 2), falsosPositivos);
+            enConstruccion = nuevo;
+            try (var revocaciones = mongoTemplate.stream(new Query(), Document.class, COLECCION)) {
+                revocaciones.forEach(revocacion -> nuevo.agregar(revocacion.getString("_id")));
+            }
+            filtro = nuevo;
+            cargado = true;
+            confirmaciones.synchronous().invalidateAll();
+            log.info("Filtro de revocaciones reconstruido con {} revocaciones vigentes", vigentes);
+        } catch (RuntimeException ex) {
+            log.error("No se pudo reconstruir el filtro de revocaciones: {}", ex.getMessage());
+        } finally {
+            enConstruccion = null;
+        }
+    }
+
+    /**
+     * Persiste una revocación y la agrega al filtro local.
+     *
+     * @param revocacion revocación a guardar.
+     */
+    private void guardar(TokenRevocado revocacion) {
+        repository.save(revocacion);
+        agregar(revocacion.getId());
+    }
+
+    /**
+     * Procesa un cambio recibido por el change stream.
+     *
+     * @param cambio cambio de la colección de revocaciones.
+     */
+    private void alCambiar(ChangeStreamDocument<Document> cambio) {
+        if (cambio.getDocumentKey() != null && cambio.getDocumentKey().isString("_id")) {
+            agregar(cambio.getDocumentKey().getString("_id").getValue());
+        }
+    }
+
+    /**
+     * Agrega una clave al filtro vigente y, si existe, al filtro en reconstrucción.
+     *
+     * @param clave clave de revocación.
+     */
+    private void agregar(String clave) {
+        filtro.agregar(clave);
+        var nuevo = enConstruccion;
+        if (nuevo != null) {
+            nuevo.agregar(clave);
+        }
+        confirmaciones.synchronous().invalidate(clave);
+    }
+
+    /**
+     * Confirma una revocación contra MongoDB, reutilizando el resultado reciente.
+     *
+     * @param clave clave de revocación.
+     * @return futuro con el instante de la revocación, o vacío si no existe.
+     */
+    private CompletableFuture<Optional<Instant>> confirmar(String clave) {
+        return confirmaciones.get(clave, id -> repository.findById(id).map(TokenRevocado::getRevocadoDesde));
+    }
+}
@@ -0,0 +1,50 @@
+package com.udi.gaaf.autentificacion.revocacion;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Entidad que representa una revocación de tokens.
+ *
+ * <p>El identificador es la clave de revocación: {@code jti:<jti>} revoca un token concreto y
+ * {@code usr:<id>} revoca todos los tokens del usuario emitidos hasta {@code revocadoDesde}.
+ * El índice TTL sobre {@code expiracion} elimina la revocación cuando ya no queda ningún token
+ * afectado sin expirar.</p>
+ */
+@Document(collection = "token_revocado")
+@Getter
+@Setter
+@NoArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class TokenRevocado {
+
+	/** Clave de revocación. */
+	@Id
+	private String id;
+	/** Instante de la revocación; los tokens emitidos hasta este instante quedan revocados. */
+	private Instant revocadoDesde;
+	/** Instante a partir del cual la revocación deja de ser necesaria. */
+	@Indexed(expireAfter = "0s")
+	private Instant expiracion;
+
+	/**
+	 * Constructor para asignar valores.
+	 *
+	 * @param id clave de revocación
+	 * @param revocadoDesde instante de la revocación
+	 * @param expiracion instante en que la revocación deja de ser necesaria
+	 */
+	public TokenRevocado(String id, Instant revocadoDesde, Instant expiracion) {
+		this.id = id;
+		this.revocadoDesde = revocadoDesde;
+		this.expiracion = expiracion;
+	}
+}
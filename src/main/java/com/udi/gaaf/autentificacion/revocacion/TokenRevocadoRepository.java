@@ -0,0 +1,12 @@
+package com.udi.gaaf.autentificacion.revocacion;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio de acceso a datos para la entidad {@link TokenRevocado}.
+ */
+@Repository
+public interface TokenRevocadoRepository extends MongoRepository<TokenRevocado, String> {
+
+}
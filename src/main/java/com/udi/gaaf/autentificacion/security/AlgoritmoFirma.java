@@ -0,0 +1,20 @@
+package com.udi.gaaf.autentificacion.security;
+
+/**
+ * Algoritmos de firma admitidos para los tokens JWT.
+ *
+ * <p>Se configura con la propiedad {@code api.jwt.algoritmo}. Los algoritmos asimétricos
+ * permiten que otros servicios verifiquen los tokens localmente con las claves públicas
+ * publicadas en el endpoint JWKS.</p>
+ */
+public enum AlgoritmoFirma {
+
+    /** HMAC con SHA-256 y clave secreta compartida ({@code api.jwt.secret}). */
+    HS256,
+
+    /** RSA PKCS#1 v1.5 con SHA-256. */
+    RS256,
+
+    /** ECDSA sobre la curva P-256 con SHA-256. */
+    ES256
+}
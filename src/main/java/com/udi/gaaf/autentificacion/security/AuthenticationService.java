@@ -1,5 +1,7 @@
 package com.udi.gaaf.autentificacion.security;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -34,6 +36,8 @@ import com.udi.gaaf.autentificacion.usuario.UsuarioRepository;
 @Service
 public class AuthenticationService implements UserDetailsService {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthenticationService.class);
+
     /** Repositorio del usuario. */
     @Autowired
     private UsuarioRepository repository;
@@ -54,11 +58,13 @@ public class AuthenticationService implements UserDetailsService {
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         try {
-            System.out.println("Buscando usuario: " + username);
             var usuario = repository.findByUsuario(username)
                     .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
-            System.out.println("Usuario encontrado: " + usuario);
+            log.debug("Usuario cargado: {}", username);
             return usuario;
+        } catch (UsernameNotFoundException ex) {
+            // Spring Security la convierte en credenciales incorrectas; envuelta sería un error interno
+            throw ex;
         } catch (Exception ex) {
             throw new RuntimeException("Error al cargar el usuario: " + ex.getMessage(), ex);
         }
@@ -0,0 +1,113 @@
+package com.udi.gaaf.autentificacion.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Caché acotada de tokens JWT ya verificados.
+ * <p>
+ * Evita repetir el análisis, la decodificación Base64 y la verificación de la firma
+ * cuando un cliente envía el mismo token en solicitudes consecutivas. Las entradas
+ * se indexan por el resumen SHA-256 del token (no se guarda el token en claro) y
+ * expiran en el primer instante entre el {@code exp} del token y el TTL máximo configurado.
+ * </p>
+ *
+ * <p>
+ * Las estadísticas de aciertos, fallos y desalojos se publican en Actuator
+ * bajo el nombre de caché {@code jwt.verificados}.
+ * </p>
+ *
+ * @see TokenService
+ */
+@Component
+public class CacheTokensVerificados {
+
+    /** Nombre con el que se registran las métricas de la caché. */
+    private static final String NOMBRE_CACHE = "jwt.verificados";
+
+    /** Caché de tokens verificados indexada por el resumen del token. */
+    private final Cache<String, DatosClaimsToken> cache;
+
+    /**
+     * Crea la caché con su tamaño y TTL máximos y registra sus métricas.
+     *
+     * @param tamanoMaximo número máximo de tokens retenidos.
+     * @param ttlMaximo tiempo máximo que un token permanece en caché, aunque su {@code exp} sea posterior.
+     * @param registry registro de métricas de Micrometer.
+     */
+    public CacheTokensVerificados(
+            @Value("${api.jwt.cache.tamano-maximo:10000}") long tamanoMaximo,
+            @Value("${api.jwt.cache.ttl-maximo:PT5M}") Duration ttlMaximo,
+            MeterRegistry registry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfter(Expiry.<String, DatosClaimsToken>creating((clave, claims) -> ttlEntrada(claims, ttlMaximo)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, NOMBRE_CACHE);
+    }
+
+    /**
+     * Obtiene los claims del token desde la caché o lo verifica y almacena si no existe.
+     * <p>
+     * Las excepciones lanzadas por el verificador se propagan y el token no se almacena.
+     * </p>
+     *
+     * @param token cadena JWT recibida.
+     * @param verificador función que verifica la firma del token y extrae sus claims.
+     * @return claims del token verificado.
+     */
+    public DatosClaimsToken obtener(String token, Function<String, DatosClaimsToken> verificador) {
+        return cache.get(resumen(token), clave -> verificador.apply(token));
+    }
+
+    /**
+     * Calcula el tiempo de vida de una entrada, limitado por la expiración del token.
+     *
+     * @param claims claims del token.
+     * @param ttlMaximo tiempo de vida máximo permitido.
+     * @return duración de la entrada en caché.
+     */
+    private static Duration ttlEntrada(DatosClaimsToken claims, Duration ttlMaximo) {
+        Instant expiracion = claims.expiracion();
+        if (expiracion == null) {
+            return ttlMaximo;
+        }
+        Duration restante = Duration.between(Instant.now(), expiracion);
+        if (restante.isNegative()) {
+            return Duration.ZERO;
+        }
+        return restante.compareTo(ttlMaximo) < 0 ? restante : ttlMaximo;
+    }
+
+    /**
+     * Calcula el resumen SHA-256 del token codificado en Base64 URL.
+     *
+     * @param token cadena JWT.
+     * @return resumen del token utilizado como clave de la caché.
+     */
+    private static String resumen(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 no disponible en la JVM.", ex);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.udi.gaaf.autentificacion.security;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.ECDSAKeyProvider;
+import com.auth0.jwt.interfaces.RSAKeyProvider;
+
+/**
+ * Administra las claves con las que se firman y verifican los tokens JWT.
+ * <p>
+ * En modo {@link AlgoritmoFirma#HS256} utiliza la clave secreta compartida {@code api.jwt.secret}.
+ * En los modos asimétricos ({@link AlgoritmoFirma#RS256} y {@link AlgoritmoFirma#ES256}) lee las
+ * claves del directorio {@code api.jwt.claves.directorio}, donde cada clave se identifica por su
+ * {@code kid}:
+ * </p>
+ * <ul>
+ *   <li><b>&lt;kid&gt;.pub.pem</b>: clave pública X.509 ({@code PUBLIC KEY}). Obligatoria.</li>
+ *   <li><b>&lt;kid&gt;.pem</b>: clave privada PKCS#8 ({@code PRIVATE KEY}). Solo para la clave activa.</li>
+ * </ul>
+ *
+ * <h3>Rotación de claves</h3>
+ * <p>
+ * Todas las claves públicas del directorio se aceptan para verificar y se publican en el JWKS;
+ * solo la clave indicada en {@code api.jwt.claves.activa} firma los tokens nuevos. Para rotar, se
+ * agrega la nueva clave, se activa y, cuando expiran los tokens emitidos con la anterior, se
+ * retira su clave pública. Si el directorio no está configurado se genera una clave efímera,
+ * válida solo para la instancia actual.
+ * </p>
+ *
+ * @see TokenService
+ * @see DatosJwks
+ */
+@Component
+public class ClavesFirmaJwt {
+
+    private static final Logger log = LoggerFactory.getLogger(ClavesFirmaJwt.class);
+
+    /** Sufijo de los archivos de clave pública. */
+    private static final String SUFIJO_PUBLICA = ".pub.pem";
+
+    /** Sufijo de los archivos de clave privada. */
+    private static final String SUFIJO_PRIVADA = ".pem";
+
+    /** Algoritmo de firma configurado. */
+    private final AlgoritmoFirma algoritmoFirma;
+
+    /** Claves públicas indexadas por su {@code kid}. */
+    private final Map<String, PublicKey> clavesPublicas = new LinkedHashMap<>();
+
+    /** Identificador de la clave activa para firmar. */
+    private String kidActivo;
+
+    /** Clave privada activa para firmar. */
+    private PrivateKey clavePrivada;
+
+    /** Algoritmo de firma y verificación construido una sola vez. */
+    private final Algorithm algorithm;
+
+    /** Conjunto de claves públicas en formato JWKS, precalculado. */
+    private final DatosJwks jwks;
+
+    /**
+     * Carga las claves según el algoritmo configurado.
+     *
+     * @param algoritmoFirma algoritmo de firma ({@code api.jwt.algoritmo}).
+     * @param secret clave secreta compartida para {@link AlgoritmoFirma#HS256}.
+     * @param directorio directorio con las claves asimétricas.
+     * @param kidActivo identificador de la clave con la que se firman los tokens nuevos.
+     * @throws IllegalStateException si las claves configuradas no son válidas.
+     */
+    public ClavesFirmaJwt(
+            @Value("${api.jwt.algoritmo:HS256}") AlgoritmoFirma algoritmoFirma,
+            @Value("${api.jwt.secret:}") String secret,
+            @Value("${api.jwt.claves.directorio:}") String directorio,
+            @Value("${api.jwt.claves.activa:}") String kidActivo) {
+        this.algoritmoFirma = algoritmoFirma;
+
+        if (algoritmoFirma == AlgoritmoFirma.HS256) {
+            if (secret == null || secret.isBlank()) {
+                throw new IllegalStateException("api.jwt.secret es obligatorio con el algoritmo HS256.");
+            }
+            this.algorithm = Algorithm.HMAC256(secret);
+            this.jwks = new DatosJwks(List.of());
+            return;
+        }
+
+        if (directorio == null || directorio.isBlank()) {
+            generarClaveEfimera();
+        } else {
+            cargarClaves(Path.of(directorio), kidActivo);
+        }
+        this.algorithm = crearAlgoritmoAsimetrico();
+        this.jwks = new DatosJwks(clavesPublicas.entrySet().stream()
+                .map(entrada -> aJwk(entrada.getKey(), entrada.getValue()))
+                .toList());
+    }
+
+    /**
+     * Obtiene el algoritmo con el que se firman y verifican los tokens.
+     *
+     * @return algoritmo de firma reutilizable.
+     */
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Obtiene las claves públicas vigentes en formato JWKS.
+     *
+     * @return record {@link DatosJwks}; vacío en modo {@link AlgoritmoFirma#HS256}.
+     */
+    public DatosJwks getJwks() {
+        return jwks;
+    }
+
+    /**
+     * Lee las claves públicas y privadas del directorio configurado.
+     *
+     * @param directorio directorio de claves.
+     * @param kidConfigurado identificador de la clave activa, o vacío para deducirlo.
+     */
+    private void cargarClaves(Path directorio, String kidConfigurado) {
+        KeyFactory keyFactory = keyFactory();
+        Map<String, PrivateKey> privadas = new LinkedHashMap<>();
+        List<Path> archivos;
+        try (Stream<Path> listado = Files.list(directorio)) {
+            archivos = listado.sorted().toList();
+        } catch (IOException ex) {
+            throw new IllegalStateException("No se pudo leer el directorio de claves: " + directorio, ex);
+        }
+
+        for (Path archivo : archivos) {
+            String nombre = archivo.getFileName().toString();
+            try {
+                if (nombre.endsWith(SUFIJO_PUBLICA)) {
+                    String kid = nombre.substring(0, nombre.length() - SUFIJO_PUBLICA.length());
+                    clavesPublicas.put(kid, keyFactory.generatePublic(new X509EncodedKeySpec(leerPem(archivo))));
+                } else if (nombre.endsWith(SUFIJO_PRIVADA)) {
+                    String kid = nombre.substring(0, nombre.length() - SUFIJO_PRIVADA.length());
+                    privadas.put(kid, keyFactory.generatePrivate(new PKCS8EncodedKeySpec(leerPem(archivo))));
+                }
+            } catch (GeneralSecurityException | IOException ex) {
+                throw new IllegalStateException("Clave inválida en " + archivo, ex);
+            }
+        }
+
+        String kid = kidConfigurado;
+        if (kid == null || kid.isBlank()) {
+            if (privadas.size() != 1) {
+                throw new IllegalStateException(
+                        "Configure api.jwt.claves.activa: se encontraron " + privadas.size() + " claves privadas.");
+            }
+            kid = privadas.keySet().iterator().next();
+        }
+        if (!privadas.containsKey(kid) || !clavesPublicas.containsKey(kid)) {
+            throw new IllegalStateException("La clave activa '" + kid + "' requiere " + kid + SUFIJO_PRIVADA
+                    + " y " + kid + SUFIJO_PUBLICA + " en " + directorio);
+        }
+        this.kidActivo = kid;
+        this.clavePrivada = privadas.get(kid);
+        log.info("Claves JWT {} cargadas: {} (activa: {})", algoritmoFirma, clavesPublicas.keySet(), kid);
+    }
+
+    /**
+     * Genera un par de claves en memoria cuando no hay directorio configurado.
+     */
+    private void generarClaveEfimera() {
+        try {
+            KeyPairGenerator generador;
+            if (algoritmoFirma == AlgoritmoFirma.RS256) {
+                generador = KeyPairGenerator.getInstance("RSA");
+                generador.initialize(2048);
+            } else {
+                generador = KeyPairGenerator.getInstance("EC");
+                generador.initialize(new ECGenParameterSpec("secp256r1"));
+            }
+            KeyPair par = generador.generateKeyPair();
+            this.kidActivo = "efimera-" + UUID.randomUUID();
+            this.clavePrivada = par.getPrivate();
+            clavesPublicas.put(kidActivo, par.getPublic());
+            log.warn("api.jwt.claves.directorio no configurado: se generó la clave efímera {}. "
+                    + "Los tokens no serán válidos en otras instancias ni tras reiniciar.", kidActivo);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("No se pudo generar la clave efímera " + algoritmoFirma, ex);
+        }
+    }
+
+    /**
+     * Construye el algoritmo asimétrico con un proveedor de claves que resuelve el {@code kid}.
+     *
+     * @return algoritmo de firma y verificación.
+     */
+    private Algorithm crearAlgoritmoAsimetrico() {
+        if (algoritmoFirma == AlgoritmoFirma.RS256) {
+            return Algorithm.RSA256(new RSAKeyProvider() {
+                @Override
+                public RSAPublicKey getPublicKeyById(String kid) {
+                    return clavesPublicas.get(kid) instanceof RSAPublicKey clave ? clave : null;
+                }
+
+                @Override
+                public RSAPrivateKey getPrivateKey() {
+                    return (RSAPrivateKey) clavePrivada;
+                }
+
+                @Override
+                public String getPrivateKeyId() {
+                    return kidActivo;
+                }
+            });
+        }
+        return Algorithm.ECDSA256(new ECDSAKeyProvider() {
+            @Override
+            public ECPublicKey getPublicKeyById(String kid) {
+                return clavesPublicas.get(kid) instanceof ECPublicKey clave ? clave : null;
+            }
+
+            @Override
+            public ECPrivateKey getPrivateKey() {
+                return (ECPrivateKey) clavePrivada;
+            }
+
+            @Override
+            public String getPrivateKeyId() {
+                return kidActivo;
+            }
+        });
+    }
+
+    /**
+     * Convierte una clave pública en su representación JWK.
+     *
+     * @param kid identificador de la clave.
+     * @param clave clave pública RSA o EC.
+     * @return record {@link DatosJwk}.
+     */
+    private DatosJwk aJwk(String kid, PublicKey clave) {
+        if (clave instanceof RSAPublicKey rsa) {
+            return new DatosJwk("RSA", kid, "sig", algoritmoFirma.name(),
+                    base64Url(rsa.getModulus(), 0), base64Url(rsa.getPublicExponent(), 0), null, null, null);
+        }
+        ECPublicKey ec = (ECPublicKey) clave;
+        return new DatosJwk("EC", kid, "sig", algoritmoFirma.name(), null, null, "P-256",
+                base64Url(ec.getW().getAffineX(), 32), base64Url(ec.getW().getAffineY(), 32));
+    }
+
+    /**
+     * Codifica un entero sin signo en Base64 URL, opcionalmente con longitud fija.
+     *
+     * @param valor entero a codificar.
+     * @param longitud longitud en bytes, o {@code 0} para la mínima.
+     * @return cadena Base64 URL sin relleno.
+     */
+    private static String base64Url(BigInteger valor, int longitud) {
+        byte[] bytes = valor.toByteArray();
+        int inicio = bytes.length > 1 && bytes[0] == 0 ? 1 : 0;
+        int tamano = bytes.length - inicio;
+        byte[] resultado = new byte[Math.max(tamano, longitud)];
+        System.arraycopy(bytes, inicio, resultado, resultado.length - tamano, tamano);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(resultado);
+    }
+
+    /**
+     * Lee el contenido binario de un archivo PEM.
+     *
+     * @param archivo archivo PEM.
+     * @return bytes DER contenidos en el archivo.
+     * @throws IOException si el archivo no puede leerse.
+     */
+    private static byte[] leerPem(Path archivo) throws IOException {
+        List<String> lineas = new ArrayList<>(Files.readAllLines(archivo, StandardCharsets.US_ASCII));
+        lineas.removeIf(linea -> linea.startsWith("-----"));
+        return Base64.getMimeDecoder().decode(String.join("", lineas));
+    }
+
+    /**
+     * Obtiene la fábrica de claves del algoritmo configurado.
+     *
+     * @return fábrica de claves RSA o EC.
+     */
+    private KeyFactory keyFactory() {
+        try {
+            return KeyFactory.getInstance(algoritmoFirma == AlgoritmoFirma.RS256 ? "RSA" : "EC");
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.udi.gaaf.autentificacion.security;
+
+import java.time.Instant;
+
+import com.udi.gaaf.autentificacion.usuario.Roles;
+
+/**
+ * Representa los claims de un token JWT ya verificado.
+ *
+ * <p>Este {@code record} se obtiene una sola vez por token mediante {@link TokenService}
+ * y se reutiliza desde la caché de tokens verificados, evitando volver a decodificar el JWT.</p>
+ *
+ * @param jti identificador único del token (claim {@code jti})
+ * @param id identificador del usuario (claim {@code id})
+ * @param sujeto nombre del usuario (claim {@code sub})
+ * @param rol rol del usuario (claim {@code rol})
+ * @param activo estado del usuario al emitir el token (claim {@code activo})
+ * @param emision instante de emisión del token, en milisegundos (claim {@code iat_ms}) o, en los
+ *        tokens emitidos antes de ese claim, en segundos (claim {@code iat})
+ * @param expiracion instante de expiración del token (claim {@code exp})
+ */
+public record DatosClaimsToken(
+    String jti,
+    String id,
+    String sujeto,
+    Roles rol,
+    Boolean activo,
+    Instant emision,
+    Instant expiracion
+) {}
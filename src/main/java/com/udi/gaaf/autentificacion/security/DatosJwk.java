@@ -0,0 +1,32 @@
+package com.udi.gaaf.autentificacion.security;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Representa una clave pública en formato JSON Web Key (RFC 7517).
+ *
+ * <p>Los campos {@code n} y {@code e} solo aplican a claves RSA; {@code crv}, {@code x}
+ * y {@code y} solo aplican a claves de curva elíptica.</p>
+ *
+ * @param kty tipo de clave ({@code RSA} o {@code EC})
+ * @param kid identificador de la clave, enviado en el encabezado {@code kid} del token
+ * @param use uso de la clave ({@code sig})
+ * @param alg algoritmo de firma asociado
+ * @param n módulo RSA en Base64 URL
+ * @param e exponente público RSA en Base64 URL
+ * @param crv curva elíptica
+ * @param x coordenada x del punto público en Base64 URL
+ * @param y coordenada y del punto público en Base64 URL
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DatosJwk(
+    String kty,
+    String kid,
+    String use,
+    String alg,
+    String n,
+    String e,
+    String crv,
+    String x,
+    String y
+) {}
@@ -0,0 +1,12 @@
+package com.udi.gaaf.autentificacion.security;
+
+import java.util.List;
+
+/**
+ * Conjunto de claves públicas publicado en {@code /.well-known/jwks.json}.
+ *
+ * @param keys claves públicas vigentes para verificar tokens
+ */
+public record DatosJwks(
+    List<DatosJwk> keys
+) {}
@@ -0,0 +1,188 @@
+package com.udi.gaaf.autentificacion.security;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.udi.gaaf.autentificacion.errors.ServicioSaturadoException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Ejecutor acotado para el cifrado y la verificación de contraseñas.
+ * <p>
+ * Las operaciones de hash se ejecutan en un grupo fijo de hilos con una cola limitada, fuera de
+ * los hilos de Tomcat, de modo que un pico de inicios de sesión no consuma todos los núcleos y
+ * el tráfico autenticado por token siga atendiéndose. Un {@link LimitadorConcurrenciaAdaptativo}
+ * decide cuántas operaciones se admiten; al alcanzarse el límite se lanza
+ * {@link ServicioSaturadoException} de inmediato (HTTP 503 con {@code Retry-After}).
+ * </p>
+ *
+ * <p>
+ * Los hilos son de plataforma aunque {@code spring.threads.virtual.enabled} esté habilitado:
+ * el hash es trabajo de CPU y su paralelismo debe seguir acotado por los núcleos. El hilo
+ * de la solicitud solo espera el resultado, lo que no fija un hilo virtual a su portador.
+ * </p>
+ *
+ * <h3>Métricas</h3>
+ * <ul>
+ *   <li>{@code password.hash.duracion}: latencia de cada operación, incluida la espera en cola,
+ *       por {@code operacion}.</li>
+ *   <li>{@code password.hash.calculo}: tiempo de CPU de cada operación en el hilo de hash, sin la
+ *       espera, por {@code operacion}. La diferencia con la anterior es el tiempo en cola.</li>
+ *   <li>{@code password.hash.cola}: operaciones esperando en la cola.</li>
+ *   <li>{@code password.hash.limite}: límite de concurrencia vigente.</li>
+ *   <li>{@code password.hash.rechazos}: operaciones rechazadas por saturación.</li>
+ * </ul>
+ */
+@Component
+public class EjecutorHash {
+
+    /** Grupo de hilos dedicado al hash de contraseñas. */
+    private final ThreadPoolExecutor ejecutor;
+
+    /** Límite de concurrencia adaptativo. */
+    private final LimitadorConcurrenciaAdaptativo limitador;
+
+    /** Tiempo sugerido al cliente antes de reintentar. */
+    private final Duration reintentarEn;
+
+    /** Operaciones cuyas métricas se registran de antemano. */
+    private static final List<String> OPERACIONES = List.of("codificar", "verificar");
+
+    /** Latencia de las operaciones de hash, incluida la espera en cola, por operación. */
+    private final Map<String, Timer> duraciones = new ConcurrentHashMap<>();
+
+    /** Tiempo de cálculo de las operaciones de hash en el hilo dedicado, por operación. */
+    private final Map<String, Timer> calculos = new ConcurrentHashMap<>();
+
+    /** Registro de métricas. */
+    private final MeterRegistry registry;
+
+    /** Operaciones rechazadas. */
+    private final Counter rechazos;
+
+    /**
+     * Crea el ejecutor y registra sus métricas.
+     *
+     * @param hilos cantidad de hilos; por defecto, la cantidad de núcleos.
+     * @param capacidadCola cantidad máxima de operaciones en espera.
+     * @param reintentarEn tiempo sugerido antes de reintentar cuando el servicio está saturado.
+     * @param registry registro de métricas de Micrometer.
+     */
+    public EjecutorHash(
+            @Value("${api.hash.hilos:0}") int hilos,
+            @Value("${api.hash.cola:64}") int capacidadCola,
+            @Value("${api.hash.reintentar-en:PT1S}") Duration reintentarEn,
+            MeterRegistry registry) {
+        int nucleos = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        this.ejecutor = new ThreadPoolExecutor(nucleos, nucleos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, capacidadCola)),
+                Thread.ofPlatform().name("hash-", 0).daemon().factory());
+        this.limitador = new LimitadorConcurrenciaAdaptativo(nucleos * 2, nucleos, nucleos + capacidadCola);
+        this.reintentarEn = reintentarEn;
+        this.registry = registry;
+        for (var operacion : OPERACIONES) {
+            duracion(operacion);
+            calculo(operacion);
+        }
+        this.rechazos = Counter.builder("password.hash.rechazos")
+                .description("Operaciones de hash rechazadas por saturación")
+                .register(registry);
+        Gauge.builder("password.hash.cola", ejecutor, e -> e.getQueue().size())
+                .description("Operaciones de hash en espera").register(registry);
+        Gauge.builder("password.hash.limite", limitador, LimitadorConcurrenciaAdaptativo::getLimite)
+                .description("Límite de concurrencia adaptativo del hash de contraseñas").register(registry);
+    }
+
+    /**
+     * Ejecuta una operación de hash en el grupo dedicado y espera su resultado.
+     *
+     * @param <T> tipo del resultado.
+     * @param operacion nombre de la operación para las métricas ({@code codificar}, {@code verificar}).
+     * @param tarea operación a ejecutar.
+     * @return resultado de la operación.
+     * @throws ServicioSaturadoException si se alcanzó el límite de concurrencia.
+     */
+    public <T> T ejecutar(String operacion, Callable<T> tarea) {
+        if (!limitador.adquirir()) {
+            rechazos.increment();
+            throw new ServicioSaturadoException("El servicio está saturado, intente de nuevo más tarde.", reintentarEn);
+        }
+        long inicio = System.nanoTime();
+        boolean exito = false;
+        try {
+            var tiempoCalculo = calculo(operacion);
+            T resultado = ejecutor.submit(() -> tiempoCalculo.recordCallable(tarea)).get();
+            exito = true;
+            return resultado;
+        } catch (RejectedExecutionException ex) {
+            rechazos.increment();
+            throw new ServicioSaturadoException("El servicio está saturado, intente de nuevo más tarde.", reintentarEn);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Operación de hash interrumpida.", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            long rtt = System.nanoTime() - inicio;
+            limitador.liberar(rtt, exito);
+            if (exito) {
+                duracion(operacion).record(rtt, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Obtiene el temporizador de latencia de una operación, registrándolo la primera vez.
+     * <p>Cada operación tiene su propio {@link Timer}: un {@link Timer.Builder} compartido es
+     * mutable, y dos operaciones simultáneas se pisarían la etiqueta {@code operacion}.</p>
+     *
+     * @param operacion nombre de la operación.
+     * @return temporizador de {@code password.hash.duracion} de la operación.
+     */
+    private Timer duracion(String operacion) {
+        return duraciones.computeIfAbsent(operacion, o -> Timer.builder("password.hash.duracion")
+                .description("Latencia del cifrado y la verificación de contraseñas, incluida la espera en cola")
+                .tag("operacion", o)
+                .register(registry));
+    }
+
+    /**
+     * Obtiene el temporizador de cálculo de una operación, registrándolo la primera vez.
+     *
+     * @param operacion nombre de la operación.
+     * @return temporizador de {@code password.hash.calculo} de la operación.
+     */
+    private Timer calculo(String operacion) {
+        return calculos.computeIfAbsent(operacion, o -> Timer.builder("password.hash.calculo")
+                .description("Tiempo de cálculo del hash en el hilo dedicado, sin la espera en cola")
+                .tag("operacion", o)
+                .register(registry));
+    }
+
+    /**
+     * Detiene el grupo de hilos.
+     */
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdown();
+    }
+}
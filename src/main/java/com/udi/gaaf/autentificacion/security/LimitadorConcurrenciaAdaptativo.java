@@ -0,0 +1,128 @@
+package com.udi.gaaf.autentificacion.security;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Límite de concurrencia adaptativo al estilo TCP Vegas.
+ * <p>
+ * Compara la latencia de cada operación con la mínima observada para estimar cuántas
+ * solicitudes están esperando en cola: {@code cola = limite * (1 - rttMinimo / rtt)}.
+ * Si la cola estimada es menor que {@code alfa} el límite crece en uno; si supera {@code beta}
+ * decrece en uno. Así el límite converge al número de operaciones que el equipo puede atender
+ * sin que la latencia se dispare. La latencia mínima se vuelve a medir periódicamente para
+ * adaptarse a cambios de carga en el equipo.
+ * </p>
+ *
+ * <p>No usa {@code synchronized}: la adquisición es un CAS y la actualización del límite
+ * se omite si otro hilo ya la está haciendo.</p>
+ */
+public class LimitadorConcurrenciaAdaptativo {
+
+    /** Cola estimada por debajo de la cual el límite crece. */
+    private static final int ALFA = 3;
+
+    /** Cola estimada por encima de la cual el límite decrece. */
+    private static final int BETA = 6;
+
+    /** Cantidad de muestras tras las cuales se vuelve a medir la latencia mínima. */
+    private static final int MUESTRAS_REINICIO = 1000;
+
+    /** Límite mínimo. */
+    private final int limiteMinimo;
+
+    /** Límite máximo. */
+    private final int limiteMaximo;
+
+    /** Operaciones en curso. */
+    private final AtomicInteger enCurso = new AtomicInteger();
+
+    /** Protege la actualización del límite y de la latencia mínima. */
+    private final ReentrantLock bloqueo = new ReentrantLock();
+
+    /** Límite vigente. */
+    private volatile int limite;
+
+    /** Latencia mínima observada, en nanosegundos. */
+    private long rttMinimo = Long.MAX_VALUE;
+
+    /** Muestras desde la última medición de la latencia mínima. */
+    private int muestras;
+
+    /**
+     * Crea el limitador.
+     *
+     * @param limiteInicial límite inicial.
+     * @param limiteMinimo límite mínimo.
+     * @param limiteMaximo límite máximo.
+     */
+    public LimitadorConcurrenciaAdaptativo(int limiteInicial, int limiteMinimo, int limiteMaximo) {
+        this.limiteMinimo = Math.max(1, limiteMinimo);
+        this.limiteMaximo = Math.max(this.limiteMinimo, limiteMaximo);
+        this.limite = Math.min(Math.max(limiteInicial, this.limiteMinimo), this.limiteMaximo);
+    }
+
+    /**
+     * Intenta reservar un lugar para una operación.
+     *
+     * @return {@code true} si la operación puede ejecutarse; {@code false} si se alcanzó el límite.
+     */
+    public boolean adquirir() {
+        int actual;
+        do {
+            actual = enCurso.get();
+            if (actual >= limite) {
+                return false;
+            }
+        } while (!enCurso.compareAndSet(actual, actual + 1));
+        return true;
+    }
+
+    /**
+     * Libera el lugar de una operación terminada y ajusta el límite con su latencia.
+     *
+     * @param rttNanos latencia de la operación, incluida la espera en cola.
+     * @param medir {@code false} si la operación falló y su latencia no es representativa.
+     */
+    public void liberar(long rttNanos, boolean medir) {
+        int enCursoAlIniciar = enCurso.getAndDecrement();
+        if (!medir || !bloqueo.tryLock()) {
+            return;
+        }
+        try {
+            if (++muestras >= MUESTRAS_REINICIO) {
+                muestras = 0;
+                rttMinimo = rttNanos;
+            } else if (rttNanos < rttMinimo) {
+                rttMinimo = rttNanos;
+            }
+            int actual = limite;
+            double cola = actual * (1.0 - (double) rttMinimo / Math.max(1, rttNanos));
+            if (cola < ALFA && enCursoAlIniciar * 2 >= actual) {
+                limite = Math.min(limiteMaximo, actual + 1);
+            } else if (cola > BETA) {
+                limite = Math.max(limiteMinimo, actual - 1);
+            }
+        } finally {
+            bloqueo.unlock();
+        }
+    }
+
+    /**
+     * Obtiene el límite vigente.
+     *
+     * @return límite de operaciones simultáneas.
+     */
+    public int getLimite() {
+        return limite;
+    }
+
+    /**
+     * Obtiene la cantidad de operaciones en curso.
+     *
+     * @return operaciones en curso, incluidas las que esperan en cola.
+     */
+    public int getEnCurso() {
+        return enCurso.get();
+    }
+}
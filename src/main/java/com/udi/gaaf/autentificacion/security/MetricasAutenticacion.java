@@ -0,0 +1,155 @@
+package com.udi.gaaf.autentificacion.security;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Métricas de autenticación compartidas por el filtro, los servicios y el manejo de excepciones.
+ *
+ * <h3>Métricas</h3>
+ * <ul>
+ *   <li>{@code seguridad.filtro.duracion}: tiempo propio del filtro JWT, sin el resto de la
+ *       cadena, por {@code resultado} ({@code publica}, {@code autenticada}, {@code rechazada}).</li>
+ *   <li>{@code auth.inicio.duracion}: duración del inicio de sesión, por {@code resultado}.</li>
+ *   <li>{@code auth.fallos}: fallos de autenticación por {@code tipo} de excepción,
+ *       {@code endpoint} y {@code rol}.</li>
+ * </ul>
+ *
+ * <p>Para acotar la cardinalidad, {@code endpoint} es el patrón de la ruta cuando ya se resolvió
+ * el controlador, o la raíz de la ruta ({@code /auth/**}) cuando el fallo ocurre en el filtro;
+ * las raíces desconocidas se agrupan en {@code otro}.</p>
+ */
+@Component
+public class MetricasAutenticacion {
+
+    /** Rol usado cuando la solicitud no tiene un usuario identificado. */
+    public static final String ANONIMO = "anonimo";
+
+    /** Raíces de rutas conocidas; el resto se agrupa en {@code otro}. */
+    private static final Set<String> RAICES = Set.of("auth", "usuario", "actuator", "docs", "v3", "swagger-ui");
+
+    /** Resultado del paso de una solicitud por el filtro JWT. */
+    public enum ResultadoFiltro {
+
+        /** La ruta es pública y no se validó token. */
+        PUBLICA,
+
+        /** El token era válido. */
+        AUTENTICADA,
+
+        /** El token faltaba, era inválido o estaba revocado. */
+        RECHAZADA
+    }
+
+    /** Registro de métricas. */
+    private final MeterRegistry registry;
+
+    /** Tiempo del filtro JWT por resultado, registrado de antemano porque se usa en cada solicitud. */
+    private final Map<ResultadoFiltro, Timer> filtro = new EnumMap<>(ResultadoFiltro.class);
+
+    /**
+     * Crea las métricas.
+     *
+     * @param registry registro de métricas de Micrometer.
+     */
+    public MetricasAutenticacion(MeterRegistry registry) {
+        this.registry = registry;
+        for (var resultado : ResultadoFiltro.values()) {
+            filtro.put(resultado, Timer.builder("seguridad.filtro.duracion")
+                    .description("Tiempo propio del filtro JWT, sin el resto de la cadena")
+                    .tag("resultado", resultado.name().toLowerCase(Locale.ROOT))
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Registra el tiempo del filtro JWT.
+     *
+     * @param resultado resultado del filtro.
+     * @param inicioNanos valor de {@link System#nanoTime()} al comenzar el filtro.
+     */
+    public void registrarFiltro(ResultadoFiltro resultado, long inicioNanos) {
+        filtro.get(resultado).record(System.nanoTime() - inicioNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Registra la duración de un inicio de sesión.
+     *
+     * @param resultado resultado del inicio de sesión.
+     * @param inicioNanos valor de {@link System#nanoTime()} al comenzar.
+     */
+    public void registrarInicioSesion(String resultado, long inicioNanos) {
+        Timer.builder("auth.inicio.duracion")
+                .description("Duración del inicio de sesión, incluida la verificación de la contraseña")
+                .tag("resultado", resultado)
+                .register(registry)
+                .record(System.nanoTime() - inicioNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Registra un fallo de autenticación.
+     * <p>Si la excepción envuelve un {@link BadCredentialsException}, el fallo se registra con
+     * ese tipo.</p>
+     *
+     * @param ex excepción del fallo.
+     * @param endpoint patrón o raíz de la ruta.
+     * @param rol rol del usuario, o {@link #ANONIMO}.
+     */
+    public void registrarFallo(RuntimeException ex, String endpoint, String rol) {
+        var tipo = ex.getCause() instanceof BadCredentialsException
+                ? BadCredentialsException.class.getSimpleName()
+                : ex.getClass().getSimpleName();
+        Counter.builder("auth.fallos")
+                .description("Fallos de autenticación por tipo, endpoint y rol")
+                .tag("tipo", tipo)
+                .tag("endpoint", endpoint)
+                .tag("rol", rol)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Obtiene la raíz de la ruta con cardinalidad acotada.
+     *
+     * @param ruta ruta de la solicitud.
+     * @return raíz de la ruta, p. ej. {@code /auth/**}, u {@code otro}.
+     */
+    public static String endpoint(String ruta) {
+        if (ruta == null || ruta.length() < 2 || ruta.charAt(0) != '/') {
+            return "otro";
+        }
+        int fin = ruta.indexOf('/', 1);
+        var raiz = fin < 0 ? ruta.substring(1) : ruta.substring(1, fin);
+        return RAICES.contains(raiz) ? "/" + raiz + "/**" : "otro";
+    }
+
+    /**
+     * Obtiene el rol del usuario autenticado.
+     *
+     * @param autenticacion autenticación de la solicitud, o {@code null}.
+     * @return rol sin el prefijo {@code ROLE_}, o {@link #ANONIMO}.
+     */
+    public static String rol(Authentication autenticacion) {
+        if (autenticacion == null || !autenticacion.isAuthenticated()) {
+            return ANONIMO;
+        }
+        for (var autoridad : autenticacion.getAuthorities()) {
+            var nombre = autoridad.getAuthority();
+            if (nombre != null && nombre.startsWith("ROLE_") && !nombre.equals("ROLE_ANONYMOUS")) {
+                return nombre.substring(5);
+            }
+        }
+        return ANONIMO;
+    }
+}
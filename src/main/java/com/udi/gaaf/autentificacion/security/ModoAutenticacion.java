@@ -0,0 +1,15 @@
+package com.udi.gaaf.autentificacion.security;
+
+/**
+ * Modos en los que {@link SecurityFilter} construye el principal autenticado.
+ *
+ * <p>Se configura con la propiedad {@code api.seguridad.modo}.</p>
+ */
+public enum ModoAutenticacion {
+
+    /** Consulta el usuario en la base de datos en cada solicitud autenticada. */
+    BASE_DATOS,
+
+    /** Construye el principal solo con los claims del token, sin acceder a la base de datos. */
+    CLAIMS
+}
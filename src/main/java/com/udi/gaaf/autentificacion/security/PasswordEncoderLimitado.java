@@ -0,0 +1,46 @@
+package com.udi.gaaf.autentificacion.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Codificador de contraseñas que ejecuta el cifrado y la verificación en el {@link EjecutorHash}.
+ * <p>
+ * Delega el algoritmo en otro {@link PasswordEncoder}; solo cambia el hilo en el que se ejecuta
+ * y aplica el límite de concurrencia, de modo que los llamadores (Spring Security,
+ * {@code UsuarioService}) no necesitan conocer el ejecutor.
+ * </p>
+ */
+public class PasswordEncoderLimitado implements PasswordEncoder {
+
+    /** Codificador que implementa el algoritmo de hash. */
+    private final PasswordEncoder delegado;
+
+    /** Ejecutor acotado para las operaciones de hash. */
+    private final EjecutorHash ejecutor;
+
+    /**
+     * Crea el codificador.
+     *
+     * @param delegado codificador que implementa el algoritmo de hash.
+     * @param ejecutor ejecutor acotado para las operaciones de hash.
+     */
+    public PasswordEncoderLimitado(PasswordEncoder delegado, EjecutorHash ejecutor) {
+        this.delegado = delegado;
+        this.ejecutor = ejecutor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return ejecutor.ejecutar("codificar", () -> delegado.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return ejecutor.ejecutar("verificar", () -> delegado.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegado.upgradeEncoding(encodedPassword);
+    }
+}
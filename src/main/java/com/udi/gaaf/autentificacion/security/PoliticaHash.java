@@ -0,0 +1,188 @@
+package com.udi.gaaf.autentificacion.security;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm;
+import org.springframework.stereotype.Component;
+
+/**
+ * Política de cifrado de contraseñas vigente en la instancia.
+ * <p>
+ * Construye un {@link DelegatingPasswordEncoder} que guarda cada hash con el prefijo del
+ * algoritmo ({@code {bcrypt}}, {@code {argon2}}, {@code {pbkdf2}}), de modo que conviven hashes
+ * de distintos algoritmos y costos. Los hashes antiguos sin prefijo se verifican como BCrypt.
+ * </p>
+ *
+ * <p>
+ * Al iniciar, si {@code api.hash.calibrar} está habilitado, mide el algoritmo en el equipo
+ * actual y elige el costo más alto cuyo tiempo no supera {@code api.hash.objetivo}, sin bajar
+ * de los mínimos recomendados por OWASP. Los hashes con un costo menor al vigente se
+ * reemplazan en el siguiente inicio de sesión exitoso (ver {@code AuthService#inicio}).
+ * </p>
+ *
+ * <p>
+ * PBKDF2 no se calibra: su hash no guarda el número de iteraciones, así que cambiarlo
+ * invalidaría los hashes existentes. Se usa el valor de {@code api.hash.pbkdf2.iteraciones}.
+ * </p>
+ */
+@Component
+public class PoliticaHash {
+
+    private static final Logger log = LoggerFactory.getLogger(PoliticaHash.class);
+
+    /** Costo mínimo de BCrypt. */
+    private static final int BCRYPT_MINIMO = 10;
+
+    /** Costo máximo de BCrypt admitido por la implementación. */
+    private static final int BCRYPT_MAXIMO = 31;
+
+    /** Iteraciones mínimas de Argon2id con la memoria configurada. */
+    private static final int ARGON2_MINIMO = 2;
+
+    /** Contraseña usada para las mediciones. */
+    private static final String MUESTRA = "calibracion-de-costo";
+
+    /** Algoritmo utilizado para cifrar las contraseñas nuevas. */
+    private final String algoritmo;
+
+    /** Costo de BCrypt (log2 de las rondas). */
+    private final int costoBcrypt;
+
+    /** Iteraciones de Argon2id. */
+    private final int iteracionesArgon2;
+
+    /** Memoria de Argon2id en KiB. */
+    private final int memoriaArgon2;
+
+    /** Iteraciones de PBKDF2. */
+    private final int iteracionesPbkdf2;
+
+    /**
+     * Crea la política, calibrando el costo si corresponde.
+     *
+     * @param algoritmo algoritmo de las contraseñas nuevas: {@code bcrypt}, {@code argon2} o {@code pbkdf2}.
+     * @param calibrar indica si el costo se mide al iniciar.
+     * @param objetivo latencia objetivo de una operación de hash.
+     * @param costoBcrypt costo de BCrypt cuando no se calibra.
+     * @param iteracionesArgon2 iteraciones de Argon2id cuando no se calibra.
+     * @param memoriaArgon2 memoria de Argon2id en KiB.
+     * @param iteracionesPbkdf2 iteraciones de PBKDF2.
+     */
+    public PoliticaHash(
+            @Value("${api.hash.algoritmo:bcrypt}") String algoritmo,
+            @Value("${api.hash.calibrar:true}") boolean calibrar,
+            @Value("${api.hash.objetivo:PT0.25S}") Duration objetivo,
+            @Value("${api.hash.bcrypt.costo:10}") int costoBcrypt,
+            @Value("${api.hash.argon2.iteraciones:2}") int iteracionesArgon2,
+            @Value("${api.hash.argon2.memoria:19456}") int memoriaArgon2,
+            @Value("${api.hash.pbkdf2.iteraciones:600000}") int iteracionesPbkdf2) {
+        if (!Set.of("bcrypt", "argon2", "pbkdf2").contains(algoritmo)) {
+            throw new IllegalStateException("Algoritmo de hash no soportado: " + algoritmo);
+        }
+        this.algoritmo = algoritmo;
+        this.memoriaArgon2 = memoriaArgon2;
+        this.iteracionesPbkdf2 = iteracionesPbkdf2;
+        if (!calibrar) {
+            this.costoBcrypt = costoBcrypt;
+            this.iteracionesArgon2 = iteracionesArgon2;
+            return;
+        }
+        // Solo se mide el algoritmo activo; los demás solo verifican hashes existentes.
+        long objetivoNanos = objetivo.toNanos();
+        this.costoBcrypt = algoritmo.equals("bcrypt") ? calibrarBcrypt(objetivoNanos) : costoBcrypt;
+        this.iteracionesArgon2 = algoritmo.equals("argon2") ? calibrarArgon2(objetivoNanos) : iteracionesArgon2;
+        log.info("Política de hash calibrada para {} ms: algoritmo={}, bcrypt={}, argon2={}x{}KiB, pbkdf2={}",
+                objetivo.toMillis(), algoritmo, this.costoBcrypt, this.iteracionesArgon2, memoriaArgon2,
+                this.iteracionesPbkdf2);
+    }
+
+    /**
+     * Crea el codificador delegante con los costos vigentes.
+     *
+     * @return codificador que cifra con el algoritmo configurado y verifica cualquiera de los soportados.
+     */
+    public PasswordEncoder crearCodificador() {
+        var bcrypt = new BCryptPasswordEncoder(costoBcrypt);
+        Map<String, PasswordEncoder> codificadores = Map.of(
+                "bcrypt", bcrypt,
+                "argon2", argon2(iteracionesArgon2),
+                "pbkdf2", pbkdf2(iteracionesPbkdf2));
+        var delegante = new DelegatingPasswordEncoder(algoritmo, codificadores);
+        // Hashes registrados antes de usar prefijos
+        delegante.setDefaultPasswordEncoderForMatches(bcrypt);
+        return delegante;
+    }
+
+    /**
+     * Elige el costo de BCrypt. Cada punto de costo duplica el tiempo, así que basta medir uno.
+     *
+     * @param objetivoNanos latencia objetivo en nanosegundos.
+     * @return costo elegido.
+     */
+    private static int calibrarBcrypt(long objetivoNanos) {
+        long base = medir(new BCryptPasswordEncoder(BCRYPT_MINIMO));
+        int costo = BCRYPT_MINIMO;
+        while (costo < BCRYPT_MAXIMO && base << (costo + 1 - BCRYPT_MINIMO) <= objetivoNanos) {
+            costo++;
+        }
+        return costo;
+    }
+
+    /**
+     * Elige las iteraciones de Argon2id con la memoria configurada; el tiempo crece linealmente.
+     *
+     * @param objetivoNanos latencia objetivo en nanosegundos.
+     * @return iteraciones elegidas.
+     */
+    private int calibrarArgon2(long objetivoNanos) {
+        long base = medir(argon2(ARGON2_MINIMO));
+        return (int) Math.max(ARGON2_MINIMO, ARGON2_MINIMO * objetivoNanos / Math.max(1, base));
+    }
+
+    /**
+     * Mide el menor tiempo de varias operaciones de cifrado, tras un calentamiento.
+     *
+     * @param codificador codificador a medir.
+     * @return menor tiempo observado en nanosegundos.
+     */
+    private static long medir(PasswordEncoder codificador) {
+        codificador.encode(MUESTRA);
+        long minimo = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long inicio = System.nanoTime();
+            codificador.encode(MUESTRA);
+            minimo = Math.min(minimo, System.nanoTime() - inicio);
+        }
+        return minimo;
+    }
+
+    /**
+     * Crea un codificador Argon2id con la memoria configurada.
+     *
+     * @param iteraciones iteraciones de Argon2id.
+     * @return codificador Argon2id.
+     */
+    private PasswordEncoder argon2(int iteraciones) {
+        return new Argon2PasswordEncoder(16, 32, 1, memoriaArgon2, iteraciones);
+    }
+
+    /**
+     * Crea un codificador PBKDF2-HMAC-SHA256.
+     *
+     * @param iteraciones iteraciones de PBKDF2.
+     * @return codificador PBKDF2.
+     */
+    private static PasswordEncoder pbkdf2(int iteraciones) {
+        return new Pbkdf2PasswordEncoder("", 16, iteraciones, SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+    }
+}
@@ -0,0 +1,206 @@
+package com.udi.gaaf.autentificacion.security;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tabla única de rutas que no requieren token.
+ * <p>
+ * La consultan {@link SecurityConfig} y {@link SecurityFilter}, y su equivalente reactivo, de
+ * modo que la lista de rutas públicas se declara una sola vez. Los patrones admiten segmentos
+ * literales y un {@code /**} final, que cubre la ruta base y cualquier ruta debajo de ella.
+ * Las rutas de {@link #ADMINISTRATIVAS} nunca son públicas, aunque un patrón las cubra.
+ * </p>
+ *
+ * <p>
+ * Los patrones se compilan al cargar la clase en un árbol de segmentos. La consulta recorre la
+ * ruta comparando cada segmento en su lugar, sin crear subcadenas, expresiones regulares ni
+ * iteradores, por lo que no reserva memoria. La ruta se compara tal como llega en
+ * {@code getRequestURI()}: el firewall de Spring Security ya rechazó antes las rutas con
+ * {@code ..}, {@code //} o barras codificadas.
+ * </p>
+ */
+public final class RutasPublicas {
+
+    /**
+     * Patrones de las rutas públicas. Actuator no figura aquí: {@code /actuator/prometheus} se
+     * permite solo en el puerto de administración (ver {@link SecurityConfig}).
+     */
+    public static final List<String> PATRONES = List.of(
+            "/auth/**",
+            "/usuario/**",
+            "/v3/api-docs/**",
+            "/docs/**",
+            "/swagger-ui.html",
+            "/swagger-ui/**"
+    );
+
+    /**
+     * Rutas exactas que requieren un token con rol {@code ADMIN} aunque estén debajo de un patrón
+     * público. Se comparan sin la barra final.
+     */
+    public static final List<String> ADMINISTRATIVAS = List.of(
+            "/usuario/importar",
+            "/usuario/estado",
+            "/usuario/rol",
+            "/usuario/eliminar"
+    );
+
+    /** Raíz del árbol de segmentos compilado a partir de {@link #PATRONES}. */
+    private static final Nodo RAIZ = compilar(PATRONES);
+
+    /** Raíz del árbol de segmentos compilado a partir de {@link #ADMINISTRATIVAS}. */
+    private static final Nodo RAIZ_ADMINISTRATIVAS = compilar(ADMINISTRATIVAS);
+
+    private RutasPublicas() {
+    }
+
+    /**
+     * Indica si la ruta es pública.
+     *
+     * @param ruta ruta de la solicitud, sin el esquema ni la consulta.
+     * @return {@code true} si la ruta coincide con alguno de los patrones y no es administrativa.
+     */
+    public static boolean esPublica(String ruta) {
+        if (ruta == null || ruta.isEmpty() || ruta.charAt(0) != '/') {
+            return false;
+        }
+        return !esAdministrativa(ruta) && coincide(RAIZ, ruta, ruta.length());
+    }
+
+    /**
+     * Indica si la ruta es una de las {@link #ADMINISTRATIVAS}, con o sin la barra final.
+     *
+     * @param ruta ruta de la solicitud, sin el esquema ni la consulta.
+     * @return {@code true} si la ruta requiere el rol {@code ADMIN}.
+     */
+    public static boolean esAdministrativa(String ruta) {
+        if (ruta == null || ruta.isEmpty() || ruta.charAt(0) != '/') {
+            return false;
+        }
+        int longitud = ruta.length();
+        int sinBarraFinal = longitud > 1 && ruta.charAt(longitud - 1) == '/' ? longitud - 1 : longitud;
+        return coincide(RAIZ_ADMINISTRATIVAS, ruta, sinBarraFinal);
+    }
+
+    /**
+     * Indica si el inicio de la ruta coincide con alguno de los patrones de un árbol.
+     *
+     * @param raiz raíz del árbol de patrones.
+     * @param ruta ruta de la solicitud.
+     * @param longitud cantidad de caracteres de la ruta que se comparan.
+     * @return {@code true} si hay coincidencia.
+     */
+    private static boolean coincide(Nodo raiz, String ruta, int longitud) {
+        var nodo = raiz;
+        int inicio = 1;
+        while (true) {
+            if (nodo.comodin) {
+                return true;
+            }
+            if (inicio > longitud) {
+                return nodo.terminal;
+            }
+            int fin = ruta.indexOf('/', inicio);
+            if (fin < 0 || fin > longitud) {
+                fin = longitud;
+            }
+            nodo = nodo.hijo(ruta, inicio, fin - inicio);
+            if (nodo == null) {
+                return false;
+            }
+            inicio = fin + 1;
+        }
+    }
+
+    /**
+     * Compila los patrones en un árbol de segmentos.
+     *
+     * @param patrones patrones de rutas.
+     * @return raíz del árbol.
+     * @throws IllegalArgumentException si un patrón usa comodines no soportados.
+     */
+    private static Nodo compilar(List<String> patrones) {
+        var raiz = new Nodo(null);
+        for (var patron : patrones) {
+            if (!patron.startsWith("/")) {
+                throw new IllegalArgumentException("El patrón debe comenzar con '/': " + patron);
+            }
+            var segmentos = patron.substring(1).split("/", -1);
+            var nodo = raiz;
+            for (int i = 0; i < segmentos.length; i++) {
+                var segmento = segmentos[i];
+                if (segmento.equals("**") && i == segmentos.length - 1) {
+                    nodo.comodin = true;
+                    break;
+                }
+                if (segmento.indexOf('*') >= 0 || segmento.indexOf('{') >= 0) {
+                    throw new IllegalArgumentException("Comodín no soportado en el patrón: " + patron);
+                }
+                nodo = nodo.agregar(segmento);
+                if (i == segmentos.length - 1) {
+                    nodo.terminal = true;
+                }
+            }
+        }
+        return raiz;
+    }
+
+    /**
+     * Nodo del árbol: un segmento literal y sus segmentos hijos.
+     */
+    private static final class Nodo {
+
+        /** Segmento literal del nodo; {@code null} en la raíz. */
+        private final String segmento;
+
+        /** Hijos del nodo; se recorren en orden porque cada nodo tiene muy pocos. */
+        private Nodo[] hijos = new Nodo[0];
+
+        /** La ruta que termina en este nodo es pública. */
+        private boolean terminal;
+
+        /** Cualquier ruta que pase por este nodo es pública ({@code /**}). */
+        private boolean comodin;
+
+        private Nodo(String segmento) {
+            this.segmento = segmento;
+        }
+
+        /**
+         * Busca el hijo cuyo segmento coincide con la región indicada de la ruta.
+         *
+         * @param ruta ruta de la solicitud.
+         * @param inicio posición del primer carácter del segmento.
+         * @param longitud longitud del segmento.
+         * @return nodo hijo, o {@code null} si no hay coincidencia.
+         */
+        private Nodo hijo(String ruta, int inicio, int longitud) {
+            for (var hijo : hijos) {
+                if (hijo.segmento.length() == longitud && ruta.regionMatches(inicio, hijo.segmento, 0, longitud)) {
+                    return hijo;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Obtiene o crea el hijo con el segmento indicado.
+         *
+         * @param segmento segmento literal.
+         * @return nodo hijo.
+         */
+        private Nodo agregar(String segmento) {
+            var existente = hijo(segmento, 0, segmento.length());
+            if (existente != null) {
+                return existente;
+            }
+            var nuevos = new ArrayList<>(Arrays.asList(hijos));
+            var nodo = new Nodo(segmento);
+            nuevos.add(nodo);
+            hijos = nuevos.toArray(Nodo[]::new);
+            return nodo;
+        }
+    }
+}
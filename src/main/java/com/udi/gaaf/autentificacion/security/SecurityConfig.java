@@ -4,15 +4,18 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.access.AccessDeniedHandler;
@@ -21,6 +24,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.udi.gaaf.autentificacion.errors.CustomAuthenticationEntryPoint;
 
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
 
 /**
@@ -40,6 +44,7 @@ import jakarta.servlet.http.HttpServletResponse;
  * <ul>
  *   <li>Deshabilitar CSRF y configurar sesiones sin estado.</li>
  *   <li>Definir rutas públicas y protegidas.</li>
+ *   <li>Habilitar {@code @PreAuthorize} para las operaciones que requieren un rol.</li>
  *   <li>Agregar el {@link SecurityFilter} antes del filtro estándar de autenticación.</li>
  *   <li>Configurar manejadores personalizados para errores y accesos denegados.</li>
  *   <li>Registrar beans de {@link AuthenticationManager} y {@link PasswordEncoder}.</li>
@@ -53,7 +58,9 @@ import jakarta.servlet.http.HttpServletResponse;
  * @see org.springframework.security.config.annotation.web.configuration.EnableWebSecurity
  */
 @Configuration
+@Profile("!reactivo")
 @EnableWebSecurity
+@EnableMethodSecurity
 public class SecurityConfig {
 	
 	/** Filtro de seguridad encargado de validar los tokens JWT en cada petición. */
@@ -65,10 +72,43 @@ public class SecurityConfig {
 	private CustomAuthenticationEntryPoint customAuthenticationEntryPoint;
 	
 	
+	/** Ruta del endpoint que consulta el recolector de métricas. */
+	private static final String RUTA_PROMETHEUS = "/actuator/prometheus";
+
+	/**
+	 * Configura la cadena del endpoint de Prometheus en el puerto de administración.
+	 * <p>
+	 * El recolector no puede renovar un token de dos horas, así que {@value #RUTA_PROMETHEUS} se
+	 * permite sin token, pero solo en {@code management.server.port}, que no se publica fuera de
+	 * la red interna. En el puerto de la API, y para el resto de Actuator, aplica la cadena
+	 * principal.
+	 * </p>
+	 *
+	 * @param http instancia de {@link HttpSecurity} proporcionada por Spring Security
+	 * @param puertoServidor puerto de la API
+	 * @param puertoAdministracion puerto de Actuator
+	 * @return {@link SecurityFilterChain} cadena del endpoint de métricas
+	 * @throws Exception si ocurre un error durante la configuración
+	 */
+	@Bean
+	@Order(1)
+	public SecurityFilterChain metricasFilterChain(HttpSecurity http,
+			@Value("${server.port:8080}") int puertoServidor,
+			@Value("${management.server.port:-1}") int puertoAdministracion) throws Exception {
+		boolean puertoPropio = puertoAdministracion > 0 && puertoAdministracion != puertoServidor;
+		return http.securityMatcher(request -> puertoPropio
+						&& request.getLocalPort() == puertoAdministracion
+						&& RUTA_PROMETHEUS.equals(request.getRequestURI()))
+				.csrf(csrf -> csrf.disable())
+				.sessionManagement(s -> s.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+				.authorizeHttpRequests(req -> req.anyRequest().permitAll())
+				.build();
+	}
+
 	/**
 	 * Configura la cadena principal de filtros de seguridad.
 	 * <p>
-	 * Define las rutas públicas, las políticas de sesión (sin estado), 
+	 * Permite las rutas de {@link RutasPublicas}, define las políticas de sesión (sin estado), 
 	 * el filtro de seguridad personalizado y el manejo de accesos denegados.
 	 * </p>
 	 *
@@ -81,9 +121,11 @@ public class SecurityConfig {
 		return http.csrf(csrf -> csrf.disable())
 				.sessionManagement(s -> s.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
 				.authorizeHttpRequests(req -> {
-					req.requestMatchers("/auth/**").permitAll();
-					req.requestMatchers("/usuario/**").permitAll();
-					req.requestMatchers("/v3/api-docs/**", "/swagger-ui.html", "/swagger-ui/**", "/docs/**").permitAll();
+					// Se autoriza antes de leer y validar el cuerpo; los controladores repiten la regla con @PreAuthorize
+					req.requestMatchers(request -> RutasPublicas.esAdministrativa(request.getRequestURI())).hasRole("ADMIN");
+					req.requestMatchers(request -> RutasPublicas.esPublica(request.getRequestURI())).permitAll();
+					// El despacho asíncrono que cierra los flujos SSE y NDJSON ya se autorizó en la solicitud original
+					req.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll();
 					req.anyRequest().authenticated();
 				})
 				.exceptionHandling(exceptions -> {
@@ -114,14 +156,18 @@ public class SecurityConfig {
 	/**
 	 * Define el codificador de contraseñas utilizado en la aplicación.
 	 * <p>
-	 * Utiliza el algoritmo BCrypt para encriptar contraseñas antes de almacenarlas.
+	 * Utiliza el algoritmo y el costo definidos por la {@link PoliticaHash} para encriptar
+	 * contraseñas antes de almacenarlas, y verifica cualquier hash anterior por su prefijo.
+	 * Cada operación se ejecuta en el {@link EjecutorHash}, fuera de los hilos de las peticiones.
 	 * </p>
 	 *
-	 * @return {@link PasswordEncoder} instancia de {@link BCryptPasswordEncoder}
+	 * @param politicaHash política de cifrado calibrada al iniciar.
+	 * @param ejecutorHash ejecutor acotado para las operaciones de hash.
+	 * @return {@link PasswordEncoder} delegante limitado por {@link EjecutorHash}
 	 */
 	@Bean
-	public PasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder();
+	public PasswordEncoder passwordEncoder(PoliticaHash politicaHash, EjecutorHash ejecutorHash) {
+		return new PasswordEncoderLimitado(politicaHash.crearCodificador(), ejecutorHash);
 	}
 	
 	/**
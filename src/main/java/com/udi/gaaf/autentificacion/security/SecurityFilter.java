@@ -1,16 +1,19 @@
 package com.udi.gaaf.autentificacion.security;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.regex.Pattern;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.udi.gaaf.autentificacion.errors.NotTokenValidException;
+import com.udi.gaaf.autentificacion.revocacion.RevocacionService;
+import com.udi.gaaf.autentificacion.security.MetricasAutenticacion.ResultadoFiltro;
+import com.udi.gaaf.autentificacion.usuario.CachePrincipales;
 import com.udi.gaaf.autentificacion.usuario.UsuarioRepository;
 
 import jakarta.servlet.FilterChain;
@@ -30,20 +33,27 @@ import jakarta.servlet.http.HttpServletResponse;
  * <ul>
  *   <li>Excluye rutas públicas (como autenticación y documentación).</li>
  *   <li>Valida el token JWT recibido en el encabezado.</li>
+ *   <li>Rechaza los tokens revocados según {@link RevocacionService}.</li>
  *   <li>Extrae el identificador del usuario mediante {@link TokenService}.</li>
- *   <li>Recupera los detalles del usuario desde {@link UsuarioRepository}.</li>
+ *   <li>Recupera los detalles del usuario desde {@link CachePrincipales}, o construye
+ *       un {@link UsuarioAutenticado} con los claims del token según {@link ModoAutenticacion}.</li>
  *   <li>Establece la autenticación en el contexto de seguridad.</li>
+ *   <li>Registra su propio tiempo y los tokens rechazados en {@link MetricasAutenticacion}.</li>
  * </ul>
  *
+ * <h3>Modos de autenticación</h3>
+ * <p>
+ * Con {@code api.seguridad.modo=BASE_DATOS} (por defecto) el principal es el usuario cargado
+ * desde MongoDB. Con {@code api.seguridad.modo=CLAIMS} no hay acceso a la base de datos en la ruta
+ * de la solicitud: el principal se construye con los claims {@code id}, {@code sub} y {@code rol},
+ * y el claim {@code activo} determina si el usuario puede continuar.
+ * </p>
+ *
  * <h3>Rutas excluidas</h3>
  * <p>
- * El filtro ignora las rutas que coinciden con los siguientes patrones:
+ * El filtro ignora las rutas declaradas en {@link RutasPublicas}, la misma tabla que usa
+ * {@link SecurityConfig} para permitirlas sin autenticación.
  * </p>
- * <ul>
- *   <li><b>/auth/**</b>: rutas relacionadas con la autenticación.</li>
- *   <li><b>/usuario/**</b>: registro o administración de usuarios públicos.</li>
- *   <li><b>/docs/**</b>, <b>/v3/api-docs/**</b>, <b>/swagger-ui/**</b>: documentación y Swagger.</li>
- * </ul>
  *
  * <h3>Excepciones</h3>
  * <ul>
@@ -51,36 +61,38 @@ import jakarta.servlet.http.HttpServletResponse;
  * </ul>
  *
  * @see TokenService
+ * @see CachePrincipales
  * @see UsuarioRepository
  * @see SecurityContextHolder
  * @see UsernamePasswordAuthenticationToken
  * @see OncePerRequestFilter
  */
 @Component
+@Profile("!reactivo")
 public class SecurityFilter extends OncePerRequestFilter {
 
-    /** Repositorio encargado de acceder a los datos de los usuarios. */
+    /** Caché de principales respaldada por el repositorio de usuarios. */
     @Autowired
-    private UsuarioRepository usuarioRepository;
+    private CachePrincipales cachePrincipales;
 
     /** Servicio encargado de la validación y decodificación de tokens JWT. */
     @Autowired
     private TokenService tokenService;
 
-    /**
-     * Lista de rutas que no requieren autenticación.
-     * <p>
-     * Estas rutas se excluyen del proceso de validación del token.
-     * </p>
-     */
-    private static final List<Pattern> RUTAS_EXCLUIDAS = List.of(
-            Pattern.compile("^/auth/.+$"),
-            Pattern.compile("^/usuario(?:/.*)?$"),
-            Pattern.compile("^/v3/api-docs(/.*)?$"),
-            Pattern.compile("^/docs(/.*)?$"),
-            Pattern.compile("^/swagger-ui\\.html$"),
-            Pattern.compile("^/swagger-ui(/.*)?$")
-    );
+    /** Servicio que indica si un token fue revocado antes de su expiración. */
+    @Autowired
+    private RevocacionService revocacionService;
+
+    /** Métricas del filtro y de los tokens rechazados. */
+    @Autowired
+    private MetricasAutenticacion metricas;
+
+    /** Modo en que se construye el principal autenticado. */
+    @Value("${api.seguridad.modo:BASE_DATOS}")
+    private ModoAutenticacion modo;
+
+    /** Longitud del prefijo {@code Bearer }. */
+    private static final int LONGITUD_PREFIJO = "Bearer ".length();
 
     /**
      * Procesa cada solicitud HTTP para validar su autenticación basada en JWT.
@@ -107,34 +119,71 @@ public class SecurityFilter extends OncePerRequestFilter {
             FilterChain filterChain
     ) throws ServletException, IOException {
 
-        var token = request.getHeader("Authorization");
-        String requestURI = request.getRequestURI();
-        System.out.println("uri: " + requestURI);
+        long inicio = System.nanoTime();
 
-        // Verificación de rutas excluidas
-        for (Pattern pattern : RUTAS_EXCLUIDAS) {
-            SecurityContextHolder.clearContext();
-            if (pattern.matcher(requestURI).matches()) {
-                filterChain.doFilter(request, response);
-                return;
-            }
+        // Verificación de rutas excluidas, sin reservar memoria
+        if (RutasPublicas.esPublica(request.getRequestURI())) {
+            metricas.registrarFiltro(ResultadoFiltro.PUBLICA, inicio);
+            filterChain.doFilter(request, response);
+            return;
         }
 
         // Validación del token JWT
-        if (token != null) {
-            token = token.replace("Bearer ", "");
-            var usuarioId = tokenService.getUsuarioId(token);
-            if (usuarioId != null) {
-                var usuario = usuarioRepository.findDetailById(usuarioId);
+        DatosClaimsToken claims = null;
+        try {
+            var token = request.getHeader("Authorization");
+            if (token == null) {
+                throw new NotTokenValidException("No hay token");
+            }
+            if (token.startsWith("Bearer ")) {
+                token = token.substring(LONGITUD_PREFIJO);
+            }
+            claims = tokenService.getClaims(token);
+            if (revocacionService.estaRevocado(claims)) {
+                throw new NotTokenValidException("El token fue revocado.");
+            }
+            if (modo == ModoAutenticacion.CLAIMS) {
+                autenticarConClaims(claims);
+            } else if (claims.id() != null) {
+                var usuario = cachePrincipales.obtener(claims.id());
+                if (usuario == null) {
+                    throw new NotTokenValidException("El usuario del token no existe.");
+                }
+                if (!usuario.isEnabled()) {
+                    throw new NotTokenValidException("El usuario se encuentra inactivo.");
+                }
                 var autenticacion = new UsernamePasswordAuthenticationToken(
                         usuario, null, usuario.getAuthorities());
                 SecurityContextHolder.getContext().setAuthentication(autenticacion);
             }
-        } else {
-            throw new NotTokenValidException("No hay token");
+        } catch (NotTokenValidException e) {
+            var rol = claims != null && claims.rol() != null ? claims.rol().name() : MetricasAutenticacion.ANONIMO;
+            metricas.registrarFallo(e, MetricasAutenticacion.endpoint(request.getRequestURI()), rol);
+            metricas.registrarFiltro(ResultadoFiltro.RECHAZADA, inicio);
+            throw e;
         }
+        metricas.registrarFiltro(ResultadoFiltro.AUTENTICADA, inicio);
 
         // Continuar con la cadena de filtros
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Establece la autenticación usando únicamente los claims del token.
+     *
+     * @param claims claims del token verificado.
+     * @throws NotTokenValidException si el token no identifica a un usuario o este estaba inactivo.
+     */
+    private void autenticarConClaims(DatosClaimsToken claims) {
+        if (claims.id() == null) {
+            throw new NotTokenValidException("El token no identifica a un usuario.");
+        }
+        if (Boolean.FALSE.equals(claims.activo())) {
+            throw new NotTokenValidException("El usuario se encuentra inactivo.");
+        }
+        var principal = new UsuarioAutenticado(claims);
+        var autenticacion = new UsernamePasswordAuthenticationToken(
+                principal, null, principal.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(autenticacion);
+    }
 }
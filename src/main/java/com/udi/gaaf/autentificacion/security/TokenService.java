@@ -3,40 +3,139 @@ package com.udi.gaaf.autentificacion.security;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.UUID;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.auth0.jwt.interfaces.JWTVerifier;
 import com.udi.gaaf.autentificacion.auth.DatosDetalleSesion;
 import com.udi.gaaf.autentificacion.errors.NotTokenValidException;
 import com.udi.gaaf.autentificacion.usuario.Roles;
 import com.udi.gaaf.autentificacion.usuario.Usuario;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
 /**
  * Servicio encargado de la generación y validación de tokens JWT.
  * 
  * <p>Proporciona métodos para crear tokens de autenticación con información 
  * del usuario, así como para verificar su validez y extraer datos relevantes.</p>
+ *
+ * <p>El algoritmo de firma y el verificador se construyen una sola vez al iniciar el servicio,
+ * y los tokens ya verificados se reutilizan desde {@link CacheTokensVerificados}. El algoritmo
+ * (HMAC o asimétrico con encabezado {@code kid}) lo determina {@link ClavesFirmaJwt}.</p>
+ *
+ * <p>La firma y la verificación se miden en {@code jwt.firma.duracion} y
+ * {@code jwt.verificacion.duracion}, etiquetadas por {@code algoritmo}. Solo se miden las
+ * verificaciones reales, no las respondidas desde la caché.</p>
  */
 @Service
 public class TokenService {
 
-    /** Clave secreta utilizada para firmar y verificar los tokens JWT. */
-    @Value("${api.jwt.secret}")
-    private String secret;
+    /**
+     * Claim con el instante de emisión en milisegundos. {@code iat} solo tiene segundos, y un
+     * token emitido en el mismo segundo que una revocación por usuario, pero después de ella,
+     * quedaría rechazado durante toda su vigencia.
+     */
+    private static final String CLAIM_EMISION_MS = "iat_ms";
+
+    /** Claves utilizadas para firmar y verificar los tokens JWT. */
+    @Autowired
+    private ClavesFirmaJwt clavesFirma;
+
+    /** Caché de tokens cuya firma ya fue verificada. */
+    @Autowired
+    private CacheTokensVerificados cacheTokens;
+
+    /** Registro de métricas. */
+    @Autowired
+    private MeterRegistry registry;
+
+    /** Algoritmo de firma reutilizado entre solicitudes. */
+    private Algorithm algorithm;
+
+    /** Verificador de tokens reutilizado entre solicitudes. */
+    private JWTVerifier verifier;
+
+    /** Tiempo de firma de los tokens emitidos. */
+    private Timer tiempoFirma;
+
+    /** Tiempo de verificación de la firma y los claims. */
+    private Timer tiempoVerificacion;
+
+    /**
+     * Inicializa el algoritmo de firma, el verificador y sus métricas a partir de las claves configuradas.
+     */
+    @PostConstruct
+    void inicializar() {
+        algorithm = clavesFirma.getAlgorithm();
+        verifier = JWT.require(algorithm)
+                .withIssuer("GAAF")
+                .build();
+        tiempoFirma = Timer.builder("jwt.firma.duracion")
+                .description("Tiempo de firma de un token JWT")
+                .tag("algoritmo", algorithm.getName())
+                .register(registry);
+        tiempoVerificacion = Timer.builder("jwt.verificacion.duracion")
+                .description("Tiempo de verificación de un token JWT no presente en la caché")
+                .tag("algoritmo", algorithm.getName())
+                .register(registry);
+    }
+
+    /**
+     * Verifica el token consultando primero la caché de tokens verificados.
+     *
+     * @param token cadena JWT generada previamente.
+     * @return claims del token verificado.
+     * @throws JWTVerificationException si la firma, el emisor, la expiración o el rol no son válidos.
+     */
+    private DatosClaimsToken verificar(String token) {
+        return cacheTokens.obtener(token, t -> tiempoVerificacion.record(() -> extraerClaims(verifier.verify(t))));
+    }
+
+    /**
+     * Convierte un token decodificado en el record {@link DatosClaimsToken}.
+     *
+     * @param decodedJWT token ya verificado.
+     * @return claims tipados del token.
+     * @throws JWTVerificationException si el claim {@code rol} no corresponde a un rol válido.
+     */
+    private DatosClaimsToken extraerClaims(DecodedJWT decodedJWT) {
+        var emisionMs = decodedJWT.getClaim(CLAIM_EMISION_MS).asLong();
+        Roles rol;
+        try {
+            rol = Roles.valueOf(decodedJWT.getClaim("rol").asString());
+        } catch (IllegalArgumentException | NullPointerException ex) {
+            throw new JWTVerificationException("El token no contiene un rol válido.");
+        }
+        return new DatosClaimsToken(
+                decodedJWT.getId(),
+                decodedJWT.getClaim("id").asString(),
+                decodedJWT.getSubject(),
+                rol,
+                decodedJWT.getClaim("activo").asBoolean(),
+                emisionMs != null ? Instant.ofEpochMilli(emisionMs) : decodedJWT.getIssuedAtAsInstant(),
+                decodedJWT.getExpiresAtAsInstant()
+        );
+    }
 
     /**
      * Genera la fecha de expiración del token JWT.
      * 
-     * <p>Los tokens generados tendrán una duración de 2 horas desde el momento de su creación.</p>
+     * <p>Los tokens generados tendrán una duración de 2 horas desde el momento de su creación.
+     * Como ningún token emitido antes de ahora expira después de este instante, también se usa
+     * como vigencia de las revocaciones por usuario.</p>
      *
      * @return instante de expiración del token.
      */
-    private Instant generarFechaExpiracion() {
+    public Instant generarFechaExpiracion() {
         return LocalDateTime.now().plusHours(2).toInstant(ZoneOffset.of("-05:00"));
     }
 
@@ -46,9 +145,14 @@ public class TokenService {
      * <p>El token contendrá los siguientes datos (claims):</p>
      * <ul>
      *   <li><strong>issuer</strong>: nombre del emisor ("GAAF").</li>
+     *   <li><strong>jti</strong>: identificador único del token, usado para revocarlo.</li>
+     *   <li><strong>issuedAt</strong>: fecha y hora de emisión, en segundos.</li>
+     *   <li><strong>iat_ms</strong>: el mismo instante de emisión en milisegundos, con el que se
+     *       compara contra las revocaciones por usuario.</li>
      *   <li><strong>subject</strong>: nombre del usuario.</li>
      *   <li><strong>id</strong>: identificador del usuario.</li>
      *   <li><strong>rol</strong>: rol del usuario dentro del sistema.</li>
+     *   <li><strong>activo</strong>: estado del usuario al momento de emitir el token.</li>
      *   <li><strong>expiresAt</strong>: fecha y hora de expiración.</li>
      * </ul>
      *
@@ -58,18 +162,22 @@ public class TokenService {
      */
     public DatosDetalleSesion generarToken(Usuario usuario) {
         try {
-            Algorithm algorithm = Algorithm.HMAC256(secret);
             Roles role = usuario.getRol();
+            var emision = Instant.now();
 
-            String token = JWT.create()
+            String token = tiempoFirma.record(() -> JWT.create()
                     .withIssuer("GAAF")
+                    .withJWTId(UUID.randomUUID().toString())
+                    .withIssuedAt(emision)
+                    .withClaim(CLAIM_EMISION_MS, emision.toEpochMilli())
                     .withSubject(usuario.getNombre())
                     .withClaim("id", usuario.getId())
                     .withClaim("rol", role.toString())
+                    .withClaim("activo", usuario.getActivo())
                     .withExpiresAt(generarFechaExpiracion())
-                    .sign(algorithm);
+                    .sign(algorithm));
 
-            return new DatosDetalleSesion(usuario.getNombre(), token, role, usuario.getId());
+            return new DatosDetalleSesion(usuario.getNombre(), token, role, usuario.getId(), null);
 
         } catch (Exception ex) {
             throw new RuntimeException("Error al generar el token JWT.", ex);
@@ -89,22 +197,18 @@ public class TokenService {
             throw new RuntimeException("El token no puede ser nulo.");
         }
 
-        DecodedJWT verifier;
+        DatosClaimsToken claims;
         try {
-            Algorithm algorithm = Algorithm.HMAC256(secret);
-            verifier = JWT.require(algorithm)
-                    .withIssuer("GAAF")
-                    .build()
-                    .verify(token);
+            claims = verificar(token);
         } catch (JWTVerificationException ex) {
             throw new NotTokenValidException("El token no es válido o ha expirado.");
         }
 
-        if (verifier.getSubject() == null) {
+        if (claims.sujeto() == null) {
             throw new RuntimeException("El token no contiene un subject válido.");
         }
 
-        return verifier.getSubject();
+        return claims.sujeto();
     }
 
     /**
@@ -116,19 +220,27 @@ public class TokenService {
      * @throws NotTokenValidException si el token no es válido o no puede verificarse.
      */
     public String getUsuarioId(String token) {
+        return getClaims(token).id();
+    }
+
+    /**
+     * Obtiene los claims tipados del token JWT.
+     *
+     * <p>El token se decodifica y verifica una sola vez; las llamadas posteriores con el mismo
+     * token se resuelven desde {@link CacheTokensVerificados}.</p>
+     *
+     * @param token cadena JWT generada previamente.
+     * @return record {@link DatosClaimsToken} con los claims del token.
+     * @throws IllegalArgumentException si el token es nulo.
+     * @throws NotTokenValidException si el token no es válido o no puede verificarse.
+     */
+    public DatosClaimsToken getClaims(String token) {
         if (token == null) {
             throw new IllegalArgumentException("El token no puede ser nulo.");
         }
 
         try {
-            Algorithm algorithm = Algorithm.HMAC256(secret);
-            DecodedJWT decodedJWT = JWT.require(algorithm)
-                    .withIssuer("GAAF")
-                    .build()
-                    .verify(token);
-
-            return decodedJWT.getClaim("id").asString();
-
+            return verificar(token);
         } catch (JWTVerificationException ex) {
             throw new NotTokenValidException("El token es inválido o no puede verificarse.");
         }
@@ -0,0 +1,49 @@
+package com.udi.gaaf.autentificacion.security;
+
+import java.security.Principal;
+import java.util.Collection;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import com.udi.gaaf.autentificacion.usuario.Roles;
+
+/**
+ * Principal inmutable construido únicamente a partir de los claims del token.
+ *
+ * <p>Se utiliza en el modo de autenticación {@link ModoAutenticacion#CLAIMS}, donde
+ * {@link SecurityFilter} no consulta la base de datos en cada solicitud.</p>
+ *
+ * @param id identificador del usuario
+ * @param nombre nombre del usuario
+ * @param rol rol del usuario
+ */
+public record UsuarioAutenticado(
+    String id,
+    String nombre,
+    Roles rol
+) implements Principal {
+
+    /**
+     * Crea el principal a partir de los claims de un token verificado.
+     *
+     * @param claims claims del token.
+     */
+    public UsuarioAutenticado(DatosClaimsToken claims) {
+        this(claims.id(), claims.sujeto(), claims.rol());
+    }
+
+    /** Obtener nombre del principal. */
+    @Override
+    public String getName() {
+        return nombre;
+    }
+
+    /**
+     * Obtiene las autorizaciones asociadas al rol del usuario.
+     *
+     * @return autorizaciones precalculadas del rol.
+     */
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return rol.getAutoridades();
+    }
+}
@@ -0,0 +1,145 @@
+package com.udi.gaaf.autentificacion.usuario;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.udi.gaaf.autentificacion.common.EjecutorConsultas;
+import com.udi.gaaf.autentificacion.eventos.EventoUsuario;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Caché en memoria de los principales autenticados, indexada por el identificador del usuario.
+ * <p>
+ * Evita consultar {@link UsuarioRepository#findDetailById(String)} en cada solicitud autenticada.
+ * Las consultas concurrentes para un mismo identificador que no está en caché se agrupan en
+ * una sola consulta a MongoDB. {@link UsuarioService} invalida la entrada en cada modificación,
+ * de modo que un usuario desactivado o eliminado pierde el acceso de inmediato. Los cambios
+ * hechos por otras instancias llegan como {@link EventoUsuario} desde el bus de invalidación.
+ * </p>
+ *
+ * <p>
+ * La consulta se ejecuta en el {@link EjecutorConsultas} y no dentro del cómputo de la caché:
+ * así la E/S con MongoDB no ocurre bajo el monitor interno del mapa, que fijaría el hilo
+ * virtual a su portador cuando {@code spring.threads.virtual.enabled} está habilitado, ni
+ * espera detrás de las tareas del ejecutor compartido de la aplicación.
+ * </p>
+ *
+ * <p>
+ * El tamaño, los aciertos, los fallos y el tiempo de carga se publican en Actuator
+ * bajo el nombre de caché {@code usuario.principales}.
+ * </p>
+ */
+@Component
+public class CachePrincipales {
+
+    /** Nombre con el que se registran las métricas de la caché. */
+    private static final String NOMBRE_CACHE = "usuario.principales";
+
+    /** Caché de principales indexada por el identificador del usuario. */
+    private final AsyncLoadingCache<String, UserDetails> cache;
+
+    /**
+     * Crea la caché de principales sobre el {@link EjecutorConsultas} y registra sus métricas.
+     *
+     * @param repository repositorio utilizado para cargar los usuarios ausentes.
+     * @param ejecutorConsultas ejecutor dedicado en el que se consultan los usuarios ausentes.
+     * @param tamanoMaximo número máximo de principales retenidos.
+     * @param ttl tiempo máximo que un principal permanece en caché desde su carga.
+     * @param registry registro de métricas de Micrometer.
+     */
+    @Autowired
+    public CachePrincipales(
+            UsuarioRepository repository,
+            EjecutorConsultas ejecutorConsultas,
+            @Value("${api.seguridad.cache-principales.tamano-maximo:10000}") long tamanoMaximo,
+            @Value("${api.seguridad.cache-principales.ttl:PT10M}") Duration ttl,
+            MeterRegistry registry) {
+        this(repository, ejecutorConsultas.getEjecutor(), tamanoMaximo, ttl, registry);
+    }
+
+    /**
+     * Crea la caché de principales sobre un ejecutor cualquiera y registra sus métricas.
+     *
+     * @param repository repositorio utilizado para cargar los usuarios ausentes.
+     * @param ejecutor ejecutor en el que se consultan los usuarios ausentes.
+     * @param tamanoMaximo número máximo de principales retenidos.
+     * @param ttl tiempo máximo que un principal permanece en caché desde su carga.
+     * @param registry registro de métricas de Micrometer.
+     */
+    public CachePrincipales(
+            UsuarioRepository repository,
+            Executor ejecutor,
+            long tamanoMaximo,
+            Duration ttl,
+            MeterRegistry registry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfterWrite(ttl)
+                .executor(ejecutor)
+                .recordStats()
+                .buildAsync(repository::findDetailById);
+        CaffeineCacheMetrics.monitor(registry, cache, NOMBRE_CACHE);
+    }
+
+    /**
+     * Obtiene el principal del usuario, cargándolo desde MongoDB si no está en caché.
+     *
+     * @param id identificador del usuario.
+     * @return detalles del usuario, o {@code null} si no existe.
+     */
+    public UserDetails obtener(String id) {
+        try {
+            return cache.get(id).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Obtiene el principal del usuario sin bloquear el hilo que llama.
+     *
+     * @param id identificador del usuario.
+     * @return futuro con los detalles del usuario, o con {@code null} si no existe.
+     */
+    public CompletableFuture<UserDetails> obtenerAsync(String id) {
+        return cache.get(id);
+    }
+
+    /**
+     * Elimina de la caché el principal de un usuario.
+     *
+     * @param id identificador del usuario modificado.
+     */
+    public void invalidar(String id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    /**
+     * Invalida la entrada del usuario afectado por un cambio en cualquier instancia.
+     *
+     * @param evento evento publicado por el bus de invalidación.
+     */
+    @EventListener
+    public void alCambiarUsuario(EventoUsuario evento) {
+        if (evento.id() == null) {
+            cache.synchronous().invalidateAll();
+        } else {
+            cache.synchronous().invalidate(evento.id());
+        }
+    }
+}
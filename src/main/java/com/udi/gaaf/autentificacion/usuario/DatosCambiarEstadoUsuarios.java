@@ -0,0 +1,20 @@
+package com.udi.gaaf.autentificacion.usuario;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Activación o desactivación masiva de usuarios.
+ *
+ * @param seleccion usuarios afectados
+ * @param activo estado que se asigna
+ */
+public record DatosCambiarEstadoUsuarios(
+
+    @NotNull(message = "La selección es obligatoria.")
+    @Valid
+    DatosSeleccionUsuarios seleccion,
+
+    @NotNull(message = "El estado es obligatorio.")
+    Boolean activo
+) {}
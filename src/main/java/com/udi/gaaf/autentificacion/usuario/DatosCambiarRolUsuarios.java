@@ -0,0 +1,20 @@
+package com.udi.gaaf.autentificacion.usuario;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Cambio masivo del rol de los usuarios.
+ *
+ * @param seleccion usuarios afectados
+ * @param rol rol que se asigna
+ */
+public record DatosCambiarRolUsuarios(
+
+    @NotNull(message = "La selección es obligatoria.")
+    @Valid
+    DatosSeleccionUsuarios seleccion,
+
+    @NotNull(message = "El rol es obligatorio. [ADMIN | JEFE_BODEGA | COORDINADOR_COMPRAS | GERENTE]")
+    Roles rol
+) {}
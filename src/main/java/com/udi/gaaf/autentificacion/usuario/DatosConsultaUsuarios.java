@@ -0,0 +1,97 @@
+package com.udi.gaaf.autentificacion.usuario;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.udi.gaaf.autentificacion.errors.BadRequestException;
+
+/**
+ * Parámetros de la consulta paginada de usuarios ({@code GET /usuario}).
+ *
+ * <p>La paginación es por cursor sobre {@code _id}: cada página devuelve el identificador del
+ * último usuario, que se envía como {@code despues} para obtener la siguiente. A diferencia de
+ * {@code skip}, el costo de cada página no crece con su posición y los usuarios insertados o
+ * eliminados entre páginas no desplazan los resultados.</p>
+ *
+ * @param despues identificador del último usuario de la página anterior, o {@code null} para la primera
+ * @param tamano cantidad de usuarios por página; por defecto {@value #TAMANO_POR_DEFECTO}, máximo {@value #TAMANO_MAXIMO}
+ * @param rol filtro opcional por rol
+ * @param activo filtro opcional por estado
+ */
+public record DatosConsultaUsuarios(
+    String despues,
+    Integer tamano,
+    Roles rol,
+    Boolean activo
+) {
+
+    /** Tamaño de página cuando no se indica. */
+    public static final int TAMANO_POR_DEFECTO = 100;
+
+    /** Tamaño de página máximo admitido. */
+    public static final int TAMANO_MAXIMO = 1000;
+
+    /** Documentos que trae cada lote del cursor al transmitir. */
+    private static final int LOTE_CURSOR = 500;
+
+    /**
+     * Obtiene el tamaño de página, acotado entre 1 y {@value #TAMANO_MAXIMO}.
+     *
+     * @return tamaño de página.
+     */
+    public int tamanoPagina() {
+        if (tamano == null) {
+            return TAMANO_POR_DEFECTO;
+        }
+        return Math.clamp(tamano, 1, TAMANO_MAXIMO);
+    }
+
+    /**
+     * Construye la consulta de una página. Se pide un usuario más que el tamaño de la página
+     * para saber si existe una siguiente sin contar los documentos.
+     *
+     * @return consulta ordenada por {@code _id} y limitada a {@code tamanoPagina() + 1}.
+     * @throws BadRequestException si el cursor no es un identificador válido.
+     */
+    public Query consultaPagina() {
+        return consulta().limit(tamanoPagina() + 1);
+    }
+
+    /**
+     * Construye la consulta sin límite que recorre el cursor de MongoDB por lotes.
+     *
+     * @return consulta ordenada por {@code _id}.
+     * @throws BadRequestException si el cursor no es un identificador válido.
+     */
+    public Query consultaTransmision() {
+        return consulta().cursorBatchSize(LOTE_CURSOR);
+    }
+
+    /**
+     * Construye los filtros, el orden y la proyección comunes. La proyección incluye solo los
+     * campos de {@link DatosDetalleUsuario}, de modo que la contraseña y las notificaciones no
+     * salen de la base de datos.
+     *
+     * @return consulta sin límite.
+     */
+    private Query consulta() {
+        var criterio = new Criteria();
+        if (despues != null && !despues.isBlank()) {
+            if (!ObjectId.isValid(despues)) {
+                throw new BadRequestException("El cursor de paginación no es válido.");
+            }
+            criterio.and("_id").gt(new ObjectId(despues));
+        }
+        if (rol != null) {
+            criterio.and("rol").is(rol);
+        }
+        if (activo != null) {
+            criterio.and("activo").is(activo);
+        }
+        var query = new Query(criterio).with(Sort.by(Sort.Direction.ASC, "_id"));
+        query.fields().include("usuario", "nombre", "correo", "telefono", "activo", "rol");
+        return query;
+    }
+}
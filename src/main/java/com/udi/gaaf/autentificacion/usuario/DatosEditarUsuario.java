@@ -1,5 +1,7 @@
 package com.udi.gaaf.autentificacion.usuario;
 
+import org.springframework.data.mongodb.core.query.Update;
+
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -35,4 +37,22 @@ public record DatosEditarUsuario(
 
     @NotNull(message = "El rol es obligatorio. [ADMIN | JEFE_BODEGA | COORDINADOR_COMPRAS | GERENTE]")
     Roles rol
-) {}
+) {
+
+    /**
+     * Construye la actualización de los campos editables con {@code $set}.
+     *
+     * <p>No toca la contraseña, el estado ni las notificaciones embebidas. La versión del
+     * documento la incrementa {@code MongoTemplate} al aplicarla sobre {@link Usuario}.</p>
+     *
+     * @return actualización de nombre, usuario, correo, teléfono y rol.
+     */
+    public Update actualizacion() {
+        return new Update()
+                .set("nombre", nombre)
+                .set("usuario", usuario)
+                .set("correo", correo)
+                .set("telefono", telefono)
+                .set("rol", rol);
+    }
+}
@@ -0,0 +1,31 @@
+package com.udi.gaaf.autentificacion.usuario;
+
+import java.util.List;
+
+/**
+ * Página de usuarios obtenida con {@link DatosConsultaUsuarios}.
+ *
+ * @param usuarios usuarios de la página, ordenados por identificador
+ * @param siguiente cursor de la siguiente página, o {@code null} si es la última
+ */
+public record DatosPaginaUsuarios(
+    List<DatosDetalleUsuario> usuarios,
+    String siguiente
+) {
+
+    /**
+     * Construye la página a partir de los usuarios consultados con
+     * {@link DatosConsultaUsuarios#consultaPagina()}, que trae uno más que el tamaño de la página.
+     *
+     * @param consultados usuarios consultados.
+     * @param tamano tamaño de la página.
+     * @return página con el cursor de la siguiente, si existe.
+     */
+    public static DatosPaginaUsuarios de(List<DatosDetalleUsuario> consultados, int tamano) {
+        if (consultados.size() <= tamano) {
+            return new DatosPaginaUsuarios(consultados, null);
+        }
+        var usuarios = consultados.subList(0, tamano);
+        return new DatosPaginaUsuarios(usuarios, usuarios.get(tamano - 1).id());
+    }
+}
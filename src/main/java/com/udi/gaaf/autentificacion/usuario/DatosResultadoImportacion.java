@@ -0,0 +1,35 @@
+package com.udi.gaaf.autentificacion.usuario;
+
+/**
+ * Resultado de una fila de la importación masiva de usuarios ({@code POST /usuario/importar}).
+ *
+ * @param linea número de línea de la fila en el archivo
+ * @param usuario nombre de usuario de la fila, si se pudo leer
+ * @param resultado resultado de la fila
+ * @param id identificador del usuario creado, solo si {@code resultado} es {@code CREADO}
+ * @param mensaje motivo por el que no se creó el usuario
+ */
+public record DatosResultadoImportacion(
+    long linea,
+    String usuario,
+    Resultado resultado,
+    String id,
+    String mensaje
+) {
+
+    /** Resultado de una fila. */
+    public enum Resultado {
+
+        /** El usuario se creó. */
+        CREADO,
+
+        /** Ya existe un usuario con el mismo nombre de usuario o correo, o se repite en el archivo. */
+        DUPLICADO,
+
+        /** La fila no se pudo interpretar o no cumple las validaciones del registro. */
+        INVALIDO,
+
+        /** El usuario no se creó por un error del servidor; la fila se puede reintentar. */
+        ERROR
+    }
+}
@@ -0,0 +1,12 @@
+package com.udi.gaaf.autentificacion.usuario;
+
+/**
+ * Resultado de una operación masiva sobre usuarios.
+ *
+ * @param seleccionados usuarios que cumplían la selección
+ * @param modificados usuarios modificados o eliminados; los que ya tenían el valor pedido no se cuentan
+ */
+public record DatosResultadoOperacionMasiva(
+    long seleccionados,
+    long modificados
+) {}
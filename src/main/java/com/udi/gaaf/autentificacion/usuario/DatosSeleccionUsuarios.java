@@ -0,0 +1,63 @@
+package com.udi.gaaf.autentificacion.usuario;
+
+import java.util.List;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import com.udi.gaaf.autentificacion.errors.BadRequestException;
+
+import jakarta.validation.constraints.Size;
+
+/**
+ * Selección de los usuarios afectados por una operación masiva.
+ *
+ * <p>Se seleccionan los usuarios de {@code ids} que además cumplen los filtros indicados. Sin
+ * {@code ids}, se seleccionan todos los que cumplen los filtros. Debe indicarse al menos una de
+ * las dos cosas, para que una selección vacía no afecte a todos los usuarios por error.</p>
+ *
+ * @param ids identificadores de los usuarios, hasta {@value #MAXIMO_IDS}
+ * @param rol filtro opcional por rol
+ * @param activo filtro opcional por estado
+ */
+public record DatosSeleccionUsuarios(
+
+    @Size(max = MAXIMO_IDS)
+    List<String> ids,
+
+    Roles rol,
+
+    Boolean activo
+) {
+
+    /** Identificadores máximos por operación. */
+    public static final int MAXIMO_IDS = 10000;
+
+    /**
+     * Construye el criterio de la selección.
+     *
+     * @return criterio sobre la colección de usuarios.
+     * @throws BadRequestException si no hay identificadores ni filtros, o algún identificador no es válido.
+     */
+    public Criteria criterio() {
+        boolean conIds = ids != null && !ids.isEmpty();
+        if (!conIds && rol == null && activo == null) {
+            throw new BadRequestException("Indique los identificadores o al menos un filtro (rol, activo).");
+        }
+        var criterio = new Criteria();
+        if (conIds) {
+            var invalido = ids.stream().filter(id -> id == null || !ObjectId.isValid(id)).findFirst();
+            if (invalido.isPresent()) {
+                throw new BadRequestException("Identificador de usuario no válido: " + invalido.get());
+            }
+            criterio.and("_id").in(ids.stream().map(ObjectId::new).toList());
+        }
+        if (rol != null) {
+            criterio.and("rol").is(rol);
+        }
+        if (activo != null) {
+            criterio.and("activo").is(activo);
+        }
+        return criterio;
+    }
+}
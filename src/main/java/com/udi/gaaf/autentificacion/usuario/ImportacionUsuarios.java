@@ -0,0 +1,357 @@
+package com.udi.gaaf.autentificacion.usuario;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.udi.gaaf.autentificacion.common.IndicesMongo;
+import com.udi.gaaf.autentificacion.errors.ServicioSaturadoException;
+import com.udi.gaaf.autentificacion.usuario.DatosResultadoImportacion.Resultado;
+import com.udi.gaaf.autentificacion.usuario.LectorImportacion.FilaImportacion;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.Validator;
+
+/**
+ * Importación masiva de usuarios por lotes.
+ *
+ * <p>Las filas se procesan en lotes de {@code api.importacion.lote}. Por cada lote:</p>
+ * <ol>
+ *   <li>Se validan las filas con las restricciones de {@link DatosRegistrarUsuario}.</li>
+ *   <li>Se buscan los usuarios y correos ya registrados con una sola consulta, y se descartan
+ *       los que se repiten dentro del archivo.</li>
+ *   <li>Se cifran las contraseñas en paralelo. Cada cifrado pasa por el {@code EjecutorHash},
+ *       y como máximo {@code api.importacion.hilos} cifrados de importaciones están en curso a
+ *       la vez, de modo que los inicios de sesión siguen teniendo hilos libres.</li>
+ *   <li>Se insertan los usuarios con una escritura masiva no ordenada: una fila que falla no
+ *       impide insertar las demás.</li>
+ * </ol>
+ *
+ * <p>Solo el lote actual se mantiene en memoria, y su resultado se entrega antes de leer el
+ * siguiente.</p>
+ *
+ * <h3>Métricas</h3>
+ * <ul>
+ *   <li>{@code usuario.importacion.filas}: filas procesadas por {@code resultado}.</li>
+ * </ul>
+ */
+@Service
+public class ImportacionUsuarios {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacionUsuarios.class);
+
+    /** Intentos de cifrado de una contraseña cuando el ejecutor de hash está saturado. */
+    private static final int INTENTOS_CIFRADO = 5;
+
+    /** Código de MongoDB para una clave única duplicada. */
+    private static final int CLAVE_DUPLICADA = 11000;
+
+    /** Colación de los índices únicos de usuario y correo. */
+    private static final Collation COLACION = Collation.parse(Usuario.COLACION);
+
+    /** Mensaje de una fila cuyo usuario o correo ya está registrado. */
+    private static final String YA_EXISTE = "El usuario ya existe.";
+
+    /** Plantilla de MongoDB para la consulta de duplicados y la escritura masiva. */
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /** Codificador de contraseñas limitado por el ejecutor de hash. */
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    /** Validador de Bean Validation. */
+    @Autowired
+    private Validator validator;
+
+    /** Índices de MongoDB, cuya existencia se exige antes de importar. */
+    @Autowired
+    private IndicesMongo indicesMongo;
+
+    /** Filas por lote. */
+    @Value("${api.importacion.lote:500}")
+    private int tamanoLote;
+
+    /** Hilos virtuales que esperan los cifrados; su cantidad acota los cifrados en curso. */
+    private final ExecutorService cifrados;
+
+    /** Registro de métricas. */
+    private final MeterRegistry registry;
+
+    /**
+     * Crea el servicio.
+     *
+     * @param hilos cifrados simultáneos de todas las importaciones; por defecto, la mitad de los núcleos.
+     * @param registry registro de métricas de Micrometer.
+     */
+    public ImportacionUsuarios(@Value("${api.importacion.hilos:0}") int hilos, MeterRegistry registry) {
+        int paralelismo = hilos > 0 ? hilos : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.cifrados = Executors.newFixedThreadPool(paralelismo, Thread.ofVirtual().name("importacion-", 0).factory());
+        this.registry = registry;
+    }
+
+    /**
+     * Importa las filas por lotes.
+     *
+     * @param filas filas leídas del archivo.
+     * @param reporte recibe los resultados de cada lote, en el orden de las filas.
+     * @throws ServicioSaturadoException si faltan los índices únicos de usuario y correo.
+     */
+    public void importar(Iterator<FilaImportacion> filas, Consumer<List<DatosResultadoImportacion>> reporte) {
+        indicesMongo.exigirIndicesUnicos();
+        var lote = new ArrayList<FilaImportacion>(tamanoLote);
+        while (filas.hasNext()) {
+            lote.add(filas.next());
+            if (lote.size() == tamanoLote) {
+                reporte.accept(procesar(lote));
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            reporte.accept(procesar(lote));
+        }
+    }
+
+    /**
+     * Detiene los hilos de cifrado.
+     */
+    @PreDestroy
+    public void detener() {
+        cifrados.shutdown();
+    }
+
+    /**
+     * Valida, filtra duplicados, cifra e inserta un lote.
+     *
+     * @param lote filas del lote.
+     * @return resultado de cada fila, en el mismo orden.
+     */
+    private List<DatosResultadoImportacion> procesar(List<FilaImportacion> lote) {
+        var resultados = new DatosResultadoImportacion[lote.size()];
+        var candidatos = new ArrayList<Integer>();
+        for (int i = 0; i < lote.size(); i++) {
+            var fila = lote.get(i);
+            var error = fila.error() != null ? fila.error() : validar(fila.datos());
+            if (error != null) {
+                resultados[i] = resultado(fila, Resultado.INVALIDO, null, error);
+            } else {
+                candidatos.add(i);
+            }
+        }
+
+        var pendientes = descartarDuplicados(lote, candidatos, resultados);
+        var cifradas = new HashMap<Integer, Future<String>>();
+        for (int i : pendientes) {
+            var contrasena = lote.get(i).datos().contraseña();
+            cifradas.put(i, cifrados.submit(() -> cifrar(contrasena)));
+        }
+
+        var usuarios = new ArrayList<Usuario>(pendientes.size());
+        var posiciones = new ArrayList<Integer>(pendientes.size());
+        for (int i : pendientes) {
+            try {
+                var usuario = new Usuario(lote.get(i).datos(), cifradas.get(i).get());
+                usuario.setId(new ObjectId().toHexString());
+                usuarios.add(usuario);
+                posiciones.add(i);
+            } catch (ExecutionException ex) {
+                resultados[i] = resultado(lote.get(i), Resultado.ERROR, null, ex.getCause().getMessage());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Importación interrumpida.", ex);
+            }
+        }
+        insertar(lote, usuarios, posiciones, resultados);
+        return List.of(resultados);
+    }
+
+    /**
+     * Valida una fila con las restricciones de {@link DatosRegistrarUsuario}.
+     *
+     * @param datos datos de la fila.
+     * @return violaciones separadas por {@code ;}, o {@code null} si la fila es válida.
+     */
+    private String validar(DatosRegistrarUsuario datos) {
+        var violaciones = validator.validate(datos);
+        if (violaciones.isEmpty()) {
+            return null;
+        }
+        return violaciones.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * Marca como duplicadas las filas cuyo usuario o correo ya está registrado, con una sola
+     * consulta para el lote, o se repite en una fila anterior del lote. Como los índices únicos,
+     * la comparación no distingue mayúsculas; la consulta usa su colación para recorrerlos.
+     *
+     * @param lote filas del lote.
+     * @param candidatos posiciones de las filas válidas.
+     * @param resultados resultados del lote, que se completan con los duplicados.
+     * @return posiciones de las filas a insertar.
+     */
+    private List<Integer> descartarDuplicados(List<FilaImportacion> lote, List<Integer> candidatos,
+            DatosResultadoImportacion[] resultados) {
+        if (candidatos.isEmpty()) {
+            return candidatos;
+        }
+        var usuarios = new HashSet<String>();
+        var correos = new HashSet<String>();
+        for (int i : candidatos) {
+            usuarios.add(lote.get(i).datos().usuario());
+            correos.add(lote.get(i).datos().correo());
+        }
+        var consulta = query(new Criteria().orOperator(where("usuario").in(usuarios), where("correo").in(correos)))
+                .collation(COLACION);
+        consulta.fields().include("usuario", "correo").exclude("_id");
+        Set<String> usuariosRegistrados = new HashSet<>();
+        Set<String> correosRegistrados = new HashSet<>();
+        for (var registrado : mongoTemplate.find(consulta, Document.class, "usuario")) {
+            usuariosRegistrados.add(clave(registrado.getString("usuario")));
+            correosRegistrados.add(clave(registrado.getString("correo")));
+        }
+
+        var pendientes = new ArrayList<Integer>(candidatos.size());
+        usuarios.clear();
+        correos.clear();
+        for (int i : candidatos) {
+            var usuario = clave(lote.get(i).datos().usuario());
+            var correo = clave(lote.get(i).datos().correo());
+            if (usuariosRegistrados.contains(usuario) || correosRegistrados.contains(correo)) {
+                resultados[i] = resultado(lote.get(i), Resultado.DUPLICADO, null, YA_EXISTE);
+            } else if (usuarios.contains(usuario) || correos.contains(correo)) {
+                resultados[i] = resultado(lote.get(i), Resultado.DUPLICADO, null,
+                        "El usuario o el correo se repite en el archivo.");
+            } else {
+                usuarios.add(usuario);
+                correos.add(correo);
+                pendientes.add(i);
+            }
+        }
+        return pendientes;
+    }
+
+    /**
+     * Normaliza un nombre de usuario o correo para compararlo sin distinguir mayúsculas.
+     *
+     * @param valor valor leído o registrado.
+     * @return valor en minúsculas, o {@code null}.
+     */
+    private static String clave(String valor) {
+        return valor != null ? valor.toLowerCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * Cifra una contraseña y, si el ejecutor de hash está saturado, espera el tiempo que sugiere
+     * antes de reintentar.
+     *
+     * @param contrasena contraseña en texto plano.
+     * @return contraseña cifrada.
+     * @throws InterruptedException si se interrumpe la espera.
+     * @throws ServicioSaturadoException si sigue saturado después de {@value #INTENTOS_CIFRADO} intentos.
+     */
+    private String cifrar(String contrasena) throws InterruptedException {
+        for (int intento = 1; ; intento++) {
+            try {
+                return passwordEncoder.encode(contrasena);
+            } catch (ServicioSaturadoException ex) {
+                if (intento == INTENTOS_CIFRADO) {
+                    throw ex;
+                }
+                Thread.sleep(ex.getReintentarEn());
+            }
+        }
+    }
+
+    /**
+     * Inserta los usuarios con una escritura masiva no ordenada y completa sus resultados. Un
+     * error de clave duplicada (por ejemplo, otra importación simultánea) se informa como
+     * {@code DUPLICADO}.
+     *
+     * @param lote filas del lote.
+     * @param usuarios usuarios a insertar.
+     * @param posiciones posición en el lote de cada usuario.
+     * @param resultados resultados del lote.
+     */
+    private void insertar(List<FilaImportacion> lote, List<Usuario> usuarios, List<Integer> posiciones,
+            DatosResultadoImportacion[] resultados) {
+        if (usuarios.isEmpty()) {
+            return;
+        }
+        Map<Integer, DatosResultadoImportacion> fallidos = new HashMap<>();
+        try {
+            mongoTemplate.bulkOps(BulkMode.UNORDERED, Usuario.class).insert(usuarios).execute();
+        } catch (BulkOperationException ex) {
+            for (var error : ex.getErrors()) {
+                var fila = lote.get(posiciones.get(error.getIndex()));
+                fallidos.put(error.getIndex(), error.getCode() == CLAVE_DUPLICADA
+                        ? resultado(fila, Resultado.DUPLICADO, null, YA_EXISTE)
+                        : resultado(fila, Resultado.ERROR, null, error.getMessage()));
+            }
+        } catch (DataAccessException ex) {
+            log.error("Error al insertar un lote de {} usuarios importados", usuarios.size(), ex);
+            for (int k = 0; k < usuarios.size(); k++) {
+                fallidos.put(k, resultado(lote.get(posiciones.get(k)), Resultado.ERROR, null,
+                        "No se pudo guardar el usuario."));
+            }
+        }
+        for (int k = 0; k < usuarios.size(); k++) {
+            int i = posiciones.get(k);
+            resultados[i] = fallidos.containsKey(k)
+                    ? fallidos.get(k)
+                    : resultado(lote.get(i), Resultado.CREADO, usuarios.get(k).getId(), null);
+        }
+    }
+
+    /**
+     * Crea el resultado de una fila y lo cuenta en las métricas.
+     *
+     * @param fila fila del archivo.
+     * @param resultado resultado de la fila.
+     * @param id identificador del usuario creado, o {@code null}.
+     * @param mensaje motivo si no se creó, o {@code null}.
+     * @return resultado de la fila.
+     */
+    private DatosResultadoImportacion resultado(FilaImportacion fila, Resultado resultado, String id, String mensaje) {
+        Counter.builder("usuario.importacion.filas")
+                .description("Filas de la importación masiva de usuarios por resultado")
+                .tag("resultado", resultado.name().toLowerCase(Locale.ROOT))
+                .register(registry)
+                .increment();
+        var usuario = fila.datos() != null ? fila.datos().usuario() : null;
+        return new DatosResultadoImportacion(fila.linea(), usuario, resultado, id, mensaje);
+    }
+}
@@ -0,0 +1,300 @@
+package com.udi.gaaf.autentificacion.usuario;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.udi.gaaf.autentificacion.errors.BadRequestException;
+
+/**
+ * Lee una por una las filas de un archivo de importación de usuarios, en CSV o NDJSON.
+ *
+ * <p>Solo se mantiene en memoria la línea actual, de a lo sumo {@value #LONGITUD_MAXIMA_LINEA}
+ * caracteres; el resto de una línea más larga se descarta sin guardarlo. Una línea que no se
+ * puede interpretar o que supera ese límite no detiene la lectura: se devuelve como una
+ * {@link FilaImportacion} con su error.</p>
+ *
+ * <p>El CSV debe empezar con una fila de encabezado con las columnas {@code nombre},
+ * {@code usuario}, {@code correo}, {@code telefono}, {@code contraseña} (o {@code contrasena})
+ * y {@code rol}, en cualquier orden. Los valores pueden ir entre comillas dobles, y una comilla
+ * dentro de un valor se escribe {@code ""}. Se quitan los espacios al inicio y al final de cada
+ * valor, salvo en la contraseña, que se toma tal cual. El NDJSON tiene un
+ * {@link DatosRegistrarUsuario} por línea. En ambos formatos se ignoran las líneas en blanco.</p>
+ */
+public final class LectorImportacion implements Iterator<LectorImportacion.FilaImportacion> {
+
+    /** Columnas obligatorias del CSV. */
+    private static final List<String> COLUMNAS = List.of("nombre", "usuario", "correo", "telefono", "contraseña", "rol");
+
+    /** Longitud máxima de una línea, en caracteres; una fila de usuario ocupa mucho menos. */
+    public static final int LONGITUD_MAXIMA_LINEA = 4096;
+
+    /**
+     * Fila leída del archivo.
+     *
+     * @param linea número de línea en el archivo, empezando en 1
+     * @param datos datos del usuario, o {@code null} si la línea no se pudo interpretar
+     * @param error motivo por el que no se pudo interpretar, o {@code null}
+     */
+    public record FilaImportacion(long linea, DatosRegistrarUsuario datos, String error) {}
+
+    /** Lector del cuerpo de la solicitud. */
+    private final BufferedReader lector;
+
+    /** Lector de JSON para NDJSON, o {@code null} para CSV. */
+    private final ObjectReader json;
+
+    /** Posición de cada columna en el CSV. */
+    private final Map<String, Integer> posiciones;
+
+    /** Número de la última línea leída. */
+    private long linea;
+
+    /** Siguiente fila, leída por adelantado en {@link #hasNext()}. */
+    private FilaImportacion siguiente;
+
+    /**
+     * Crea el lector.
+     *
+     * @param lector lector del cuerpo de la solicitud.
+     * @param json lector de JSON para NDJSON, o {@code null} para CSV.
+     * @param posiciones posición de cada columna en el CSV.
+     * @param linea número de líneas ya leídas.
+     */
+    private LectorImportacion(BufferedReader lector, ObjectReader json, Map<String, Integer> posiciones, long linea) {
+        this.lector = lector;
+        this.json = json;
+        this.posiciones = posiciones;
+        this.linea = linea;
+    }
+
+    /**
+     * Crea un lector de CSV y lee su encabezado.
+     *
+     * @param lector lector del cuerpo de la solicitud.
+     * @return lector posicionado en la primera fila de datos.
+     * @throws BadRequestException si falta el encabezado, es demasiado largo o le falta alguna
+     *         columna obligatoria.
+     */
+    public static LectorImportacion csv(BufferedReader lector) {
+        String encabezado;
+        try {
+            encabezado = leerLinea(lector);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        if (encabezado == null || encabezado.isBlank()) {
+            throw new BadRequestException("El CSV debe empezar con el encabezado: " + String.join(",", COLUMNAS));
+        }
+        if (encabezado.length() > LONGITUD_MAXIMA_LINEA) {
+            throw new BadRequestException("El encabezado del CSV supera los " + LONGITUD_MAXIMA_LINEA + " caracteres");
+        }
+        if (encabezado.startsWith("\uFEFF")) {
+            encabezado = encabezado.substring(1);
+        }
+        var columnas = dividir(encabezado);
+        var posiciones = new HashMap<String, Integer>();
+        for (int i = 0; i < columnas.size(); i++) {
+            var nombre = columnas.get(i).trim().toLowerCase(Locale.ROOT);
+            posiciones.put(nombre.equals("contrasena") ? "contraseña" : nombre, i);
+        }
+        var faltantes = COLUMNAS.stream().filter(c -> !posiciones.containsKey(c)).toList();
+        if (!faltantes.isEmpty()) {
+            throw new BadRequestException("Faltan columnas en el CSV: " + String.join(",", faltantes));
+        }
+        return new LectorImportacion(lector, null, posiciones, 1);
+    }
+
+    /**
+     * Crea un lector de NDJSON.
+     *
+     * @param lector lector del cuerpo de la solicitud.
+     * @param json lector de JSON para {@link DatosRegistrarUsuario}.
+     * @return lector posicionado en la primera línea.
+     */
+    public static LectorImportacion ndjson(BufferedReader lector, ObjectReader json) {
+        return new LectorImportacion(lector, json, Map.of(), 0);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (siguiente != null) {
+            return true;
+        }
+        try {
+            String texto;
+            do {
+                texto = leerLinea(lector);
+                if (texto == null) {
+                    return false;
+                }
+                linea++;
+            } while (texto.isBlank());
+            if (texto.length() > LONGITUD_MAXIMA_LINEA) {
+                siguiente = new FilaImportacion(linea, null,
+                        "La línea supera los " + LONGITUD_MAXIMA_LINEA + " caracteres");
+            } else {
+                siguiente = json != null ? leerJson(texto) : leerCsv(texto);
+            }
+            return true;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public FilaImportacion next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        var fila = siguiente;
+        siguiente = null;
+        return fila;
+    }
+
+    /**
+     * Interpreta una línea NDJSON.
+     *
+     * @param texto línea leída.
+     * @return fila con los datos o con el error de formato.
+     */
+    private FilaImportacion leerJson(String texto) {
+        try {
+            return new FilaImportacion(linea, json.readValue(texto), null);
+        } catch (JsonProcessingException ex) {
+            return new FilaImportacion(linea, null, "JSON inválido: " + ex.getOriginalMessage());
+        }
+    }
+
+    /**
+     * Interpreta una línea CSV según las posiciones del encabezado.
+     *
+     * @param texto línea leída.
+     * @return fila con los datos o con el error de formato.
+     */
+    private FilaImportacion leerCsv(String texto) {
+        var valores = dividir(texto);
+        var rol = valor(valores, "rol");
+        Roles rolUsuario = null;
+        if (rol != null) {
+            try {
+                rolUsuario = Roles.valueOf(rol.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                return new FilaImportacion(linea, null, "Rol inválido: " + rol);
+            }
+        }
+        return new FilaImportacion(linea, new DatosRegistrarUsuario(
+                valor(valores, "nombre"),
+                valor(valores, "usuario"),
+                valor(valores, "correo"),
+                valor(valores, "telefono"),
+                valorSinRecortar(valores, "contraseña"),
+                rolUsuario), null);
+    }
+
+    /**
+     * Obtiene el valor de una columna, o {@code null} si está vacío o falta en la fila.
+     *
+     * @param valores valores de la fila.
+     * @param columna nombre de la columna.
+     * @return valor sin espacios al inicio ni al final.
+     */
+    private String valor(List<String> valores, String columna) {
+        var valor = valorSinRecortar(valores, columna);
+        if (valor == null) {
+            return null;
+        }
+        valor = valor.trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    /**
+     * Obtiene el valor de una columna tal como está en el archivo, o {@code null} si está vacío
+     * o falta en la fila. Los espacios de una contraseña son parte de ella.
+     *
+     * @param valores valores de la fila.
+     * @param columna nombre de la columna.
+     * @return valor de la columna.
+     */
+    private String valorSinRecortar(List<String> valores, String columna) {
+        int posicion = posiciones.get(columna);
+        if (posicion >= valores.size() || valores.get(posicion).isEmpty()) {
+            return null;
+        }
+        return valores.get(posicion);
+    }
+
+    /**
+     * Lee una línea terminada en {@code \n}, {@code \r} o {@code \r\n}, como
+     * {@link BufferedReader#readLine()}, pero guarda a lo sumo {@value #LONGITUD_MAXIMA_LINEA}
+     * caracteres más uno: el resto de una línea más larga se lee y se descarta.
+     *
+     * @param lector lector del cuerpo de la solicitud.
+     * @return línea sin el fin de línea, más larga que el límite si se truncó, o {@code null} al
+     *         final del archivo.
+     * @throws IOException si falla la lectura.
+     */
+    private static String leerLinea(BufferedReader lector) throws IOException {
+        var texto = new StringBuilder();
+        int c;
+        while ((c = lector.read()) >= 0) {
+            if (c == '\n') {
+                return texto.toString();
+            }
+            if (c == '\r') {
+                lector.mark(1);
+                if (lector.read() != '\n') {
+                    lector.reset();
+                }
+                return texto.toString();
+            }
+            if (texto.length() <= LONGITUD_MAXIMA_LINEA) {
+                texto.append((char) c);
+            }
+        }
+        return texto.isEmpty() ? null : texto.toString();
+    }
+
+    /**
+     * Divide una línea CSV por comas, respetando los valores entre comillas dobles.
+     *
+     * @param texto línea CSV.
+     * @return valores de la línea.
+     */
+    private static List<String> dividir(String texto) {
+        var valores = new ArrayList<String>();
+        var actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < texto.length() && texto.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                valores.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        valores.add(actual.toString());
+        return valores;
+    }
+}
@@ -1,5 +1,10 @@
 package com.udi.gaaf.autentificacion.usuario;
 
+import java.util.List;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
 /**
  * Representa los distintos roles que puede tener un usuario dentro del sistema.
  *
@@ -18,5 +23,18 @@ public enum Roles {
     GERENTE,
 
     /** Rol encargado de coordinar los procesos de compra y adquisición. */
-    COORDINADOR_COMPRAS
+    COORDINADOR_COMPRAS;
+
+    /** Autorizaciones de Spring Security asociadas al rol, calculadas una sola vez. */
+    private final List<GrantedAuthority> autoridades =
+            List.of(new SimpleGrantedAuthority("ROLE_" + name()));
+
+    /**
+     * Obtiene las autorizaciones asociadas al rol.
+     *
+     * @return lista inmutable con la autorización {@code ROLE_<rol>}.
+     */
+    public List<GrantedAuthority> getAutoridades() {
+        return autoridades;
+    }
 }
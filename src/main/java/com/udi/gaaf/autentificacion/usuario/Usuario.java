@@ -1,18 +1,17 @@
 package com.udi.gaaf.autentificacion.usuario;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
-import com.udi.gaaf.autentificacion.notificacion.Notificacion;
-
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -22,26 +21,39 @@ import lombok.Setter;
 
 /**
  * Entidad que representa al usuario 
+ * <p>El índice {@code rol_activo_id} atiende el listado paginado por {@code _id} con filtros
+ * por rol y estado, y {@code activo_id} el filtrado solo por estado.</p>
+ * <p>El nombre de usuario y el correo son únicos sin distinguir mayúsculas ({@link #COLACION}).
+ * Las consultas por esos campos deben usar la misma colación para aprovechar sus índices.</p>
+ * <p>Los usuarios existentes se modifican con actualizaciones parciales ({@code $set}), nunca
+ * reescribiendo el documento completo; cada una incrementa {@link #version}.</p>
 */
 
 
 @SuppressWarnings("serial")
 @Document(collection  = "usuario")
+@CompoundIndex(name = "rol_activo_id", def = "{'rol': 1, 'activo': 1, '_id': 1}")
+@CompoundIndex(name = "activo_id", def = "{'activo': 1, '_id': 1}")
 @Getter
 @Setter
 @NoArgsConstructor
 @EqualsAndHashCode(of ="id")
 public class Usuario implements UserDetails{
 	
+	/** Colación de los índices únicos: español, sin distinguir mayúsculas ni minúsculas. */
+	public static final String COLACION = "{ 'locale': 'es', 'strength': 2 }";
+	
 	/** Identificador del usuario. */
 	@Id
 	private String id;
 	/** Nombre de usuario. */
 	@Field("usuario")
+	@Indexed(name = "usuario_unico", unique = true, collation = COLACION)
 	private String usuario;
 	/** Nombre del usuario. */
 	private String nombre;
 	/** Correo del usuario. */
+	@Indexed(name = "correo_unico", unique = true, collation = COLACION)
 	private String correo;
 	/** Telefono del usuario. */
 	private String telefono;
@@ -52,8 +64,20 @@ public class Usuario implements UserDetails{
 	private Boolean activo;
 	/** Rol del usuario. */
 	private Roles rol;
-	/** Lista que representa las notificaciones. */
-	private List<Notificacion> notificacion;
+	/**
+	 * Versión del documento para el control de concurrencia optimista. {@code MongoTemplate} la
+	 * incrementa en cada actualización sobre esta entidad. Los documentos anteriores a este campo
+	 * no la tienen y empiezan en {@code null}.
+	 */
+	@Version
+	private Long version;
+	/**
+	 * Notificaciones embebidas que aún no se migran a la colección {@code notificacion}.
+	 * Las actualizaciones parciales no las tocan, así que se conservan hasta la migración; las
+	 * notificaciones se consultan con {@code NotificacionService}.
+	 */
+	@Deprecated
+	private List<org.bson.Document> notificacion;
 	/** Contructor para asignar valores. 
 	 * 
 	 * @param datos tipo Record del manejo de datos de entarada de registro de usuario
@@ -67,13 +91,11 @@ public class Usuario implements UserDetails{
 		this.contrasena = contraseñaEncriptada;
 		this.activo = true;
 		this.rol = datos.rol();
-		this.notificacion= new ArrayList<>();
 	}
 	/** Obtener autorización. */
 	@Override
 	public Collection<? extends GrantedAuthority> getAuthorities() {
-		String roles = "ROLE_" + rol.toString(); 	
-		return List.of(new SimpleGrantedAuthority(roles));
+		return rol.getAutoridades();
 	}
 	/** Obtener contraseña. */
 	@Override
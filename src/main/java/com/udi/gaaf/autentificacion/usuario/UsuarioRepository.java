@@ -3,6 +3,7 @@ package com.udi.gaaf.autentificacion.usuario;
 import java.util.Optional;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Repository;
 
@@ -11,31 +12,35 @@ import org.springframework.stereotype.Repository;
  * 
  * <p>Proporciona métodos personalizados para la búsqueda de usuarios
  * en la base de datos de MongoDB según diferentes criterios.</p>
+ *
+ * <p>Las búsquedas usadas para autenticar proyectan solo {@link #CAMPOS_AUTENTICACION}: la lista
+ * de notificaciones no se lee, de modo que autenticar a un usuario con miles de notificaciones
+ * cuesta lo mismo que a uno nuevo. El {@link Usuario} obtenido está incompleto y no debe
+ * guardarse con {@code save}.</p>
  */
 @Repository
 public interface UsuarioRepository extends MongoRepository<Usuario, String> {
     
+    /** Campos necesarios para autenticar y emitir el token; {@code _id} se incluye siempre. */
+    String CAMPOS_AUTENTICACION = "{ 'usuario': 1, 'nombre': 1, 'contrasena': 1, 'rol': 1, 'activo': 1 }";
+
     /**
-     * Obtiene los detalles de un usuario por su identificador único.
+     * Obtiene los detalles de un usuario por su identificador único, con los campos de
+     * {@link #CAMPOS_AUTENTICACION}.
      *
      * @param id identificador del usuario.
      * @return los detalles del usuario como {@link UserDetails}.
      */
+    @Query(value = "{ '_id': ?0 }", fields = CAMPOS_AUTENTICACION)
     UserDetails findDetailById(String id);
     
     /**
-     * Busca un usuario por su nombre de usuario.
+     * Busca un usuario por su nombre de usuario, sin distinguir mayúsculas, con los campos de
+     * {@link #CAMPOS_AUTENTICACION}. Usa la colación del índice único {@code usuario_unico}.
      *
      * @param usuario nombre de usuario.
      * @return un {@link Optional} que puede contener los detalles del usuario si existe.
      */
+    @Query(value = "{ 'usuario': ?0 }", fields = CAMPOS_AUTENTICACION, collation = Usuario.COLACION)
     Optional<UserDetails> findByUsuario(String usuario);
-    
-    /**
-     * Busca un usuario por su correo electrónico.
-     *
-     * @param correo dirección de correo del usuario.
-     * @return un {@link Optional} que puede contener los detalles del usuario si existe.
-     */
-    Optional<UserDetails> findByCorreo(String correo);
 }
@@ -1,14 +1,39 @@
 package com.udi.gaaf.autentificacion.usuario;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
 import java.util.List;
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.BooleanOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import com.udi.gaaf.autentificacion.common.DatosDetalleResponse;
+import com.udi.gaaf.autentificacion.common.IndicesMongo;
 import com.udi.gaaf.autentificacion.errors.BadRequestException;
 import com.udi.gaaf.autentificacion.errors.NotFoundException;
+import com.udi.gaaf.autentificacion.errors.ServicioSaturadoException;
+import com.udi.gaaf.autentificacion.notificacion.NotificacionService;
+import com.udi.gaaf.autentificacion.revocacion.RevocacionService;
 
 /**
  * Servicio que gestiona las operaciones relacionadas con los usuarios.
@@ -19,6 +44,11 @@ import com.udi.gaaf.autentificacion.errors.NotFoundException;
 @Service
 public class UsuarioService {
 
+    private static final Logger log = LoggerFactory.getLogger(UsuarioService.class);
+
+    /** Usuarios por lote en las operaciones masivas. */
+    private static final int LOTE_OPERACION_MASIVA = 1000;
+
     /** Repositorio para la gestión de entidades {@link Usuario}. */
     @Autowired
     private UsuarioRepository repository;
@@ -27,18 +57,25 @@ public class UsuarioService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
-    /**
-     * Verifica si existe un usuario en la base de datos mediante correo y nombre de usuario.
-     *
-     * @param correo correo electrónico del usuario.
-     * @param usuario nombre de usuario.
-     * @return {@code true} si existe un usuario con el correo o nombre indicado; {@code false} en caso contrario.
-     */
-    private Boolean existeUsuario(String correo, String usuario) {
-        var usuarioCorreo = repository.findByCorreo(correo);
-        var usuarioNombre = repository.findByUsuario(usuario);
-        return usuarioCorreo.isPresent() || usuarioNombre.isPresent();
-    }
+    /** Caché de principales autenticados que se invalida en cada modificación del usuario. */
+    @Autowired
+    private CachePrincipales cachePrincipales;
+
+    /** Servicio de revocación de los tokens emitidos para el usuario. */
+    @Autowired
+    private RevocacionService revocacionService;
+
+    /** Servicio de notificaciones, que se eliminan junto con el usuario. */
+    @Autowired
+    private NotificacionService notificacionService;
+
+    /** Índices de MongoDB, cuya existencia se exige antes de escribir usuario o correo. */
+    @Autowired
+    private IndicesMongo indicesMongo;
+
+    /** Plantilla de MongoDB para las actualizaciones parciales. */
+    @Autowired
+    private MongoTemplate mongoTemplate;
 
     /**
      * Obtiene un usuario por su identificador único.
@@ -73,52 +110,61 @@ public class UsuarioService {
     /**
      * Registra un nuevo usuario en el sistema.
      *
-     * <p>Valida si el usuario ya existe mediante correo o nombre de usuario,
-     * y encripta la contraseña antes de guardar los datos.</p>
+     * <p>Encripta la contraseña y guarda el usuario con una sola inserción. Los índices únicos
+     * de nombre de usuario y correo rechazan el duplicado, también entre registros simultáneos
+     * y sin distinguir mayúsculas.</p>
      *
      * @param datos record con la información necesaria para registrar un usuario.
      * @return entidad {@link Usuario} recién creada.
      * @throws BadRequestException si el usuario ya existe.
+     * @throws ServicioSaturadoException si faltan los índices únicos de usuario y correo.
      */
     public Usuario register(DatosRegistrarUsuario datos) {
-        if (existeUsuario(datos.correo(), datos.usuario())) {
-            throw new BadRequestException("El usuario ya existe.");
-        }
+        indicesMongo.exigirIndicesUnicos();
         String contraseñaEncriptada = passwordEncoder.encode(datos.contraseña());
         var usuario = new Usuario(datos, contraseñaEncriptada);
-        return repository.save(usuario);
+        try {
+            return repository.insert(usuario);
+        } catch (DuplicateKeyException e) {
+            throw new BadRequestException("El usuario ya existe.");
+        }
     }
 
     /**
      * Edita la información de un usuario existente.
      *
-     * <p>Actualiza únicamente los campos modificados en el record recibido.</p>
+     * <p>Escribe solo los campos editables con un {@code $set}, sin leer antes el documento, de
+     * modo que no se pisan el estado ni la contraseña que otra solicitud cambie al mismo tiempo.</p>
      *
      * @param datos record con la información de edición.
      * @param id identificador del usuario a editar.
      * @return record {@link DatosDetalleResponse} con el mensaje de operación exitosa.
      * @throws NotFoundException si no se encuentra el usuario.
+     * @throws BadRequestException si el nombre de usuario o el correo ya pertenecen a otro usuario.
+     * @throws ServicioSaturadoException si faltan los índices únicos de usuario y correo.
      */
     public DatosDetalleResponse editar(DatosEditarUsuario datos, String id) {
-    	
-    	try {
-    		var usuario = obtenerUsuarioPorId(id);
-    		if (!usuario.getNombre().equals(datos.nombre())) usuario.setNombre(datos.nombre());
-    		if (!usuario.getUsuario().equals(datos.usuario())) usuario.setUsuario(datos.usuario());
-    		if (!usuario.getCorreo().equals(datos.correo())) usuario.setCorreo(datos.correo());
-    		if (!usuario.getTelefono().equals(datos.telefono())) usuario.setTelefono(datos.telefono());
-    		if (usuario.getRol() != datos.rol()) usuario.setRol(datos.rol());    		
-    		repository.save(usuario);
-    		return new DatosDetalleResponse(200, "Usuario actualizado correctamente");
-		} catch (Exception e) {
-			throw new BadRequestException("Error al actualizar el usuario");
-		}
+        indicesMongo.exigirIndicesUnicos();
+        try {
+            var resultado = mongoTemplate.updateFirst(query(where("_id").is(id)), datos.actualizacion(), Usuario.class);
+            if (resultado.getMatchedCount() == 0) {
+                throw new NotFoundException("Usuario no encontrado por el ID: " + id);
+            }
+            cachePrincipales.invalidar(id);
+            return new DatosDetalleResponse(200, "Usuario actualizado correctamente");
+        } catch (NotFoundException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BadRequestException("Error al actualizar el usuario");
+        }
     }
 
     /**
      * Cambia la contraseña de un usuario según su identificador.
      *
-     * <p>Encripta la nueva contraseña y actualiza el registro solo si es diferente de la actual.</p>
+     * <p>Encripta la nueva contraseña y actualiza el registro solo si es diferente de la actual.
+     * La escritura se condiciona a la versión leída: si el usuario cambió mientras se calculaba
+     * el hash, no se aplica y se pide repetir la operación.</p>
      *
      * @param datos record con las nuevas credenciales.
      * @param id identificador del usuario.
@@ -131,16 +177,45 @@ public class UsuarioService {
 
             if (!passwordEncoder.matches(datos.contraseña(), usuario.getContrasena())) {
                 var contraseñaEncriptada = passwordEncoder.encode(datos.contraseña());
-                usuario.setContrasena(contraseñaEncriptada);
-                repository.save(usuario);
+                var resultado = mongoTemplate.updateFirst(
+                        query(where("_id").is(id).and("version").is(usuario.getVersion())),
+                        Update.update("contrasena", contraseñaEncriptada),
+                        Usuario.class);
+                if (resultado.getModifiedCount() == 0) {
+                    throw new BadRequestException("El usuario se modificó durante el cambio de contraseña. Intente de nuevo.");
+                }
+                cachePrincipales.invalidar(id);
+                revocacionService.revocarUsuario(id);
             }
             return new DatosDetalleResponse(200, "Contraseña cambiada correctamente.");
+        } catch (ServicioSaturadoException | BadRequestException e) {
+            throw e;
         } catch (Exception e) {
-            System.out.println("Error tipo: " + e);
+            log.error("Error al cambiar la contraseña del usuario {}", id, e);
             throw new BadRequestException("Error al cambiar la contraseña.");
         }
     }
 
+    /**
+     * Reemplaza el hash de la contraseña por uno calculado con la política vigente.
+     *
+     * <p>Solo actualiza el campo {@code contrasena} y únicamente si aún contiene el hash anterior,
+     * de modo que no se pisa un cambio de contraseña concurrente. No revoca los tokens del usuario
+     * porque la contraseña no cambia.</p>
+     *
+     * @param id identificador del usuario.
+     * @param hashAnterior hash almacenado que se verificó en el inicio de sesión.
+     * @param hashNuevo hash de la misma contraseña con la política vigente.
+     * @return {@code true} si el hash se reemplazó.
+     */
+    public boolean reemplazarHashContrasena(String id, String hashAnterior, String hashNuevo) {
+        var resultado = mongoTemplate.updateFirst(
+                query(where("_id").is(id).and("contrasena").is(hashAnterior)),
+                Update.update("contrasena", hashNuevo),
+                Usuario.class);
+        return resultado.getModifiedCount() > 0;
+    }
+
     /**
      * Obtiene un usuario por su identificador y devuelve su detalle.
      *
@@ -153,17 +228,42 @@ public class UsuarioService {
     }
 
     /**
-     * Obtiene la lista completa de usuarios registrados en el sistema.
+     * Obtiene una página de usuarios, filtrada por rol y estado.
      *
-     * @return lista de records {@link DatosDetalleUsuario}.
+     * <p>La consulta proyecta solo los campos de {@link DatosDetalleUsuario}, sin la contraseña
+     * ni las notificaciones, y pagina por cursor sobre {@code _id}.</p>
+     *
+     * @param consulta cursor, tamaño de página y filtros.
+     * @return página de records {@link DatosDetalleUsuario} con el cursor de la siguiente.
+     * @throws BadRequestException si el cursor no es válido.
+     */
+    public DatosPaginaUsuarios obtenerPagina(DatosConsultaUsuarios consulta) {
+        var usuarios = mongoTemplate.query(Usuario.class)
+                .as(DatosDetalleUsuario.class)
+                .matching(consulta.consultaPagina())
+                .all();
+        return DatosPaginaUsuarios.de(usuarios, consulta.tamanoPagina());
+    }
+
+    /**
+     * Recorre los usuarios que cumplen los filtros con un cursor de MongoDB, sin cargarlos todos
+     * en memoria. Se ignora el tamaño de página.
+     *
+     * <p>El llamador debe cerrar el {@link Stream} para liberar el cursor.</p>
+     *
+     * @param consulta cursor inicial y filtros.
+     * @return flujo de records {@link DatosDetalleUsuario} ordenados por identificador.
+     * @throws BadRequestException si el cursor no es válido.
      */
-    public List<DatosDetalleUsuario> obtenerTodos() {
-        var usuarios = repository.findAll();
-        return usuarios.stream().map(this::detalleUsuario).toList();
+    public Stream<DatosDetalleUsuario> transmitir(DatosConsultaUsuarios consulta) {
+        return mongoTemplate.query(Usuario.class)
+                .as(DatosDetalleUsuario.class)
+                .matching(consulta.consultaTransmision())
+                .stream();
     }
 
     /**
-     * Elimina un usuario del sistema según su identificador.
+     * Elimina un usuario del sistema según su identificador, junto con sus notificaciones.
      *
      * @param id identificador del usuario a eliminar.
      * @return record {@link DatosDetalleResponse} con el mensaje de eliminación exitosa.
@@ -171,21 +271,176 @@ public class UsuarioService {
     public DatosDetalleResponse eliminarPorId(String id) {
         var usuario = obtenerUsuarioPorId(id);
         repository.delete(usuario);
+        notificacionService.eliminarDeUsuario(id);
+        cachePrincipales.invalidar(id);
+        revocacionService.revocarUsuario(id);
         return new DatosDetalleResponse(200, "Usuario eliminado correctamente.");
     }
 
     /**
      * Cambia el estado de activación de un usuario.
      *
-     * <p>Si el usuario está activo, lo desactiva; si está inactivo, lo activa.</p>
+     * <p>Si el usuario está activo, lo desactiva; si está inactivo, lo activa. El cambio se
+     * calcula en el servidor con {@link #alternarEstado()} y {@code findAndModify}, así que dos
+     * cambios simultáneos se aplican uno tras otro en lugar de anularse.</p>
      *
      * @param id identificador del usuario.
      * @return record {@link DatosDetalleResponse} con el mensaje de confirmación del cambio.
+     * @throws NotFoundException si no se encuentra el usuario.
      */
     public DatosDetalleResponse cambiarEstado(String id) {
-        var usuario = obtenerUsuarioPorId(id);
-        usuario.setActivo(!usuario.getActivo());
-        repository.save(usuario);
+        var consulta = query(where("_id").is(id));
+        consulta.fields().include("activo");
+        var usuario = mongoTemplate.findAndModify(consulta, alternarEstado(),
+                FindAndModifyOptions.options().returnNew(true), Usuario.class);
+        if (usuario == null) {
+            throw new NotFoundException("Usuario no encontrado por el ID: " + id);
+        }
+        cachePrincipales.invalidar(id);
+        if (!usuario.getActivo()) {
+            revocacionService.revocarUsuario(id);
+        }
         return new DatosDetalleResponse(200, "Estado del usuario cambiado correctamente.");
     }
+
+    /**
+     * Construye la actualización que invierte {@code activo} en el servidor.
+     *
+     * <p>Es un pipeline de actualización, porque {@code $set} no puede leer el valor actual. La
+     * versión se incrementa en el mismo pipeline, partiendo de {@code 0} en los documentos que
+     * aún no la tienen.</p>
+     *
+     * @return actualización nueva en cada llamada, porque {@link AggregationUpdate} es mutable.
+     */
+    public static AggregationUpdate alternarEstado() {
+        return AggregationUpdate.update()
+                .set("activo").toValue(BooleanOperators.Not.not("activo"))
+                .set("version").toValue(ArithmeticOperators.Add
+                        .valueOf(ConditionalOperators.ifNull("version").then(0))
+                        .add(1));
+    }
+
+    /**
+     * Activa o desactiva los usuarios seleccionados, una actualización por lote.
+     *
+     * <p>Solo se actualizan los que tienen otro estado. Se invalidan sus principales en caché y,
+     * al desactivarlos, se revocan sus tokens.</p>
+     *
+     * @param datos selección y estado que se asigna.
+     * @return usuarios seleccionados y modificados.
+     * @throws BadRequestException si la selección está vacía o tiene identificadores no válidos.
+     */
+    public DatosResultadoOperacionMasiva cambiarEstados(DatosCambiarEstadoUsuarios datos) {
+        return actualizar(datos.seleccion(), "activo", datos.activo(), !datos.activo());
+    }
+
+    /**
+     * Cambia el rol de los usuarios seleccionados, una actualización por lote.
+     *
+     * <p>Solo se actualizan los que tienen otro rol. Se invalidan sus principales en caché y se
+     * revocan sus tokens, que llevan el rol anterior en sus claims.</p>
+     *
+     * @param datos selección y rol que se asigna.
+     * @return usuarios seleccionados y modificados.
+     * @throws BadRequestException si la selección está vacía o tiene identificadores no válidos.
+     */
+    public DatosResultadoOperacionMasiva cambiarRoles(DatosCambiarRolUsuarios datos) {
+        return actualizar(datos.seleccion(), "rol", datos.rol(), true);
+    }
+
+    /**
+     * Elimina los usuarios seleccionados junto con sus notificaciones, una eliminación por lote.
+     * Se invalidan sus principales en caché y se revocan sus tokens.
+     *
+     * @param seleccion usuarios a eliminar.
+     * @return usuarios seleccionados y eliminados.
+     * @throws BadRequestException si la selección está vacía o tiene identificadores no válidos.
+     */
+    public DatosResultadoOperacionMasiva eliminar(DatosSeleccionUsuarios seleccion) {
+        return procesarPorLotes(seleccion.criterio(), null, lote -> {
+            var ids = lote.stream().map(u -> u.getObjectId("_id")).toList();
+            var resultado = mongoTemplate.remove(query(where("_id").in(ids)), Usuario.class);
+            var usuarioIds = ids.stream().map(ObjectId::toHexString).toList();
+            notificacionService.eliminarDeUsuarios(usuarioIds);
+            usuarioIds.forEach(cachePrincipales::invalidar);
+            revocacionService.revocarUsuarios(usuarioIds);
+            return resultado.getDeletedCount();
+        });
+    }
+
+    /**
+     * Asigna un valor a un campo de los usuarios seleccionados que tienen otro valor.
+     *
+     * <p>En cada lote se leen los identificadores y el valor actual de los seleccionados, y
+     * después se actualizan con un {@code updateMany} que vuelve a comprobar el valor, de modo que
+     * un cambio concurrente no se pisa.</p>
+     *
+     * @param seleccion usuarios seleccionados.
+     * @param campo campo a modificar.
+     * @param valor valor que se asigna.
+     * @param revocar {@code true} si se deben revocar los tokens de los usuarios modificados.
+     * @return usuarios seleccionados y modificados.
+     */
+    private DatosResultadoOperacionMasiva actualizar(DatosSeleccionUsuarios seleccion, String campo, Object valor,
+            boolean revocar) {
+        var almacenado = valor instanceof Enum<?> constante ? constante.name() : valor;
+        return procesarPorLotes(seleccion.criterio(), campo, lote -> {
+            var ids = lote.stream()
+                    .filter(u -> !Objects.equals(u.get(campo), almacenado))
+                    .map(u -> u.getObjectId("_id"))
+                    .toList();
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            var resultado = mongoTemplate.updateMulti(
+                    query(where("_id").in(ids).and(campo).ne(valor)),
+                    Update.update(campo, valor),
+                    Usuario.class);
+            var usuarioIds = ids.stream().map(ObjectId::toHexString).toList();
+            usuarioIds.forEach(cachePrincipales::invalidar);
+            if (revocar) {
+                revocacionService.revocarUsuarios(usuarioIds);
+            }
+            return resultado.getModifiedCount();
+        });
+    }
+
+    /**
+     * Recorre los usuarios seleccionados en lotes de {@value #LOTE_OPERACION_MASIVA}, en orden de
+     * {@code _id}, y aplica la operación a cada lote.
+     *
+     * <p>Cada lote se pide a partir del último {@code _id} del anterior, así que ni la memoria ni
+     * el tamaño de los comandos crecen con la selección, aunque un filtro abarque a todos los
+     * usuarios. Los usuarios que la operación saca del filtro no desplazan el recorrido.</p>
+     *
+     * @param criterio criterio de la selección.
+     * @param campo campo a incluir en la proyección además de {@code _id}, o {@code null}.
+     * @param operacion operación sobre los documentos de un lote; devuelve los modificados.
+     * @return usuarios seleccionados y modificados en total.
+     */
+    private DatosResultadoOperacionMasiva procesarPorLotes(Criteria criterio, String campo,
+            ToLongFunction<List<Document>> operacion) {
+        long seleccionados = 0;
+        long modificados = 0;
+        ObjectId ultimo = null;
+        while (true) {
+            var filtro = ultimo == null ? criterio : new Criteria().andOperator(criterio, where("_id").gt(ultimo));
+            var consulta = query(filtro).with(Sort.by("_id")).limit(LOTE_OPERACION_MASIVA);
+            consulta.fields().include("_id");
+            if (campo != null) {
+                consulta.fields().include(campo);
+            }
+            var lote = mongoTemplate.find(consulta, Document.class, "usuario");
+            if (lote.isEmpty()) {
+                break;
+            }
+            seleccionados += lote.size();
+            modificados += operacion.applyAsLong(lote);
+            if (lote.size() < LOTE_OPERACION_MASIVA) {
+                break;
+            }
+            ultimo = lote.get(lote.size() - 1).getObjectId("_id");
+        }
+        return new DatosResultadoOperacionMasiva(seleccionados, modificados);
+    }
 }
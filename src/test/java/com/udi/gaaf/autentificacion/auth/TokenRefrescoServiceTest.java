@@ -0,0 +1,90 @@
+package com.udi.gaaf.autentificacion.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.udi.gaaf.autentificacion.errors.AuthenticationException;
+
+/**
+ * Verifica contra un MongoDB real la rotación de los tokens de refresco: cada token sirve una
+ * sola vez y presentar de nuevo uno ya rotado revoca toda su familia. Requiere Docker; sin él,
+ * las pruebas se omiten.
+ */
+@SpringBootTest(properties = {
+		"spring.application.name=autentificacion-test",
+		"api.jwt.secret=secreto-de-prueba",
+		"eureka.client.enabled=false",
+		"api.mongo.crear-indices=false",
+		"api.notificaciones.migrar=false"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class TokenRefrescoServiceTest {
+
+	@Container
+	@ServiceConnection
+	static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+	/** Identificador del usuario de prueba. */
+	private static final String USUARIO = "usuario-refresco";
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	@Autowired
+	private TokenRefrescoService tokenRefrescoService;
+
+	@BeforeEach
+	void limpiar() {
+		mongoTemplate.remove(new Query(), TokenRefresco.class);
+	}
+
+	@Test
+	void rotarEntregaUnTokenNuevoDeLaMismaFamilia() {
+		var inicial = tokenRefrescoService.emitir(USUARIO);
+
+		var rotacion = tokenRefrescoService.rotar(inicial);
+
+		assertThat(rotacion.usuarioId()).isEqualTo(USUARIO);
+		assertThat(rotacion.tokenRefresco()).isNotEqualTo(inicial);
+		var tokens = mongoTemplate.findAll(TokenRefresco.class);
+		assertThat(tokens).hasSize(2);
+		assertThat(tokens).extracting(TokenRefresco::getFamilia).containsOnly(tokens.get(0).getFamilia());
+		assertThat(tokens).extracting(TokenRefresco::getUsado).containsExactlyInAnyOrder(true, false);
+	}
+
+	@Test
+	void reutilizarUnTokenRotadoRevocaTodaLaFamilia() {
+		var inicial = tokenRefrescoService.emitir(USUARIO);
+		var otraSesion = tokenRefrescoService.emitir(USUARIO);
+		var rotado = tokenRefrescoService.rotar(inicial).tokenRefresco();
+
+		assertThatThrownBy(() -> tokenRefrescoService.rotar(inicial))
+				.isInstanceOf(AuthenticationException.class);
+
+		// El token más reciente de la familia también quedó revocado
+		assertThatThrownBy(() -> tokenRefrescoService.rotar(rotado))
+				.isInstanceOf(AuthenticationException.class);
+		// Las demás familias del usuario no se ven afectadas
+		assertThat(tokenRefrescoService.rotar(otraSesion).usuarioId()).isEqualTo(USUARIO);
+	}
+
+	@Test
+	void rotarUnTokenDesconocidoFalla() {
+		tokenRefrescoService.emitir(USUARIO);
+
+		assertThatThrownBy(() -> tokenRefrescoService.rotar("token-desconocido"))
+				.isInstanceOf(AuthenticationException.class);
+		assertThat(mongoTemplate.count(new Query(), TokenRefresco.class)).isEqualTo(1);
+	}
+}
@@ -0,0 +1,77 @@
+package com.udi.gaaf.autentificacion.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifica el conteo de {@link VentanaDeslizante} con instantes explícitos: los eventos salen de
+ * la ventana franja por franja, y la espera del bloqueo se duplica hasta el máximo.
+ */
+class VentanaDeslizanteTest {
+
+	/** Ventana de un minuto. */
+	private static final long VENTANA = 60_000;
+
+	/** Franjas de diez segundos. */
+	private static final int FRANJAS = 6;
+
+	@Test
+	void cuentaLosEventosDeLaVentana() {
+		var ventana = new VentanaDeslizante(VENTANA, FRANJAS);
+
+		assertThat(ventana.registrar(0)).isEqualTo(1);
+		assertThat(ventana.registrar(5_000)).isEqualTo(2);
+		assertThat(ventana.registrar(25_000)).isEqualTo(3);
+		assertThat(ventana.contar(59_999)).isEqualTo(3);
+	}
+
+	@Test
+	void losEventosSalenFranjaPorFranja() {
+		var ventana = new VentanaDeslizante(VENTANA, FRANJAS);
+		ventana.registrar(0);
+		ventana.registrar(9_999);
+		ventana.registrar(25_000);
+
+		// La primera franja sale de la ventana al empezar la séptima
+		assertThat(ventana.contar(60_000)).isEqualTo(1);
+		assertThat(ventana.contar(79_999)).isEqualTo(1);
+		assertThat(ventana.contar(80_000)).isZero();
+	}
+
+	@Test
+	void unaFranjaAntiguaSeReemplazaAlReutilizarse() {
+		var ventana = new VentanaDeslizante(VENTANA, FRANJAS);
+		ventana.registrar(0);
+		ventana.registrar(1_000);
+
+		// El intervalo 6 ocupa la misma posición que el 0
+		assertThat(ventana.registrar(60_000)).isEqualTo(1);
+	}
+
+	@Test
+	void laEsperaSeDuplicaHastaElMaximo() {
+		var ventana = new VentanaDeslizante(VENTANA, FRANJAS);
+
+		assertThat(ventana.bloquear(0, 1_000, 5_000)).isEqualTo(1_000);
+		assertThat(ventana.bloquear(0, 1_000, 5_000)).isEqualTo(2_000);
+		assertThat(ventana.bloquear(0, 1_000, 5_000)).isEqualTo(4_000);
+		assertThat(ventana.bloquear(0, 1_000, 5_000)).isEqualTo(5_000);
+		assertThat(ventana.restanteBloqueo(1_000)).isEqualTo(4_000);
+		assertThat(ventana.restanteBloqueo(5_000)).isZero();
+	}
+
+	@Test
+	void reiniciarBorraElConteoYLaEspera() {
+		var ventana = new VentanaDeslizante(VENTANA, FRANJAS);
+		ventana.registrar(0);
+		ventana.bloquear(0, 1_000, 5_000);
+		ventana.bloquear(0, 1_000, 5_000);
+
+		ventana.reiniciar();
+
+		assertThat(ventana.contar(0)).isZero();
+		assertThat(ventana.restanteBloqueo(0)).isZero();
+		assertThat(ventana.bloquear(0, 1_000, 5_000)).isEqualTo(1_000);
+	}
+}
@@ -0,0 +1,209 @@
+package com.udi.gaaf.autentificacion.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.mongodb.client.model.Collation;
+import com.mongodb.client.model.CollationStrength;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import com.udi.gaaf.autentificacion.errors.BadRequestException;
+import com.udi.gaaf.autentificacion.usuario.DatosRegistrarUsuario;
+import com.udi.gaaf.autentificacion.usuario.Roles;
+import com.udi.gaaf.autentificacion.usuario.Usuario;
+import com.udi.gaaf.autentificacion.usuario.UsuarioRepository;
+import com.udi.gaaf.autentificacion.usuario.UsuarioService;
+
+/**
+ * Verifica contra un MongoDB real que las consultas frecuentes sobre usuarios recorren sus
+ * índices ({@code IXSCAN}) y que los índices únicos rechazan los registros duplicados.
+ * Requiere Docker; sin él, las pruebas se omiten.
+ */
+@SpringBootTest(properties = {
+		"spring.application.name=autentificacion-test",
+		"api.jwt.secret=secreto-de-prueba",
+		"eureka.client.enabled=false",
+		"api.mongo.crear-indices=false",
+		"api.notificaciones.migrar=false"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class IndicesMongoTest {
+
+	@Container
+	@ServiceConnection
+	static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+	/** Colación de los índices únicos, como la declara {@link Usuario#COLACION}. */
+	private static final Collation COLACION = Collation.builder()
+			.locale("es")
+			.collationStrength(CollationStrength.SECONDARY)
+			.build();
+
+	@Autowired
+	private IndicesMongo indicesMongo;
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	@Autowired
+	private UsuarioService usuarioService;
+
+	@Autowired
+	private UsuarioRepository repository;
+
+	@BeforeEach
+	void preparar() {
+		indicesMongo.crear();
+		mongoTemplate.remove(new Query(), Usuario.class);
+		var usuarios = new ArrayList<Usuario>();
+		for (int i = 0; i < 300; i++) {
+			var rol = i % 50 == 0 ? Roles.GERENTE : Roles.JEFE_BODEGA;
+			var usuario = new Usuario(new DatosRegistrarUsuario("Usuario " + i, "usuario" + i,
+					"usuario" + i + "@example.com", "300000" + i, "-", rol), "hash");
+			usuario.setActivo(i % 30 != 0);
+			usuarios.add(usuario);
+		}
+		mongoTemplate.insertAll(usuarios);
+	}
+
+	@Test
+	void busquedaPorUsuarioRecorreIndiceUnico() {
+		var plan = etapas(Filters.eq("usuario", "USUARIO7"), null, COLACION);
+		assertThat(plan).contains("IXSCAN:usuario_unico").doesNotContain("COLLSCAN");
+	}
+
+	@Test
+	void busquedaPorCorreoRecorreIndiceUnico() {
+		var plan = etapas(Filters.eq("correo", "Usuario7@Example.com"), null, COLACION);
+		assertThat(plan).contains("IXSCAN:correo_unico").doesNotContain("COLLSCAN");
+	}
+
+	@Test
+	void duplicadosDeImportacionRecorrenAmbosIndices() {
+		var filtro = Filters.or(
+				Filters.in("usuario", "usuario1", "nuevo"),
+				Filters.in("correo", "usuario1@example.com", "nuevo@example.com"));
+		var plan = etapas(filtro, null, COLACION);
+		assertThat(plan).contains("IXSCAN:usuario_unico", "IXSCAN:correo_unico").doesNotContain("COLLSCAN");
+	}
+
+	@Test
+	void listadoPorRolYEstadoRecorreIndiceCompuesto() {
+		var plan = etapas(Filters.and(Filters.eq("rol", "GERENTE"), Filters.eq("activo", true)),
+				Sorts.ascending("_id"), null);
+		assertThat(plan).contains("IXSCAN:rol_activo_id").doesNotContain("COLLSCAN", "SORT");
+	}
+
+	@Test
+	void listadoPorEstadoRecorreIndiceDeEstado() {
+		var plan = etapas(Filters.eq("activo", false), Sorts.ascending("_id"), null);
+		assertThat(plan).contains("IXSCAN:activo_id").doesNotContain("COLLSCAN", "SORT");
+	}
+
+	@Test
+	void inicioDeSesionNoDistingueMayusculas() {
+		assertThat(repository.findByUsuario("USUARIO7")).isPresent();
+	}
+
+	@Test
+	void registroDuplicadoSinDistinguirMayusculasSeRechaza() {
+		assertThatThrownBy(() -> usuarioService.register(datos("USUARIO7", "otro@example.com")))
+				.isInstanceOf(BadRequestException.class);
+		assertThatThrownBy(() -> usuarioService.register(datos("otro", "USUARIO7@EXAMPLE.COM")))
+				.isInstanceOf(BadRequestException.class);
+	}
+
+	@Test
+	void duplicadosSinDistinguirMayusculasSeDetectan() {
+		mongoTemplate.indexOps(Usuario.class).dropIndex("usuario_unico");
+		var duplicado = new Document("usuario", "USUARIO7").append("correo", "duplicado@example.com");
+		mongoTemplate.getCollection("usuario").insertOne(duplicado);
+		try {
+			var duplicados = indicesMongo.duplicados("usuario");
+			assertThat(duplicados).hasSize(1);
+			assertThat(duplicados.get(0).get("cantidad", Number.class).intValue()).isEqualTo(2);
+			assertThat(indicesMongo.duplicados("correo")).isEmpty();
+		} finally {
+			mongoTemplate.getCollection("usuario").deleteOne(Filters.eq("_id", duplicado.get("_id")));
+		}
+	}
+
+	@Test
+	void registrosSimultaneosDelMismoUsuarioCreanUnoSolo() throws InterruptedException {
+		// Sin superar el límite mínimo del ejecutor de hash, para que ningún registro se rechace por saturación
+		int intentos = Math.max(2, Runtime.getRuntime().availableProcessors());
+		var tareas = new ArrayList<Callable<Usuario>>();
+		for (int i = 0; i < intentos; i++) {
+			var correo = "simultaneo" + i + "@example.com";
+			tareas.add(() -> usuarioService.register(datos("simultaneo", correo)));
+		}
+		int creados = 0;
+		int rechazados = 0;
+		try (var hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (var futuro : hilos.invokeAll(tareas)) {
+				try {
+					futuro.get();
+					creados++;
+				} catch (ExecutionException ex) {
+					assertThat(ex.getCause()).isInstanceOf(BadRequestException.class);
+					rechazados++;
+				}
+			}
+		}
+		assertThat(creados).isEqualTo(1);
+		assertThat(rechazados).isEqualTo(intentos - 1);
+	}
+
+	/**
+	 * Obtiene las etapas del plan ganador de una consulta, como {@code ETAPA} o
+	 * {@code IXSCAN:indice}.
+	 */
+	private List<String> etapas(Bson filtro, Bson orden, Collation colacion) {
+		var consulta = mongoTemplate.getCollection("usuario").find(filtro);
+		if (orden != null) {
+			consulta.sort(orden);
+		}
+		if (colacion != null) {
+			consulta.collation(colacion);
+		}
+		var explicacion = consulta.explain();
+		var etapas = new ArrayList<String>();
+		recorrer(explicacion.get("queryPlanner", Document.class).get("winningPlan"), etapas);
+		return etapas;
+	}
+
+	/** Recorre el plan y agrega cada etapa encontrada. */
+	private static void recorrer(Object nodo, List<String> etapas) {
+		if (nodo instanceof Document documento) {
+			if (documento.get("stage") instanceof String etapa) {
+				etapas.add(etapa.equals("IXSCAN") ? etapa + ":" + documento.getString("indexName") : etapa);
+			}
+			documento.values().forEach(valor -> recorrer(valor, etapas));
+		} else if (nodo instanceof List<?> lista) {
+			lista.forEach(valor -> recorrer(valor, etapas));
+		}
+	}
+
+	private static DatosRegistrarUsuario datos(String usuario, String correo) {
+		return new DatosRegistrarUsuario("Nombre", usuario, correo, "3001234567", "Clave-segura1", Roles.GERENTE);
+	}
+}
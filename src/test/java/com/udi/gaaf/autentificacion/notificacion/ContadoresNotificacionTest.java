@@ -0,0 +1,120 @@
+package com.udi.gaaf.autentificacion.notificacion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Verifica contra un MongoDB real que la reconciliación corrige los contadores desviados y que
+ * no pisa un {@code $inc} que llega mientras corrige. Requiere Docker; sin él, las pruebas se
+ * omiten.
+ */
+@SpringBootTest(properties = {
+		"spring.application.name=autentificacion-test",
+		"api.jwt.secret=secreto-de-prueba",
+		"eureka.client.enabled=false",
+		"api.mongo.crear-indices=false",
+		"api.notificaciones.migrar=false"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class ContadoresNotificacionTest {
+
+	@Container
+	@ServiceConnection
+	static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+	/** Usuario cuyo contador está desviado. */
+	private static final String DESVIADO = "usuario-desviado";
+
+	/** Usuario con notificaciones pero sin contador. */
+	private static final String SIN_CONTADOR = "usuario-sin-contador";
+
+	/** Usuario con contador pero sin notificaciones. */
+	private static final String SIN_NOTIFICACIONES = "usuario-sin-notificaciones";
+
+	@MockitoSpyBean
+	private MongoTemplate mongoTemplate;
+
+	@Autowired
+	private ContadoresNotificacion contadores;
+
+	@BeforeEach
+	void preparar() {
+		mongoTemplate.remove(new Query(), Notificacion.class);
+		mongoTemplate.remove(new Query(), ContadorNotificaciones.class);
+
+		notificar(DESVIADO, EstadoNotificacion.NO_VISTA);
+		notificar(DESVIADO, EstadoNotificacion.NO_VISTA);
+		notificar(DESVIADO, EstadoNotificacion.VISTA);
+		guardarContador(DESVIADO, 5, 0, 7);
+	}
+
+	@Test
+	void reconciliarCorrigeLosContadoresDesviados() {
+		notificar(SIN_CONTADOR, EstadoNotificacion.RESUELTA);
+		guardarContador(SIN_NOTIFICACIONES, 3, 1, 0);
+
+		contadores.reconciliar();
+
+		assertThat(contadores.obtener(DESVIADO)).isEqualTo(new DatosContadorNotificaciones(2, 1, 0));
+		assertThat(contadores.obtener(SIN_CONTADOR)).isEqualTo(new DatosContadorNotificaciones(0, 0, 1));
+		assertThat(contadores.obtener(SIN_NOTIFICACIONES)).isEqualTo(new DatosContadorNotificaciones(0, 0, 0));
+	}
+
+	@Test
+	void reconciliarNoPisaUnIncrementoConcurrente() {
+		// Justo antes de la corrección llega una notificación nueva con su $inc
+		var interferir = new AtomicBoolean(true);
+		doAnswer(invocacion -> {
+			if (interferir.getAndSet(false)) {
+				notificar(DESVIADO, EstadoNotificacion.NO_VISTA);
+				contadores.registrar(DESVIADO, EstadoNotificacion.NO_VISTA);
+			}
+			return invocacion.callRealMethod();
+		}).when(mongoTemplate).updateFirst(any(Query.class), any(UpdateDefinition.class),
+				eq(ContadorNotificaciones.class));
+
+		contadores.reconciliar();
+
+		// La corrección se descartó y el $inc se conserva
+		assertThat(interferir).isFalse();
+		assertThat(contadores.obtener(DESVIADO)).isEqualTo(new DatosContadorNotificaciones(6, 0, 7));
+
+		contadores.reconciliar();
+
+		assertThat(contadores.obtener(DESVIADO)).isEqualTo(new DatosContadorNotificaciones(3, 1, 0));
+	}
+
+	/** Inserta una notificación del usuario en el estado indicado, sin tocar su contador. */
+	private void notificar(String usuarioId, EstadoNotificacion estado) {
+		var notificacion = new Notificacion(usuarioId, "Mensaje de prueba", "remitente");
+		notificacion.setEstado(estado);
+		mongoTemplate.insert(notificacion);
+	}
+
+	/** Guarda un contador con los valores indicados. */
+	private void guardarContador(String usuarioId, long noVista, long vista, long resuelta) {
+		var contador = new ContadorNotificaciones();
+		contador.setId(usuarioId);
+		contador.setNoVista(noVista);
+		contador.setVista(vista);
+		contador.setResuelta(resuelta);
+		mongoTemplate.insert(contador);
+	}
+}
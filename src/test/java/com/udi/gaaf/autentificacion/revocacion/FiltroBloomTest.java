@@ -0,0 +1,89 @@
+package com.udi.gaaf.autentificacion.revocacion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifica que {@link FiltroBloom} no tiene falsos negativos, ni siquiera con inserciones
+ * simultáneas, y que su tasa de falsos positivos se mantiene cerca de la configurada.
+ */
+class FiltroBloomTest {
+
+	/** Elementos agregados en cada prueba. */
+	private static final int CAPACIDAD = 10_000;
+
+	/** Tasa de falsos positivos configurada. */
+	private static final double FALSOS_POSITIVOS = 0.01;
+
+	@Test
+	void filtroVacioNoContieneNada() {
+		var filtro = new FiltroBloom(CAPACIDAD, FALSOS_POSITIVOS);
+
+		assertThat(filtro.podriaContener("usuario:abc")).isFalse();
+		assertThat(filtro.podriaContener("")).isFalse();
+	}
+
+	@Test
+	void contieneTodoLoAgregado() {
+		var filtro = new FiltroBloom(CAPACIDAD, FALSOS_POSITIVOS);
+		for (int i = 0; i < CAPACIDAD; i++) {
+			filtro.agregar("token:" + i);
+		}
+
+		for (int i = 0; i < CAPACIDAD; i++) {
+			assertThat(filtro.podriaContener("token:" + i)).as("token:%d", i).isTrue();
+		}
+	}
+
+	@Test
+	void tasaDeFalsosPositivosCercanaALaConfigurada() {
+		var filtro = new FiltroBloom(CAPACIDAD, FALSOS_POSITIVOS);
+		for (int i = 0; i < CAPACIDAD; i++) {
+			filtro.agregar("token:" + i);
+		}
+
+		int consultas = 100_000;
+		int falsosPositivos = 0;
+		for (int i = 0; i < consultas; i++) {
+			if (filtro.podriaContener("otro:" + i)) {
+				falsosPositivos++;
+			}
+		}
+		assertThat((double) falsosPositivos / consultas).isLessThan(FALSOS_POSITIVOS * 2);
+	}
+
+	@Test
+	void insercionesSimultaneasNoSePierden() throws InterruptedException {
+		var filtro = new FiltroBloom(CAPACIDAD, FALSOS_POSITIVOS);
+		int hilos = 8;
+		var tareas = new ArrayList<Callable<Object>>();
+		for (int h = 0; h < hilos; h++) {
+			int hilo = h;
+			tareas.add(() -> {
+				for (int i = hilo; i < CAPACIDAD; i += hilos) {
+					filtro.agregar("token:" + i);
+				}
+				return null;
+			});
+		}
+		try (var ejecutor = Executors.newFixedThreadPool(hilos)) {
+			for (var futuro : ejecutor.invokeAll(tareas)) {
+				try {
+					futuro.get();
+				} catch (ExecutionException ex) {
+					throw new AssertionError(ex.getCause());
+				}
+			}
+		}
+
+		for (int i = 0; i < CAPACIDAD; i++) {
+			assertThat(filtro.podriaContener("token:" + i)).as("token:%d", i).isTrue();
+		}
+	}
+}
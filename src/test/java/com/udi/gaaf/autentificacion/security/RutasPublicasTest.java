@@ -0,0 +1,81 @@
+package com.udi.gaaf.autentificacion.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Verifica qué rutas recorre {@link RutasPublicas} como públicas: los límites de segmento, la
+ * barra final, las rutas administrativas debajo de {@code /usuario/**} y Actuator, que ya no
+ * figura en la tabla.
+ */
+class RutasPublicasTest {
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+			"/auth",
+			"/auth/",
+			"/auth/x",
+			"/auth/login/x",
+			"/usuario",
+			"/usuario/",
+			"/usuario/abc",
+			"/usuario/estado/abc",
+			"/v3/api-docs",
+			"/docs/swagger-config",
+			"/swagger-ui.html",
+			"/swagger-ui/index.html"
+	})
+	void rutasPublicas(String ruta) {
+		assertThat(RutasPublicas.esPublica(ruta)).isTrue();
+	}
+
+	@ParameterizedTest
+	@NullAndEmptySource
+	@ValueSource(strings = {
+			"/",
+			"auth",
+			"/authx",
+			"/authx/login",
+			"/usuarios",
+			"/swagger-ui.html/",
+			"/swagger-ui.htmlx",
+			"/notificacion",
+			"/actuator/prometheus",
+			"/actuator/metrics",
+			"/actuator/health"
+	})
+	void rutasProtegidas(String ruta) {
+		assertThat(RutasPublicas.esPublica(ruta)).isFalse();
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+			"/usuario/importar",
+			"/usuario/importar/",
+			"/usuario/estado",
+			"/usuario/estado/",
+			"/usuario/rol",
+			"/usuario/eliminar"
+	})
+	void rutasAdministrativasNoSonPublicas(String ruta) {
+		assertThat(RutasPublicas.esAdministrativa(ruta)).isTrue();
+		assertThat(RutasPublicas.esPublica(ruta)).isFalse();
+	}
+
+	@ParameterizedTest
+	@NullAndEmptySource
+	@ValueSource(strings = {
+			"/usuario",
+			"/usuario/",
+			"/usuario/importarx",
+			"/usuario/estado/abc",
+			"/usuario/rol/abc",
+			"/importar"
+	})
+	void rutasNoAdministrativas(String ruta) {
+		assertThat(RutasPublicas.esAdministrativa(ruta)).isFalse();
+	}
+}
@@ -0,0 +1,130 @@
+package com.udi.gaaf.autentificacion.usuario;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Verifica contra un MongoDB real que las ediciones y los cambios de estado simultáneos sobre
+ * un mismo usuario no se pierden: cada operación se aplica exactamente una vez e incrementa la
+ * versión. Requiere Docker; sin él, las pruebas se omiten.
+ */
+@SpringBootTest(properties = {
+		"spring.application.name=autentificacion-test",
+		"api.jwt.secret=secreto-de-prueba",
+		"eureka.client.enabled=false",
+		"api.notificaciones.migrar=false"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class ConcurrenciaUsuarioTest {
+
+	@Container
+	@ServiceConnection
+	static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+	/** Hilos que operan a la vez sobre el usuario. */
+	private static final int HILOS = 16;
+
+	/** Operaciones de cada hilo. */
+	private static final int OPERACIONES = 25;
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	@Autowired
+	private UsuarioService usuarioService;
+
+	/** Identificador del usuario de prueba. */
+	private String id;
+
+	@BeforeEach
+	void preparar() {
+		mongoTemplate.remove(new Query(), Usuario.class);
+		// Documento sin versión, como los creados antes de agregar el campo
+		var documento = new Document("usuario", "concurrente")
+				.append("nombre", "Concurrente")
+				.append("correo", "concurrente@example.com")
+				.append("telefono", "3000000000")
+				.append("contrasena", "hash")
+				.append("activo", true)
+				.append("rol", Roles.GERENTE.name());
+		mongoTemplate.getCollection("usuario").insertOne(documento);
+		id = documento.getObjectId("_id").toHexString();
+	}
+
+	@Test
+	void cambiosDeEstadoSimultaneosNoSeAnulan() throws InterruptedException {
+		var tareas = new ArrayList<Callable<Object>>();
+		for (int i = 0; i < HILOS; i++) {
+			tareas.add(() -> {
+				for (int j = 0; j < OPERACIONES; j++) {
+					usuarioService.cambiarEstado(id);
+				}
+				return null;
+			});
+		}
+		ejecutar(tareas);
+
+		int total = HILOS * OPERACIONES;
+		var usuario = mongoTemplate.findById(id, Usuario.class);
+		assertThat(usuario.getVersion()).isEqualTo((long) total);
+		assertThat(usuario.getActivo()).isEqualTo(total % 2 == 0);
+	}
+
+	@Test
+	void edicionesSimultaneasNoPisanElEstadoNiLaContrasena() throws InterruptedException {
+		var tareas = new ArrayList<Callable<Object>>();
+		for (int i = 0; i < HILOS; i++) {
+			var telefono = "30000000" + String.format("%02d", i);
+			boolean edita = i % 2 == 0;
+			tareas.add(() -> {
+				for (int j = 0; j < OPERACIONES; j++) {
+					if (edita) {
+						usuarioService.editar(new DatosEditarUsuario("Concurrente", "concurrente",
+								"concurrente@example.com", telefono, Roles.JEFE_BODEGA), id);
+					} else {
+						usuarioService.cambiarEstado(id);
+					}
+				}
+				return null;
+			});
+		}
+		ejecutar(tareas);
+
+		int cambiosDeEstado = (HILOS / 2) * OPERACIONES;
+		var usuario = mongoTemplate.findById(id, Usuario.class);
+		assertThat(usuario.getVersion()).isEqualTo((long) HILOS * OPERACIONES);
+		assertThat(usuario.getActivo()).isEqualTo(cambiosDeEstado % 2 == 0);
+		assertThat(usuario.getRol()).isEqualTo(Roles.JEFE_BODEGA);
+		assertThat(usuario.getContrasena()).isEqualTo("hash");
+	}
+
+	/** Ejecuta las tareas a la vez y propaga el primer error. */
+	private static void ejecutar(List<Callable<Object>> tareas) throws InterruptedException {
+		try (var hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (var futuro : hilos.invokeAll(tareas)) {
+				try {
+					futuro.get();
+				} catch (ExecutionException ex) {
+					throw new AssertionError(ex.getCause());
+				}
+			}
+		}
+	}
+}